@@ -0,0 +1,144 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.shape.Rectangle;
+import org.javafx.anchor.AnchorLayoutScheduler;
+import org.javafx.anchor.AnchorPosition;
+import org.javafx.anchor.AnchorUtilities;
+import org.javafx.anchor.DefaultAnchorUtilities;
+import org.javafx.anchor.NodeAnchor;
+import org.javafx.anchor.PropagationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the memory retained by 20000 anchors installed on the same reference Node with the
+ * {@link PropagationPolicy#IMMEDIATE} and {@link PropagationPolicy#ORDERED} policies. The heap used after a garbage
+ * collection is compared before and after installing the anchors, and the number of bytes per anchor is printed at
+ * the end of each iteration. The measured time is the time to install the anchors.
+ *
+ * @since 0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnchorFootprintBenchmark {
+   private static final int COUNT = 20000;
+   private static final int MAX_GC = 10;
+   @Param({"IMMEDIATE", "ORDERED"})
+   public PropagationPolicy policy;
+   private Rectangle reference;
+   private Rectangle[] nodes;
+   private NodeAnchor[] anchors;
+   private long before;
+
+   @Setup(Level.Trial)
+   public void setUpTrial() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDownTrial() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Setup(Level.Iteration)
+   public void setUp() {
+      AnchorUtilities utils = new DefaultAnchorUtilities();
+      reference = new Rectangle(0, 0, 100, 100);
+      nodes = new Rectangle[COUNT];
+      anchors = new NodeAnchor[COUNT];
+      for (int i = 0; i < COUNT; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+         // create the lazy properties and bounds of the Rectangles, which are not retained by the anchors
+         utils.getXProperty(nodes[i]);
+         utils.getYProperty(nodes[i]);
+         utils.getWidthProperty(nodes[i]);
+         utils.getHeightProperty(nodes[i]);
+         utils.getWidth(nodes[i]);
+      }
+      before = getUsedHeap();
+   }
+
+   @TearDown(Level.Iteration)
+   public void tearDown() {
+      reference.setX(10);
+      AnchorLayoutScheduler.getInstance().flush();
+      long after = getUsedHeap();
+      System.out.println("bytes per anchor: " + ((after - before) / COUNT));
+      for (NodeAnchor anchor : anchors) {
+         anchor.dispose();
+      }
+      anchors = null;
+      nodes = null;
+   }
+
+   /**
+    * Return the heap used after a garbage collection. The collection is requested until the used heap does not
+    * decrease anymore.
+    */
+   private static long getUsedHeap() {
+      MemoryMXBean bean = ManagementFactory.getMemoryMXBean();
+      long used = Long.MAX_VALUE;
+      for (int i = 0; i < MAX_GC; i++) {
+         System.gc();
+         long current = bean.getHeapMemoryUsage().getUsed();
+         if (current >= used) {
+            break;
+         }
+         used = current;
+      }
+      return used;
+   }
+
+   @Benchmark
+   public NodeAnchor[] install() {
+      for (int i = 0; i < COUNT; i++) {
+         anchors[i] = new NodeAnchor(nodes[i]);
+         anchors[i].setPropagationPolicy(policy);
+         anchors[i].anchor(reference, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      }
+      return anchors;
+   }
+}
@@ -0,0 +1,111 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javafx.scene.shape.Rectangle;
+import org.javafx.anchor.AnchorLayoutScheduler;
+import org.javafx.anchor.AnchorPosition;
+import org.javafx.anchor.NodeAnchor;
+import org.javafx.anchor.PropagationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time to install N anchors on one reference Node, and the time to install the four edges of N Nodes
+ * with separate anchoring calls or with one {@link org.javafx.anchor.AnchorSpec} batch for each Node.
+ *
+ * @since 0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnchorInstallBenchmark {
+   @Param({"100", "1000"})
+   public int count;
+   @Param({"IMMEDIATE", "ORDERED", "DEFERRED"})
+   public PropagationPolicy policy;
+   private Rectangle reference;
+   private Rectangle[] nodes;
+
+   @Setup(Level.Invocation)
+   public void setUp() {
+      BenchmarkUtilities.setUpHeadless();
+      reference = new Rectangle(0, 0, 100, 100);
+      nodes = new Rectangle[count];
+      for (int i = 0; i < count; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+      }
+   }
+
+   @Benchmark
+   public void install(Blackhole hole) {
+      for (int i = 0; i < count; i++) {
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(policy);
+         hole.consume(anchor.anchor(reference, AnchorPosition.LEFT, AnchorPosition.RIGHT));
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   @Benchmark
+   public void installEdges(Blackhole hole) {
+      for (int i = 0; i < count; i++) {
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(policy);
+         hole.consume(anchor.anchor(reference, AnchorPosition.LEFT, AnchorPosition.LEFT));
+         hole.consume(anchor.anchor(reference, AnchorPosition.RIGHT, AnchorPosition.RIGHT));
+         hole.consume(anchor.anchor(reference, AnchorPosition.TOP, AnchorPosition.BOTTOM));
+         hole.consume(anchor.anchor(reference, AnchorPosition.BOTTOM, AnchorPosition.BOTTOM));
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   @Benchmark
+   public void installBatch(Blackhole hole) {
+      for (int i = 0; i < count; i++) {
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(policy);
+         hole.consume(anchor.batch().fillWidth(reference).top(reference, AnchorPosition.BOTTOM)
+            .bottom(reference, AnchorPosition.BOTTOM).apply());
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+}
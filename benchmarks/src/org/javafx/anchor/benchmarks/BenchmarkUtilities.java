@@ -0,0 +1,77 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import javafx.scene.shape.Rectangle;
+import org.javafx.anchor.AnchorLayoutScheduler;
+import org.javafx.anchor.AnchorPosition;
+import org.javafx.anchor.NodeAnchor;
+import org.javafx.anchor.PropagationPolicy;
+
+/**
+ * Utilities shared by the benchmarks. The benchmarks only use the JavaFX property and shape classes, and never
+ * start the JavaFX toolkit.
+ *
+ * @since 0.2
+ */
+public final class BenchmarkUtilities {
+   private BenchmarkUtilities() {
+   }
+
+   /**
+    * Configure the library so that it can be used without the JavaFX toolkit. The deferred anchors are only
+    * resolved when the benchmarks flush the {@link AnchorLayoutScheduler}.
+    */
+   public static void setUpHeadless() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   /**
+    * Create a chain of Rectangles, each Rectangle being anchored on the right of the previous one.
+    *
+    * @param depth the number of anchored Rectangles
+    * @param policy the propagation policy
+    * @return the Rectangles, the first one being the reference of the chain
+    */
+   public static Rectangle[] createChain(int depth, PropagationPolicy policy) {
+      Rectangle[] nodes = new Rectangle[depth + 1];
+      nodes[0] = new Rectangle(0, 0, 10, 10);
+      for (int i = 1; i <= depth; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(policy);
+         anchor.anchor(nodes[i - 1], AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+      return nodes;
+   }
+}
@@ -0,0 +1,122 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Rectangle;
+import org.javafx.anchor.AnchorUtilities;
+import org.javafx.anchor.DefaultAnchorUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the type dispatch of the {@link DefaultAnchorUtilities}, which uses the geometry adapters, with the
+ * previous instanceof chain. The Nodes are either all of the same type, or a mix of several types.
+ *
+ * @since 0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+   private static final int COUNT = 1024;
+   @Param({"Rectangle", "Arc", "mixed"})
+   public String nodes;
+   private Node[] array;
+   private final AnchorUtilities adapters = new DefaultAnchorUtilities();
+   private final InstanceofAnchorUtilities instanceofChain = new InstanceofAnchorUtilities();
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      array = new Node[COUNT];
+      for (int i = 0; i < COUNT; i++) {
+         array[i] = createNode(i);
+      }
+   }
+
+   private Node createNode(int index) {
+      int type;
+      if (nodes.equals("Rectangle")) {
+         type = 1;
+      } else if (nodes.equals("Arc")) {
+         type = 4;
+      } else {
+         type = index % 5;
+      }
+      switch (type) {
+         case 0:
+            return new Pane();
+         case 1:
+            return new Rectangle(index, 0, 10, 10);
+         case 2:
+            return new Circle(index, 0, 10);
+         case 3:
+            return new Ellipse(index, 0, 10, 5);
+         default:
+            return new Arc(index, 0, 10, 5, 0, 90);
+      }
+   }
+
+   @Benchmark
+   public double adapters() {
+      double sum = 0;
+      for (Node node : array) {
+         double x = adapters.getX(node);
+         adapters.setX(node, x);
+         sum += x + adapters.getWidth(node);
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public double instanceofChain() {
+      double sum = 0;
+      for (Node node : array) {
+         double x = instanceofChain.getX(node);
+         instanceofChain.setX(node, x);
+         sum += x + instanceofChain.getWidth(node);
+      }
+      return sum;
+   }
+}
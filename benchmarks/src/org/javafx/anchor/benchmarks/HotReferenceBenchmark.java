@@ -0,0 +1,103 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javafx.scene.shape.Rectangle;
+import org.javafx.anchor.AnchorLayoutScheduler;
+import org.javafx.anchor.AnchorPosition;
+import org.javafx.anchor.NodeAnchor;
+import org.javafx.anchor.PropagationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the time to propagate one move of a "hot" reference Node, which has a number of dependents, in a layout
+ * which also has many "cold" anchored Nodes which do not depend on it. The half of the hot dependents are anchored
+ * to the previous dependent, so that the dependency graph is not flat. The propagation time should only depend on
+ * the number of hot dependents.
+ *
+ * @since 0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HotReferenceBenchmark {
+   @Param({"10", "100", "1000"})
+   public int hot;
+   @Param({"0", "10000"})
+   public int cold;
+   @Param({"ORDERED", "DEFERRED"})
+   public PropagationPolicy policy;
+   private Rectangle reference;
+   private Rectangle[] nodes;
+   private double x = 0;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      BenchmarkUtilities.setUpHeadless();
+      reference = new Rectangle(0, 0, 100, 100);
+      nodes = new Rectangle[hot];
+      for (int i = 0; i < hot; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(policy);
+         if (i % 2 == 0) {
+            anchor.anchor(reference, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+         } else {
+            anchor.batch().left(nodes[i - 1], AnchorPosition.RIGHT).top(reference, AnchorPosition.BOTTOM).apply();
+         }
+      }
+      Rectangle coldReference = new Rectangle(0, 0, 100, 100);
+      for (int i = 0; i < cold; i++) {
+         NodeAnchor anchor = new NodeAnchor(new Rectangle(0, 0, 10, 10));
+         anchor.setPropagationPolicy(policy);
+         anchor.anchor(coldReference, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   @Benchmark
+   public double propagate() {
+      x = x == 0 ? 1 : 0;
+      reference.setX(x);
+      AnchorLayoutScheduler.getInstance().flush();
+      return nodes[hot - 1].getX();
+   }
+}
@@ -0,0 +1,110 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+
+/**
+ * The instanceof chain which was used by the DefaultAnchorUtilities before the geometry adapters. It is only kept
+ * as a baseline for the {@link DispatchBenchmark}.
+ *
+ * @since 0.2
+ */
+public class InstanceofAnchorUtilities {
+   public double getX(Node node) {
+      if (node instanceof Region) {
+         return ((Region) node).getLayoutX();
+      } else if (node instanceof Rectangle) {
+         return ((Rectangle) node).getX();
+      } else if (node instanceof Circle) {
+         Circle circle = (Circle) node;
+         return circle.getCenterX() - circle.getRadius();
+      } else if (node instanceof Ellipse) {
+         Ellipse el = (Ellipse) node;
+         return el.getCenterX() - el.getRadiusX();
+      } else if (node instanceof Arc) {
+         Arc arc = (Arc) node;
+         return arc.getCenterX() - arc.getRadiusX();
+      } else if (node instanceof Text) {
+         Text text = (Text) node;
+         return text.getX();
+      } else {
+         return node.layoutBoundsProperty().get().getMinX();
+      }
+   }
+
+   public void setX(Node node, double value) {
+      if (node instanceof Region) {
+         ((Region) node).setLayoutX(value);
+      } else if (node instanceof Rectangle) {
+         ((Rectangle) node).setX(value);
+      } else if (node instanceof Circle) {
+         Circle circle = (Circle) node;
+         circle.setCenterX(value + circle.getRadius());
+      } else if (node instanceof Ellipse) {
+         Ellipse el = (Ellipse) node;
+         el.setCenterX(value + el.getRadiusX());
+      } else if (node instanceof Arc) {
+         Arc arc = (Arc) node;
+         arc.setCenterX(value + arc.getRadiusX());
+      } else if (node instanceof Text) {
+         Text text = (Text) node;
+         text.setX(value);
+      } else {
+         node.setLayoutX(value);
+      }
+   }
+
+   public double getWidth(Node node) {
+      if (node instanceof Region) {
+         return ((Region) node).getPrefWidth();
+      } else if (node instanceof Rectangle) {
+         return ((Rectangle) node).getWidth();
+      } else if (node instanceof Circle) {
+         return ((Circle) node).getRadius() * 2d;
+      } else if (node instanceof Ellipse) {
+         return ((Ellipse) node).getRadiusX() * 2d;
+      } else if (node instanceof Text) {
+         return ((Text) node).getWrappingWidth();
+      } else if (node instanceof Arc) {
+         return ((Arc) node).getRadiusX() * 2d;
+      } else {
+         return node.layoutBoundsProperty().get().getWidth();
+      }
+   }
+}
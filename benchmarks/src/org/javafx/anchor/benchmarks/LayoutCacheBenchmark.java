@@ -0,0 +1,127 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.javafx.anchor.AnchorPosition;
+import org.javafx.anchor.model.AnchorLayoutCache;
+import org.javafx.anchor.model.AnchorModel;
+import org.javafx.anchor.model.AnchorSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the time of the first layout of a JavaFX-free {@link AnchorModel}, solved by the {@link AnchorSolver} or
+ * restored from an {@link AnchorLayoutCache} opened from its file. The time of the restore includes the hashes of
+ * the graph and of the initial geometry.
+ *
+ * @since 0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LayoutCacheBenchmark {
+   private static final int ROW_LENGTH = 20;
+   @Param({"1000", "100000"})
+   public int nodes;
+   @Param({"false", "true"})
+   public boolean cached;
+   private AnchorModel model;
+   private double[] initial;
+   private final AnchorSolver solver = new AnchorSolver();
+   private AnchorLayoutCache cache;
+   private Path file;
+
+   @Setup(Level.Trial)
+   public void setUp() throws IOException {
+      model = new AnchorModel(nodes);
+      int root = model.addNode(0, 0, 1000, 800);
+      int rowHead = root;
+      int previous = root;
+      for (int i = 1; i < nodes; i++) {
+         int node = model.addNode(0, 0, 10, 20);
+         if (i % ROW_LENGTH == 1) {
+            model.anchorInParent(node, AnchorPosition.LEFT, root, AnchorPosition.LEFT);
+            if (rowHead == root) {
+               model.anchorInParent(node, AnchorPosition.TOP, root, AnchorPosition.TOP);
+            } else {
+               model.anchor(node, AnchorPosition.TOP, rowHead, AnchorPosition.BOTTOM);
+            }
+            rowHead = node;
+         } else {
+            model.anchor(node, AnchorPosition.LEFT, previous, AnchorPosition.RIGHT);
+            model.anchor(node, AnchorPosition.TOP, previous, AnchorPosition.TOP);
+         }
+         previous = node;
+      }
+      initial = model.getGeometry().clone();
+      file = Files.createTempFile("anchors", ".cache");
+      Files.delete(file);
+      AnchorLayoutCache writer = AnchorLayoutCache.open(file);
+      long inputHash = AnchorLayoutCache.hashGeometry(model);
+      solver.solve(model);
+      writer.put(model, AnchorLayoutCache.hashGraph(model), inputHash, 1000, 800);
+      writer.save();
+      cache = AnchorLayoutCache.open(file);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() throws IOException {
+      Files.deleteIfExists(file);
+   }
+
+   @Benchmark
+   public double firstLayout() {
+      System.arraycopy(initial, 0, model.getGeometry(), 0, initial.length);
+      if (cached) {
+         long graphHash = AnchorLayoutCache.hashGraph(model);
+         long inputHash = AnchorLayoutCache.hashGeometry(model);
+         if (!cache.restore(model, graphHash, inputHash, 1000, 800)) {
+            throw new IllegalStateException("Cache miss");
+         }
+      } else {
+         solver.solve(model);
+      }
+      return model.getX(model.getNodeCount() - 1);
+   }
+}
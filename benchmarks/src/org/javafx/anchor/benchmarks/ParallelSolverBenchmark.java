@@ -0,0 +1,109 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.javafx.anchor.AnchorPosition;
+import org.javafx.anchor.model.AnchorModel;
+import org.javafx.anchor.model.AnchorSolver;
+import org.javafx.anchor.model.ParallelAnchorSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the time to solve a JavaFX-free {@link AnchorModel} which contains independent panels, with the
+ * {@link AnchorSolver} and with the {@link ParallelAnchorSolver} on the common pool. Each panel has a root anchored
+ * to the workspace root, and rows of widgets anchored to the root of the panel, like in the {@link SolverBenchmark}.
+ * The speedup of the parallel solver depends on the parallelism of the common pool.
+ *
+ * @since 0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelSolverBenchmark {
+   private static final int ROW_LENGTH = 20;
+   private static final int PANEL_SIZE = 1000;
+   @Param({"10", "100"})
+   public int panels;
+   @Param({"false", "true"})
+   public boolean parallel;
+   private AnchorModel model;
+   private final AnchorSolver solver = new AnchorSolver();
+   private final ParallelAnchorSolver parallelSolver = new ParallelAnchorSolver();
+   private double width = 100;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      model = new AnchorModel(panels * (PANEL_SIZE + 1) + 1);
+      int workspace = model.addNode(0, 0, 1000, 800);
+      for (int panel = 0; panel < panels; panel++) {
+         int root = model.addNode(0, 0, 100, 20);
+         model.anchor(root, AnchorPosition.LEFT, workspace, AnchorPosition.LEFT);
+         model.anchor(root, AnchorPosition.RIGHT, workspace, AnchorPosition.RIGHT);
+         int rowHead = root;
+         int previous = root;
+         for (int i = 1; i < PANEL_SIZE; i++) {
+            int node = model.addNode(0, 0, 10, 20);
+            if (i % ROW_LENGTH == 0) {
+               model.anchor(node, AnchorPosition.LEFT, rowHead, AnchorPosition.LEFT);
+               model.anchor(node, AnchorPosition.TOP, rowHead, AnchorPosition.BOTTOM);
+               rowHead = node;
+            } else {
+               model.anchor(node, AnchorPosition.LEFT, previous, AnchorPosition.RIGHT);
+               model.anchor(node, AnchorPosition.TOP, previous, AnchorPosition.TOP);
+            }
+            previous = node;
+         }
+      }
+      parallelSolver.setThreshold(0);
+   }
+
+   @Benchmark
+   public double solve() {
+      width = width == 1000 ? 1001 : 1000;
+      model.setWidth(0, width);
+      if (parallel) {
+         parallelSolver.solve(model);
+      } else {
+         solver.solve(model);
+      }
+      return model.getX(model.getNodeCount() - 1);
+   }
+}
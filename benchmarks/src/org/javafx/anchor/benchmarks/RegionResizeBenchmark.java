@@ -0,0 +1,130 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import org.javafx.anchor.AnchorUtilities;
+import org.javafx.anchor.DefaultAnchorUtilities;
+import org.javafx.anchor.RegionResizeStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the resize of a Region nested in several Panes with each {@link RegionResizeStrategy}, including the
+ * layout pass which follows the resize. The number of calls to <code>requestLayout()</code> on the Region and its
+ * parents for each resize is printed at the end of each trial.
+ *
+ * @since 0.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegionResizeBenchmark {
+   @Param({"1", "8"})
+   public int depth;
+   @Param({"PINNED_BOUNDS", "PREF_SIZE", "RESIZE"})
+   public RegionResizeStrategy strategy;
+   private AnchorUtilities utils;
+   private Pane root;
+   private CountingRegion region;
+   private double size = 100;
+   private long resizes = 0;
+   private static long layoutRequests = 0;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      utils = new DefaultAnchorUtilities(strategy);
+      region = new CountingRegion();
+      Pane parent = new CountingPane();
+      root = parent;
+      for (int i = 1; i < depth; i++) {
+         Pane child = new CountingPane();
+         parent.getChildren().add(child);
+         parent = child;
+      }
+      parent.getChildren().add(region);
+      if (strategy == RegionResizeStrategy.RESIZE) {
+         // the parent would resize the Region to its preferred size
+         region.setManaged(false);
+      }
+      root.layout();
+      layoutRequests = 0;
+      resizes = 0;
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      System.out.println("requestLayout calls per resize: " + ((double) layoutRequests / resizes));
+   }
+
+   @Benchmark
+   public double resize() {
+      size = size == 100 ? 200 : 100;
+      utils.setWidth(region, size);
+      utils.setHeight(region, size);
+      resizes++;
+      root.layout();
+      return region.getWidth();
+   }
+
+   /**
+    * A Pane which counts the layout requests.
+    */
+   private static class CountingPane extends Pane {
+      @Override
+      public void requestLayout() {
+         layoutRequests++;
+         super.requestLayout();
+      }
+   }
+
+   /**
+    * A Region which counts the layout requests.
+    */
+   private static class CountingRegion extends Region {
+      @Override
+      public void requestLayout() {
+         layoutRequests++;
+         super.requestLayout();
+      }
+   }
+}
@@ -0,0 +1,169 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.beans.value.WeakChangeListener;
+
+/**
+ * A handle on the anchors set by one call of a {@link NodeAnchor} anchoring method. Disposing the handle removes
+ * every listener which was installed for these anchors, so that the anchored Node is not kept reachable by the
+ * reference Node anymore.
+ *
+ * <p>
+ * If the {@link NodeAnchor} uses weak listeners, the binding keeps the only strong references on the listeners
+ * installed on the reference Nodes, and the binding is itself only reachable from the anchored Node.</p>
+ *
+ * @since 0.2
+ */
+public class AnchorBinding {
+   private final NodeAnchor anchor;
+   /**
+    * The listeners registrations, only created for the {@link PropagationPolicy#IMMEDIATE} anchors.
+    */
+   private List<Registration<?>> registrations = null;
+   private List<ChangeListener<?>> retainedListeners = null;
+   private int constraintCount = 0;
+   private boolean isDisposed = false;
+
+   AnchorBinding(NodeAnchor anchor) {
+      this.anchor = anchor;
+   }
+
+   /**
+    * Return the NodeAnchor which created this binding.
+    *
+    * @return the NodeAnchor
+    */
+   public NodeAnchor getNodeAnchor() {
+      return anchor;
+   }
+
+   /**
+    * Add a listener to an observable value, and keep track of the registration.
+    *
+    * @param value the observable value
+    * @param listener the listener
+    */
+   <T> void addListener(ObservableValue<T> value, ChangeListener<? super T> listener) {
+      value.addListener(listener);
+      if (registrations == null) {
+         registrations = new ArrayList<>();
+      }
+      registrations.add(new Registration<>(value, listener));
+   }
+
+   /**
+    * Add a weak listener to an observable value. The binding keeps the only strong reference on the listener, so
+    * that the observable value does not keep the listener reachable.
+    *
+    * @param value the observable value
+    * @param listener the listener
+    */
+   <T> void addWeakListener(ObservableValue<T> value, ChangeListener<T> listener) {
+      if (retainedListeners == null) {
+         retainedListeners = new ArrayList<>();
+      }
+      retainedListeners.add(listener);
+      addListener(value, new WeakChangeListener<>(listener));
+   }
+
+   /**
+    * Count a constraint defined by this binding.
+    */
+   void addConstraint() {
+      constraintCount++;
+   }
+
+   /**
+    * Return the number of listeners installed by this binding.
+    *
+    * @return the number of listeners
+    */
+   int getListenerCount() {
+      return registrations != null ? registrations.size() : 0;
+   }
+
+   /**
+    * Return the number of constraints defined by this binding.
+    *
+    * @return the number of constraints
+    */
+   int getConstraintCount() {
+      return constraintCount;
+   }
+
+   /**
+    * Remove every listener installed for the anchors of this binding. The anchored Node keeps its current
+    * position and size.
+    */
+   public void dispose() {
+      if (isDisposed) {
+         return;
+      }
+      isDisposed = true;
+      if (registrations != null) {
+         for (Registration<?> registration : registrations) {
+            registration.remove();
+         }
+         registrations = null;
+      }
+      retainedListeners = null;
+      anchor.release(this);
+   }
+
+   /**
+    * Return true if the binding has been disposed.
+    *
+    * @return true if the binding has been disposed
+    */
+   public boolean isDisposed() {
+      return isDisposed;
+   }
+
+   private static class Registration<T> {
+      private final ObservableValue<T> value;
+      private final ChangeListener<? super T> listener;
+
+      private Registration(ObservableValue<T> value, ChangeListener<? super T> listener) {
+         this.value = value;
+         this.listener = listener;
+      }
+
+      private void remove() {
+         value.removeListener(listener);
+      }
+   }
+}
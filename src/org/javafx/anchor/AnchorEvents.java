@@ -0,0 +1,141 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import jdk.jfr.EventType;
+
+/**
+ * Emits the Java Flight Recorder events of the anchors. The events are enabled and configured with the standard
+ * JFR settings, for example:
+ * <pre>
+ * java -XX:StartFlightRecording:settings=profile,filename=anchors.jfr ...
+ * jfr print --events org.javafx.anchor.Propagation anchors.jfr
+ * </pre>
+ *
+ * <p>
+ * No event is created while its type is not enabled by a recording. This class is only called by the
+ * {@link AnchorFlightRecorder}, and only if the {@code jdk.jfr} module is available.</p>
+ *
+ * @since 0.2
+ */
+final class AnchorEvents {
+   private static final EventType INSTALLED_TYPE = EventType.getEventType(AnchorInstalledEvent.class);
+   private static final EventType PROPAGATION_TYPE = EventType.getEventType(PropagationEvent.class);
+   private static final EventType CYCLE_TYPE = EventType.getEventType(CycleDetectedEvent.class);
+
+   private AnchorEvents() {
+   }
+
+   /**
+    * Emit an {@link AnchorInstalledEvent}.
+    *
+    * @param nodeClass the class of the anchored Node
+    * @param referenceClass the class of the reference Node
+    * @param nodeAnchor the anchor position on the anchored Node
+    * @param referenceAnchor the anchor position on the reference Node
+    * @param policy the propagation policy
+    * @param parent true if the reference Node is the parent of the anchored Node
+    */
+   static void anchorInstalled(Class<?> nodeClass, Class<?> referenceClass, String nodeAnchor,
+      String referenceAnchor, String policy, boolean parent) {
+      if (INSTALLED_TYPE.isEnabled()) {
+         AnchorInstalledEvent event = new AnchorInstalledEvent();
+         if (event.shouldCommit()) {
+            event.nodeClass = nodeClass;
+            event.referenceClass = referenceClass;
+            event.nodeAnchor = nodeAnchor;
+            event.referenceAnchor = referenceAnchor;
+            event.policy = policy;
+            event.parent = parent;
+            event.commit();
+         }
+      }
+   }
+
+   /**
+    * Emit a {@link CycleDetectedEvent}.
+    *
+    * @param nodeClass the class of the anchored Node
+    * @param referenceClass the class of the reference Node
+    */
+   static void cycleDetected(Class<?> nodeClass, Class<?> referenceClass) {
+      if (CYCLE_TYPE.isEnabled()) {
+         CycleDetectedEvent event = new CycleDetectedEvent();
+         if (event.shouldCommit()) {
+            event.nodeClass = nodeClass;
+            event.referenceClass = referenceClass;
+            event.commit();
+         }
+      }
+   }
+
+   /**
+    * Start a {@link PropagationEvent}.
+    *
+    * @return the event, or null if the event is not enabled
+    */
+   static Object beginPropagation() {
+      if (PROPAGATION_TYPE.isEnabled()) {
+         PropagationEvent event = new PropagationEvent();
+         event.begin();
+         return event;
+      } else {
+         return null;
+      }
+   }
+
+   /**
+    * End and emit a {@link PropagationEvent} started by {@link #beginPropagation()}.
+    *
+    * @param propagation the event returned by {@link #beginPropagation()}
+    * @param policy the propagation policy of the first updated anchor
+    * @param nodeClass the class of the first updated Node
+    * @param nodeAnchor the anchor position on the first updated Node, or null
+    * @param referenceAnchor the anchor position on the reference Node, or null
+    * @param depth the depth of the cascade
+    * @param updates the number of updates
+    */
+   static void endPropagation(Object propagation, String policy, Class<?> nodeClass, String nodeAnchor,
+      String referenceAnchor, int depth, int updates) {
+      PropagationEvent event = (PropagationEvent) propagation;
+      event.end();
+      if (event.shouldCommit()) {
+         event.policy = policy;
+         event.nodeClass = nodeClass;
+         event.nodeAnchor = nodeAnchor;
+         event.referenceAnchor = referenceAnchor;
+         event.depth = depth;
+         event.updates = updates;
+         event.commit();
+      }
+   }
+}
@@ -0,0 +1,164 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import javafx.scene.Node;
+
+/**
+ * Emits the Java Flight Recorder events of the anchors through the {@link AnchorEvents}. If the {@code jdk.jfr}
+ * module is not available, for example on a Java 8 runtime older than 8u262, the events are not emitted and the
+ * {@link AnchorEvents} and the event classes are never loaded.
+ *
+ * <p>
+ * The propagation of the {@link PropagationPolicy#IMMEDIATE} anchors is a cascade of nested listeners. The event of
+ * this propagation is started by the outermost listener, and emitted when this listener ends.</p>
+ *
+ * @since 0.2
+ */
+final class AnchorFlightRecorder {
+   private static final boolean AVAILABLE = isAvailable();
+   private static Object immediateEvent = null;
+   private static int immediateDepth = 0;
+   private static int immediateMaxDepth = 0;
+   private static int immediateUpdates = 0;
+   private static Class<?> immediateNodeClass = null;
+   private static AnchorPosition immediateNodeAnchor = null;
+   private static AnchorPosition immediateRefAnchor = null;
+
+   private AnchorFlightRecorder() {
+   }
+
+   private static boolean isAvailable() {
+      try {
+         Class.forName("jdk.jfr.Event");
+         return true;
+      } catch (ClassNotFoundException | LinkageError e) {
+         return false;
+      }
+   }
+
+   /**
+    * Emit the event of an installed anchor.
+    *
+    * @param node the anchored Node
+    * @param nodeRef the reference Node
+    * @param nodeAnchor the anchor position on the anchored Node
+    * @param refAnchor the anchor position on the reference Node
+    * @param policy the propagation policy
+    * @param isParent true if the reference Node is the parent of the anchored Node
+    */
+   static void anchorInstalled(Node node, Node nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor,
+      PropagationPolicy policy, boolean isParent) {
+      if (AVAILABLE) {
+         AnchorEvents.anchorInstalled(node.getClass(), nodeRef == null ? null : nodeRef.getClass(), nodeAnchor.name(),
+            refAnchor.name(), policy.name(), isParent);
+      }
+   }
+
+   /**
+    * Emit the event of a rejected cycle.
+    *
+    * @param node the anchored Node
+    * @param nodeRef the reference Node
+    */
+   static void cycleDetected(Node node, Node nodeRef) {
+      if (AVAILABLE) {
+         AnchorEvents.cycleDetected(node.getClass(), nodeRef.getClass());
+      }
+   }
+
+   /**
+    * Start the event of a resolution by the {@link AnchorLayoutScheduler}.
+    *
+    * @return the event, or null if the event is not enabled
+    */
+   static Object beginPropagation() {
+      return AVAILABLE ? AnchorEvents.beginPropagation() : null;
+   }
+
+   /**
+    * Emit the event of a resolution by the {@link AnchorLayoutScheduler}.
+    *
+    * @param event the event returned by {@link #beginPropagation()}
+    * @param first the first resolved anchor
+    * @param depth the number of levels of the resolved anchors
+    * @param anchors the number of resolved anchors
+    */
+   static void endPropagation(Object event, NodeAnchor first, int depth, int anchors) {
+      if (event != null && first != null) {
+         AnchorEvents.endPropagation(event, first.getPropagationPolicy().name(), first.getNode().getClass(), null,
+            null, depth, anchors);
+      }
+   }
+
+   /**
+    * Record the start of a listener of an {@link PropagationPolicy#IMMEDIATE} anchor.
+    *
+    * @param node the anchored Node
+    * @param nodeAnchor the anchor position on the anchored Node
+    * @param refAnchor the anchor position on the reference Node
+    */
+   static void enterListener(Node node, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      if (immediateEvent != null) {
+         immediateDepth++;
+         immediateMaxDepth = Math.max(immediateMaxDepth, immediateDepth);
+         immediateUpdates++;
+      } else if (AVAILABLE) {
+         immediateEvent = AnchorEvents.beginPropagation();
+         if (immediateEvent != null) {
+            immediateDepth = 1;
+            immediateMaxDepth = 1;
+            immediateUpdates = 1;
+            immediateNodeClass = node.getClass();
+            immediateNodeAnchor = nodeAnchor;
+            immediateRefAnchor = refAnchor;
+         }
+      }
+   }
+
+   /**
+    * Record the end of a listener of an {@link PropagationPolicy#IMMEDIATE} anchor.
+    */
+   static void exitListener() {
+      if (immediateEvent != null) {
+         immediateDepth--;
+         if (immediateDepth == 0) {
+            Object event = immediateEvent;
+            immediateEvent = null;
+            AnchorEvents.endPropagation(event, PropagationPolicy.IMMEDIATE.name(), immediateNodeClass,
+               immediateNodeAnchor == null ? null : immediateNodeAnchor.name(),
+               immediateRefAnchor == null ? null : immediateRefAnchor.name(), immediateMaxDepth, immediateUpdates);
+            immediateNodeClass = null;
+         }
+      }
+   }
+}
@@ -0,0 +1,564 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.binding.DoubleExpression;
+import javafx.scene.Node;
+
+/**
+ * The dependency graph of the {@link NodeAnchor}s. A NodeAnchor depends on the NodeAnchors of the reference Nodes
+ * of its constraints. The graph is not stored in a global structure: each Node keeps in its properties a
+ * {@link Links} object with the NodeAnchors which anchor it and the NodeAnchors which depend on it, so that the
+ * graph has the same lifetime as the Nodes.
+ *
+ * <p>
+ * The level of a NodeAnchor is 0 if its reference Nodes are not anchored, and else one more than the maximum level
+ * of the NodeAnchors it depends on. Resolving the anchors by increasing level ensures that each anchor is resolved
+ * after all the anchors it depends on. The levels are computed lazily and cached. A change of the constraints of a
+ * NodeAnchor only invalidates its own level if its anchored Node is not the reference of any constraint, and else
+ * invalidates all the levels.</p>
+ *
+ * <p>
+ * The Links of a Node are also the only listener installed on the position and size properties of the Node for the
+ * resolved constraints, whatever the number of NodeAnchors which depend on the Node. When the Node changes, the
+ * {@link AnchorLayoutScheduler} uses the Links to mark the NodeAnchors of the Node and all its transitive
+ * dependents as dirty before resolving any of them, so that only the affected anchors are resolved, each only
+ * once. The Links only keep weak references on the dependents which use weak listeners.</p>
+ *
+ * <p>
+ * This class must be used on the JavaFX Application Thread.</p>
+ *
+ * @since 0.2
+ */
+final class AnchorGraph {
+   private static final String LINKS_KEY = AnchorGraph.class.getName();
+   private static final NodeAnchor[] NO_ANCHORS = new NodeAnchor[0];
+   private static final Object[] NO_DEPENDENTS = new Object[0];
+   /**
+    * The version of the graph, incremented each time the graph changes.
+    */
+   private static int version = 0;
+   /**
+    * The level of a NodeAnchor which is on the stack of {@link #getLevel(NodeAnchor)}, but whose dependencies have
+    * not been pushed yet.
+    */
+   private static final int PENDING_LEVEL = -1;
+   /**
+    * The level of a NodeAnchor whose dependencies are on the stack of {@link #getLevel(NodeAnchor)}.
+    */
+   private static final int VISITING_LEVEL = -2;
+   /**
+    * The stack used to compute the levels, reused between the calls.
+    */
+   private static final List<NodeAnchor> LEVEL_STACK = new ArrayList<>();
+
+   private AnchorGraph() {
+   }
+
+   /**
+    * Return the Links of a Node.
+    *
+    * @param node the Node
+    * @return the Links, or null if the Node is neither anchored nor a reference of a constraint
+    */
+   static Links getLinks(Node node) {
+      return (Links) node.getProperties().get(LINKS_KEY);
+   }
+
+   private static Links getOrCreateLinks(Node node) {
+      Map<Object, Object> properties = node.getProperties();
+      Links links = (Links) properties.get(LINKS_KEY);
+      if (links == null) {
+         links = new Links(node);
+         properties.put(LINKS_KEY, links);
+      }
+      return links;
+   }
+
+   private static void removeIfUnused(Links links) {
+      if (links.anchorCount == 0 && links.dependentCount == 0 && links.referenceCount == 0) {
+         links.node.getProperties().remove(LINKS_KEY);
+      }
+   }
+
+   /**
+    * Register a NodeAnchor in the Links of its anchored Node.
+    *
+    * @param anchor the NodeAnchor
+    */
+   static void register(NodeAnchor anchor) {
+      getOrCreateLinks(anchor.getNode()).addAnchor(anchor);
+      invalidate(anchor);
+   }
+
+   /**
+    * Remove a NodeAnchor from the Links of its anchored Node.
+    *
+    * @param anchor the NodeAnchor
+    */
+   static void unregister(NodeAnchor anchor) {
+      Links links = getLinks(anchor.getNode());
+      if (links != null) {
+         links.removeAnchor(anchor);
+      }
+      invalidate(anchor);
+      if (links != null) {
+         removeIfUnused(links);
+      }
+   }
+
+   /**
+    * Must be called when a constraint is added to a NodeAnchor.
+    *
+    * @param anchor the NodeAnchor
+    * @param nodeRef the reference Node of the constraint
+    */
+   static void addReference(NodeAnchor anchor, Node nodeRef) {
+      if (nodeRef != null) {
+         getOrCreateLinks(nodeRef).referenceCount++;
+      }
+      invalidate(anchor);
+   }
+
+   /**
+    * Must be called when a constraint is removed from a NodeAnchor.
+    *
+    * @param anchor the NodeAnchor
+    * @param nodeRef the reference Node of the constraint
+    */
+   static void removeReference(NodeAnchor anchor, Node nodeRef) {
+      invalidate(anchor);
+      Links links = nodeRef != null ? getLinks(nodeRef) : null;
+      if (links != null) {
+         links.referenceCount--;
+         removeIfUnused(links);
+      }
+   }
+
+   /**
+    * Invalidate the cached level of a NodeAnchor. If no constraint uses the anchored Node as reference, the level
+    * of no other NodeAnchor depends on this NodeAnchor, so only its own level is invalidated. Else the levels of
+    * all the NodeAnchors are invalidated.
+    *
+    * @param anchor the NodeAnchor
+    */
+   private static void invalidate(NodeAnchor anchor) {
+      Links links = getLinks(anchor.getNode());
+      if (links == null || links.referenceCount == 0) {
+         anchor.levelVersion = -1;
+      } else {
+         version++;
+      }
+   }
+
+   /**
+    * Start or stop listening to the anchored Node of a NodeAnchor, depending on if the NodeAnchor has resolved
+    * constraints.
+    *
+    * @param anchor the NodeAnchor
+    */
+   static void updateObserved(NodeAnchor anchor) {
+      Links links = getLinks(anchor.getNode());
+      if (links != null) {
+         links.updateListener(anchor.getAnchorUtilities());
+      }
+   }
+
+   /**
+    * Add a NodeAnchor to the dependents of a reference Node.
+    *
+    * @param nodeRef the reference Node
+    * @param anchor the NodeAnchor
+    */
+   static void addDependent(Node nodeRef, NodeAnchor anchor) {
+      // the caller ensures that the NodeAnchor is not already a dependent
+      Links links = getOrCreateLinks(nodeRef);
+      links.addDependent(anchor);
+      links.updateListener(anchor.getAnchorUtilities());
+   }
+
+   /**
+    * Remove a NodeAnchor from the dependents of a reference Node.
+    *
+    * @param nodeRef the reference Node
+    * @param anchor the NodeAnchor
+    */
+   static void removeDependent(Node nodeRef, NodeAnchor anchor) {
+      Links links = getLinks(nodeRef);
+      if (links != null) {
+         links.removeDependent(anchor);
+         links.updateListener(anchor.getAnchorUtilities());
+         removeIfUnused(links);
+      }
+   }
+
+   /**
+    * Return the number of NodeAnchors which have resolved constraints on a reference Node.
+    *
+    * @param nodeRef the reference Node
+    * @return the number of dependents
+    */
+   static int getDependentCount(Node nodeRef) {
+      Links links = getLinks(nodeRef);
+      return links != null ? links.dependentCount : 0;
+   }
+
+   /**
+    * Return true if a Node depends on another Node, meaning that the Node is the other Node, or that the Node is
+    * anchored to the other Node, directly or through other anchored Nodes.
+    *
+    * <p>
+    * The level of a Node is always greater than the level of its references, so the Node can not depend on the
+    * other Node if its level is not greater than the level of the other Node, and the search does not visit the
+    * Nodes whose level is not greater than the level of the other Node.</p>
+    *
+    * @param node the Node
+    * @param other the other Node
+    * @return true if the Node depends on the other Node
+    */
+   static boolean dependsOn(Node node, Node other) {
+      if (node == other) {
+         return true;
+      }
+      Links otherLinks = getLinks(other);
+      if (otherLinks == null || otherLinks.referenceCount == 0) {
+         return false;
+      }
+      int otherLevel = getNodeLevel(otherLinks);
+      if (getNodeLevel(getLinks(node)) <= otherLevel) {
+         return false;
+      }
+      Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+      List<Node> stack = new ArrayList<>();
+      stack.add(node);
+      while (!stack.isEmpty()) {
+         Node current = stack.remove(stack.size() - 1);
+         if (current == other) {
+            return true;
+         }
+         Links links = getLinks(current);
+         if (links != null && getNodeLevel(links) > otherLevel && visited.add(current)) {
+            for (int i = 0; i < links.anchorCount; i++) {
+               NodeAnchor anchor = links.anchors[i];
+               for (int j = 0; j < anchor.getConstraintCount(); j++) {
+                  stack.add(anchor.getReference(j));
+               }
+            }
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Return the level of a Node, which is 0 if the Node is not anchored, else the maximum level of its NodeAnchors
+    * plus one.
+    *
+    * @param links the Links of the Node, or null if the Node has no Links
+    * @return the level
+    */
+   private static int getNodeLevel(Links links) {
+      int level = 0;
+      if (links != null) {
+         for (int i = 0; i < links.anchorCount; i++) {
+            level = Math.max(level, getLevel(links.anchors[i]) + 1);
+         }
+      }
+      return level;
+   }
+
+   /**
+    * Return the level of a NodeAnchor in the graph. The levels are computed with an explicit stack rather than by
+    * recursion, so that a long chain of anchors can not overflow the thread stack.
+    *
+    * @param anchor the NodeAnchor
+    * @return the level
+    */
+   static int getLevel(NodeAnchor anchor) {
+      if (anchor.levelVersion == version) {
+         return anchor.level;
+      }
+      anchor.levelVersion = version;
+      anchor.level = PENDING_LEVEL;
+      LEVEL_STACK.add(anchor);
+      while (!LEVEL_STACK.isEmpty()) {
+         NodeAnchor current = LEVEL_STACK.get(LEVEL_STACK.size() - 1);
+         if (current.level == PENDING_LEVEL) {
+            // the dependencies are pushed above the NodeAnchor, so that their levels are known when it is popped
+            current.level = VISITING_LEVEL;
+            for (int i = 0; i < current.getConstraintCount(); i++) {
+               Links links = getLinks(current.getReference(i));
+               if (links == null) {
+                  continue;
+               }
+               for (int j = 0; j < links.anchorCount; j++) {
+                  NodeAnchor refAnchor = links.anchors[j];
+                  if (refAnchor != current && (refAnchor.levelVersion != version || refAnchor.level == PENDING_LEVEL)) {
+                     refAnchor.levelVersion = version;
+                     refAnchor.level = PENDING_LEVEL;
+                     LEVEL_STACK.add(refAnchor);
+                  }
+               }
+            }
+         } else {
+            LEVEL_STACK.remove(LEVEL_STACK.size() - 1);
+            if (current.level == VISITING_LEVEL) {
+               current.level = computeLevel(current);
+            }
+         }
+      }
+      return anchor.level;
+   }
+
+   private static int computeLevel(NodeAnchor anchor) {
+      int level = 0;
+      for (int i = 0; i < anchor.getConstraintCount(); i++) {
+         Links links = getLinks(anchor.getReference(i));
+         if (links == null) {
+            continue;
+         }
+         for (int j = 0; j < links.anchorCount; j++) {
+            NodeAnchor refAnchor = links.anchors[j];
+            if (refAnchor != anchor) {
+               // a dependency which is still visited can only be reached through an unexpected cycle
+               level = Math.max(level, Math.max(refAnchor.level, 0) + 1);
+            }
+         }
+      }
+      return level;
+   }
+
+   /**
+    * The links of a Node in the graph: the NodeAnchors which anchor the Node, and the NodeAnchors which have
+    * resolved constraints on the Node. The Links are registered as the invalidation listener of the position and
+    * size properties of the Node as long as the Node is observed, and notify the {@link AnchorLayoutScheduler} when
+    * the Node changes.
+    */
+   static final class Links implements InvalidationListener {
+      private final Node node;
+      private NodeAnchor[] anchors = NO_ANCHORS;
+      private int anchorCount = 0;
+      /**
+       * The dependents, which are either a NodeAnchor or a WeakReference on a NodeAnchor.
+       */
+      private Object[] dependents = NO_DEPENDENTS;
+      private int dependentCount = 0;
+      /**
+       * The number of constraints, whatever their policy, which use the Node as reference.
+       */
+      private int referenceCount = 0;
+      private DoubleExpression[] expressions = null;
+
+      private Links(Node node) {
+         this.node = node;
+      }
+
+      private void addAnchor(NodeAnchor anchor) {
+         for (int i = 0; i < anchorCount; i++) {
+            if (anchors[i] == anchor) {
+               return;
+            }
+         }
+         if (anchorCount == anchors.length) {
+            anchors = Arrays.copyOf(anchors, anchorCount + 1);
+         }
+         anchors[anchorCount++] = anchor;
+      }
+
+      private void removeAnchor(NodeAnchor anchor) {
+         for (int i = 0; i < anchorCount; i++) {
+            if (anchors[i] == anchor) {
+               System.arraycopy(anchors, i + 1, anchors, i, anchorCount - i - 1);
+               anchors[--anchorCount] = null;
+               break;
+            }
+         }
+         updateListener(anchor.getAnchorUtilities());
+      }
+
+      /**
+       * Add a dependent. The NodeAnchor must not be already a dependent.
+       *
+       * @param anchor the NodeAnchor
+       */
+      private void addDependent(NodeAnchor anchor) {
+         if (dependentCount == dependents.length) {
+            // the collected dependents are only pruned when the array is full, so that adding is amortized constant
+            prune();
+         }
+         if (dependentCount == dependents.length) {
+            dependents = Arrays.copyOf(dependents, Math.max(2, dependentCount + (dependentCount >> 1)));
+         }
+         dependents[dependentCount++] = anchor.isUsingWeakListeners() ? new WeakReference<>(anchor) : anchor;
+      }
+
+      private void removeDependent(NodeAnchor anchor) {
+         int index = indexOf(anchor);
+         if (index != -1) {
+            removeDependent(index);
+         }
+         prune();
+      }
+
+      private void removeDependent(int index) {
+         System.arraycopy(dependents, index + 1, dependents, index, dependentCount - index - 1);
+         dependents[--dependentCount] = null;
+      }
+
+      private int indexOf(NodeAnchor anchor) {
+         // the last dependents are often the first ones to be removed
+         for (int i = dependentCount - 1; i >= 0; i--) {
+            if (getDependent(i) == anchor) {
+               return i;
+            }
+         }
+         return -1;
+      }
+
+      /**
+       * Remove the dependents which have been garbage collected.
+       */
+      private void prune() {
+         for (int i = dependentCount - 1; i >= 0; i--) {
+            if (getDependent(i) == null) {
+               removeDependent(i);
+            }
+         }
+      }
+
+      /**
+       * Return the Node of these Links.
+       *
+       * @return the Node
+       */
+      Node getNode() {
+         return node;
+      }
+
+      /**
+       * Return the number of NodeAnchors which anchor the Node.
+       *
+       * @return the number of NodeAnchors
+       */
+      int getAnchorCount() {
+         return anchorCount;
+      }
+
+      /**
+       * Return a NodeAnchor which anchors the Node.
+       *
+       * @param index the index of the NodeAnchor
+       * @return the NodeAnchor
+       */
+      NodeAnchor getAnchor(int index) {
+         return anchors[index];
+      }
+
+      /**
+       * Return the number of dependents, some of which may have been garbage collected.
+       *
+       * @return the number of dependents
+       */
+      int getDependentCount() {
+         return dependentCount;
+      }
+
+      /**
+       * Return a dependent.
+       *
+       * @param index the index of the dependent
+       * @return the NodeAnchor, or null if it has been garbage collected
+       */
+      @SuppressWarnings("unchecked")
+      NodeAnchor getDependent(int index) {
+         Object dependent = dependents[index];
+         if (dependent instanceof NodeAnchor) {
+            return (NodeAnchor) dependent;
+         } else {
+            return ((WeakReference<NodeAnchor>) dependent).get();
+         }
+      }
+
+      /**
+       * Install or remove the listener, depending on if the Node is a reference of a resolved constraint or is
+       * anchored by resolved constraints.
+       *
+       * @param anchorUtils the AnchorUtilities used to get the properties of the Node if the listener is installed
+       */
+      private void updateListener(AnchorUtilities anchorUtils) {
+         boolean observed = dependentCount > 0;
+         for (int i = 0; i < anchorCount && !observed; i++) {
+            observed = anchors[i].hasResolvedConstraints();
+         }
+         if (observed && expressions == null) {
+            expressions = new DoubleExpression[] { anchorUtils.getXProperty(node), anchorUtils.getYProperty(node),
+               anchorUtils.getWidthProperty(node), anchorUtils.getHeightProperty(node) };
+            for (DoubleExpression expression : expressions) {
+               expression.addListener(this);
+            }
+            validate();
+         } else if (!observed && expressions != null) {
+            for (DoubleExpression expression : expressions) {
+               expression.removeListener(this);
+            }
+            expressions = null;
+         }
+      }
+
+      /**
+       * Validate the observed properties, so that their next change is notified. A binding which is invalid does
+       * not notify its invalidation listeners.
+       */
+      void validate() {
+         if (expressions != null) {
+            for (DoubleExpression expression : expressions) {
+               expression.get();
+            }
+         }
+      }
+
+      @Override
+      public void invalidated(Observable observable) {
+         AnchorMetrics.recordListener();
+         AnchorLayoutScheduler.getInstance().propagate(this);
+      }
+   }
+}
@@ -0,0 +1,71 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The event emitted when an anchor is installed on a Node.
+ *
+ * @since 0.2
+ */
+@Name(AnchorInstalledEvent.NAME)
+@Label("Anchor Installed")
+@Category({"JavaFX", "Anchors"})
+@Description("An anchor has been installed on a Node")
+public final class AnchorInstalledEvent extends jdk.jfr.Event {
+   /**
+    * The name of the event.
+    */
+   public static final String NAME = "org.javafx.anchor.AnchorInstalled";
+   @Label("Node Class")
+   @Description("The class of the anchored Node")
+   Class<?> nodeClass;
+   @Label("Reference Class")
+   @Description("The class of the reference Node")
+   Class<?> referenceClass;
+   @Label("Node Anchor")
+   @Description("The anchor position on the anchored Node")
+   String nodeAnchor;
+   @Label("Reference Anchor")
+   @Description("The anchor position on the reference Node")
+   String referenceAnchor;
+   @Label("Policy")
+   @Description("The propagation policy of the anchor")
+   String policy;
+   @Label("Parent")
+   @Description("True if the reference Node is the parent of the anchored Node")
+   boolean parent;
+}
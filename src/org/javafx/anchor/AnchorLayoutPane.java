@@ -0,0 +1,621 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javafx.geometry.Bounds;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import org.javafx.anchor.model.AnchorGeometryMemo;
+import org.javafx.anchor.model.AnchorLayoutCache;
+import org.javafx.anchor.model.AnchorModel;
+import org.javafx.anchor.model.AnchorSolver;
+import org.javafx.anchor.model.CompiledAnchorLayout;
+import org.javafx.anchor.model.ParallelAnchorSolver;
+
+/**
+ * A Pane which lays out its children with anchors. Contrary to the {@link NodeAnchor} class, the anchors are not
+ * propagated by listeners, but resolved by the {@link AnchorSolver} in the {@link #layoutChildren()} method, so
+ * that all the anchors of the Pane are resolved at most once per pulse, in the normal JavaFX layout pass.
+ *
+ * <p>
+ * The anchors are stored in the properties of the children, and are set with static methods, similar to the
+ * ones of the {@link javafx.scene.layout.AnchorPane} class. For example:
+ * <pre>
+ * AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.LEFT, AnchorPosition.LEFT);
+ * AnchorLayoutPane.setAnchor(field, AnchorPosition.LEFT, label, AnchorPosition.RIGHT);
+ * AnchorLayoutPane.setAnchorInParent(field, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+ * </pre>
+ *
+ * <p>
+ * The reference Node of an anchor must be the Pane itself or another child of the Pane, the anchors to other
+ * Nodes are ignored. The anchors to the Pane are relative to its content area, inside its insets. The children
+ * which have no anchor keep their position, and the resizable children are resized to their preferred size
+ * if their size is not defined by their anchors.</p>
+ *
+ * @since 0.2
+ */
+public class AnchorLayoutPane extends Pane {
+   private static final String CONSTRAINTS_KEY = "anchor-layout-pane-constraints";
+   private static final int PANE = 0;
+   private static final double EPSILON = 1E-9d;
+   private static final AnchorPosition[] POSITIONS = AnchorPosition.values();
+   private final AnchorModel model = new AnchorModel();
+   private final AnchorSolver solver = new AnchorSolver();
+   private ParallelAnchorSolver parallelSolver = null;
+   private boolean compiled = false;
+   private CompiledAnchorLayout layoutProgram = null;
+   private CompiledAnchorLayout measureProgram = null;
+   private double[] programBuffer = null;
+   private AnchorLayoutCache layoutCache = null;
+   private boolean isFirstLayout = true;
+   private AnchorGeometryMemo geometryMemo = null;
+   private final Map<Node, Integer> indexes = new HashMap<>();
+   private AnchorUtilities utils = new DefaultAnchorUtilities();
+
+   /**
+    * Constructor.
+    */
+   public AnchorLayoutPane() {
+      super();
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param children the initial children of the Pane
+    */
+   public AnchorLayoutPane(Node... children) {
+      super(children);
+   }
+
+   /**
+    * Set the class which will manage the position and size of the children which are not resizable.
+    *
+    * @param utils the class which will manage the position and size of Nodes
+    */
+   public void setAnchorUtilities(AnchorUtilities utils) {
+      this.utils = utils;
+      requestLayout();
+   }
+
+   /**
+    * Return the class which will manage the position and size of the children which are not resizable.
+    *
+    * @return the class which will manage the position and size of Nodes
+    */
+   public AnchorUtilities getAnchorUtilities() {
+      return utils;
+   }
+
+   /**
+    * Set the solver which resolves the anchors of the children in parallel. The groups of children which are not
+    * anchored to each other are then solved concurrently, and the children are laid out in one pass on the JavaFX
+    * Application Thread once all the groups have been solved.
+    *
+    * @param parallelSolver the solver, or null to resolve the anchors on the JavaFX Application Thread
+    */
+   public void setParallelSolver(ParallelAnchorSolver parallelSolver) {
+      this.parallelSolver = parallelSolver;
+      requestLayout();
+   }
+
+   /**
+    * Return the solver which resolves the anchors of the children in parallel.
+    *
+    * @return the solver, or null if the anchors are resolved on the JavaFX Application Thread
+    */
+   public ParallelAnchorSolver getParallelSolver() {
+      return parallelSolver;
+   }
+
+   /**
+    * Set if the anchors of the children are resolved by a {@link CompiledAnchorLayout}. The anchors are then
+    * compiled once, and the compiled layout is used again for each layout pass as long as the children and their
+    * anchors do not change. It is useful for Panes which are often resized but whose anchors rarely change. The
+    * compiled layout is used instead of the parallel solver.
+    *
+    * @param compiled true if the anchors are resolved by a compiled layout
+    */
+   public void setCompiledLayout(boolean compiled) {
+      this.compiled = compiled;
+      layoutProgram = null;
+      measureProgram = null;
+      programBuffer = null;
+      requestLayout();
+   }
+
+   /**
+    * Return true if the anchors of the children are resolved by a {@link CompiledAnchorLayout}.
+    *
+    * @return true if the anchors are resolved by a compiled layout
+    */
+   public boolean isCompiledLayout() {
+      return compiled;
+   }
+
+   /**
+    * Set the cache of the geometry of the children for the first layout of the Pane. If the cache has an entry for
+    * the same children, anchors and initial sizes, and the same size of the Pane, the geometry of the children is
+    * copied from the cache rather than solved. Else the solved geometry is put in the cache. The next layouts are
+    * solved normally. The cache is not saved by the Pane.
+    *
+    * @param layoutCache the cache, or null if the first layout is solved normally
+    */
+   public void setLayoutCache(AnchorLayoutCache layoutCache) {
+      this.layoutCache = layoutCache;
+      isFirstLayout = true;
+      requestLayout();
+   }
+
+   /**
+    * Return the cache of the geometry of the children for the first layout of the Pane.
+    *
+    * @return the cache, or null if the first layout is solved normally
+    */
+   public AnchorLayoutCache getLayoutCache() {
+      return layoutCache;
+   }
+
+   /**
+    * Set the memo of the geometry of the children for the sizes of the Pane which have been seen recently. When the
+    * Pane is resized back to one of these sizes, and the children and their preferred sizes have not changed, the
+    * geometry of the children is copied from the memo rather than solved. The memo is used instead of the compiled
+    * layout and of the parallel solver, but not to compute the preferred size of the Pane.
+    *
+    * @param geometryMemo the memo, or null if the anchors are solved for each layout
+    */
+   public void setGeometryMemo(AnchorGeometryMemo geometryMemo) {
+      this.geometryMemo = geometryMemo;
+      requestLayout();
+   }
+
+   /**
+    * Return the memo of the geometry of the children for the sizes of the Pane which have been seen recently.
+    *
+    * @return the memo, or null if the anchors are solved for each layout
+    */
+   public AnchorGeometryMemo getGeometryMemo() {
+      return geometryMemo;
+   }
+
+   /**
+    * Set an anchor of a child.
+    *
+    * @param child the child
+    * @param nodeAnchor the anchor of the child
+    * @param nodeRef the reference Node, which must be another child of the Pane
+    * @param refAnchor the anchor of the reference Node
+    * @throws IllegalArgumentException if the anchors are not on the same axis, or if the child is its own reference
+    */
+   public static void setAnchor(Node child, AnchorPosition nodeAnchor, Node nodeRef, AnchorPosition refAnchor) {
+      if (nodeRef == null) {
+         throw new IllegalArgumentException("The reference Node can not be null");
+      }
+      setConstraint(child, nodeAnchor, nodeRef, refAnchor);
+   }
+
+   /**
+    * Set an anchor of a child relative to the Pane.
+    *
+    * @param child the child
+    * @param nodeAnchor the anchor of the child
+    * @param refAnchor the anchor of the Pane
+    * @throws IllegalArgumentException if the anchors are not on the same axis
+    */
+   public static void setAnchorInParent(Node child, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      setConstraint(child, nodeAnchor, null, refAnchor);
+   }
+
+   /**
+    * Set a Fill anchor. It is equivalent to call four times
+    * {@link #setAnchor(javafx.scene.Node, AnchorPosition, javafx.scene.Node, AnchorPosition)} with the same anchor
+    * for the child and the reference Node.
+    *
+    * @param child the child
+    * @param nodeRef the reference Node, which must be another child of the Pane
+    */
+   public static void fill(Node child, Node nodeRef) {
+      for (AnchorPosition position : POSITIONS) {
+         setAnchor(child, position, nodeRef, position);
+      }
+   }
+
+   /**
+    * Set a Fill anchor relative to the Pane. It is equivalent to call four times
+    * {@link #setAnchorInParent(javafx.scene.Node, AnchorPosition, AnchorPosition)} with the same anchor for the
+    * child and the Pane.
+    *
+    * @param child the child
+    */
+   public static void fillInParent(Node child) {
+      for (AnchorPosition position : POSITIONS) {
+         setAnchorInParent(child, position, position);
+      }
+   }
+
+   /**
+    * Remove an anchor of a child.
+    *
+    * @param child the child
+    * @param nodeAnchor the anchor of the child
+    */
+   public static void removeAnchor(Node child, AnchorPosition nodeAnchor) {
+      Constraints constraints = getConstraints(child, false);
+      if (constraints != null && constraints.refAnchors[nodeAnchor.ordinal()] != null) {
+         constraints.refs[nodeAnchor.ordinal()] = null;
+         constraints.refAnchors[nodeAnchor.ordinal()] = null;
+         requestParentLayout(child);
+      }
+   }
+
+   /**
+    * Remove all the anchors of a child.
+    *
+    * @param child the child
+    */
+   public static void clearConstraints(Node child) {
+      if (child.getProperties().remove(CONSTRAINTS_KEY) != null) {
+         requestParentLayout(child);
+      }
+   }
+
+   /**
+    * Return true if a child has an anchor for a position.
+    *
+    * @param child the child
+    * @param nodeAnchor the anchor of the child
+    * @return true if the child has an anchor for the position
+    */
+   public static boolean hasAnchor(Node child, AnchorPosition nodeAnchor) {
+      Constraints constraints = getConstraints(child, false);
+      return constraints != null && constraints.refAnchors[nodeAnchor.ordinal()] != null;
+   }
+
+   /**
+    * Return the reference Node of an anchor of a child.
+    *
+    * @param child the child
+    * @param nodeAnchor the anchor of the child
+    * @return the reference Node, or null if the child has no anchor for the position or if the reference is the
+    * Pane
+    */
+   public static Node getAnchorReference(Node child, AnchorPosition nodeAnchor) {
+      Constraints constraints = getConstraints(child, false);
+      return constraints == null ? null : constraints.refs[nodeAnchor.ordinal()];
+   }
+
+   /**
+    * Return the anchor of the reference Node of an anchor of a child.
+    *
+    * @param child the child
+    * @param nodeAnchor the anchor of the child
+    * @return the anchor of the reference Node, or null if the child has no anchor for the position
+    */
+   public static AnchorPosition getReferenceAnchor(Node child, AnchorPosition nodeAnchor) {
+      Constraints constraints = getConstraints(child, false);
+      return constraints == null ? null : constraints.refAnchors[nodeAnchor.ordinal()];
+   }
+
+   private static void setConstraint(Node child, AnchorPosition nodeAnchor, Node nodeRef, AnchorPosition refAnchor) {
+      if (child == nodeRef) {
+         throw new IllegalArgumentException("A Node can not be anchored to itself");
+      }
+      if (isHorizontal(nodeAnchor) != isHorizontal(refAnchor)) {
+         throw new IllegalArgumentException("Incompatible anchors " + nodeAnchor + " and " + refAnchor);
+      }
+      Constraints constraints = getConstraints(child, true);
+      constraints.refs[nodeAnchor.ordinal()] = nodeRef;
+      constraints.refAnchors[nodeAnchor.ordinal()] = refAnchor;
+      requestParentLayout(child);
+   }
+
+   private static Constraints getConstraints(Node child, boolean create) {
+      Constraints constraints = null;
+      if (child.hasProperties()) {
+         constraints = (Constraints) child.getProperties().get(CONSTRAINTS_KEY);
+      }
+      if (constraints == null && create) {
+         constraints = new Constraints();
+         child.getProperties().put(CONSTRAINTS_KEY, constraints);
+      }
+      return constraints;
+   }
+
+   private static void requestParentLayout(Node child) {
+      Parent parent = child.getParent();
+      if (parent instanceof AnchorLayoutPane) {
+         parent.requestLayout();
+      }
+   }
+
+   private static boolean isHorizontal(AnchorPosition position) {
+      return position == AnchorPosition.LEFT || position == AnchorPosition.RIGHT;
+   }
+
+   /**
+    * Build the model of the children. The Pane has the index 0 in the model, and its geometry is its content area.
+    * The children have the next indexes, in the order of the children list.
+    *
+    * <p>
+    * If the model is built to measure the preferred size of the Pane, the anchors to the right and bottom edges
+    * of the Pane are ignored, and a child which has no other anchor on the same axis is anchored to the left or
+    * top edge of the Pane, so that the children do not depend on the size of the Pane.</p>
+    *
+    * @param children the children
+    * @param measure true if the model is used to compute the preferred size of the Pane
+    */
+   private void buildModel(List<Node> children, boolean measure) {
+      model.clear();
+      indexes.clear();
+      if (measure) {
+         model.addNode();
+      } else {
+         Insets insets = getInsets();
+         model.addNode(insets.getLeft(), insets.getTop(), getWidth() - insets.getLeft() - insets.getRight(),
+            getHeight() - insets.getTop() - insets.getBottom());
+      }
+      int size = children.size();
+      for (int i = 0; i < size; i++) {
+         Node child = children.get(i);
+         int index = model.addNode();
+         indexes.put(child, index);
+         if (child.isResizable()) {
+            model.setGeometry(index, child.getLayoutX(), child.getLayoutY(), child.prefWidth(-1), child.prefHeight(-1));
+         } else {
+            model.setGeometry(index, utils.getX(child), utils.getY(child), utils.getWidth(child),
+               utils.getHeight(child));
+         }
+      }
+      for (int i = 0; i < size; i++) {
+         Constraints constraints = getConstraints(children.get(i), false);
+         if (constraints != null) {
+            addAnchors(i + 1, constraints, measure);
+         }
+      }
+   }
+
+   private void addAnchors(int index, Constraints constraints, boolean measure) {
+      boolean hasHorizontal = false;
+      boolean hasVertical = false;
+      boolean keepsHorizontal = false;
+      boolean keepsVertical = false;
+      for (AnchorPosition position : POSITIONS) {
+         AnchorPosition refAnchor = constraints.refAnchors[position.ordinal()];
+         if (refAnchor == null) {
+            continue;
+         }
+         Node nodeRef = constraints.refs[position.ordinal()];
+         Integer ref = nodeRef == null ? Integer.valueOf(PANE) : indexes.get(nodeRef);
+         if (ref == null) {
+            continue;
+         }
+         boolean isKept = !measure || ref != PANE || refAnchor == AnchorPosition.LEFT
+            || refAnchor == AnchorPosition.TOP;
+         if (isHorizontal(position)) {
+            hasHorizontal = true;
+            keepsHorizontal |= isKept;
+         } else {
+            hasVertical = true;
+            keepsVertical |= isKept;
+         }
+         if (isKept) {
+            model.anchor(index, position, ref, refAnchor);
+         }
+      }
+      if (hasHorizontal && !keepsHorizontal) {
+         model.anchor(index, AnchorPosition.LEFT, PANE, AnchorPosition.LEFT);
+      }
+      if (hasVertical && !keepsVertical) {
+         model.anchor(index, AnchorPosition.TOP, PANE, AnchorPosition.TOP);
+      }
+   }
+
+   private void solveModel(boolean measure) {
+      if (geometryMemo != null && !measure) {
+         geometryMemo.solve(model, getWidth(), getHeight());
+      } else if (compiled) {
+         CompiledAnchorLayout program = measure ? measureProgram : layoutProgram;
+         if (program == null || !program.matches(model)) {
+            program = CompiledAnchorLayout.compile(model);
+            if (measure) {
+               measureProgram = program;
+            } else {
+               layoutProgram = program;
+            }
+         }
+         programBuffer = program.apply(model, programBuffer);
+      } else if (parallelSolver != null) {
+         parallelSolver.solve(model);
+      } else {
+         solver.solve(model);
+      }
+   }
+
+   /**
+    * Copy the geometry of the children from the layout cache, or solve it and put it in the cache. The types and
+    * identifiers of the children are part of the hash of the graph.
+    */
+   private void solveCachedModel(List<Node> children) {
+      long graphHash = AnchorLayoutCache.hashGraph(model);
+      int size = children.size();
+      for (int i = 0; i < size; i++) {
+         Node child = children.get(i);
+         graphHash = AnchorLayoutCache.mix(graphHash, child.getClass().getName().hashCode());
+         graphHash = AnchorLayoutCache.mix(graphHash, Objects.hashCode(child.getId()));
+      }
+      long inputHash = AnchorLayoutCache.hashGeometry(model);
+      double width = getWidth();
+      double height = getHeight();
+      if (!layoutCache.restore(model, graphHash, inputHash, width, height)) {
+         solveModel(false);
+         layoutCache.put(model, graphHash, inputHash, width, height);
+      }
+   }
+
+   /**
+    * Resolve the anchors of all the children.
+    */
+   @Override
+   protected void layoutChildren() {
+      List<Node> children = getChildren();
+      buildModel(children, false);
+      if (layoutCache != null && isFirstLayout) {
+         isFirstLayout = false;
+         solveCachedModel(children);
+      } else {
+         solveModel(false);
+      }
+      int size = children.size();
+      for (int i = 0; i < size; i++) {
+         Node child = children.get(i);
+         if (child.isManaged()) {
+            layoutChild(child, i + 1);
+         }
+      }
+   }
+
+   private void layoutChild(Node child, int index) {
+      double x = model.getX(index);
+      double y = model.getY(index);
+      double width = model.getWidth(index);
+      double height = model.getHeight(index);
+      if (child.isResizable()) {
+         if (AnchorMetrics.isRecording()) {
+            // the write is compared with the geometry set by resize() and relocate(), which for some Nodes is not
+            // the geometry returned by the AnchorUtilities
+            Bounds bounds = child.getLayoutBounds();
+            recordWrite(AnchorMetrics.WIDTH, bounds.getWidth(), width);
+            recordWrite(AnchorMetrics.HEIGHT, bounds.getHeight(), height);
+            recordWrite(AnchorMetrics.X, child.getLayoutX() + bounds.getMinX(), x);
+            recordWrite(AnchorMetrics.Y, child.getLayoutY() + bounds.getMinY(), y);
+         }
+         child.resize(width, height);
+         child.relocate(x, y);
+      } else {
+         if (Math.abs(utils.getWidth(child) - width) > EPSILON) {
+            utils.setWidth(child, width);
+            AnchorMetrics.recordWrite(AnchorMetrics.WIDTH, false);
+         } else {
+            AnchorMetrics.recordWrite(AnchorMetrics.WIDTH, true);
+         }
+         if (Math.abs(utils.getHeight(child) - height) > EPSILON) {
+            utils.setHeight(child, height);
+            AnchorMetrics.recordWrite(AnchorMetrics.HEIGHT, false);
+         } else {
+            AnchorMetrics.recordWrite(AnchorMetrics.HEIGHT, true);
+         }
+         if (Math.abs(utils.getX(child) - x) > EPSILON) {
+            utils.setX(child, x);
+            AnchorMetrics.recordWrite(AnchorMetrics.X, false);
+         } else {
+            AnchorMetrics.recordWrite(AnchorMetrics.X, true);
+         }
+         if (Math.abs(utils.getY(child) - y) > EPSILON) {
+            utils.setY(child, y);
+            AnchorMetrics.recordWrite(AnchorMetrics.Y, false);
+         } else {
+            AnchorMetrics.recordWrite(AnchorMetrics.Y, true);
+         }
+      }
+   }
+
+   /**
+    * Record the write of a dimension of a resizable child, which is redundant if the child already has the value.
+    */
+   private static void recordWrite(int dimension, double current, double value) {
+      AnchorMetrics.recordWrite(dimension, Math.abs(current - value) <= EPSILON);
+   }
+
+   /**
+    * Compute the preferred width of the Pane, which is the width of the area which contains all the managed
+    * children when the children are not anchored to the right edge of the Pane.
+    *
+    * @param height the height of the Pane
+    * @return the preferred width
+    */
+   @Override
+   protected double computePrefWidth(double height) {
+      Insets insets = getInsets();
+      return insets.getLeft() + measure(AnchorModel.X, AnchorModel.WIDTH) + insets.getRight();
+   }
+
+   /**
+    * Compute the preferred height of the Pane, which is the height of the area which contains all the managed
+    * children when the children are not anchored to the bottom edge of the Pane.
+    *
+    * @param width the width of the Pane
+    * @return the preferred height
+    */
+   @Override
+   protected double computePrefHeight(double width) {
+      Insets insets = getInsets();
+      return insets.getTop() + measure(AnchorModel.Y, AnchorModel.HEIGHT) + insets.getBottom();
+   }
+
+   /**
+    * Return the extent of the managed children on one axis.
+    *
+    * @param position the offset of the position on the axis
+    * @param size the offset of the size on the axis
+    * @return the extent of the managed children
+    */
+   private double measure(int position, int size) {
+      List<Node> children = getChildren();
+      buildModel(children, true);
+      solveModel(true);
+      double[] geometry = model.getGeometry();
+      double extent = 0;
+      int count = children.size();
+      for (int i = 0; i < count; i++) {
+         if (children.get(i).isManaged()) {
+            int offset = (i + 1) * AnchorModel.STRIDE;
+            extent = Math.max(extent, geometry[offset + position] + geometry[offset + size]);
+         }
+      }
+      return extent;
+   }
+
+   /**
+    * The anchors of a child, indexed by the ordinal of the anchor of the child. A null reference Node with a non
+    * null reference anchor is an anchor to the Pane.
+    */
+   private static final class Constraints {
+      private final Node[] refs = new Node[POSITIONS.length];
+      private final AnchorPosition[] refAnchors = new AnchorPosition[POSITIONS.length];
+   }
+}
@@ -0,0 +1,557 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.AnimationTimer;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * Resolves the constraints of the {@link NodeAnchor}s which use the {@link PropagationPolicy#DEFERRED},
+ * {@link PropagationPolicy#THROTTLED} or {@link PropagationPolicy#ORDERED} policies. The anchors are only marked
+ * as dirty when one of the properties they depend on changes. The dirty anchors are resolved by increasing level in
+ * the anchors dependency graph, so that each anchor is resolved after the anchors it depends on, and each anchored
+ * Node is written at most once even if its reference Nodes changed several times.
+ *
+ * <p>
+ * The deferred anchors are resolved once per JavaFX pulse. By default the scheduler is automatic: it uses an
+ * {@link AnimationTimer} which is only running while there are dirty deferred or throttled anchors. If the scheduler
+ * is not automatic, the dirty deferred anchors are only resolved when {@link #flush()} is called, which can be useful
+ * if the JavaFX toolkit is not running. The ordered anchors are resolved as soon as they are marked as dirty.</p>
+ *
+ * <p>
+ * The throttled anchors are resolved by the same timer, but at most once per throttle interval, which is by default
+ * the duration of one frame at 60 Hz. They are always resolved by {@link #flush()}, which should be called at the
+ * end of an interactive change so that the anchored Nodes get their final position. The
+ * {@link #flushOnMouseReleased(Node)} method installs a filter which flushes the scheduler at the end of the drags
+ * on a Node.</p>
+ *
+ * <p>
+ * This class is not thread-safe and must be used on the JavaFX Application Thread.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorLayoutScheduler {
+   /**
+    * The maximum number of passes in one flush. Anchors which are still dirty after this number of passes are
+    * resolved on the next pulse.
+    */
+   static final int MAX_PASSES = 64;
+   private static final Logger LOGGER = Logger.getLogger(AnchorLayoutScheduler.class.getName());
+   /**
+    * The default throttle interval, in nanoseconds, which is the duration of one frame at 60 Hz.
+    */
+   public static final long DEFAULT_THROTTLE_INTERVAL = 1000000000L / 60;
+   private static final Comparator<NodeAnchor> LEVEL_COMPARATOR = new Comparator<NodeAnchor>() {
+      @Override
+      public int compare(NodeAnchor anchor1, NodeAnchor anchor2) {
+         return Integer.compare(anchor1.scheduledLevel, anchor2.scheduledLevel);
+      }
+   };
+   private static final AnchorLayoutScheduler INSTANCE = new AnchorLayoutScheduler();
+   private final PriorityQueue<NodeAnchor> deferredAnchors = new PriorityQueue<>(16, LEVEL_COMPARATOR);
+   private final PriorityQueue<NodeAnchor> orderedAnchors = new PriorityQueue<>(16, LEVEL_COMPARATOR);
+   private final PriorityQueue<NodeAnchor> throttledAnchors = new PriorityQueue<>(16, LEVEL_COMPARATOR);
+   /**
+    * The anchors which became dirty during a flush because a Node they depend on has been written after them.
+    */
+   private final List<NodeAnchor> nextPass = new ArrayList<>();
+   /**
+    * The updates of the {@link PropagationPolicy#IMMEDIATE} anchors which have been queued during a transaction.
+    */
+   private final List<Runnable> suspendedUpdates = new ArrayList<>();
+   /**
+    * The Links of the Nodes whose dependents must be visited by {@link #propagate(AnchorGraph.Links)}.
+    */
+   private final List<AnchorGraph.Links> stack = new ArrayList<>();
+   private int suspendCount = 0;
+   /**
+    * True if the scheduler is automatic. It is volatile because it is read by the threads which stage anchors.
+    */
+   private volatile boolean automatic = true;
+   private boolean isFlushing = false;
+   private boolean isFlushingDeferred = false;
+   private boolean isFlushingThrottled = false;
+   private int currentLevel = -1;
+   private boolean isTimerRunning = false;
+   private AnimationTimer timer = null;
+   private long throttleInterval = DEFAULT_THROTTLE_INTERVAL;
+   /**
+    * The time from which the timer can resolve the throttled anchors again, in nanoseconds.
+    */
+   private long nextThrottledTime = Long.MIN_VALUE;
+   private final EventHandler<MouseEvent> releaseFilter = new EventHandler<MouseEvent>() {
+      @Override
+      public void handle(MouseEvent event) {
+         flush();
+      }
+   };
+
+   private AnchorLayoutScheduler() {
+   }
+
+   /**
+    * Return the unique scheduler instance.
+    *
+    * @return the scheduler instance
+    */
+   public static AnchorLayoutScheduler getInstance() {
+      return INSTANCE;
+   }
+
+   /**
+    * Set if the scheduler is automatic. If the scheduler is automatic, dirty deferred anchors are resolved on the
+    * next JavaFX pulse. Else they are only resolved when {@link #flush()} is called.
+    *
+    * @param automatic true if the scheduler is automatic
+    */
+   public void setAutomatic(boolean automatic) {
+      this.automatic = automatic;
+      if (!automatic) {
+         stopTimer();
+      } else if (!deferredAnchors.isEmpty() || !throttledAnchors.isEmpty()) {
+         startTimer();
+      }
+   }
+
+   /**
+    * Return true if the scheduler is automatic.
+    *
+    * @return true if the scheduler is automatic
+    */
+   public boolean isAutomatic() {
+      return automatic;
+   }
+
+   /**
+    * Set the minimum interval between two resolutions of the throttled anchors by the timer.
+    *
+    * @param interval the interval in nanoseconds
+    */
+   public void setThrottleInterval(long interval) {
+      if (interval < 0) {
+         throw new IllegalArgumentException("Invalid throttle interval: " + interval);
+      }
+      this.throttleInterval = interval;
+   }
+
+   /**
+    * Return the minimum interval between two resolutions of the throttled anchors by the timer.
+    *
+    * @return the interval in nanoseconds
+    */
+   public long getThrottleInterval() {
+      return throttleInterval;
+   }
+
+   /**
+    * Flush the scheduler each time the mouse is released on a Node, so that the throttled anchors get their final
+    * position at the end of a drag.
+    *
+    * @param node the Node
+    * @see #removeFlushOnMouseReleased(Node)
+    */
+   public void flushOnMouseReleased(Node node) {
+      node.addEventFilter(MouseEvent.MOUSE_RELEASED, releaseFilter);
+   }
+
+   /**
+    * Stop flushing the scheduler when the mouse is released on a Node.
+    *
+    * @param node the Node
+    */
+   public void removeFlushOnMouseReleased(Node node) {
+      node.removeEventFilter(MouseEvent.MOUSE_RELEASED, releaseFilter);
+   }
+
+   /**
+    * Suspend the propagation of the anchors. The propagation is resumed when {@link #resume()} has been called as
+    * many times as this method.
+    */
+   void suspend() {
+      suspendCount++;
+   }
+
+   /**
+    * Resume the propagation of the anchors. If this ends the outermost suspension, the queued updates of the
+    * {@link PropagationPolicy#IMMEDIATE} anchors are run, and then all the dirty anchors are resolved.
+    *
+    * @throws IllegalStateException if the propagation is not suspended
+    */
+   void resume() {
+      if (endSuspension()) {
+         flush();
+      }
+   }
+
+   /**
+    * End a suspension of the propagation without resolving the dirty anchors. If this ends the outermost suspension,
+    * the queued updates of the {@link PropagationPolicy#IMMEDIATE} anchors are run.
+    *
+    * @return true if this ended the outermost suspension
+    * @throws IllegalStateException if the propagation is not suspended
+    */
+   boolean endSuspension() {
+      if (suspendCount == 0) {
+         throw new IllegalStateException("The anchors propagation is not suspended");
+      }
+      suspendCount--;
+      if (suspendCount > 0) {
+         return false;
+      }
+      // indexed loop, the updates can not queue other updates once the propagation is resumed
+      for (int i = 0; i < suspendedUpdates.size(); i++) {
+         suspendedUpdates.get(i).run();
+      }
+      suspendedUpdates.clear();
+      return true;
+   }
+
+   /**
+    * Return true if the propagation of the anchors is suspended.
+    *
+    * @return true if the propagation is suspended
+    */
+   boolean isSuspended() {
+      return suspendCount > 0;
+   }
+
+   /**
+    * Queue an update of an {@link PropagationPolicy#IMMEDIATE} anchor, which will be run when the propagation is
+    * resumed.
+    *
+    * @param update the update
+    */
+   void addSuspendedUpdate(Runnable update) {
+      suspendedUpdates.add(update);
+   }
+
+   /**
+    * Return true if there are dirty anchors which have not been resolved yet.
+    *
+    * @return true if there are dirty anchors
+    */
+   public boolean isPending() {
+      return !deferredAnchors.isEmpty() || !orderedAnchors.isEmpty() || !throttledAnchors.isEmpty()
+         || !nextPass.isEmpty() || !suspendedUpdates.isEmpty();
+   }
+
+   /**
+    * Mark an anchor as dirty.
+    *
+    * @param anchor the anchor
+    */
+   void schedule(NodeAnchor anchor) {
+      if (!anchor.isScheduled) {
+         mark(anchor);
+         resolvePending();
+      }
+   }
+
+   /**
+    * Propagate the change of a Node. The NodeAnchors of the Node and all the transitive dependents of the Node which
+    * are resolved immediately are marked as dirty before any of them is resolved, so that each of them is resolved
+    * only once, after the anchors it depends on. The dependents of the anchors which are not resolved immediately
+    * are marked when these anchors are resolved.
+    *
+    * @param links the Links of the Node
+    */
+   void propagate(AnchorGraph.Links links) {
+      links.validate();
+      for (int i = 0; i < links.getAnchorCount(); i++) {
+         NodeAnchor anchor = links.getAnchor(i);
+         if (!anchor.isScheduled && anchor.isObservingChanges()) {
+            mark(anchor);
+         }
+      }
+      // indexed loops on a reused stack, so that no iterator is allocated for each change
+      stack.add(links);
+      while (!stack.isEmpty()) {
+         AnchorGraph.Links changed = stack.remove(stack.size() - 1);
+         for (int i = 0; i < changed.getDependentCount(); i++) {
+            NodeAnchor dependent = changed.getDependent(i);
+            if (dependent != null && !dependent.isScheduled) {
+               mark(dependent);
+               AnchorGraph.Links dependentLinks = dependent.isOrdered() ? AnchorGraph.getLinks(dependent.getNode())
+                  : null;
+               if (dependentLinks != null) {
+                  stack.add(dependentLinks);
+               }
+            }
+         }
+      }
+      resolvePending();
+   }
+
+   /**
+    * Put an anchor in the queue of its policy.
+    *
+    * @param anchor the anchor, which must not be already scheduled
+    */
+   private void mark(NodeAnchor anchor) {
+      anchor.isScheduled = true;
+      anchor.scheduledLevel = AnchorGraph.getLevel(anchor);
+      if (isFlushing && anchor.scheduledLevel <= currentLevel) {
+         nextPass.add(anchor);
+      } else if (anchor.isOrdered()) {
+         orderedAnchors.add(anchor);
+      } else {
+         getQueue(anchor).add(anchor);
+      }
+   }
+
+   /**
+    * Resolve the dirty ordered anchors, and start the timer if there are dirty deferred or throttled anchors. This
+    * method does nothing during a flush, because the anchors are resolved by the flush.
+    */
+   private void resolvePending() {
+      if (isFlushing) {
+         return;
+      }
+      if (!orderedAnchors.isEmpty() && suspendCount == 0) {
+         resolve(false, false);
+      }
+      if (automatic && (!deferredAnchors.isEmpty() || !throttledAnchors.isEmpty()
+         || (!orderedAnchors.isEmpty() && suspendCount == 0))) {
+         startTimer();
+      }
+   }
+
+   /**
+    * Return the queue of an anchor which is not ordered.
+    *
+    * @param anchor the anchor
+    * @return the queue
+    */
+   private PriorityQueue<NodeAnchor> getQueue(NodeAnchor anchor) {
+      return anchor.isThrottled() ? throttledAnchors : deferredAnchors;
+   }
+
+   /**
+    * Resolve immediately the constraints of all the dirty anchors, including the throttled anchors. The anchors
+    * staged by {@link AnchorStaging} are installed first. Anchors which become dirty because of the resolution of
+    * other anchors are resolved in the same flush. This method does nothing while the propagation is suspended by an
+    * {@link AnchorTransactions} transaction.
+    */
+   public void flush() {
+      if (isFlushing || suspendCount > 0) {
+         return;
+      }
+      AnchorStaging.Commit staged = AnchorStaging.install();
+      resolve(true, true);
+      updateTimer();
+      AnchorStaging.complete(staged);
+   }
+
+   /**
+    * Resolve the dirty anchors on a timer tick. The throttled anchors are only resolved if the throttle interval
+    * has elapsed since their last resolution.
+    *
+    * @param now the time of the tick in nanoseconds
+    */
+   void tick(long now) {
+      AnchorStaging.Commit staged = AnchorStaging.install();
+      boolean throttled = !throttledAnchors.isEmpty() && now >= nextThrottledTime;
+      if (throttled) {
+         nextThrottledTime = now + throttleInterval;
+      }
+      resolve(true, throttled);
+      updateTimer();
+      AnchorStaging.complete(staged);
+   }
+
+   /**
+    * Resolve the dirty ordered and deferred anchors after the installation of staged anchors by
+    * {@link AnchorStaging#drain()}. The throttled anchors keep their throttle interval. This method does nothing
+    * during a flush or a transaction.
+    */
+   void resolveStaged() {
+      if (isFlushing || suspendCount > 0) {
+         return;
+      }
+      resolve(true, false);
+      updateTimer();
+   }
+
+   /**
+    * Start the timer so that the anchors staged by {@link AnchorStaging} are installed on the next pulse.
+    */
+   void wakeUp() {
+      if (automatic && AnchorStaging.isPending()) {
+         startTimer();
+      }
+   }
+
+   private void updateTimer() {
+      // the ordered anchors are only still queued here if the last resolution has reached MAX_PASSES
+      if (deferredAnchors.isEmpty() && throttledAnchors.isEmpty() && orderedAnchors.isEmpty()) {
+         stopTimer();
+      } else if (automatic) {
+         startTimer();
+      }
+   }
+
+   /**
+    * Resolve the dirty anchors by increasing level. The ordered anchors are always resolved. If anchors are still
+    * dirty after {@link #MAX_PASSES} passes, because the resolution of some anchors keeps changing Nodes which they
+    * depend on, they stay in their queues and are resolved on the next pulse.
+    *
+    * @param deferred true if the deferred anchors must also be resolved
+    * @param throttled true if the throttled anchors must also be resolved
+    */
+   private void resolve(boolean deferred, boolean throttled) {
+      isFlushing = true;
+      isFlushingDeferred = deferred;
+      isFlushingThrottled = throttled;
+      long start = AnchorMetrics.startPropagation();
+      Object event = AnchorFlightRecorder.beginPropagation();
+      NodeAnchor first = null;
+      int resolved = 0;
+      int minLevel = Integer.MAX_VALUE;
+      int maxLevel = 0;
+      int passes = 0;
+      try {
+         while (passes < MAX_PASSES) {
+            currentLevel = -1;
+            NodeAnchor anchor = poll();
+            if (anchor == null) {
+               break;
+            }
+            while (anchor != null) {
+               anchor.isScheduled = false;
+               currentLevel = anchor.scheduledLevel;
+               anchor.applyConstraints();
+               if (first == null) {
+                  first = anchor;
+               }
+               resolved++;
+               minLevel = Math.min(minLevel, currentLevel);
+               maxLevel = Math.max(maxLevel, currentLevel);
+               anchor = poll();
+            }
+            requeue();
+            passes++;
+         }
+      } finally {
+         isFlushing = false;
+         isFlushingDeferred = false;
+         isFlushingThrottled = false;
+         currentLevel = -1;
+         requeue();
+         if (passes == MAX_PASSES && (!orderedAnchors.isEmpty() || (deferred && !deferredAnchors.isEmpty())
+            || (throttled && !throttledAnchors.isEmpty()))) {
+            LOGGER.log(Level.WARNING, "Anchors are still dirty after {0} passes, they will be resolved on the next "
+               + "pulse", MAX_PASSES);
+         }
+         AnchorMetrics.endPropagation(start, maxLevel - minLevel + 1, resolved);
+         AnchorFlightRecorder.endPropagation(event, first, maxLevel - minLevel + 1, resolved);
+      }
+   }
+
+   /**
+    * Return the next anchor to resolve, which is the anchor with the lowest level.
+    *
+    * @return the anchor, or null if there is no anchor to resolve
+    */
+   private NodeAnchor poll() {
+      PriorityQueue<NodeAnchor> queue = orderedAnchors;
+      if (isFlushingDeferred) {
+         queue = getLowest(queue, deferredAnchors);
+      }
+      if (isFlushingThrottled) {
+         queue = getLowest(queue, throttledAnchors);
+      }
+      return queue.poll();
+   }
+
+   /**
+    * Return the queue whose first anchor has the lowest level.
+    */
+   private static PriorityQueue<NodeAnchor> getLowest(PriorityQueue<NodeAnchor> queue1,
+      PriorityQueue<NodeAnchor> queue2) {
+      NodeAnchor anchor1 = queue1.peek();
+      NodeAnchor anchor2 = queue2.peek();
+      if (anchor2 != null && (anchor1 == null || anchor2.scheduledLevel < anchor1.scheduledLevel)) {
+         return queue2;
+      } else {
+         return queue1;
+      }
+   }
+
+   /**
+    * Put back in the queues the anchors which must be resolved in the next pass.
+    */
+   private void requeue() {
+      // indexed loop, so that no iterator is allocated for each resolution
+      for (int i = 0; i < nextPass.size(); i++) {
+         NodeAnchor anchor = nextPass.get(i);
+         if (anchor.isOrdered()) {
+            orderedAnchors.add(anchor);
+         } else {
+            getQueue(anchor).add(anchor);
+         }
+      }
+      nextPass.clear();
+   }
+
+   private void startTimer() {
+      if (isTimerRunning) {
+         return;
+      }
+      if (timer == null) {
+         timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+               if (!isFlushing && suspendCount == 0) {
+                  tick(now);
+               }
+            }
+         };
+      }
+      timer.start();
+      isTimerRunning = true;
+   }
+
+   private void stopTimer() {
+      if (isTimerRunning) {
+         timer.stop();
+         isTimerRunning = false;
+      }
+   }
+}
@@ -0,0 +1,491 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Records metrics about the anchors: the invocations of the anchors listeners, the positions and sizes written by
+ * the anchors for each dimension, the writes which were skipped because the new value was the current value, and
+ * the number, depth and duration of the propagations.
+ *
+ * <p>
+ * A propagation is either one resolution of the dirty anchors by the {@link AnchorLayoutScheduler}, whose depth is
+ * the number of levels of the resolved anchors, or one change propagated by the listeners of the
+ * {@link PropagationPolicy#IMMEDIATE} anchors, whose depth is the maximum nesting of these listeners.</p>
+ *
+ * <p>
+ * The metrics are disabled by default. They are enabled by {@link #setEnabled(boolean)}, or at startup if the
+ * <code>org.javafx.anchor.metrics</code> system property is <code>true</code>. When they are disabled, each
+ * instrumented point only reads one static field. The metrics can be read with a {@link #snapshot()}, or through
+ * JMX once the MBean has been registered with {@link #registerMBean()}:</p>
+ * <pre>
+ * AnchorMetrics.setEnabled(true);
+ * AnchorMetrics.registerMBean();
+ * ...
+ * AnchorMetrics.Snapshot snapshot = AnchorMetrics.getInstance().snapshot();
+ * </pre>
+ *
+ * <p>
+ * The metrics are recorded on the JavaFX Application Thread, but the counters are concurrent counters, so that they
+ * can be read from another thread, for example through JMX. A snapshot reads each counter separately, so the
+ * counters of a snapshot taken during a propagation may not be consistent with each other.</p>
+ *
+ * <p>
+ * The writes counted are the writes of the {@link NodeAnchor}s and of the {@link AnchorLayoutPane}s.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorMetrics implements AnchorMetricsMBean {
+   /**
+    * The system property which enables the metrics at startup.
+    */
+   public static final String ENABLED_PROPERTY = "org.javafx.anchor.metrics";
+   /**
+    * The name of the MBean.
+    */
+   public static final String MBEAN_NAME = "org.javafx.anchor:type=AnchorMetrics";
+   /**
+    * The index of the x position dimension.
+    */
+   public static final int X = 0;
+   /**
+    * The index of the y position dimension.
+    */
+   public static final int Y = 1;
+   /**
+    * The index of the width dimension.
+    */
+   public static final int WIDTH = 2;
+   /**
+    * The index of the height dimension.
+    */
+   public static final int HEIGHT = 3;
+   private static final AnchorMetrics INSTANCE = new AnchorMetrics();
+   private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+   private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+      @Override
+      public long applyAsLong(long left, long right) {
+         return Math.max(left, right);
+      }
+   };
+   private static final LongAdder LISTENER_INVOCATIONS = new LongAdder();
+   private static final AtomicLongArray WRITES = new AtomicLongArray(4);
+   private static final AtomicLongArray REDUNDANT_WRITES = new AtomicLongArray(4);
+   private static final LongAdder PROPAGATIONS = new LongAdder();
+   private static final LongAdder RESOLVED_ANCHORS = new LongAdder();
+   private static final LongAdder TOTAL_PROPAGATION_TIME = new LongAdder();
+   private static final LongAccumulator MAX_PROPAGATION_TIME = new LongAccumulator(MAX, 0);
+   private static final LongAccumulator MAX_PROPAGATION_DEPTH = new LongAccumulator(MAX, 0);
+   /**
+    * The nesting of the listeners of the immediate anchors which are currently running. It is only used by the
+    * JavaFX Application Thread, which runs the listeners.
+    */
+   private static int listenerDepth = 0;
+   private static int maxListenerDepth = 0;
+   private static long listenerStart = 0;
+
+   private AnchorMetrics() {
+   }
+
+   /**
+    * Return the unique metrics instance, which is also the MBean.
+    *
+    * @return the metrics instance
+    */
+   public static AnchorMetrics getInstance() {
+      return INSTANCE;
+   }
+
+   /**
+    * Register the metrics MBean in the platform MBean server under the {@link #MBEAN_NAME} name. Registering the
+    * MBean does not enable the metrics.
+    *
+    * @return the name of the MBean
+    * @throws JMException if the MBean could not be registered
+    */
+   public static ObjectName registerMBean() throws JMException {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(MBEAN_NAME);
+      if (!server.isRegistered(name)) {
+         server.registerMBean(INSTANCE, name);
+      }
+      return name;
+   }
+
+   /**
+    * Unregister the metrics MBean from the platform MBean server.
+    *
+    * @throws JMException if the MBean could not be unregistered
+    */
+   public static void unregisterMBean() throws JMException {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(MBEAN_NAME);
+      if (server.isRegistered(name)) {
+         server.unregisterMBean(name);
+      }
+   }
+
+   @Override
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   @Override
+   public void setEnabled(boolean enabled) {
+      AnchorMetrics.enabled = enabled;
+   }
+
+   /**
+    * Return true if the metrics are recorded.
+    *
+    * @return true if the metrics are recorded
+    */
+   static boolean isRecording() {
+      return enabled;
+   }
+
+   /**
+    * Record the invocation of an anchor listener.
+    */
+   static void recordListener() {
+      if (enabled) {
+         LISTENER_INVOCATIONS.increment();
+      }
+   }
+
+   /**
+    * Record the start of an immediate anchor listener. The outermost listener starts a propagation.
+    */
+   static void enterListener() {
+      if (enabled) {
+         LISTENER_INVOCATIONS.increment();
+         if (listenerDepth == 0) {
+            listenerStart = System.nanoTime();
+            maxListenerDepth = 0;
+         }
+         listenerDepth++;
+         maxListenerDepth = Math.max(maxListenerDepth, listenerDepth);
+      }
+   }
+
+   /**
+    * Record the end of an immediate anchor listener. The outermost listener ends the propagation.
+    */
+   static void exitListener() {
+      if (listenerDepth > 0) {
+         listenerDepth--;
+         if (listenerDepth == 0 && enabled) {
+            recordPropagation(System.nanoTime() - listenerStart, maxListenerDepth, 0);
+         }
+      }
+   }
+
+   /**
+    * Record a write of a position or a size.
+    *
+    * @param dimension the dimension, {@link #X}, {@link #Y}, {@link #WIDTH} or {@link #HEIGHT}
+    * @param redundant true if the write was skipped because the new value was the current value
+    */
+   static void recordWrite(int dimension, boolean redundant) {
+      if (enabled) {
+         if (redundant) {
+            REDUNDANT_WRITES.incrementAndGet(dimension);
+         } else {
+            WRITES.incrementAndGet(dimension);
+         }
+      }
+   }
+
+   /**
+    * Return the start time of a propagation by the scheduler.
+    *
+    * @return the start time in nanoseconds, or 0 if the metrics are disabled
+    */
+   static long startPropagation() {
+      return enabled ? System.nanoTime() : 0;
+   }
+
+   /**
+    * Record the end of a propagation by the scheduler.
+    *
+    * @param start the start time returned by {@link #startPropagation()}
+    * @param depth the number of levels of the resolved anchors
+    * @param anchors the number of resolved anchors
+    */
+   static void endPropagation(long start, int depth, int anchors) {
+      if (enabled && start != 0 && anchors > 0) {
+         recordPropagation(System.nanoTime() - start, depth, anchors);
+      }
+   }
+
+   private static void recordPropagation(long time, int depth, int anchors) {
+      PROPAGATIONS.increment();
+      RESOLVED_ANCHORS.add(anchors);
+      TOTAL_PROPAGATION_TIME.add(time);
+      MAX_PROPAGATION_TIME.accumulate(time);
+      MAX_PROPAGATION_DEPTH.accumulate(depth);
+   }
+
+   @Override
+   public long getListenerInvocations() {
+      return LISTENER_INVOCATIONS.sum();
+   }
+
+   @Override
+   public long getXWrites() {
+      return WRITES.get(X);
+   }
+
+   @Override
+   public long getYWrites() {
+      return WRITES.get(Y);
+   }
+
+   @Override
+   public long getWidthWrites() {
+      return WRITES.get(WIDTH);
+   }
+
+   @Override
+   public long getHeightWrites() {
+      return WRITES.get(HEIGHT);
+   }
+
+   @Override
+   public long getRedundantWrites() {
+      return REDUNDANT_WRITES.get(X) + REDUNDANT_WRITES.get(Y) + REDUNDANT_WRITES.get(WIDTH)
+         + REDUNDANT_WRITES.get(HEIGHT);
+   }
+
+   @Override
+   public long getPropagations() {
+      return PROPAGATIONS.sum();
+   }
+
+   @Override
+   public long getResolvedAnchors() {
+      return RESOLVED_ANCHORS.sum();
+   }
+
+   @Override
+   public long getTotalPropagationTime() {
+      return TOTAL_PROPAGATION_TIME.sum();
+   }
+
+   @Override
+   public long getAveragePropagationTime() {
+      long count = PROPAGATIONS.sum();
+      return count == 0 ? 0 : TOTAL_PROPAGATION_TIME.sum() / count;
+   }
+
+   @Override
+   public long getMaxPropagationTime() {
+      return MAX_PROPAGATION_TIME.get();
+   }
+
+   @Override
+   public int getMaxPropagationDepth() {
+      return (int) MAX_PROPAGATION_DEPTH.get();
+   }
+
+   @Override
+   public void reset() {
+      LISTENER_INVOCATIONS.reset();
+      for (int i = 0; i < WRITES.length(); i++) {
+         WRITES.set(i, 0);
+         REDUNDANT_WRITES.set(i, 0);
+      }
+      PROPAGATIONS.reset();
+      RESOLVED_ANCHORS.reset();
+      TOTAL_PROPAGATION_TIME.reset();
+      MAX_PROPAGATION_TIME.reset();
+      MAX_PROPAGATION_DEPTH.reset();
+   }
+
+   /**
+    * Return a copy of the current metrics.
+    *
+    * @return the snapshot
+    */
+   public Snapshot snapshot() {
+      return new Snapshot();
+   }
+
+   /**
+    * An immutable copy of the metrics at a given time.
+    *
+    * @since 0.2
+    */
+   public static final class Snapshot {
+      private final long listenerInvocations;
+      private final long[] writes;
+      private final long[] redundantWrites;
+      private final long propagations;
+      private final long resolvedAnchors;
+      private final long totalPropagationTime;
+      private final long maxPropagationTime;
+      private final int maxPropagationDepth;
+
+      private Snapshot() {
+         this.listenerInvocations = LISTENER_INVOCATIONS.sum();
+         this.writes = new long[WRITES.length()];
+         this.redundantWrites = new long[REDUNDANT_WRITES.length()];
+         for (int i = 0; i < writes.length; i++) {
+            writes[i] = WRITES.get(i);
+            redundantWrites[i] = REDUNDANT_WRITES.get(i);
+         }
+         this.propagations = PROPAGATIONS.sum();
+         this.resolvedAnchors = RESOLVED_ANCHORS.sum();
+         this.totalPropagationTime = TOTAL_PROPAGATION_TIME.sum();
+         this.maxPropagationTime = MAX_PROPAGATION_TIME.get();
+         this.maxPropagationDepth = (int) MAX_PROPAGATION_DEPTH.get();
+      }
+
+      /**
+       * Return the number of invocations of the anchors listeners.
+       *
+       * @return the number of listener invocations
+       */
+      public long getListenerInvocations() {
+         return listenerInvocations;
+      }
+
+      /**
+       * Return the number of values written by the anchors for a dimension.
+       *
+       * @param dimension the dimension, {@link #X}, {@link #Y}, {@link #WIDTH} or {@link #HEIGHT}
+       * @return the number of values written
+       */
+      public long getWrites(int dimension) {
+         return writes[dimension];
+      }
+
+      /**
+       * Return the number of values written by the anchors for all the dimensions.
+       *
+       * @return the number of values written
+       */
+      public long getWrites() {
+         return writes[X] + writes[Y] + writes[WIDTH] + writes[HEIGHT];
+      }
+
+      /**
+       * Return the number of writes for a dimension which were skipped because the new value was the current value.
+       *
+       * @param dimension the dimension, {@link #X}, {@link #Y}, {@link #WIDTH} or {@link #HEIGHT}
+       * @return the number of redundant writes
+       */
+      public long getRedundantWrites(int dimension) {
+         return redundantWrites[dimension];
+      }
+
+      /**
+       * Return the number of writes for all the dimensions which were skipped because the new value was the current
+       * value.
+       *
+       * @return the number of redundant writes
+       */
+      public long getRedundantWrites() {
+         return redundantWrites[X] + redundantWrites[Y] + redundantWrites[WIDTH] + redundantWrites[HEIGHT];
+      }
+
+      /**
+       * Return the number of propagations.
+       *
+       * @return the number of propagations
+       */
+      public long getPropagations() {
+         return propagations;
+      }
+
+      /**
+       * Return the number of anchors resolved by the {@link AnchorLayoutScheduler}.
+       *
+       * @return the number of resolved anchors
+       */
+      public long getResolvedAnchors() {
+         return resolvedAnchors;
+      }
+
+      /**
+       * Return the total time of the propagations.
+       *
+       * @return the total time in nanoseconds
+       */
+      public long getTotalPropagationTime() {
+         return totalPropagationTime;
+      }
+
+      /**
+       * Return the average time of a propagation.
+       *
+       * @return the average time in nanoseconds
+       */
+      public long getAveragePropagationTime() {
+         return propagations == 0 ? 0 : totalPropagationTime / propagations;
+      }
+
+      /**
+       * Return the maximum time of a propagation.
+       *
+       * @return the maximum time in nanoseconds
+       */
+      public long getMaxPropagationTime() {
+         return maxPropagationTime;
+      }
+
+      /**
+       * Return the maximum depth of a propagation.
+       *
+       * @return the maximum depth
+       */
+      public int getMaxPropagationDepth() {
+         return maxPropagationDepth;
+      }
+
+      @Override
+      public String toString() {
+         return "AnchorMetrics{listeners=" + listenerInvocations + ", writes=" + getWrites() + ", redundantWrites="
+            + getRedundantWrites() + ", propagations=" + propagations + ", resolvedAnchors=" + resolvedAnchors
+            + ", averageTime=" + getAveragePropagationTime() + "ns, maxTime=" + maxPropagationTime + "ns, maxDepth="
+            + maxPropagationDepth + "}";
+      }
+   }
+}
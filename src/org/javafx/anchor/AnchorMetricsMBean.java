@@ -0,0 +1,142 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+/**
+ * The JMX management interface of the {@link AnchorMetrics}. The times are in nanoseconds.
+ *
+ * @since 0.2
+ */
+public interface AnchorMetricsMBean {
+   /**
+    * Return true if the metrics are recorded.
+    *
+    * @return true if the metrics are recorded
+    */
+   public boolean isEnabled();
+
+   /**
+    * Set if the metrics are recorded.
+    *
+    * @param enabled true if the metrics must be recorded
+    */
+   public void setEnabled(boolean enabled);
+
+   /**
+    * Return the number of invocations of the anchors listeners.
+    *
+    * @return the number of listener invocations
+    */
+   public long getListenerInvocations();
+
+   /**
+    * Return the number of x positions written by the anchors.
+    *
+    * @return the number of x positions written
+    */
+   public long getXWrites();
+
+   /**
+    * Return the number of y positions written by the anchors.
+    *
+    * @return the number of y positions written
+    */
+   public long getYWrites();
+
+   /**
+    * Return the number of widths written by the anchors.
+    *
+    * @return the number of widths written
+    */
+   public long getWidthWrites();
+
+   /**
+    * Return the number of heights written by the anchors.
+    *
+    * @return the number of heights written
+    */
+   public long getHeightWrites();
+
+   /**
+    * Return the number of writes which were skipped because the new value was the current value.
+    *
+    * @return the number of redundant writes
+    */
+   public long getRedundantWrites();
+
+   /**
+    * Return the number of propagations.
+    *
+    * @return the number of propagations
+    */
+   public long getPropagations();
+
+   /**
+    * Return the number of anchors resolved by the {@link AnchorLayoutScheduler}.
+    *
+    * @return the number of resolved anchors
+    */
+   public long getResolvedAnchors();
+
+   /**
+    * Return the total time of the propagations.
+    *
+    * @return the total time in nanoseconds
+    */
+   public long getTotalPropagationTime();
+
+   /**
+    * Return the average time of a propagation.
+    *
+    * @return the average time in nanoseconds
+    */
+   public long getAveragePropagationTime();
+
+   /**
+    * Return the maximum time of a propagation.
+    *
+    * @return the maximum time in nanoseconds
+    */
+   public long getMaxPropagationTime();
+
+   /**
+    * Return the maximum depth of a propagation.
+    *
+    * @return the maximum depth
+    */
+   public int getMaxPropagationDepth();
+
+   /**
+    * Reset all the metrics.
+    */
+   public void reset();
+}
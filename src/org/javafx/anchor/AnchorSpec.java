@@ -0,0 +1,268 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javafx.scene.Node;
+
+/**
+ * A builder which defines several anchors of a {@link NodeAnchor} and installs them at once. For example:
+ * <pre>
+ * anchor.batch().left(label, AnchorPosition.RIGHT).right(panel, AnchorPosition.RIGHT).fillHeight(label).apply();
+ * </pre>
+ *
+ * <p>
+ * Contrary to the separate anchoring methods of the NodeAnchor, the anchors of a batch share the same listeners:
+ * each property of the anchored Node and of the reference Nodes is observed only once, and the position and size
+ * of the anchored Node are computed only once when the batch is applied.</p>
+ *
+ * <p>
+ * The anchors of a batch are resolved by the {@link org.javafx.anchor.model.AnchorSolver}, so if the NodeAnchor uses
+ * the {@link PropagationPolicy#IMMEDIATE} policy, the anchors of the batch use the
+ * {@link PropagationPolicy#ORDERED} policy instead. A batch gives the same geometry as the same anchors installed
+ * one by one with {@link NodeAnchor#anchor(Node, AnchorPosition, AnchorPosition)} by a NodeAnchor which uses the
+ * {@link PropagationPolicy#ORDERED} policy, but not always the same geometry as {@link PropagationPolicy#IMMEDIATE}
+ * anchors: each immediate anchor reacts separately to each change of a property of its reference Node, so when
+ * two immediate anchors constrain the same axis, for example a left and a right anchor, the result can depend on
+ * the order in which the properties of the reference Node change. The anchors of a batch are always computed from
+ * the current geometry of all their reference Nodes.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorSpec {
+   private final NodeAnchor anchor;
+   private final List<Entry> entries = new ArrayList<>();
+   private boolean isApplied = false;
+
+   AnchorSpec(NodeAnchor anchor) {
+      this.anchor = anchor;
+   }
+
+   /**
+    * Anchor the left edge of the Node.
+    *
+    * @param nodeRef the reference Node
+    * @param refAnchor the anchor of the reference Node, which must be {@link AnchorPosition#LEFT} or
+    * {@link AnchorPosition#RIGHT}
+    * @return this builder
+    */
+   public AnchorSpec left(Node nodeRef, AnchorPosition refAnchor) {
+      return add(nodeRef, false, AnchorPosition.LEFT, refAnchor);
+   }
+
+   /**
+    * Anchor the right edge of the Node.
+    *
+    * @param nodeRef the reference Node
+    * @param refAnchor the anchor of the reference Node, which must be {@link AnchorPosition#LEFT} or
+    * {@link AnchorPosition#RIGHT}
+    * @return this builder
+    */
+   public AnchorSpec right(Node nodeRef, AnchorPosition refAnchor) {
+      return add(nodeRef, false, AnchorPosition.RIGHT, refAnchor);
+   }
+
+   /**
+    * Anchor the top edge of the Node.
+    *
+    * @param nodeRef the reference Node
+    * @param refAnchor the anchor of the reference Node, which must be {@link AnchorPosition#TOP} or
+    * {@link AnchorPosition#BOTTOM}
+    * @return this builder
+    */
+   public AnchorSpec top(Node nodeRef, AnchorPosition refAnchor) {
+      return add(nodeRef, false, AnchorPosition.TOP, refAnchor);
+   }
+
+   /**
+    * Anchor the bottom edge of the Node.
+    *
+    * @param nodeRef the reference Node
+    * @param refAnchor the anchor of the reference Node, which must be {@link AnchorPosition#TOP} or
+    * {@link AnchorPosition#BOTTOM}
+    * @return this builder
+    */
+   public AnchorSpec bottom(Node nodeRef, AnchorPosition refAnchor) {
+      return add(nodeRef, false, AnchorPosition.BOTTOM, refAnchor);
+   }
+
+   /**
+    * Anchor an edge of the Node.
+    *
+    * @param nodeRef the reference Node
+    * @param nodeAnchor the anchor of the Node
+    * @param refAnchor the anchor of the reference Node
+    * @return this builder
+    */
+   public AnchorSpec anchor(Node nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      return add(nodeRef, false, nodeAnchor, refAnchor);
+   }
+
+   /**
+    * Anchor an edge of the Node relative to its parent. The parent is the parent of the Node when the batch is
+    * applied.
+    *
+    * @param nodeAnchor the anchor of the Node
+    * @param refAnchor the anchor of the parent
+    * @return this builder
+    */
+   public AnchorSpec anchorInParent(AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      return add(null, true, nodeAnchor, refAnchor);
+   }
+
+   /**
+    * Anchor the left and right edges of the Node to the left and right edges of a reference Node.
+    *
+    * @param nodeRef the reference Node
+    * @return this builder
+    */
+   public AnchorSpec fillWidth(Node nodeRef) {
+      add(nodeRef, false, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      return add(nodeRef, false, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+   }
+
+   /**
+    * Anchor the top and bottom edges of the Node to the top and bottom edges of a reference Node.
+    *
+    * @param nodeRef the reference Node
+    * @return this builder
+    */
+   public AnchorSpec fillHeight(Node nodeRef) {
+      add(nodeRef, false, AnchorPosition.TOP, AnchorPosition.TOP);
+      return add(nodeRef, false, AnchorPosition.BOTTOM, AnchorPosition.BOTTOM);
+   }
+
+   /**
+    * Anchor the four edges of the Node to the same edges of a reference Node.
+    *
+    * @param nodeRef the reference Node
+    * @return this builder
+    */
+   public AnchorSpec fill(Node nodeRef) {
+      fillWidth(nodeRef);
+      return fillHeight(nodeRef);
+   }
+
+   /**
+    * Anchor the four edges of the Node to the same edges of its parent. The parent is the parent of the Node when
+    * the batch is applied.
+    *
+    * @return this builder
+    */
+   public AnchorSpec fillInParent() {
+      add(null, true, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      add(null, true, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      add(null, true, AnchorPosition.TOP, AnchorPosition.TOP);
+      return add(null, true, AnchorPosition.BOTTOM, AnchorPosition.BOTTOM);
+   }
+
+   private AnchorSpec add(Node nodeRef, boolean inParent, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      if (isApplied) {
+         throw new IllegalStateException("The batch has already been applied");
+      }
+      entries.add(new Entry(nodeRef, inParent, nodeAnchor, refAnchor));
+      return this;
+   }
+
+   /**
+    * Install all the anchors of the batch.
+    *
+    * @return the binding for all the anchors of the batch
+    * @throws IllegalArgumentException if a reference Node is anchored to the anchored Node, directly or through
+    * other Nodes. In that case no anchor of the batch is installed
+    * @throws IllegalStateException if the batch has already been applied
+    */
+   public AnchorBinding apply() {
+      if (isApplied) {
+         throw new IllegalStateException("The batch has already been applied");
+      }
+      isApplied = true;
+      return install();
+   }
+
+   /**
+    * Stage the batch, so that its anchors are installed later on the JavaFX Application Thread by the
+    * {@link AnchorStaging}. Contrary to {@link #apply()}, this method can be called on any thread, for example to
+    * build a panel which is not visible yet on a background thread.
+    *
+    * <p>
+    * The future is completed after the resolution which follows the installation of the batch. The throttled anchors
+    * which wait for their throttle interval, and the anchors which are still dirty when the resolution stops after
+    * its maximum number of passes, are resolved on a later pulse.</p>
+    *
+    * @return the future which is completed on the JavaFX Application Thread with the binding for all the anchors of
+    * the batch, or completed exceptionally if the anchors could not be installed
+    * @throws IllegalStateException if the batch has already been applied, or if the {@link AnchorLayoutScheduler}
+    * is automatic and the JavaFX toolkit is not initialized
+    */
+   public CompletableFuture<AnchorBinding> commit() {
+      if (isApplied) {
+         throw new IllegalStateException("The batch has already been applied");
+      }
+      isApplied = true;
+      return AnchorStaging.stage(this);
+   }
+
+   /**
+    * Install all the anchors of the batch.
+    *
+    * @return the binding for all the anchors of the batch
+    */
+   AnchorBinding install() {
+      return anchor.apply(entries);
+   }
+
+   /**
+    * One anchor of the batch.
+    */
+   static final class Entry {
+      /**
+       * The reference Node, or null if the reference is the parent of the Node.
+       */
+      final Node nodeRef;
+      /**
+       * True if the reference is the parent of the Node.
+       */
+      final boolean inParent;
+      final AnchorPosition nodeAnchor;
+      final AnchorPosition refAnchor;
+
+      private Entry(Node nodeRef, boolean inParent, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+         this.nodeRef = nodeRef;
+         this.inParent = inParent;
+         this.nodeAnchor = nodeAnchor;
+         this.refAnchor = refAnchor;
+      }
+   }
+}
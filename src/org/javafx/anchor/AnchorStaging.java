@@ -0,0 +1,217 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import javafx.application.Platform;
+
+/**
+ * Publishes the anchors defined on any thread to the JavaFX Application Thread. A batch of anchors is defined with
+ * {@link NodeAnchor#batch()} and staged with {@link AnchorSpec#commit()}, for example while a panel which is not
+ * visible yet is built on a background thread:
+ * <pre>
+ * NodeAnchor anchor = new NodeAnchor(field);
+ * anchor.batch().left(label, AnchorPosition.RIGHT).fillHeight(label).commit();
+ * </pre>
+ *
+ * <p>
+ * The staged batches are pushed on a lock-free queue, which can be used by several producer threads, and are
+ * drained in bulk by the JavaFX Application Thread: on the next pulse if the {@link AnchorLayoutScheduler} is
+ * automatic, else when {@link AnchorLayoutScheduler#flush()} or {@link #drain()} is called. All the batches of a drain
+ * are installed while the propagation is suspended, and are then resolved once with the other dirty anchors of the
+ * pulse. Installing batches does not force the resolution of the {@link PropagationPolicy#THROTTLED} anchors, which
+ * are still resolved at most once per throttle interval. The futures of the batches are completed after the anchors
+ * have been resolved, so that their continuations see the resolved geometry.</p>
+ *
+ * <p>
+ * Staging a batch while the {@link AnchorLayoutScheduler} is automatic requires the JavaFX toolkit to be initialized,
+ * because the scheduler is woken up with {@link Platform#runLater(Runnable)}. Without the toolkit, for example in
+ * unit tests, the scheduler must not be automatic and the batches are installed by {@link #drain()}.</p>
+ *
+ * <p>
+ * The NodeAnchors and the Nodes of a staged batch must not be used by the thread which defined them after the batch
+ * has been committed.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorStaging {
+   /**
+    * The last staged batch. The batches are linked from the last to the first one.
+    */
+   private static final AtomicReference<Commit> LAST = new AtomicReference<>();
+   private static final Runnable WAKE_UP = new Runnable() {
+      @Override
+      public void run() {
+         AnchorLayoutScheduler.getInstance().wakeUp();
+      }
+   };
+
+   private AnchorStaging() {
+   }
+
+   /**
+    * Stage a batch of anchors. This method can be called on any thread.
+    *
+    * @param spec the batch
+    * @return the future which is completed on the JavaFX Application Thread when the batch has been installed
+    * @throws IllegalStateException if the {@link AnchorLayoutScheduler} is automatic and the JavaFX toolkit is not
+    * initialized
+    */
+   static CompletableFuture<AnchorBinding> stage(AnchorSpec spec) {
+      Commit commit = new Commit(spec);
+      Commit last;
+      do {
+         last = LAST.get();
+         commit.next = last;
+      } while (!LAST.compareAndSet(last, commit));
+      // only the first batch after a drain wakes up the scheduler
+      if (last == null && AnchorLayoutScheduler.getInstance().isAutomatic()) {
+         try {
+            Platform.runLater(WAKE_UP);
+         } catch (IllegalStateException e) {
+            // the batches staged after this one rely on its wake-up, so they are removed with it, else the queue
+            // would never be drained and no other wake-up would be posted
+            Commit staged = LAST.getAndSet(null);
+            for (; staged != null; staged = staged.next) {
+               if (staged != commit) {
+                  staged.future.completeExceptionally(e);
+               }
+            }
+            throw e;
+         }
+      }
+      return commit.future;
+   }
+
+   /**
+    * Return true if there are staged batches which have not been installed yet. This method can be called on any
+    * thread.
+    *
+    * @return true if there are staged batches
+    */
+   public static boolean isPending() {
+      return LAST.get() != null;
+   }
+
+   /**
+    * Install all the staged batches, in the order in which they have been committed, and resolve the dirty ordered
+    * and deferred anchors. A batch which can not be installed, for example because it would create a cycle in the
+    * anchors, completes its future exceptionally and does not prevent the other batches from being installed. The
+    * futures are completed once the anchors have been resolved, except if this method is called during a
+    * transaction or a resolution of the anchors, where the anchors are resolved later. This method must be called on
+    * the JavaFX Application Thread.
+    *
+    * @return the number of batches which have been drained
+    */
+   public static int drain() {
+      Commit first = install();
+      if (first == null) {
+         return 0;
+      }
+      AnchorLayoutScheduler.getInstance().resolveStaged();
+      return complete(first);
+   }
+
+   /**
+    * Install all the staged batches while the propagation is suspended, without resolving the anchors which became
+    * dirty. The futures of the batches are not completed.
+    *
+    * @return the first installed batch, linked to the next ones, or null if there was no staged batch
+    */
+   static Commit install() {
+      Commit commit = LAST.getAndSet(null);
+      if (commit == null) {
+         return null;
+      }
+      // reverse the list, so that the batches are installed in the order of their commit
+      Commit first = null;
+      while (commit != null) {
+         Commit next = commit.next;
+         commit.next = first;
+         first = commit;
+         commit = next;
+      }
+      AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+      scheduler.suspend();
+      try {
+         for (commit = first; commit != null; commit = commit.next) {
+            try {
+               commit.binding = commit.spec.install();
+            } catch (RuntimeException e) {
+               commit.error = e;
+            }
+         }
+      } finally {
+         scheduler.endSuspension();
+      }
+      return first;
+   }
+
+   /**
+    * Complete the futures of installed batches.
+    *
+    * @param first the first installed batch, or null
+    * @return the number of batches
+    */
+   static int complete(Commit first) {
+      int count = 0;
+      for (Commit commit = first; commit != null; commit = commit.next) {
+         if (commit.error != null) {
+            commit.future.completeExceptionally(commit.error);
+         } else {
+            commit.future.complete(commit.binding);
+         }
+         count++;
+      }
+      return count;
+   }
+
+   /**
+    * A staged batch.
+    */
+   static final class Commit {
+      private final AnchorSpec spec;
+      private final CompletableFuture<AnchorBinding> future = new CompletableFuture<>();
+      private AnchorBinding binding = null;
+      private RuntimeException error = null;
+      /**
+       * The previously staged batch while the batch is in the queue, and the batch staged after it once the queue
+       * has been drained.
+       */
+      private Commit next = null;
+
+      private Commit(AnchorSpec spec) {
+         this.spec = spec;
+      }
+   }
+}
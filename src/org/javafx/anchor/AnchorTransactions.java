@@ -0,0 +1,98 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+/**
+ * Allows to suspend the propagation of all the anchors during bulk updates of the Nodes, for example when a saved
+ * layout is restored. During a transaction, the anchors are only marked as dirty when the Nodes they depend on
+ * change, and the whole anchors graph is resolved only once when the outermost transaction ends:
+ * <pre>
+ * AnchorTransactions.run(new Runnable() {
+ *    public void run() {
+ *       restoreWorkspace();
+ *    }
+ * });
+ * </pre>
+ *
+ * <p>
+ * The listeners of the {@link PropagationPolicy#IMMEDIATE} anchors which are notified during a transaction are run
+ * once at the end of the transaction, with the last values of the properties, before the resolution of the other
+ * anchors. Transactions can be nested. Like the {@link AnchorLayoutScheduler}, this class must be used on the JavaFX
+ * Application Thread.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorTransactions {
+   private AnchorTransactions() {
+   }
+
+   /**
+    * Run an action in a transaction. The anchors are resolved when the action returns, or throws an exception, if
+    * this is the outermost transaction.
+    *
+    * @param action the action
+    */
+   public static void run(Runnable action) {
+      suspend();
+      try {
+         action.run();
+      } finally {
+         resume();
+      }
+   }
+
+   /**
+    * Start a transaction. Each call must be followed by a call to {@link #resume()}, preferably in a finally block.
+    */
+   public static void suspend() {
+      AnchorLayoutScheduler.getInstance().suspend();
+   }
+
+   /**
+    * End a transaction. If this is the outermost transaction, all the anchors which became dirty during the
+    * transaction are resolved.
+    *
+    * @throws IllegalStateException if there is no current transaction
+    */
+   public static void resume() {
+      AnchorLayoutScheduler.getInstance().resume();
+   }
+
+   /**
+    * Return true if a transaction is in progress.
+    *
+    * @return true if the propagation of the anchors is suspended
+    */
+   public static boolean isSuspended() {
+      return AnchorLayoutScheduler.getInstance().isSuspended();
+   }
+}
@@ -32,14 +32,7 @@ the project website at the project page on https://github.com/hervegirod/jfxdock
 package org.javafx.anchor;
 
 import javafx.beans.binding.DoubleExpression;
-import javafx.beans.property.SimpleDoubleProperty;
 import javafx.scene.Node;
-import javafx.scene.layout.Region;
-import javafx.scene.shape.Arc;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Ellipse;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
 
 /**
  * A default AnchorUtilities. This class manage the following Node types:
@@ -49,12 +42,75 @@ import javafx.scene.text.Text;
  * <li>{@link javafx.scene.shape.Circle}</li>
  * <li>{@link javafx.scene.shape.Ellipse}</li>
  * <li>{@link javafx.scene.shape.Arc}</li>
+ * <li>{@link javafx.scene.shape.Line}</li>
+ * <li>{@link javafx.scene.shape.Polygon}</li>
  * <li>{@link javafx.scene.text.Text}</li>
+ * <li>{@link javafx.scene.image.ImageView}</li>
+ * <li>{@link javafx.scene.canvas.Canvas}</li>
  * </ul>
  *
+ * <p>
+ * The computations are delegated to the {@link GeometryAdapter} registered for the Node class in a
+ * {@link GeometryAdapters} registry. Other Node types can be managed by registering an adapter for them.</p>
+ *
+ * <p>
+ * The size of the Regions is set by default with the {@link RegionResizeStrategy#PINNED_BOUNDS} strategy, which
+ * sets their minimum, maximum and preferred sizes. Another strategy can be chosen for each DefaultAnchorUtilities,
+ * such as {@link RegionResizeStrategy#PREF_SIZE} which requests only one layout for each resize, but replaces the
+ * minimum and maximum sizes of the Regions.</p>
+ *
+ * <p>
+ * The position and size expressions which are derived from other properties, such as the X position of a
+ * {@link javafx.scene.shape.Circle}, are created only once per Node and cached in the Node properties, so that
+ * each Node has at most one derived expression per dimension.</p>
+ *
  * @since 0.1
  */
 public class DefaultAnchorUtilities implements AnchorUtilities {
+   private final GeometryAdapters adapters;
+
+   /**
+    * Constructor, using the default {@link GeometryAdapters} registry.
+    */
+   public DefaultAnchorUtilities() {
+      this.adapters = GeometryAdapters.getDefault();
+   }
+
+   /**
+    * Constructor, using a new registry with the default adapters.
+    *
+    * @param strategy the strategy used to set the size of the Regions
+    * @since 0.2
+    */
+   public DefaultAnchorUtilities(RegionResizeStrategy strategy) {
+      this.adapters = new GeometryAdapters(strategy);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param adapters the registry of adapters
+    * @since 0.2
+    */
+   public DefaultAnchorUtilities(GeometryAdapters adapters) {
+      this.adapters = adapters;
+   }
+
+   /**
+    * Return the registry of adapters.
+    *
+    * @return the registry of adapters
+    * @since 0.2
+    */
+   public GeometryAdapters getGeometryAdapters() {
+      return adapters;
+   }
+
+   @SuppressWarnings("unchecked")
+   private GeometryAdapter<Node> getAdapter(Node node) {
+      return (GeometryAdapter<Node>) adapters.getAdapter(node.getClass());
+   }
+
    /**
     * Return the Y position of a Node.
     *
@@ -63,25 +119,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public double getY(Node node) {
-      if (node instanceof Region) {
-         return ((Region) node).getLayoutY();
-      } else if (node instanceof Rectangle) {
-         return ((Rectangle) node).getY();
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         return circle.getCenterY() - circle.getRadius();
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         return el.getCenterY() - el.getRadiusY();
-      } else if (node instanceof Arc) {
-         Arc arc = (Arc) node;
-         return arc.getCenterY() - arc.getRadiusY();
-      } else if (node instanceof Text) {
-         Text text = (Text) node;
-         return text.getY();
-      } else {
-         return node.layoutBoundsProperty().get().getMinY();
-      }
+      return getAdapter(node).getY(node);
    }
 
    /**
@@ -92,25 +130,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public double getX(Node node) {
-      if (node instanceof Region) {
-         return ((Region) node).getLayoutX();
-      } else if (node instanceof Rectangle) {
-         return ((Rectangle) node).getX();
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         return circle.getCenterX() - circle.getRadius();
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         return el.getCenterX() - el.getRadiusX();
-      } else if (node instanceof Arc) {
-         Arc arc = (Arc) node;
-         return arc.getCenterX() - arc.getRadiusX();
-      } else if (node instanceof Text) {
-         Text text = (Text) node;
-         return text.getX();
-      } else {
-         return node.layoutBoundsProperty().get().getMinX();
-      }
+      return getAdapter(node).getX(node);
    }
 
    /**
@@ -121,25 +141,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public void setX(Node node, double value) {
-      if (node instanceof Region) {
-         ((Region) node).setLayoutX(value);
-      } else if (node instanceof Rectangle) {
-         ((Rectangle) node).setX(value);
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         circle.setCenterX(value + circle.getRadius());
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         el.setCenterX(value + el.getRadiusX());
-      } else if (node instanceof Arc) {
-         Arc arc = (Arc) node;
-         arc.setCenterX(value + arc.getRadiusX());
-      } else if (node instanceof Text) {
-         Text text = (Text) node;
-         text.setX(value);
-      } else {
-         node.setLayoutX(value);
-      }
+      getAdapter(node).setX(node, value);
    }
 
    /**
@@ -150,25 +152,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public void setY(Node node, double value) {
-      if (node instanceof Region) {
-         ((Region) node).setLayoutY(value);
-      } else if (node instanceof Rectangle) {
-         ((Rectangle) node).setY(value);
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         circle.setCenterY(value + circle.getRadius());
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         el.setCenterY(value + el.getRadiusY());
-      } else if (node instanceof Arc) {
-         Arc arc = (Arc) node;
-         arc.setCenterY(value + arc.getRadiusY());
-      } else if (node instanceof Text) {
-         Text text = (Text) node;
-         text.setY(value);
-      } else {
-         node.setLayoutY(value);
-      }
+      getAdapter(node).setY(node, value);
    }
 
    /**
@@ -179,19 +163,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public void setHeight(Node node, double value) {
-      if (node instanceof Region) {
-         ((Region) node).setMinHeight(value);
-         ((Region) node).setMaxHeight(value);
-         ((Region) node).setPrefHeight(value);
-      } else if (node instanceof Rectangle) {
-         ((Rectangle) node).setHeight(value);
-      } else if (node instanceof Circle) {
-         ((Circle) node).setRadius(value / 2d);
-      } else if (node instanceof Ellipse) {
-         ((Ellipse) node).setRadiusY(value / 2d);
-      } else if (node instanceof Arc) {
-         ((Arc) node).setRadiusY(value / 2d);
-      }
+      getAdapter(node).setHeight(node, value);
    }
 
    /**
@@ -202,19 +174,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public double getHeight(Node node) {
-      if (node instanceof Region) {
-         return ((Region) node).getPrefHeight();
-      } else if (node instanceof Rectangle) {
-         return ((Rectangle) node).getHeight();
-      } else if (node instanceof Circle) {
-         return ((Circle) node).getRadius() * 2d;
-      } else if (node instanceof Ellipse) {
-         return ((Ellipse) node).getRadiusY() * 2d;
-      } else if (node instanceof Arc) {
-         return ((Arc) node).getRadiusY() * 2d;
-      } else {
-         return node.layoutBoundsProperty().get().getHeight();
-      }
+      return getAdapter(node).getHeight(node);
    }
 
    /**
@@ -225,21 +185,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public void setWidth(Node node, double value) {
-      if (node instanceof Region) {
-         ((Region) node).setMinWidth(value);
-         ((Region) node).setMaxWidth(value);
-         ((Region) node).setPrefWidth(value);
-      } else if (node instanceof Rectangle) {
-         ((Rectangle) node).setWidth(value);
-      } else if (node instanceof Circle) {
-         ((Circle) node).setRadius(value / 2d);
-      } else if (node instanceof Ellipse) {
-         ((Ellipse) node).setRadiusX(value / 2d);
-      } else if (node instanceof Arc) {
-         ((Arc) node).setRadiusX(value / 2d);
-      } else if (node instanceof Text) {
-         ((Text) node).setWrappingWidth(value);
-      }
+      getAdapter(node).setWidth(node, value);
    }
 
    /**
@@ -250,23 +196,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public double getWidth(Node node) {
-      if (node instanceof Region) {
-         return ((Region) node).getPrefWidth();
-      } else if (node instanceof Rectangle) {
-         return ((Rectangle) node).getWidth();
-      } else if (node instanceof Circle) {
-         return ((Circle) node).getRadius() * 2d;
-      } else if (node instanceof Ellipse) {
-         return ((Ellipse) node).getRadiusX() * 2d;
-      } else if (node instanceof Text) {
-         return ((Text) node).getWrappingWidth();
-      } else if (node instanceof Arc) {
-         return ((Arc) node).getRadiusX() * 2d;
-      } else if (node instanceof Text) {
-         return ((Text) node).getWrappingWidth();
-      } else {
-         return node.layoutBoundsProperty().get().getWidth();
-      }
+      return getAdapter(node).getWidth(node);
    }
 
    /**
@@ -277,23 +207,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public DoubleExpression getXProperty(Node node) {
-      DoubleExpression property;
-      if (node instanceof Region) {
-         property = ((Region) node).layoutXProperty();
-      } else if (node instanceof Rectangle) {
-         property = ((Rectangle) node).xProperty();
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         property = circle.centerXProperty().subtract(circle.radiusProperty());
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         property = el.centerXProperty().subtract(el.radiusXProperty());
-      } else if (node instanceof Text) {
-         property = ((Text) node).xProperty();
-      } else {
-         property = node.layoutXProperty();
-      }
-      return property;
+      return getAdapter(node).getXProperty(node);
    }
 
    /**
@@ -304,23 +218,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public DoubleExpression getYProperty(Node node) {
-      DoubleExpression property;
-      if (node instanceof Region) {
-         property = ((Region) node).layoutYProperty();
-      } else if (node instanceof Rectangle) {
-         property = ((Rectangle) node).yProperty();
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         property = circle.centerYProperty().subtract(circle.radiusProperty());
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         property = el.centerYProperty().subtract(el.radiusYProperty());
-      } else if (node instanceof Text) {
-         property = ((Text) node).yProperty();
-      } else {
-         property = node.layoutYProperty();
-      }
-      return property;
+      return getAdapter(node).getYProperty(node);
    }
 
    /**
@@ -331,24 +229,7 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public DoubleExpression getHeightProperty(Node node) {
-      DoubleExpression property;
-      if (node instanceof Region) {
-         property = ((Region) node).heightProperty();
-      } else if (node instanceof Rectangle) {
-         property = ((Rectangle) node).heightProperty();
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         property = circle.radiusProperty().multiply(2d);
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         property = el.radiusYProperty().multiply(2d);
-      } else if (node instanceof Arc) {
-         Arc arc = (Arc) node;
-         property = arc.radiusYProperty().multiply(2d);
-      } else {
-         property = new SimpleDoubleProperty();
-      }
-      return property;
+      return getAdapter(node).getHeightProperty(node);
    }
 
    /**
@@ -359,25 +240,6 @@ public class DefaultAnchorUtilities implements AnchorUtilities {
     */
    @Override
    public DoubleExpression getWidthProperty(Node node) {
-      DoubleExpression property;
-      if (node instanceof Region) {
-         property = ((Region) node).widthProperty();
-      } else if (node instanceof Rectangle) {
-         property = ((Rectangle) node).widthProperty();
-      } else if (node instanceof Circle) {
-         Circle circle = (Circle) node;
-         property = circle.radiusProperty().multiply(2d);
-      } else if (node instanceof Ellipse) {
-         Ellipse el = (Ellipse) node;
-         property = el.radiusXProperty().multiply(2d);
-      } else if (node instanceof Arc) {
-         Arc arc = (Arc) node;
-         property = arc.radiusXProperty().multiply(2d);
-      } else if (node instanceof Text) {
-         property = ((Text) node).wrappingWidthProperty();
-      } else {
-         property = new SimpleDoubleProperty();
-      }
-      return property;
+      return getAdapter(node).getWidthProperty(node);
    }
 }
@@ -0,0 +1,1063 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.List;
+import javafx.beans.binding.DoubleBinding;
+import javafx.beans.binding.DoubleExpression;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import static org.javafx.anchor.GeometryAdapters.HEIGHT;
+import static org.javafx.anchor.GeometryAdapters.WIDTH;
+import static org.javafx.anchor.GeometryAdapters.X;
+import static org.javafx.anchor.GeometryAdapters.Y;
+import static org.javafx.anchor.GeometryAdapters.getExpressions;
+
+/**
+ * The default {@link GeometryAdapter}s.
+ *
+ * @since 0.2
+ */
+final class DefaultGeometryAdapters {
+   private DefaultGeometryAdapters() {
+   }
+
+   /**
+    * Register the default adapters in a registry.
+    *
+    * @param adapters the registry
+    * @param strategy the strategy used to set the size of the Regions
+    */
+   static void registerAll(GeometryAdapters adapters, RegionResizeStrategy strategy) {
+      adapters.register(Node.class, new NodeAdapter());
+      adapters.register(Region.class, new RegionAdapter(strategy));
+      adapters.register(Rectangle.class, new RectangleAdapter());
+      adapters.register(Circle.class, new CircleAdapter());
+      adapters.register(Ellipse.class, new EllipseAdapter());
+      adapters.register(Arc.class, new ArcAdapter());
+      adapters.register(Line.class, new LineAdapter());
+      adapters.register(Polygon.class, new PolygonAdapter());
+      adapters.register(Text.class, new TextAdapter());
+      adapters.register(ImageView.class, new ImageViewAdapter());
+      adapters.register(Canvas.class, new CanvasAdapter());
+   }
+
+   /**
+    * Return a property which is never updated, for the dimensions which can not be observed.
+    *
+    * @param node the Node
+    * @param dimension the dimension
+    * @return the property
+    */
+   private static DoubleExpression getConstantProperty(Node node, int dimension) {
+      DoubleExpression[] expressions = getExpressions(node);
+      if (expressions[dimension] == null) {
+         expressions[dimension] = new SimpleDoubleProperty();
+      }
+      return expressions[dimension];
+   }
+
+   /**
+    * The adapter used for the Nodes which have no specific adapter.
+    */
+   static class NodeAdapter implements GeometryAdapter<Node> {
+      @Override
+      public double getX(Node node) {
+         return node.layoutBoundsProperty().get().getMinX();
+      }
+
+      @Override
+      public double getY(Node node) {
+         return node.layoutBoundsProperty().get().getMinY();
+      }
+
+      @Override
+      public void setX(Node node, double value) {
+         node.setLayoutX(value);
+      }
+
+      @Override
+      public void setY(Node node, double value) {
+         node.setLayoutY(value);
+      }
+
+      @Override
+      public double getWidth(Node node) {
+         return node.layoutBoundsProperty().get().getWidth();
+      }
+
+      @Override
+      public void setWidth(Node node, double value) {
+      }
+
+      @Override
+      public double getHeight(Node node) {
+         return node.layoutBoundsProperty().get().getHeight();
+      }
+
+      @Override
+      public void setHeight(Node node, double value) {
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Node node) {
+         return node.layoutXProperty();
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Node node) {
+         return node.layoutYProperty();
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Node node) {
+         return getConstantProperty(node, WIDTH);
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Node node) {
+         return getConstantProperty(node, HEIGHT);
+      }
+   }
+
+   /**
+    * The adapter for Regions. The size of a Region is set with a {@link RegionResizeStrategy}.
+    */
+   static class RegionAdapter implements GeometryAdapter<Region> {
+      private final RegionResizeStrategy strategy;
+
+      RegionAdapter(RegionResizeStrategy strategy) {
+         this.strategy = strategy;
+      }
+
+      @Override
+      public double getX(Region region) {
+         return region.getLayoutX();
+      }
+
+      @Override
+      public double getY(Region region) {
+         return region.getLayoutY();
+      }
+
+      @Override
+      public void setX(Region region, double value) {
+         region.setLayoutX(value);
+      }
+
+      @Override
+      public void setY(Region region, double value) {
+         region.setLayoutY(value);
+      }
+
+      @Override
+      public double getWidth(Region region) {
+         return strategy == RegionResizeStrategy.RESIZE ? region.getWidth() : region.getPrefWidth();
+      }
+
+      @Override
+      public void setWidth(Region region, double value) {
+         switch (strategy) {
+            case PINNED_BOUNDS:
+               region.setMinWidth(value);
+               region.setMaxWidth(value);
+               region.setPrefWidth(value);
+               break;
+            case PREF_SIZE:
+               // the minimum and maximum sizes are only written the first time
+               if (region.getMinWidth() != Region.USE_PREF_SIZE) {
+                  region.setMinWidth(Region.USE_PREF_SIZE);
+               }
+               if (region.getMaxWidth() != Region.USE_PREF_SIZE) {
+                  region.setMaxWidth(Region.USE_PREF_SIZE);
+               }
+               region.setPrefWidth(value);
+               break;
+            default:
+               region.resize(value, region.getHeight());
+               break;
+         }
+      }
+
+      @Override
+      public double getHeight(Region region) {
+         return strategy == RegionResizeStrategy.RESIZE ? region.getHeight() : region.getPrefHeight();
+      }
+
+      @Override
+      public void setHeight(Region region, double value) {
+         switch (strategy) {
+            case PINNED_BOUNDS:
+               region.setMinHeight(value);
+               region.setMaxHeight(value);
+               region.setPrefHeight(value);
+               break;
+            case PREF_SIZE:
+               if (region.getMinHeight() != Region.USE_PREF_SIZE) {
+                  region.setMinHeight(Region.USE_PREF_SIZE);
+               }
+               if (region.getMaxHeight() != Region.USE_PREF_SIZE) {
+                  region.setMaxHeight(Region.USE_PREF_SIZE);
+               }
+               region.setPrefHeight(value);
+               break;
+            default:
+               region.resize(region.getWidth(), value);
+               break;
+         }
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Region region) {
+         return region.layoutXProperty();
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Region region) {
+         return region.layoutYProperty();
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Region region) {
+         return region.widthProperty();
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Region region) {
+         return region.heightProperty();
+      }
+   }
+
+   /**
+    * The adapter for Rectangles.
+    */
+   static class RectangleAdapter implements GeometryAdapter<Rectangle> {
+      @Override
+      public double getX(Rectangle rec) {
+         return rec.getX();
+      }
+
+      @Override
+      public double getY(Rectangle rec) {
+         return rec.getY();
+      }
+
+      @Override
+      public void setX(Rectangle rec, double value) {
+         rec.setX(value);
+      }
+
+      @Override
+      public void setY(Rectangle rec, double value) {
+         rec.setY(value);
+      }
+
+      @Override
+      public double getWidth(Rectangle rec) {
+         return rec.getWidth();
+      }
+
+      @Override
+      public void setWidth(Rectangle rec, double value) {
+         rec.setWidth(value);
+      }
+
+      @Override
+      public double getHeight(Rectangle rec) {
+         return rec.getHeight();
+      }
+
+      @Override
+      public void setHeight(Rectangle rec, double value) {
+         rec.setHeight(value);
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Rectangle rec) {
+         return rec.xProperty();
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Rectangle rec) {
+         return rec.yProperty();
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Rectangle rec) {
+         return rec.widthProperty();
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Rectangle rec) {
+         return rec.heightProperty();
+      }
+   }
+
+   /**
+    * The adapter for Circles. The width and the height of a Circle are its diameter.
+    */
+   static class CircleAdapter implements GeometryAdapter<Circle> {
+      @Override
+      public double getX(Circle circle) {
+         return circle.getCenterX() - circle.getRadius();
+      }
+
+      @Override
+      public double getY(Circle circle) {
+         return circle.getCenterY() - circle.getRadius();
+      }
+
+      @Override
+      public void setX(Circle circle, double value) {
+         circle.setCenterX(value + circle.getRadius());
+      }
+
+      @Override
+      public void setY(Circle circle, double value) {
+         circle.setCenterY(value + circle.getRadius());
+      }
+
+      @Override
+      public double getWidth(Circle circle) {
+         return circle.getRadius() * 2d;
+      }
+
+      @Override
+      public void setWidth(Circle circle, double value) {
+         circle.setRadius(value / 2d);
+      }
+
+      @Override
+      public double getHeight(Circle circle) {
+         return circle.getRadius() * 2d;
+      }
+
+      @Override
+      public void setHeight(Circle circle, double value) {
+         circle.setRadius(value / 2d);
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Circle circle) {
+         DoubleExpression[] expressions = getExpressions(circle);
+         if (expressions[X] == null) {
+            expressions[X] = circle.centerXProperty().subtract(circle.radiusProperty());
+         }
+         return expressions[X];
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Circle circle) {
+         DoubleExpression[] expressions = getExpressions(circle);
+         if (expressions[Y] == null) {
+            expressions[Y] = circle.centerYProperty().subtract(circle.radiusProperty());
+         }
+         return expressions[Y];
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Circle circle) {
+         // the width and the height of a Circle are the same expression
+         DoubleExpression[] expressions = getExpressions(circle);
+         if (expressions[WIDTH] == null) {
+            expressions[WIDTH] = circle.radiusProperty().multiply(2d);
+            expressions[HEIGHT] = expressions[WIDTH];
+         }
+         return expressions[WIDTH];
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Circle circle) {
+         return getWidthProperty(circle);
+      }
+   }
+
+   /**
+    * The adapter for Ellipses.
+    */
+   static class EllipseAdapter implements GeometryAdapter<Ellipse> {
+      @Override
+      public double getX(Ellipse el) {
+         return el.getCenterX() - el.getRadiusX();
+      }
+
+      @Override
+      public double getY(Ellipse el) {
+         return el.getCenterY() - el.getRadiusY();
+      }
+
+      @Override
+      public void setX(Ellipse el, double value) {
+         el.setCenterX(value + el.getRadiusX());
+      }
+
+      @Override
+      public void setY(Ellipse el, double value) {
+         el.setCenterY(value + el.getRadiusY());
+      }
+
+      @Override
+      public double getWidth(Ellipse el) {
+         return el.getRadiusX() * 2d;
+      }
+
+      @Override
+      public void setWidth(Ellipse el, double value) {
+         el.setRadiusX(value / 2d);
+      }
+
+      @Override
+      public double getHeight(Ellipse el) {
+         return el.getRadiusY() * 2d;
+      }
+
+      @Override
+      public void setHeight(Ellipse el, double value) {
+         el.setRadiusY(value / 2d);
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Ellipse el) {
+         DoubleExpression[] expressions = getExpressions(el);
+         if (expressions[X] == null) {
+            expressions[X] = el.centerXProperty().subtract(el.radiusXProperty());
+         }
+         return expressions[X];
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Ellipse el) {
+         DoubleExpression[] expressions = getExpressions(el);
+         if (expressions[Y] == null) {
+            expressions[Y] = el.centerYProperty().subtract(el.radiusYProperty());
+         }
+         return expressions[Y];
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Ellipse el) {
+         DoubleExpression[] expressions = getExpressions(el);
+         if (expressions[WIDTH] == null) {
+            expressions[WIDTH] = el.radiusXProperty().multiply(2d);
+         }
+         return expressions[WIDTH];
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Ellipse el) {
+         DoubleExpression[] expressions = getExpressions(el);
+         if (expressions[HEIGHT] == null) {
+            expressions[HEIGHT] = el.radiusYProperty().multiply(2d);
+         }
+         return expressions[HEIGHT];
+      }
+   }
+
+   /**
+    * The adapter for Arcs. The geometry of an Arc is the geometry of its Ellipse.
+    */
+   static class ArcAdapter implements GeometryAdapter<Arc> {
+      @Override
+      public double getX(Arc arc) {
+         return arc.getCenterX() - arc.getRadiusX();
+      }
+
+      @Override
+      public double getY(Arc arc) {
+         return arc.getCenterY() - arc.getRadiusY();
+      }
+
+      @Override
+      public void setX(Arc arc, double value) {
+         arc.setCenterX(value + arc.getRadiusX());
+      }
+
+      @Override
+      public void setY(Arc arc, double value) {
+         arc.setCenterY(value + arc.getRadiusY());
+      }
+
+      @Override
+      public double getWidth(Arc arc) {
+         return arc.getRadiusX() * 2d;
+      }
+
+      @Override
+      public void setWidth(Arc arc, double value) {
+         arc.setRadiusX(value / 2d);
+      }
+
+      @Override
+      public double getHeight(Arc arc) {
+         return arc.getRadiusY() * 2d;
+      }
+
+      @Override
+      public void setHeight(Arc arc, double value) {
+         arc.setRadiusY(value / 2d);
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Arc arc) {
+         DoubleExpression[] expressions = getExpressions(arc);
+         if (expressions[X] == null) {
+            expressions[X] = arc.centerXProperty().subtract(arc.radiusXProperty());
+         }
+         return expressions[X];
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Arc arc) {
+         DoubleExpression[] expressions = getExpressions(arc);
+         if (expressions[Y] == null) {
+            expressions[Y] = arc.centerYProperty().subtract(arc.radiusYProperty());
+         }
+         return expressions[Y];
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Arc arc) {
+         DoubleExpression[] expressions = getExpressions(arc);
+         if (expressions[WIDTH] == null) {
+            expressions[WIDTH] = arc.radiusXProperty().multiply(2d);
+         }
+         return expressions[WIDTH];
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Arc arc) {
+         DoubleExpression[] expressions = getExpressions(arc);
+         if (expressions[HEIGHT] == null) {
+            expressions[HEIGHT] = arc.radiusYProperty().multiply(2d);
+         }
+         return expressions[HEIGHT];
+      }
+   }
+
+   /**
+    * The adapter for Lines. The geometry of a Line is the bounding box of its start and end points. Setting the
+    * position moves the two points, and setting the size moves the point which is the most on the right or bottom.
+    */
+   static class LineAdapter implements GeometryAdapter<Line> {
+      @Override
+      public double getX(Line line) {
+         return Math.min(line.getStartX(), line.getEndX());
+      }
+
+      @Override
+      public double getY(Line line) {
+         return Math.min(line.getStartY(), line.getEndY());
+      }
+
+      @Override
+      public void setX(Line line, double value) {
+         double delta = value - getX(line);
+         line.setStartX(line.getStartX() + delta);
+         line.setEndX(line.getEndX() + delta);
+      }
+
+      @Override
+      public void setY(Line line, double value) {
+         double delta = value - getY(line);
+         line.setStartY(line.getStartY() + delta);
+         line.setEndY(line.getEndY() + delta);
+      }
+
+      @Override
+      public double getWidth(Line line) {
+         return Math.abs(line.getEndX() - line.getStartX());
+      }
+
+      @Override
+      public void setWidth(Line line, double value) {
+         if (line.getStartX() <= line.getEndX()) {
+            line.setEndX(line.getStartX() + value);
+         } else {
+            line.setStartX(line.getEndX() + value);
+         }
+      }
+
+      @Override
+      public double getHeight(Line line) {
+         return Math.abs(line.getEndY() - line.getStartY());
+      }
+
+      @Override
+      public void setHeight(Line line, double value) {
+         if (line.getStartY() <= line.getEndY()) {
+            line.setEndY(line.getStartY() + value);
+         } else {
+            line.setStartY(line.getEndY() + value);
+         }
+      }
+
+      @Override
+      public DoubleExpression getXProperty(final Line line) {
+         DoubleExpression[] expressions = getExpressions(line);
+         if (expressions[X] == null) {
+            expressions[X] = new DoubleBinding() {
+               {
+                  bind(line.startXProperty(), line.endXProperty());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getX(line);
+               }
+            };
+         }
+         return expressions[X];
+      }
+
+      @Override
+      public DoubleExpression getYProperty(final Line line) {
+         DoubleExpression[] expressions = getExpressions(line);
+         if (expressions[Y] == null) {
+            expressions[Y] = new DoubleBinding() {
+               {
+                  bind(line.startYProperty(), line.endYProperty());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getY(line);
+               }
+            };
+         }
+         return expressions[Y];
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(final Line line) {
+         DoubleExpression[] expressions = getExpressions(line);
+         if (expressions[WIDTH] == null) {
+            expressions[WIDTH] = new DoubleBinding() {
+               {
+                  bind(line.startXProperty(), line.endXProperty());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getWidth(line);
+               }
+            };
+         }
+         return expressions[WIDTH];
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(final Line line) {
+         DoubleExpression[] expressions = getExpressions(line);
+         if (expressions[HEIGHT] == null) {
+            expressions[HEIGHT] = new DoubleBinding() {
+               {
+                  bind(line.startYProperty(), line.endYProperty());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getHeight(line);
+               }
+            };
+         }
+         return expressions[HEIGHT];
+      }
+   }
+
+   /**
+    * The adapter for Polygons. The geometry of a Polygon is the bounding box of its points, translated by its
+    * layout position. Setting the position changes the layout position, and setting the size scales the points.
+    */
+   static class PolygonAdapter implements GeometryAdapter<Polygon> {
+      private static final int MIN = 0;
+      private static final int MAX = 1;
+
+      private double getBound(List<Double> points, int offset, int bound) {
+         if (points.size() <= offset) {
+            return 0;
+         }
+         double value = points.get(offset);
+         for (int i = offset + 2; i < points.size(); i += 2) {
+            double point = points.get(i);
+            value = bound == MIN ? Math.min(value, point) : Math.max(value, point);
+         }
+         return value;
+      }
+
+      private void scale(List<Double> points, int offset, double size) {
+         double min = getBound(points, offset, MIN);
+         double currentSize = getBound(points, offset, MAX) - min;
+         if (currentSize > 0) {
+            double factor = size / currentSize;
+            for (int i = offset; i < points.size(); i += 2) {
+               points.set(i, min + (points.get(i) - min) * factor);
+            }
+         }
+      }
+
+      @Override
+      public double getX(Polygon polygon) {
+         return polygon.getLayoutX() + getBound(polygon.getPoints(), 0, MIN);
+      }
+
+      @Override
+      public double getY(Polygon polygon) {
+         return polygon.getLayoutY() + getBound(polygon.getPoints(), 1, MIN);
+      }
+
+      @Override
+      public void setX(Polygon polygon, double value) {
+         polygon.setLayoutX(value - getBound(polygon.getPoints(), 0, MIN));
+      }
+
+      @Override
+      public void setY(Polygon polygon, double value) {
+         polygon.setLayoutY(value - getBound(polygon.getPoints(), 1, MIN));
+      }
+
+      @Override
+      public double getWidth(Polygon polygon) {
+         List<Double> points = polygon.getPoints();
+         return getBound(points, 0, MAX) - getBound(points, 0, MIN);
+      }
+
+      @Override
+      public void setWidth(Polygon polygon, double value) {
+         scale(polygon.getPoints(), 0, value);
+      }
+
+      @Override
+      public double getHeight(Polygon polygon) {
+         List<Double> points = polygon.getPoints();
+         return getBound(points, 1, MAX) - getBound(points, 1, MIN);
+      }
+
+      @Override
+      public void setHeight(Polygon polygon, double value) {
+         scale(polygon.getPoints(), 1, value);
+      }
+
+      @Override
+      public DoubleExpression getXProperty(final Polygon polygon) {
+         DoubleExpression[] expressions = getExpressions(polygon);
+         if (expressions[X] == null) {
+            expressions[X] = new DoubleBinding() {
+               {
+                  bind(polygon.layoutXProperty(), polygon.getPoints());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getX(polygon);
+               }
+            };
+         }
+         return expressions[X];
+      }
+
+      @Override
+      public DoubleExpression getYProperty(final Polygon polygon) {
+         DoubleExpression[] expressions = getExpressions(polygon);
+         if (expressions[Y] == null) {
+            expressions[Y] = new DoubleBinding() {
+               {
+                  bind(polygon.layoutYProperty(), polygon.getPoints());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getY(polygon);
+               }
+            };
+         }
+         return expressions[Y];
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(final Polygon polygon) {
+         DoubleExpression[] expressions = getExpressions(polygon);
+         if (expressions[WIDTH] == null) {
+            expressions[WIDTH] = new DoubleBinding() {
+               {
+                  bind(polygon.getPoints());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getWidth(polygon);
+               }
+            };
+         }
+         return expressions[WIDTH];
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(final Polygon polygon) {
+         DoubleExpression[] expressions = getExpressions(polygon);
+         if (expressions[HEIGHT] == null) {
+            expressions[HEIGHT] = new DoubleBinding() {
+               {
+                  bind(polygon.getPoints());
+               }
+
+               @Override
+               protected double computeValue() {
+                  return getHeight(polygon);
+               }
+            };
+         }
+         return expressions[HEIGHT];
+      }
+   }
+
+   /**
+    * The adapter for Texts. The width of a Text is its wrapping width, and its height is measured by a
+    * {@link TextMetricsCache}, so that it is not computed again for each query.
+    */
+   static class TextAdapter implements GeometryAdapter<Text> {
+      private final TextMetricsCache cache;
+
+      TextAdapter() {
+         this(TextMetricsCache.getDefault());
+      }
+
+      TextAdapter(TextMetricsCache cache) {
+         this.cache = cache;
+      }
+
+      @Override
+      public double getX(Text text) {
+         return text.getX();
+      }
+
+      @Override
+      public double getY(Text text) {
+         return text.getY();
+      }
+
+      @Override
+      public void setX(Text text, double value) {
+         text.setX(value);
+      }
+
+      @Override
+      public void setY(Text text, double value) {
+         text.setY(value);
+      }
+
+      @Override
+      public double getWidth(Text text) {
+         return text.getWrappingWidth();
+      }
+
+      @Override
+      public void setWidth(Text text, double value) {
+         text.setWrappingWidth(value);
+      }
+
+      @Override
+      public double getHeight(Text text) {
+         return cache.getHeight(text);
+      }
+
+      @Override
+      public void setHeight(Text text, double value) {
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Text text) {
+         return text.xProperty();
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Text text) {
+         return text.yProperty();
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Text text) {
+         return text.wrappingWidthProperty();
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Text text) {
+         DoubleExpression[] expressions = getExpressions(text);
+         if (expressions[HEIGHT] == null) {
+            expressions[HEIGHT] = cache.createHeightExpression(text);
+         }
+         return expressions[HEIGHT];
+      }
+   }
+
+   /**
+    * The adapter for ImageViews. The size of an ImageView is its fit size, or the size of its layout bounds if the
+    * fit size is not set.
+    */
+   static class ImageViewAdapter implements GeometryAdapter<ImageView> {
+      @Override
+      public double getX(ImageView view) {
+         return view.getX();
+      }
+
+      @Override
+      public double getY(ImageView view) {
+         return view.getY();
+      }
+
+      @Override
+      public void setX(ImageView view, double value) {
+         view.setX(value);
+      }
+
+      @Override
+      public void setY(ImageView view, double value) {
+         view.setY(value);
+      }
+
+      @Override
+      public double getWidth(ImageView view) {
+         double width = view.getFitWidth();
+         return width > 0 ? width : view.getLayoutBounds().getWidth();
+      }
+
+      @Override
+      public void setWidth(ImageView view, double value) {
+         view.setFitWidth(value);
+      }
+
+      @Override
+      public double getHeight(ImageView view) {
+         double height = view.getFitHeight();
+         return height > 0 ? height : view.getLayoutBounds().getHeight();
+      }
+
+      @Override
+      public void setHeight(ImageView view, double value) {
+         view.setFitHeight(value);
+      }
+
+      @Override
+      public DoubleExpression getXProperty(ImageView view) {
+         return view.xProperty();
+      }
+
+      @Override
+      public DoubleExpression getYProperty(ImageView view) {
+         return view.yProperty();
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(ImageView view) {
+         return view.fitWidthProperty();
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(ImageView view) {
+         return view.fitHeightProperty();
+      }
+   }
+
+   /**
+    * The adapter for Canvases.
+    */
+   static class CanvasAdapter implements GeometryAdapter<Canvas> {
+      @Override
+      public double getX(Canvas canvas) {
+         return canvas.getLayoutX();
+      }
+
+      @Override
+      public double getY(Canvas canvas) {
+         return canvas.getLayoutY();
+      }
+
+      @Override
+      public void setX(Canvas canvas, double value) {
+         canvas.setLayoutX(value);
+      }
+
+      @Override
+      public void setY(Canvas canvas, double value) {
+         canvas.setLayoutY(value);
+      }
+
+      @Override
+      public double getWidth(Canvas canvas) {
+         return canvas.getWidth();
+      }
+
+      @Override
+      public void setWidth(Canvas canvas, double value) {
+         canvas.setWidth(value);
+      }
+
+      @Override
+      public double getHeight(Canvas canvas) {
+         return canvas.getHeight();
+      }
+
+      @Override
+      public void setHeight(Canvas canvas, double value) {
+         canvas.setHeight(value);
+      }
+
+      @Override
+      public DoubleExpression getXProperty(Canvas canvas) {
+         return canvas.layoutXProperty();
+      }
+
+      @Override
+      public DoubleExpression getYProperty(Canvas canvas) {
+         return canvas.layoutYProperty();
+      }
+
+      @Override
+      public DoubleExpression getWidthProperty(Canvas canvas) {
+         return canvas.widthProperty();
+      }
+
+      @Override
+      public DoubleExpression getHeightProperty(Canvas canvas) {
+         return canvas.heightProperty();
+      }
+   }
+}
@@ -0,0 +1,172 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.HashMap;
+import java.util.Map;
+import javafx.beans.binding.DoubleExpression;
+import javafx.scene.Node;
+
+/**
+ * A registry of {@link GeometryAdapter}s by Node type. The adapter of a Node class is the adapter registered for
+ * the nearest class in its hierarchy. It is resolved only once per class through a {@link ClassValue}, so that the
+ * lookup does not depend on the number of registered types.
+ *
+ * <p>
+ * A new registry contains adapters for the following Node types:</p>
+ * <ul>
+ * <li>{@link javafx.scene.layout.Region}</li>
+ * <li>{@link javafx.scene.shape.Rectangle}</li>
+ * <li>{@link javafx.scene.shape.Circle}</li>
+ * <li>{@link javafx.scene.shape.Ellipse}</li>
+ * <li>{@link javafx.scene.shape.Arc}</li>
+ * <li>{@link javafx.scene.shape.Line}</li>
+ * <li>{@link javafx.scene.shape.Polygon}</li>
+ * <li>{@link javafx.scene.text.Text}</li>
+ * <li>{@link javafx.scene.image.ImageView}</li>
+ * <li>{@link javafx.scene.canvas.Canvas}</li>
+ * <li>{@link javafx.scene.Node}, which is used for all the other Nodes</li>
+ * </ul>
+ *
+ * @since 0.2
+ */
+public final class GeometryAdapters {
+   private static final String EXPRESSIONS_KEY = GeometryAdapters.class.getName() + ".expressions";
+   /**
+    * The index of the X expression in the cached expressions.
+    */
+   static final int X = 0;
+   /**
+    * The index of the Y expression in the cached expressions.
+    */
+   static final int Y = 1;
+   /**
+    * The index of the width expression in the cached expressions.
+    */
+   static final int WIDTH = 2;
+   /**
+    * The index of the height expression in the cached expressions.
+    */
+   static final int HEIGHT = 3;
+   private final Map<Class<?>, GeometryAdapter<?>> adapters = new HashMap<>();
+   private volatile ClassValue<GeometryAdapter<?>> resolved = createResolver();
+   private static final GeometryAdapters DEFAULT = new GeometryAdapters();
+
+   /**
+    * Create a registry with the default adapters. The size of the Regions is set with the
+    * {@link RegionResizeStrategy#PINNED_BOUNDS} strategy.
+    */
+   public GeometryAdapters() {
+      this(RegionResizeStrategy.PINNED_BOUNDS);
+   }
+
+   /**
+    * Create a registry with the default adapters.
+    *
+    * @param strategy the strategy used to set the size of the Regions
+    */
+   public GeometryAdapters(RegionResizeStrategy strategy) {
+      DefaultGeometryAdapters.registerAll(this, strategy);
+   }
+
+   /**
+    * Return the registry which is used by default by the {@link DefaultAnchorUtilities}.
+    *
+    * @return the default registry
+    */
+   public static GeometryAdapters getDefault() {
+      return DEFAULT;
+   }
+
+   /**
+    * Register an adapter for a Node type. The adapter will also be used for the sub-classes of this type, except
+    * if a more specific adapter is registered.
+    *
+    * @param <N> the type of the Node
+    * @param type the Node type
+    * @param adapter the adapter
+    */
+   public synchronized <N extends Node> void register(Class<N> type, GeometryAdapter<? super N> adapter) {
+      adapters.put(type, adapter);
+      // the classes which were already resolved may now resolve to the new adapter
+      resolved = createResolver();
+   }
+
+   /**
+    * Return the adapter to use for a Node type.
+    *
+    * @param <N> the type of the Node
+    * @param type the Node type
+    * @return the adapter
+    */
+   @SuppressWarnings("unchecked")
+   public <N extends Node> GeometryAdapter<? super N> getAdapter(Class<N> type) {
+      return (GeometryAdapter<? super N>) resolved.get(type);
+   }
+
+   private ClassValue<GeometryAdapter<?>> createResolver() {
+      return new ClassValue<GeometryAdapter<?>>() {
+         @Override
+         protected GeometryAdapter<?> computeValue(Class<?> type) {
+            return lookup(type);
+         }
+      };
+   }
+
+   private synchronized GeometryAdapter<?> lookup(Class<?> type) {
+      Class<?> theClass = type;
+      while (theClass != null) {
+         GeometryAdapter<?> adapter = adapters.get(theClass);
+         if (adapter != null) {
+            return adapter;
+         }
+         theClass = theClass.getSuperclass();
+      }
+      return adapters.get(Node.class);
+   }
+
+   /**
+    * Return the cached derived expressions of a Node. The cache is stored in the Node properties so that it has
+    * the same lifetime as the Node.
+    *
+    * @param node the Node
+    * @return the cached expressions, indexed by dimension
+    */
+   static DoubleExpression[] getExpressions(Node node) {
+      DoubleExpression[] expressions = (DoubleExpression[]) node.getProperties().get(EXPRESSIONS_KEY);
+      if (expressions == null) {
+         expressions = new DoubleExpression[4];
+         node.getProperties().put(EXPRESSIONS_KEY, expressions);
+      }
+      return expressions;
+   }
+}
@@ -31,11 +31,20 @@ the project website at the project page on https://github.com/hervegirod/jfxdock
  */
 package org.javafx.anchor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.DoubleExpression;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.beans.value.WeakChangeListener;
 import javafx.scene.Node;
 import javafx.scene.layout.Region;
+import org.javafx.anchor.model.AnchorModel;
+import org.javafx.anchor.model.AnchorSolver;
 
 /**
  * This class provide an anchor mechanism similar to the one which is used in QML. However, contrary to
@@ -46,9 +55,35 @@ import javafx.scene.layout.Region;
  * <li>{@link javafx.scene.shape.Circle}</li>
  * <li>{@link javafx.scene.shape.Ellipse}</li>
  * <li>{@link javafx.scene.shape.Arc}</li>
+ * <li>{@link javafx.scene.shape.Line}</li>
+ * <li>{@link javafx.scene.shape.Polygon}</li>
  * <li>{@link javafx.scene.text.Text}</li>
+ * <li>{@link javafx.scene.image.ImageView}</li>
+ * <li>{@link javafx.scene.canvas.Canvas}</li>
  * </ul>
  *
+ * <p>
+ * By default the changes of the reference Nodes are propagated immediately to the anchored Node. With the
+ * {@link PropagationPolicy#DEFERRED} policy, the anchored Node is only marked as dirty and its constraints are
+ * resolved once per JavaFX pulse by the {@link AnchorLayoutScheduler}. With the
+ * {@link PropagationPolicy#THROTTLED} policy, they are resolved at most once per throttle interval of the scheduler.
+ * The deferred constraints are resolved by the {@link AnchorSolver}, which does not depend on JavaFX. They only use
+ * {@link InvalidationListener}s, so that their propagation does not box the values of the properties.
+ * All the anchors are stored in the compact constraint table of the NodeAnchor, but only the non immediate anchors
+ * are notified by the listeners shared per reference property: the {@link PropagationPolicy#IMMEDIATE} anchors keep
+ * one listener per anchor and per property, so their footprint is not reduced.</p>
+ *
+ * <p>
+ * Several anchors can be installed at once with the {@link AnchorSpec} builder returned by {@link #batch()}.
+ * Each anchoring method returns an {@link AnchorBinding} which allows to remove the listeners installed for the
+ * anchors. The {@link #dispose()} method removes all the listeners installed by this NodeAnchor.</p>
+ *
+ * <p>
+ * If the NodeAnchor uses weak listeners, the listeners installed on the reference Nodes are
+ * {@link WeakChangeListener}s which are owned by the anchored Node, and the reference Nodes only keep weak references
+ * on the NodeAnchor for the resolved constraints, so that the anchored Node and its constraints can be garbage
+ * collected even if its anchors are not disposed.</p>
+ *
  * @since 0.1
  */
 public class NodeAnchor {
@@ -58,11 +93,80 @@ public class NodeAnchor {
    private static final short BOTTOM = 2;
    private static final short RIGHT = 3;
    private static final short LEFT = 4;
+   private static PropagationPolicy defaultPolicy = PropagationPolicy.IMMEDIATE;
+   private static boolean defaultWeakListeners = false;
+   private static final AnchorSolver SOLVER = new AnchorSolver();
+   private static final AnchorUtilities DEFAULT_UTILITIES = new DefaultAnchorUtilities();
+   /**
+    * The models used to resolve the constraints of one NodeAnchor. Each thread has its own model, and a resolution
+    * which is nested in another one uses a new model, so that two resolutions never share the same model.
+    */
+   private static final ThreadLocal<ScratchModel> SCRATCH_MODELS = new ThreadLocal<ScratchModel>() {
+      @Override
+      protected ScratchModel initialValue() {
+         return new ScratchModel();
+      }
+   };
+   private static final AnchorPosition[] POSITIONS = AnchorPosition.values();
+   private static final PropagationPolicy[] POLICIES = PropagationPolicy.values();
+   private static final Node[] NO_NODES = new Node[0];
+   private static final int[] NO_CODES = new int[0];
+   private static final AnchorBinding[] NO_BINDINGS = new AnchorBinding[0];
+   /**
+    * The layout of the constraint codes: the anchor of the Node, the anchor of the reference Node, the parent flag,
+    * and the policy.
+    */
+   private static final int REF_ANCHOR_SHIFT = 2;
+   private static final int PARENT_FLAG = 1 << 4;
+   private static final int POLICY_SHIFT = 5;
+   /**
+    * The tolerance under which a position or size is considered as unchanged, in which case it is not written.
+    */
+   private static final double EPSILON = 1E-9d;
+   /**
+    * The maximum number of times a listener is run again because of its own writes.
+    */
+   static final int MAX_NESTED_UPDATES = 1024;
+   private static final Logger LOGGER = Logger.getLogger(NodeAnchor.class.getName());
+   private PropagationPolicy policy = defaultPolicy;
+   private boolean weakListeners = defaultWeakListeners;
+   /**
+    * The reference Node of each constraint. The constraints are stored in parallel arrays rather than in objects,
+    * with their anchors, parent flag and policy packed in one int code, and the binding which created them.
+    */
+   private Node[] refs = NO_NODES;
+   private int[] codes = NO_CODES;
+   private AnchorBinding[] owners = NO_BINDINGS;
+   private int constraintCount = 0;
+   private final List<AnchorBinding> bindings = new ArrayList<>(1);
+   private boolean isApplying = false;
+   private boolean isOrdered = false;
+   private boolean isDeferred = false;
+   private boolean isThrottled = false;
+   private long suppressedWrites = 0;
+   private long reentrantUpdates = 0;
+   private long droppedUpdates = 0;
+   /**
+    * True if this NodeAnchor is dirty and waits to be resolved by the {@link AnchorLayoutScheduler}.
+    */
+   boolean isScheduled = false;
+   /**
+    * The level of this NodeAnchor when it was marked as dirty.
+    */
+   int scheduledLevel = 0;
+   /**
+    * The cached level of this NodeAnchor in the {@link AnchorGraph}.
+    */
+   int level = 0;
+   /**
+    * The version of the {@link AnchorGraph} for which the level was computed.
+    */
+   int levelVersion = -1;
 
    /**
     * The AnchorUtilities used internally to compute positions and sizes for Nodes.
     */
-   protected AnchorUtilities utils = new DefaultAnchorUtilities();
+   protected AnchorUtilities utils = DEFAULT_UTILITIES;
 
    /**
     * Constructor. By default the {@link AnchorUtilities} will be a {@link DefaultAnchorUtilities}.
@@ -102,6 +206,99 @@ public class NodeAnchor {
       return utils;
    }
 
+   /**
+    * Set the policy which will be used by default for the new NodeAnchors.
+    *
+    * @param policy the default policy
+    * @since 0.2
+    */
+   public static void setDefaultPropagationPolicy(PropagationPolicy policy) {
+      defaultPolicy = policy;
+   }
+
+   /**
+    * Return the policy which is used by default for the new NodeAnchors.
+    *
+    * @return the default policy
+    * @since 0.2
+    */
+   public static PropagationPolicy getDefaultPropagationPolicy() {
+      return defaultPolicy;
+   }
+
+   /**
+    * Set the policy used to propagate the changes of the reference Nodes. The policy only applies to the anchors
+    * which are set after this call.
+    *
+    * @param policy the policy
+    * @since 0.2
+    */
+   public void setPropagationPolicy(PropagationPolicy policy) {
+      this.policy = policy;
+   }
+
+   /**
+    * Return the policy used to propagate the changes of the reference Nodes.
+    *
+    * @return the policy
+    * @since 0.2
+    */
+   public PropagationPolicy getPropagationPolicy() {
+      return policy;
+   }
+
+   /**
+    * Set if the new NodeAnchors use weak listeners by default.
+    *
+    * @param weakListeners true if the new NodeAnchors use weak listeners by default
+    * @since 0.2
+    */
+   public static void setDefaultUseWeakListeners(boolean weakListeners) {
+      defaultWeakListeners = weakListeners;
+   }
+
+   /**
+    * Return true if the new NodeAnchors use weak listeners by default.
+    *
+    * @return true if the new NodeAnchors use weak listeners by default
+    * @since 0.2
+    */
+   public static boolean isDefaultUsingWeakListeners() {
+      return defaultWeakListeners;
+   }
+
+   /**
+    * Set if the listeners installed on the reference Nodes are weak listeners. The weak listeners are owned by the
+    * anchored Node, so that the anchored Node can be garbage collected without disposing its anchors. This
+    * setting only applies to the anchors which are set after this call.
+    *
+    * @param weakListeners true if the listeners installed on the reference Nodes are weak listeners
+    * @since 0.2
+    */
+   public void setUseWeakListeners(boolean weakListeners) {
+      this.weakListeners = weakListeners;
+   }
+
+   /**
+    * Return true if the listeners installed on the reference Nodes are weak listeners.
+    *
+    * @return true if the listeners installed on the reference Nodes are weak listeners
+    * @since 0.2
+    */
+   public boolean isUsingWeakListeners() {
+      return weakListeners;
+   }
+
+   /**
+    * Return the anchored Node.
+    *
+    * @return the anchored Node
+    * @since 0.2
+    */
+   public Node getNode() {
+      return node;
+   }
+
    /**
     * Set a Fill anchor. It is equivalent to call four times
     * {@link #anchor(javafx.scene.Node, AnchorPosition, AnchorPosition)} with:
@@ -113,12 +310,18 @@ public class NodeAnchor {
     * </ul>
     *
     * @param nodeRef the reference Node
+    * @return the binding for the four anchors
+    * @throws IllegalArgumentException if the reference Node is anchored to the anchored Node, directly or through
+    * other Nodes
     */
-   public void fill(Node nodeRef) {
-      anchor(nodeRef, AnchorPosition.LEFT, AnchorPosition.LEFT);
-      anchor(nodeRef, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
-      anchor(nodeRef, AnchorPosition.TOP, AnchorPosition.TOP);
-      anchor(nodeRef, AnchorPosition.BOTTOM, AnchorPosition.BOTTOM);
+   public AnchorBinding fill(Node nodeRef) {
+      checkCycle(nodeRef);
+      AnchorBinding binding = createBinding();
+      anchor(binding, nodeRef, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      anchor(binding, nodeRef, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      anchor(binding, nodeRef, AnchorPosition.TOP, AnchorPosition.TOP);
+      anchor(binding, nodeRef, AnchorPosition.BOTTOM, AnchorPosition.BOTTOM);
+      return binding;
    }
 
    /**
@@ -130,25 +333,34 @@ public class NodeAnchor {
     * <li>{@link AnchorPosition#TOP} and {@link AnchorPosition#TOP}</li>
     * <li>{@link AnchorPosition#BOTTOM} and {@link AnchorPosition#BOTTOM}</li>
     * </ul>
+    *
+    * @return the binding for the four anchors
     */
-   public void fillInParent() {
+   public AnchorBinding fillInParent() {
       Node parent = node.getParent();
-      fill(parent);
+      return fill(parent);
    }
 
    /**
     * Set an anchor.
     *
+    * <p>
+    * This method must be called on the JavaFX Application Thread, or on the thread which owns the Nodes if they are
+    * not in a live scene. The anchor is registered in the dependency graph of the anchors and in the
+    * {@link AnchorLayoutScheduler}, which are shared by all the NodeAnchors and are not synchronized.</p>
+    *
     * @param nodeRef the anchor of the anchored Node
     * @param nodeAnchor the anchor of the Node
     * @param refAnchor the anchor of the reference Node
+    * @return the binding for the anchor
+    * @throws IllegalArgumentException if the reference Node is anchored to the anchored Node, directly or through
+    * other Nodes
     */
-   public void anchor(Node nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
-      if (node instanceof Region && nodeRef instanceof Region) {
-         anchorRegion((Region) node, (Region) nodeRef, nodeAnchor, refAnchor, nodeRef == node.getParent());
-      } else {
-         anchorNode(node, nodeRef, nodeAnchor, refAnchor, nodeRef == node.getParent());
-      }
+   public AnchorBinding anchor(Node nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      checkCycle(nodeRef);
+      AnchorBinding binding = createBinding();
+      anchor(binding, nodeRef, nodeAnchor, refAnchor);
+      return binding;
    }
 
    /**
@@ -156,83 +368,590 @@ public class NodeAnchor {
     *
     * @param nodeAnchor the anchor of the Node
     * @param refAnchor the anchor of the reference Node
+    * @return the binding for the anchor
+    */
+   public AnchorBinding anchorInParent(AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      Node parent = node.getParent();
+      return anchor(parent, nodeAnchor, refAnchor);
+   }
+
+   /**
+    * Return a builder which defines several anchors and installs them at once.
+    *
+    * @return the builder
+    * @since 0.2
+    */
+   public AnchorSpec batch() {
+      return new AnchorSpec(this);
+   }
+
+   /**
+    * Install the anchors of a batch.
+    *
+    * @param entries the anchors
+    * @return the binding for the anchors
     */
-   public void anchorInParent(AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+   AnchorBinding apply(List<AnchorSpec.Entry> entries) {
       Node parent = node.getParent();
-      anchor(parent, nodeAnchor, refAnchor);
+      for (AnchorSpec.Entry entry : entries) {
+         checkCycle(entry.inParent ? parent : entry.nodeRef);
+      }
+      PropagationPolicy batchPolicy = policy == PropagationPolicy.IMMEDIATE ? PropagationPolicy.ORDERED : policy;
+      AnchorBinding binding = createBinding();
+      for (AnchorSpec.Entry entry : entries) {
+         Node nodeRef = entry.inParent ? parent : entry.nodeRef;
+         installResolved(binding, nodeRef, entry.nodeAnchor, entry.refAnchor, nodeRef == parent, batchPolicy);
+      }
+      markDirty();
+      return binding;
+   }
+
+   /**
+    * Remove all the listeners installed by this NodeAnchor. The anchored Node keeps its current position and
+    * size.
+    *
+    * @since 0.2
+    */
+   public void dispose() {
+      List<AnchorBinding> list = new ArrayList<>(bindings);
+      for (AnchorBinding binding : list) {
+         binding.dispose();
+      }
+   }
+
+   private AnchorBinding createBinding() {
+      AnchorBinding binding = new AnchorBinding(this);
+      if (bindings.isEmpty()) {
+         AnchorGraph.register(this);
+      }
+      bindings.add(binding);
+      return binding;
+   }
+
+   /**
+    * Check that anchoring the Node to a reference Node would not create a cycle in the anchors.
+    *
+    * @param nodeRef the reference Node
+    */
+   private void checkCycle(Node nodeRef) {
+      if (nodeRef != null && AnchorGraph.dependsOn(nodeRef, node)) {
+         AnchorFlightRecorder.cycleDetected(node, nodeRef);
+         throw new IllegalArgumentException("Anchoring " + node + " to " + nodeRef + " would create a cycle");
+      }
+   }
+
+   /**
+    * Return the number of constraints of this NodeAnchor.
+    *
+    * @return the number of constraints
+    */
+   int getConstraintCount() {
+      return constraintCount;
+   }
+
+   /**
+    * Return the number of constraints which the constraints table can hold without growing.
+    *
+    * @return the capacity of the constraints table
+    */
+   int getConstraintCapacity() {
+      return refs.length;
+   }
+
+   /**
+    * Return the reference Node of a constraint.
+    *
+    * @param index the index of the constraint
+    * @return the reference Node
+    */
+   Node getReference(int index) {
+      return refs[index];
+   }
+
+   /**
+    * Add a constraint to the constraints table.
+    *
+    * @param binding the binding which creates the constraint
+    * @param nodeRef the reference Node
+    * @param nodeAnchor the anchor of the anchored Node
+    * @param refAnchor the anchor of the reference Node
+    * @param isParent true if the reference Node is the parent of the anchored Node
+    * @param constraintPolicy the policy of the constraint
+    */
+   private void addConstraint(AnchorBinding binding, Node nodeRef, AnchorPosition nodeAnchor,
+      AnchorPosition refAnchor, boolean isParent, PropagationPolicy constraintPolicy) {
+      if (constraintCount == refs.length) {
+         int capacity = Math.max(2, constraintCount * 2);
+         refs = Arrays.copyOf(refs, capacity);
+         codes = Arrays.copyOf(codes, capacity);
+         owners = Arrays.copyOf(owners, capacity);
+      }
+      refs[constraintCount] = nodeRef;
+      codes[constraintCount] = nodeAnchor.ordinal() | (refAnchor.ordinal() << REF_ANCHOR_SHIFT)
+         | (isParent ? PARENT_FLAG : 0) | (constraintPolicy.ordinal() << POLICY_SHIFT);
+      owners[constraintCount] = binding;
+      constraintCount++;
+      binding.addConstraint();
+      AnchorGraph.addReference(this, nodeRef);
+      AnchorFlightRecorder.anchorInstalled(node, nodeRef, nodeAnchor, refAnchor, constraintPolicy, isParent);
+   }
+
+   private static AnchorPosition getNodeAnchor(int code) {
+      return POSITIONS[code & 3];
+   }
+
+   private static AnchorPosition getRefAnchor(int code) {
+      return POSITIONS[(code >> REF_ANCHOR_SHIFT) & 3];
+   }
+
+   private static PropagationPolicy getPolicy(int code) {
+      return POLICIES[(code >> POLICY_SHIFT) & 3];
+   }
+
+   private static boolean isResolved(int code) {
+      return getPolicy(code) != PropagationPolicy.IMMEDIATE;
+   }
+
+   private static boolean isHorizontal(AnchorPosition position) {
+      return position == AnchorPosition.LEFT || position == AnchorPosition.RIGHT;
+   }
+
+   /**
+    * Return true if this NodeAnchor has resolved constraints on a reference Node.
+    *
+    * @param nodeRef the reference Node
+    * @return true if a resolved constraint uses the reference Node
+    */
+   private boolean hasResolvedReference(Node nodeRef) {
+      for (int i = 0; i < constraintCount; i++) {
+         if (refs[i] == nodeRef && isResolved(codes[i])) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Return true if this NodeAnchor has constraints which are resolved by the {@link AnchorLayoutScheduler}.
+    *
+    * @return true if this NodeAnchor has resolved constraints
+    */
+   boolean hasResolvedConstraints() {
+      return isOrdered || isDeferred || isThrottled;
    }
 
-   private void setHeightForHeightRef(final Node node, final Node nodeRef, final boolean isParent) {
+   /**
+    * Return true if this NodeAnchor must be marked as dirty when its anchored Node changes, which is the case if it
+    * has resolved constraints and is not currently writing the anchored Node.
+    *
+    * @return true if this NodeAnchor must be marked as dirty when its anchored Node changes
+    */
+   boolean isObservingChanges() {
+      return !isApplying && hasResolvedConstraints();
+   }
+
+   /**
+    * Return true if this NodeAnchor has constraints which use the {@link PropagationPolicy#ORDERED} policy.
+    *
+    * @return true if this NodeAnchor has ordered constraints
+    */
+   boolean isOrdered() {
+      return isOrdered;
+   }
+
+   /**
+    * Return true if all the resolved constraints of this NodeAnchor use the {@link PropagationPolicy#THROTTLED}
+    * policy.
+    *
+    * @return true if this NodeAnchor is only resolved by the throttled resolutions
+    */
+   boolean isThrottled() {
+      return isThrottled && !isOrdered && !isDeferred;
+   }
+
+   private void anchor(AnchorBinding binding, Node nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor) {
+      boolean isParent = nodeRef == node.getParent();
+      if (policy != PropagationPolicy.IMMEDIATE) {
+         installResolved(binding, nodeRef, nodeAnchor, refAnchor, isParent, policy);
+         markDirty();
+      } else {
+         addConstraint(binding, nodeRef, nodeAnchor, refAnchor, isParent, policy);
+         // the positions are passed to the listeners rather than kept in a field, so that an anchor installed by
+         // a listener while this anchor is installed does not change them
+         byte positions = (byte) (nodeAnchor.ordinal() | (refAnchor.ordinal() << REF_ANCHOR_SHIFT));
+         if (node instanceof Region && nodeRef instanceof Region) {
+            anchorRegion(binding, positions, (Region) node, (Region) nodeRef, nodeAnchor, refAnchor, isParent);
+         } else {
+            anchorNode(binding, positions, node, nodeRef, nodeAnchor, refAnchor, isParent);
+         }
+      }
+   }
+
+   private <T> void addListener(AnchorBinding binding, byte positions, ObservableValue<T> value,
+      ChangeListener<? super T> listener) {
+      binding.addListener(value, new GuardedListener<T>(listener, positions));
+   }
+
+   private <T> void addRefListener(AnchorBinding binding, byte positions, ObservableValue<T> value,
+      ChangeListener<T> listener) {
+      if (weakListeners) {
+         binding.addWeakListener(value, new GuardedListener<T>(listener, positions));
+      } else {
+         binding.addListener(value, new GuardedListener<T>(listener, positions));
+      }
+   }
+
+   /**
+    * Return the number of writes which were skipped because the written value was already the current value.
+    *
+    * @return the number of skipped writes
+    * @since 0.2
+    */
+   public long getSuppressedWriteCount() {
+      return suppressedWrites;
+   }
+
+   /**
+    * Return the number of listener notifications which were received while the same listener was running, and
+    * which have not been run re-entrantly.
+    *
+    * @return the number of re-entrant notifications
+    * @since 0.2
+    */
+   public long getReentrantUpdateCount() {
+      return reentrantUpdates;
+   }
+
+   /**
+    * Return the number of re-entrant notifications which were dropped because the listener had already been run
+    * again the maximum number of times for the same change. Each dropped notification is also logged as a warning.
+    *
+    * @return the number of dropped notifications
+    * @since 0.2
+    */
+   public long getDroppedUpdateCount() {
+      return droppedUpdates;
+   }
+
+   /**
+    * Reset the counters of skipped writes, re-entrant notifications and dropped notifications.
+    *
+    * @since 0.2
+    */
+   public void resetCounters() {
+      suppressedWrites = 0;
+      reentrantUpdates = 0;
+      droppedUpdates = 0;
+   }
+
+   private void setX(Node target, double x) {
+      if (Math.abs(utils.getX(target) - x) <= EPSILON) {
+         suppressedWrites++;
+         AnchorMetrics.recordWrite(AnchorMetrics.X, true);
+      } else {
+         utils.setX(target, x);
+         AnchorMetrics.recordWrite(AnchorMetrics.X, false);
+      }
+   }
+
+   private void setY(Node target, double y) {
+      if (Math.abs(utils.getY(target) - y) <= EPSILON) {
+         suppressedWrites++;
+         AnchorMetrics.recordWrite(AnchorMetrics.Y, true);
+      } else {
+         utils.setY(target, y);
+         AnchorMetrics.recordWrite(AnchorMetrics.Y, false);
+      }
+   }
+
+   private void setWidth(Node target, double width) {
+      if (Math.abs(utils.getWidth(target) - width) <= EPSILON && (!(target instanceof Region)
+         || hasSize(((Region) target).getMinWidth(), ((Region) target).getMaxWidth(), width))) {
+         suppressedWrites++;
+         AnchorMetrics.recordWrite(AnchorMetrics.WIDTH, true);
+      } else {
+         utils.setWidth(target, width);
+         AnchorMetrics.recordWrite(AnchorMetrics.WIDTH, false);
+      }
+   }
+
+   private void setHeight(Node target, double height) {
+      if (Math.abs(utils.getHeight(target) - height) <= EPSILON && (!(target instanceof Region)
+         || hasSize(((Region) target).getMinHeight(), ((Region) target).getMaxHeight(), height))) {
+         suppressedWrites++;
+         AnchorMetrics.recordWrite(AnchorMetrics.HEIGHT, true);
+      } else {
+         utils.setHeight(target, height);
+         AnchorMetrics.recordWrite(AnchorMetrics.HEIGHT, false);
+      }
+   }
+
+   /**
+    * Return true if the minimum and maximum sizes of a Region whose preferred size is already the written size do not
+    * need to be written. The write is only skipped if the minimum and maximum sizes are the written size too, or are
+    * computed or follow the preferred size, so that a Region pinned to another size is pinned again.
+    */
+   private static boolean hasSize(double min, double max, double size) {
+      return isSizeOrUnset(min, size) && isSizeOrUnset(max, size);
+   }
+
+   private static boolean isSizeOrUnset(double value, double size) {
+      return value == Region.USE_COMPUTED_SIZE || value == Region.USE_PREF_SIZE || Math.abs(value - size) <= EPSILON;
+   }
+
+   private void setLayoutX(Region region, double x) {
+      if (Math.abs(region.getLayoutX() - x) <= EPSILON) {
+         suppressedWrites++;
+         AnchorMetrics.recordWrite(AnchorMetrics.X, true);
+      } else {
+         region.setLayoutX(x);
+         AnchorMetrics.recordWrite(AnchorMetrics.X, false);
+      }
+   }
+
+   private void setLayoutY(Region region, double y) {
+      if (Math.abs(region.getLayoutY() - y) <= EPSILON) {
+         suppressedWrites++;
+         AnchorMetrics.recordWrite(AnchorMetrics.Y, true);
+      } else {
+         region.setLayoutY(y);
+         AnchorMetrics.recordWrite(AnchorMetrics.Y, false);
+      }
+   }
+
+   /**
+    * Called when a binding is disposed.
+    *
+    * @param binding the binding
+    */
+   void release(AnchorBinding binding) {
+      bindings.remove(binding);
+      if (bindings.isEmpty()) {
+         AnchorGraph.unregister(this);
+      }
+      if (binding.getConstraintCount() > 0) {
+         List<Node> removedRefs = new ArrayList<>();
+         int count = 0;
+         for (int i = 0; i < constraintCount; i++) {
+            if (owners[i] == binding) {
+               AnchorGraph.removeReference(this, refs[i]);
+               if (isResolved(codes[i]) && refs[i] != node && !removedRefs.contains(refs[i])) {
+                  removedRefs.add(refs[i]);
+               }
+            } else {
+               refs[count] = refs[i];
+               codes[count] = codes[i];
+               owners[count] = owners[i];
+               count++;
+            }
+         }
+         Arrays.fill(refs, count, constraintCount, null);
+         Arrays.fill(owners, count, constraintCount, null);
+         constraintCount = count;
+         isOrdered = false;
+         isDeferred = false;
+         isThrottled = false;
+         for (int i = 0; i < constraintCount; i++) {
+            updatePolicyFlags(getPolicy(codes[i]));
+         }
+         for (Node nodeRef : removedRefs) {
+            if (!hasResolvedReference(nodeRef)) {
+               AnchorGraph.removeDependent(nodeRef, this);
+            }
+         }
+         AnchorGraph.updateObserved(this);
+      }
+   }
+
+   private void updatePolicyFlags(PropagationPolicy constraintPolicy) {
+      isOrdered |= constraintPolicy == PropagationPolicy.ORDERED;
+      isDeferred |= constraintPolicy == PropagationPolicy.DEFERRED;
+      isThrottled |= constraintPolicy == PropagationPolicy.THROTTLED;
+   }
+
+   /**
+    * Install a constraint which is resolved by this NodeAnchor when the anchored Node or the reference Node
+    * changes. The anchored Node and the reference Node are observed by their {@link AnchorGraph.Links}, which
+    * install only one listener on each property whatever the number of constraints which use the Node.
+    *
+    * @param binding the binding which creates the constraint
+    * @param nodeRef the reference Node
+    * @param nodeAnchor the anchor of the anchored Node
+    * @param refAnchor the anchor of the reference Node
+    * @param isParent true if the reference Node is the parent of the anchored Node
+    * @param constraintPolicy the policy of the constraint
+    */
+   private void installResolved(AnchorBinding binding, Node nodeRef, AnchorPosition nodeAnchor,
+      AnchorPosition refAnchor, boolean isParent, PropagationPolicy constraintPolicy) {
+      boolean isDependent = hasResolvedReference(nodeRef);
+      addConstraint(binding, nodeRef, nodeAnchor, refAnchor, isParent, constraintPolicy);
+      updatePolicyFlags(constraintPolicy);
+      AnchorGraph.updateObserved(this);
+      if (!isDependent && nodeRef != node) {
+         AnchorGraph.addDependent(nodeRef, this);
+      }
+   }
+
+   private void markDirty() {
+      if (!isApplying) {
+         AnchorLayoutScheduler.getInstance().schedule(this);
+      }
+   }
+
+   /**
+    * Build the constraint model of the resolved constraints. The anchored Node has the index 0 in the model, and the
+    * reference Nodes have the next indexes.
+    */
+   private void buildModel(AnchorModel model, List<Node> modelNodes) {
+      model.clear();
+      modelNodes.clear();
+      model.addNode();
+      modelNodes.add(node);
+      for (int i = 0; i < constraintCount; i++) {
+         int code = codes[i];
+         Node nodeRef = refs[i];
+         AnchorPosition nodeAnchor = getNodeAnchor(code);
+         AnchorPosition refAnchor = getRefAnchor(code);
+         if (!isResolved(code) || isHorizontal(nodeAnchor) != isHorizontal(refAnchor) || nodeRef == node) {
+            continue;
+         }
+         int ref = modelNodes.indexOf(nodeRef);
+         if (ref == -1) {
+            ref = model.addNode();
+            modelNodes.add(nodeRef);
+         }
+         if ((code & PARENT_FLAG) != 0) {
+            model.anchorInParent(0, nodeAnchor, ref, refAnchor);
+         } else {
+            model.anchor(0, nodeAnchor, ref, refAnchor);
+         }
+      }
+   }
+
+   private void updateGeometry(AnchorModel model, List<Node> modelNodes, int index) {
+      Node modelNode = modelNodes.get(index);
+      model.setGeometry(index, utils.getX(modelNode), utils.getY(modelNode), utils.getWidth(modelNode),
+         utils.getHeight(modelNode));
+   }
+
+   /**
+    * Resolve all the deferred constraints of the anchored Node with the {@link AnchorSolver}. The horizontal axis
+    * is resolved before the vertical axis, and the geometry of the anchored Node is read again between the two
+    * axis, because for some Nodes such as Circles the width and the height are not independent.
+    */
+   void applyConstraints() {
+      ScratchModel scratch = SCRATCH_MODELS.get();
+      if (scratch.isUsed) {
+         // a resolution nested in another one, for example by a listener of the anchored Node
+         scratch = new ScratchModel();
+      }
+      scratch.isUsed = true;
+      AnchorModel model = scratch.model;
+      List<Node> modelNodes = scratch.nodes;
+      isApplying = true;
+      try {
+         buildModel(model, modelNodes);
+         for (int i = 0; i < modelNodes.size(); i++) {
+            updateGeometry(model, modelNodes, i);
+         }
+         int flags = SOLVER.solveHorizontal(model, 0);
+         if ((flags & AnchorSolver.WIDTH_MASK) != 0) {
+            setWidth(node, model.getWidth(0));
+         }
+         if ((flags & AnchorSolver.X_MASK) != 0) {
+            setX(node, model.getX(0));
+         }
+         updateGeometry(model, modelNodes, 0);
+         flags = SOLVER.solveVertical(model, 0);
+         if ((flags & AnchorSolver.HEIGHT_MASK) != 0) {
+            setHeight(node, model.getHeight(0));
+         }
+         if ((flags & AnchorSolver.Y_MASK) != 0) {
+            setY(node, model.getY(0));
+         }
+      } finally {
+         isApplying = false;
+         // the model does not keep the Nodes reachable after the resolution
+         modelNodes.clear();
+         scratch.isUsed = false;
+      }
+   }
+
+   private void setHeightForHeightRef(final AnchorBinding binding, final byte positions, final Node node,
+      final Node nodeRef, final boolean isParent) {
       DoubleExpression property = utils.getHeightProperty(nodeRef);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addRefListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-               utils.setHeight(node, newValue.doubleValue());
+               setHeight(node, newValue.doubleValue());
             }
          });
       }
       property = utils.getHeightProperty(node);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-               utils.setHeight(node, utils.getHeight(nodeRef));
+               setHeight(node, utils.getHeight(nodeRef));
             }
          });
       }
    }
 
-   private void setWidthForWidthRef(final Node node, final Node nodeRef, final boolean isParent) {
+   private void setWidthForWidthRef(final AnchorBinding binding, final byte positions, final Node node,
+      final Node nodeRef, final boolean isParent) {
       DoubleExpression property = utils.getWidthProperty(nodeRef);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addRefListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-               utils.setWidth(node, newValue.doubleValue());
+               setWidth(node, newValue.doubleValue());
             }
          });
       }
       property = utils.getWidthProperty(node);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-               utils.setWidth(node, utils.getWidth(nodeRef));
+               setWidth(node, utils.getWidth(nodeRef));
             }
          });
       }
    }
 
-   private void setLayoutXForWidthRef(final Node node, final Node nodeRef, final boolean isParent) {
+   private void setLayoutXForWidthRef(final AnchorBinding binding, final byte positions, final Node node,
+      final Node nodeRef, final boolean isParent) {
       DoubleExpression property = utils.getWidthProperty(nodeRef);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addRefListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-               utils.setX(node, utils.getX(nodeRef) + newValue.doubleValue());
+               setX(node, utils.getX(nodeRef) + newValue.doubleValue());
             }
          });
       }
    }
 
-   private void setLayoutXForWidth(final Node node, final Node nodeRef, final short position, final boolean isParent) {
+   private void setLayoutXForWidth(final AnchorBinding binding, final byte positions, final Node node,
+      final Node nodeRef, final short position, final boolean isParent) {
       DoubleExpression property = utils.getWidthProperty(node);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                if (!isParent) {
                   if (position == LEFT) {
-                     utils.setX(node, utils.getX(nodeRef) - utils.getWidth(node));
+                     setX(node, utils.getX(nodeRef) - utils.getWidth(node));
                   } else {
-                     utils.setX(node, utils.getX(nodeRef) + utils.getWidth(nodeRef) - newValue.doubleValue());
+                     setX(node, utils.getX(nodeRef) + utils.getWidth(nodeRef) - newValue.doubleValue());
                   }
                } else {
                   if (position == LEFT) {
-                     utils.setX(node, -utils.getWidth(node));
+                     setX(node, -utils.getWidth(node));
                   } else {
-                     utils.setX(node, 0);
+                     setX(node, 0);
                   }
                }
             }
@@ -240,24 +959,24 @@ public class NodeAnchor {
       }
    }
 
-   private void setLayoutYForHeightRef(final Node node, final Node nodeRef, final short position,
-      final boolean isParent) {
+   private void setLayoutYForHeightRef(final AnchorBinding binding, final byte positions, final Node node,
+      final Node nodeRef, final short position, final boolean isParent) {
       DoubleExpression property = utils.getHeightProperty(nodeRef);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addRefListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                if (position == TOP_INSIDE) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef) - utils.getHeight(node));
+                     setY(node, utils.getY(nodeRef) - utils.getHeight(node));
                   } else {
-                     utils.setY(node, -utils.getHeight(node));
+                     setY(node, -utils.getHeight(node));
                   }
                } else if (position == TOP_OUTSIDE) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef) + newValue.doubleValue() - utils.getHeight(node));
+                     setY(node, utils.getY(nodeRef) + newValue.doubleValue() - utils.getHeight(node));
                   } else {
-                     utils.setY(node, -utils.getHeight(node));
+                     setY(node, -utils.getHeight(node));
                   }
                }
             }
@@ -265,30 +984,30 @@ public class NodeAnchor {
       }
    }
 
-   private void setLayoutYForHeight(final Node node, final Node nodeRef, final short position,
-      final boolean isParent) {
+   private void setLayoutYForHeight(final AnchorBinding binding, final byte positions, final Node node,
+      final Node nodeRef, final short position, final boolean isParent) {
       DoubleExpression property = utils.getHeightProperty(node);
       if (property != null) {
-         property.addListener(new ChangeListener<Number>() {
+         addListener(binding, positions, property, new ChangeListener<Number>() {
             @Override
             public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                if (position == BOTTOM) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef) + utils.getHeight(nodeRef) - newValue.doubleValue());
+                     setY(node, utils.getY(nodeRef) + utils.getHeight(nodeRef) - newValue.doubleValue());
                   } else {
-                     utils.setY(node, 0);
+                     setY(node, 0);
                   }
                } else if (position == TOP_INSIDE) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef));
+                     setY(node, utils.getY(nodeRef));
                   } else {
-                     utils.setY(node, -utils.getHeight(node));
+                     setY(node, -utils.getHeight(node));
                   }
                } else if (position == TOP_OUTSIDE) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef) - newValue.doubleValue());
+                     setY(node, utils.getY(nodeRef) - newValue.doubleValue());
                   } else {
-                     utils.setY(node, -utils.getHeight(node));
+                     setY(node, -utils.getHeight(node));
                   }
                }
             }
@@ -296,518 +1015,602 @@ public class NodeAnchor {
       }
    }
 
-   private void anchorNode(final Node node, final Node nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor,
-      final boolean isParent) {
+   private void anchorNode(final AnchorBinding binding, final byte positions, final Node node, final Node nodeRef,
+      AnchorPosition nodeAnchor, AnchorPosition refAnchor, final boolean isParent) {
       if (nodeAnchor == AnchorPosition.LEFT) {
          if (refAnchor == AnchorPosition.LEFT) {
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, newValue.doubleValue());
+                     setX(node, newValue.doubleValue());
                   }
                }
             });
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, newValue.doubleValue());
+                     setY(node, newValue.doubleValue());
                   }
                }
             });
-            utils.getXProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getXProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, utils.getX(nodeRef));
+                     setX(node, utils.getX(nodeRef));
                   }
                }
             });
-            utils.getYProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getYProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setY(node, utils.getY(nodeRef));
+                  setY(node, utils.getY(nodeRef));
                }
             });
-            setHeightForHeightRef(node, nodeRef, isParent);
+            setHeightForHeightRef(binding, positions, node, nodeRef, isParent);
          } else if (refAnchor == AnchorPosition.RIGHT) {
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, newValue.doubleValue());
+                     setX(node, newValue.doubleValue());
                   } else {
-                     utils.setX(node, utils.getWidth(nodeRef));
+                     setX(node, utils.getWidth(nodeRef));
                   }
                }
             });
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, newValue.doubleValue());
+                     setY(node, newValue.doubleValue());
                   } else {
-                     utils.setY(node, 0);
+                     setY(node, 0);
                   }
                }
             });
-            utils.getHeightProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getHeightProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef));
+                     setY(node, utils.getY(nodeRef));
                   } else {
-                     utils.setY(node, 0);
+                     setY(node, 0);
                   }
                }
             });
 
-            utils.getYProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getYProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef));
+                     setY(node, utils.getY(nodeRef));
                   } else {
-                     utils.setY(node, 0);
+                     setY(node, 0);
                   }
                }
             });
-            utils.getXProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getXProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, utils.getX(nodeRef) + utils.getWidth(nodeRef));
+                     setX(node, utils.getX(nodeRef) + utils.getWidth(nodeRef));
                   } else {
-                     utils.setX(node, utils.getWidth(nodeRef));
+                     setX(node, utils.getWidth(nodeRef));
                   }
                }
             });
-            setLayoutXForWidthRef(node, nodeRef, isParent);
-            setHeightForHeightRef(node, nodeRef, isParent);
+            setLayoutXForWidthRef(binding, positions, node, nodeRef, isParent);
+            setHeightForHeightRef(binding, positions, node, nodeRef, isParent);
          }
       } else if (nodeAnchor == AnchorPosition.RIGHT) {
          if (refAnchor == AnchorPosition.LEFT) {
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, newValue.doubleValue() - utils.getWidth(node));
+                     setX(node, newValue.doubleValue() - utils.getWidth(node));
                   } else {
-                     utils.setX(node, -utils.getWidth(node));
+                     setX(node, -utils.getWidth(node));
                   }
                }
             });
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, newValue.doubleValue());
+                     setY(node, newValue.doubleValue());
                   } else {
-                     utils.setY(node, 0);
+                     setY(node, 0);
                   }
                }
             });
-            utils.getYProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getYProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef));
+                     setY(node, utils.getY(nodeRef));
                   } else {
-                     utils.setY(node, 0);
+                     setY(node, 0);
                   }
                }
             });
-            setLayoutXForWidth(node, nodeRef, LEFT, isParent);
-            setHeightForHeightRef(node, nodeRef, isParent);
+            setLayoutXForWidth(binding, positions, node, nodeRef, LEFT, isParent);
+            setHeightForHeightRef(binding, positions, node, nodeRef, isParent);
          } else if (refAnchor == AnchorPosition.RIGHT) {
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, newValue.doubleValue() + utils.getWidth(nodeRef) - utils.getWidth(node));
+                     setX(node, newValue.doubleValue() + utils.getWidth(nodeRef) - utils.getWidth(node));
                   } else {
-                     utils.setX(node, -utils.getWidth(nodeRef));
+                     setX(node, -utils.getWidth(nodeRef));
                   }
                }
             });
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, newValue.doubleValue());
-                     utils.setWidth(node, newValue.doubleValue() + utils.getX(node) - utils.getX(nodeRef));
+                     setY(node, newValue.doubleValue());
+                     setWidth(node, newValue.doubleValue() + utils.getX(node) - utils.getX(nodeRef));
                   } else {
-                     utils.setX(node, -utils.getWidth(nodeRef));
+                     setX(node, -utils.getWidth(nodeRef));
                   }
                }
             });
-            utils.getYProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getYProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef));
+                     setY(node, utils.getY(nodeRef));
                   } else {
-                     utils.setY(node, 0);
+                     setY(node, 0);
                   }
                }
             });
-            setLayoutXForWidth(node, nodeRef, RIGHT, isParent);
-            setHeightForHeightRef(node, nodeRef, isParent);
+            setLayoutXForWidth(binding, positions, node, nodeRef, RIGHT, isParent);
+            setHeightForHeightRef(binding, positions, node, nodeRef, isParent);
          }
       } else if (nodeAnchor == AnchorPosition.TOP) {
          if (refAnchor == AnchorPosition.BOTTOM) {
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, newValue.doubleValue());
+                     setY(node, newValue.doubleValue());
                   } else {
-                     utils.setY(node, utils.getHeight(nodeRef));
+                     setY(node, utils.getHeight(nodeRef));
                   }
                }
             });
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, newValue.doubleValue());
+                     setX(node, newValue.doubleValue());
                   } else {
-                     utils.setX(node, 0);
+                     setX(node, 0);
                   }
                }
             });
-            utils.getXProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getXProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, utils.getX(nodeRef));
+                     setX(node, utils.getX(nodeRef));
                   } else {
-                     utils.setX(node, 0);
+                     setX(node, 0);
                   }
                }
             });
-            utils.getYProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getYProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, utils.getY(nodeRef) + utils.getHeight(nodeRef));
+                     setY(node, utils.getY(nodeRef) + utils.getHeight(nodeRef));
                   } else {
-                     utils.setY(node, utils.getHeight(nodeRef));
+                     setY(node, utils.getHeight(nodeRef));
                   }
                }
             });
-            setLayoutYForHeightRef(node, nodeRef, TOP_OUTSIDE, isParent);
-            setWidthForWidthRef(node, nodeRef, isParent);
+            setLayoutYForHeightRef(binding, positions, node, nodeRef, TOP_OUTSIDE, isParent);
+            setWidthForWidthRef(binding, positions, node, nodeRef, isParent);
          } else if (refAnchor == AnchorPosition.TOP) {
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setY(node, newValue.doubleValue());
+                  setY(node, newValue.doubleValue());
                }
             });
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setX(node, newValue.doubleValue());
+                  setX(node, newValue.doubleValue());
                }
             });
-            utils.getXProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getXProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setX(node, utils.getX(nodeRef));
+                  setX(node, utils.getX(nodeRef));
                }
             });
-            setLayoutYForHeight(node, nodeRef, TOP_INSIDE, isParent);
-            setLayoutYForHeightRef(node, nodeRef, TOP_OUTSIDE, isParent);
-            setWidthForWidthRef(node, nodeRef, isParent);
+            setLayoutYForHeight(binding, positions, node, nodeRef, TOP_INSIDE, isParent);
+            setLayoutYForHeightRef(binding, positions, node, nodeRef, TOP_OUTSIDE, isParent);
+            setWidthForWidthRef(binding, positions, node, nodeRef, isParent);
          }
       } else if (nodeAnchor == AnchorPosition.BOTTOM) {
          if (refAnchor == AnchorPosition.BOTTOM) {
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setY(node, newValue.doubleValue() + utils.getHeight(node));
+                  setY(node, newValue.doubleValue() + utils.getHeight(node));
                }
             });
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setX(node, newValue.doubleValue());
+                  setX(node, newValue.doubleValue());
                }
             });
-            utils.getXProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getXProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setX(node, utils.getX(nodeRef));
+                  setX(node, utils.getX(nodeRef));
                }
             });
-            setLayoutYForHeight(node, nodeRef, BOTTOM, isParent);
-            setLayoutYForHeightRef(node, nodeRef, TOP_OUTSIDE, isParent);
-            setWidthForWidthRef(node, nodeRef, isParent);
+            setLayoutYForHeight(binding, positions, node, nodeRef, BOTTOM, isParent);
+            setLayoutYForHeightRef(binding, positions, node, nodeRef, TOP_OUTSIDE, isParent);
+            setWidthForWidthRef(binding, positions, node, nodeRef, isParent);
          } else if (refAnchor == AnchorPosition.TOP) {
-            utils.getYProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getYProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setY(node, newValue.doubleValue() - utils.getHeight(node));
+                     setY(node, newValue.doubleValue() - utils.getHeight(node));
                   } else {
-                     utils.setY(node, -utils.getHeight(node));
+                     setY(node, -utils.getHeight(node));
                   }
                }
             });
-            utils.getXProperty(nodeRef).addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, utils.getXProperty(nodeRef), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, newValue.doubleValue());
+                     setX(node, newValue.doubleValue());
                   } else {
-                     utils.setX(node, 0);
+                     setX(node, 0);
                   }
                }
             });
-            utils.getXProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getXProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
                   if (!isParent) {
-                     utils.setX(node, utils.getX(nodeRef));
+                     setX(node, utils.getX(nodeRef));
                   } else {
-                     utils.setX(node, 0);
+                     setX(node, 0);
                   }
                }
             });
-            utils.getWidthProperty(node).addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, utils.getWidthProperty(node), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  utils.setWidth(node, utils.getWidth(nodeRef));
+                  setWidth(node, utils.getWidth(nodeRef));
                }
             });
-            setLayoutYForHeight(node, nodeRef, TOP_OUTSIDE, isParent);
-            setLayoutYForHeightRef(node, nodeRef, TOP_INSIDE, isParent);
-            setWidthForWidthRef(node, nodeRef, isParent);
+            setLayoutYForHeight(binding, positions, node, nodeRef, TOP_OUTSIDE, isParent);
+            setLayoutYForHeightRef(binding, positions, node, nodeRef, TOP_INSIDE, isParent);
+            setWidthForWidthRef(binding, positions, node, nodeRef, isParent);
          }
       }
    }
 
-   private void anchorRegion(final Region region, final Region nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor,
-      final boolean isParent) {
+   private void anchorRegion(final AnchorBinding binding, final byte positions, final Region region,
+      final Region nodeRef, AnchorPosition nodeAnchor, AnchorPosition refAnchor, final boolean isParent) {
       if (nodeAnchor == AnchorPosition.LEFT) {
          if (refAnchor == AnchorPosition.LEFT) {
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue());
+                  setLayoutX(region, newValue.doubleValue());
                }
             });
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue());
+                  setLayoutY(region, newValue.doubleValue());
                }
             });
-            nodeRef.heightProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.heightProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefHeight(newValue.doubleValue());
-                  region.setMaxHeight(newValue.doubleValue());
-                  region.setMinHeight(newValue.doubleValue());
+                  setHeight(region, newValue.doubleValue());
                }
             });
          } else if (refAnchor == AnchorPosition.RIGHT) {
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue() + nodeRef.getWidth());
+                  setLayoutX(region, newValue.doubleValue() + nodeRef.getWidth());
                }
             });
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue());
+                  setLayoutY(region, newValue.doubleValue());
                }
             });
-            nodeRef.widthProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.widthProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(nodeRef.layoutXProperty().doubleValue() + newValue.doubleValue());
+                  setLayoutX(region, nodeRef.layoutXProperty().doubleValue() + newValue.doubleValue());
                }
             });
-            nodeRef.heightProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.heightProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefHeight(newValue.doubleValue());
-                  region.setMaxHeight(newValue.doubleValue());
-                  region.setMinHeight(newValue.doubleValue());
+                  setHeight(region, newValue.doubleValue());
                }
             });
          }
       } else if (nodeAnchor == AnchorPosition.RIGHT) {
          if (refAnchor == AnchorPosition.LEFT) {
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue() - region.getWidth());
+                  setLayoutX(region, newValue.doubleValue() - region.getWidth());
                }
             });
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue());
+                  setLayoutY(region, newValue.doubleValue());
                }
             });
-            region.widthProperty().addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, region.widthProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(nodeRef.getLayoutX() - region.getWidth());
+                  setLayoutX(region, nodeRef.getLayoutX() - region.getWidth());
                }
             });
-            nodeRef.heightProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.heightProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefHeight(newValue.doubleValue());
-                  region.setMaxHeight(newValue.doubleValue());
-                  region.setMinHeight(newValue.doubleValue());
+                  setHeight(region, newValue.doubleValue());
                }
             });
          } else if (refAnchor == AnchorPosition.RIGHT) {
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue() + nodeRef.getWidth() - region.getWidth());
+                  setLayoutX(region, newValue.doubleValue() + nodeRef.getWidth() - region.getWidth());
                }
             });
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue());
+                  setLayoutY(region, newValue.doubleValue());
                   double width = newValue.doubleValue() + region.getLayoutX() - nodeRef.getLayoutX();
-                  region.setPrefWidth(width);
-                  region.setMaxWidth(width);
-                  region.setMinWidth(width);
+                  setWidth(region, width);
                }
             });
-            region.widthProperty().addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, region.widthProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(nodeRef.getLayoutX() + nodeRef.getWidth() - newValue.doubleValue());
+                  setLayoutX(region, nodeRef.getLayoutX() + nodeRef.getWidth() - newValue.doubleValue());
                }
             });
-            nodeRef.heightProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.heightProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefHeight(newValue.doubleValue());
-                  region.setMaxHeight(newValue.doubleValue());
-                  region.setMinHeight(newValue.doubleValue());
+                  setHeight(region, newValue.doubleValue());
                }
             });
          }
       } else if (nodeAnchor == AnchorPosition.TOP) {
          if (refAnchor == AnchorPosition.BOTTOM) {
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue());
+                  setLayoutX(region, newValue.doubleValue());
                }
             });
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue() + nodeRef.getLayoutY());
+                  setLayoutY(region, newValue.doubleValue() + nodeRef.getLayoutY());
                }
             });
-            nodeRef.heightProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.heightProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(nodeRef.layoutYProperty().doubleValue() + newValue.doubleValue());
+                  setLayoutY(region, nodeRef.layoutYProperty().doubleValue() + newValue.doubleValue());
                }
             });
-            nodeRef.widthProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.widthProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefWidth(newValue.doubleValue());
-                  region.setMaxWidth(newValue.doubleValue());
-                  region.setMinWidth(newValue.doubleValue());
+                  setWidth(region, newValue.doubleValue());
                }
             });
          } else if (refAnchor == AnchorPosition.TOP) {
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue());
+                  setLayoutY(region, newValue.doubleValue());
                }
             });
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue());
+                  setLayoutX(region, newValue.doubleValue());
                }
             });
-            nodeRef.widthProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.widthProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefWidth(newValue.doubleValue());
-                  region.setMaxWidth(newValue.doubleValue());
-                  region.setMinWidth(newValue.doubleValue());
+                  setWidth(region, newValue.doubleValue());
                }
             });
          }
       } else if (nodeAnchor == AnchorPosition.BOTTOM) {
          if (refAnchor == AnchorPosition.BOTTOM) {
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue());
+                  setLayoutX(region, newValue.doubleValue());
                }
             });
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue() + nodeRef.getPrefHeight() - region.getPrefHeight());
+                  setLayoutY(region, newValue.doubleValue() + nodeRef.getPrefHeight() - region.getPrefHeight());
                }
             });
-            region.heightProperty().addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, region.heightProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(nodeRef.getLayoutY() + nodeRef.getPrefHeight() - region.getPrefHeight());
+                  setLayoutY(region, nodeRef.getLayoutY() + nodeRef.getPrefHeight() - region.getPrefHeight());
                }
             });
-            nodeRef.widthProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.widthProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefWidth(newValue.doubleValue());
-                  region.setMaxWidth(newValue.doubleValue());
-                  region.setMinWidth(newValue.doubleValue());
+                  setWidth(region, newValue.doubleValue());
                }
             });
          } else if (refAnchor == AnchorPosition.TOP) {
-            nodeRef.layoutYProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutYProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(newValue.doubleValue() - region.getPrefHeight());
+                  setLayoutY(region, newValue.doubleValue() - region.getPrefHeight());
                }
             });
-            nodeRef.layoutXProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.layoutXProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutX(newValue.doubleValue());
+                  setLayoutX(region, newValue.doubleValue());
                }
             });
-            region.heightProperty().addListener(new ChangeListener<Number>() {
+            addListener(binding, positions, region.heightProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setLayoutY(nodeRef.getLayoutY() - newValue.doubleValue());
+                  setLayoutY(region, nodeRef.getLayoutY() - newValue.doubleValue());
                }
             });
-            nodeRef.widthProperty().addListener(new ChangeListener<Number>() {
+            addRefListener(binding, positions, nodeRef.widthProperty(), new ChangeListener<Number>() {
                @Override
                public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
-                  region.setPrefWidth(newValue.doubleValue());
-                  region.setMaxWidth(newValue.doubleValue());
-                  region.setMinWidth(newValue.doubleValue());
+                  setWidth(region, newValue.doubleValue());
                }
             });
          }
       }
    }
 
+
+   /**
+    * The model and the Nodes used to resolve the constraints of one NodeAnchor.
+    */
+   private static final class ScratchModel {
+      private final AnchorModel model = new AnchorModel(8);
+      private final List<Node> nodes = new ArrayList<>(8);
+      private boolean isUsed = false;
+   }
+
+   /**
+    * A listener which guards against re-entrant updates. If the listener is notified while it is running, which
+    * means that the change has been caused by the listener itself, it is not run re-entrantly but once more after
+    * the current update, with the last value of the property. Several notifications during one update are merged
+    * in only one update.
+    *
+    * <p>
+    * If the listener is notified while the propagation is suspended by an {@link AnchorTransactions} transaction,
+    * it is queued in the {@link AnchorLayoutScheduler} and run only once when the transaction ends, with the last
+    * value of the property.</p>
+    */
+   private final class GuardedListener<T> implements ChangeListener<T>, Runnable {
+      private final ChangeListener<? super T> listener;
+      /**
+       * The anchor positions of the listener, packed in one byte so that the listener does not grow.
+       */
+      private final byte positions;
+      private ObservableValue<? extends T> pendingObservable = null;
+      private T pendingOldValue = null;
+      private ObservableValue<? extends T> suspendedObservable = null;
+      private T suspendedOldValue = null;
+      private boolean isRunning = false;
+      private boolean isPending = false;
+      private boolean isSuspended = false;
+
+      private GuardedListener(ChangeListener<? super T> listener, byte positions) {
+         this.listener = listener;
+         this.positions = positions;
+      }
+
+      @Override
+      public void changed(ObservableValue<? extends T> observable, T oldValue, T newValue) {
+         AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+         if (scheduler.isSuspended()) {
+            AnchorMetrics.recordListener();
+            if (!isSuspended) {
+               isSuspended = true;
+               suspendedObservable = observable;
+               suspendedOldValue = oldValue;
+               scheduler.addSuspendedUpdate(this);
+            }
+            return;
+         }
+         if (isRunning) {
+            AnchorMetrics.recordListener();
+            reentrantUpdates++;
+            if (!isPending) {
+               isPending = true;
+               pendingObservable = observable;
+               pendingOldValue = oldValue;
+            }
+            return;
+         }
+         isRunning = true;
+         AnchorMetrics.enterListener();
+         AnchorFlightRecorder.enterListener(node, getNodeAnchor(positions), getRefAnchor(positions));
+         try {
+            listener.changed(observable, oldValue, newValue);
+            int count = 0;
+            while (isPending && count < MAX_NESTED_UPDATES) {
+               isPending = false;
+               listener.changed(pendingObservable, pendingOldValue, pendingObservable.getValue());
+               count++;
+            }
+            if (isPending) {
+               droppedUpdates++;
+               LOGGER.log(Level.WARNING, "The anchor of {0} is still notified after {1} nested updates, the last "
+                  + "notification is dropped", new Object[] { node, MAX_NESTED_UPDATES });
+            }
+         } finally {
+            AnchorMetrics.exitListener();
+            AnchorFlightRecorder.exitListener();
+            isRunning = false;
+            isPending = false;
+            pendingObservable = null;
+            pendingOldValue = null;
+         }
+      }
+
+      /**
+       * Run the update which has been queued during a transaction.
+       */
+      @Override
+      public void run() {
+         ObservableValue<? extends T> observable = suspendedObservable;
+         T oldValue = suspendedOldValue;
+         isSuspended = false;
+         suspendedObservable = null;
+         suspendedOldValue = null;
+         changed(observable, oldValue, observable.getValue());
+      }
+   }
 }
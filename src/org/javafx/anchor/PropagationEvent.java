@@ -0,0 +1,79 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The event emitted for each propagation of the anchors. The start time and the duration of the event are the start
+ * and the end of the propagation.
+ *
+ * <p>
+ * A propagation is either one change propagated by the listeners of the {@code IMMEDIATE} anchors, or one
+ * resolution of the dirty anchors by the {@code AnchorLayoutScheduler}. The anchor positions are only set for the
+ * {@code IMMEDIATE} anchors, because the scheduler applies all the constraints of each resolved anchor.</p>
+ *
+ * @since 0.2
+ */
+@Name(PropagationEvent.NAME)
+@Label("Anchor Propagation")
+@Category({"JavaFX", "Anchors"})
+@Description("The propagation of a change through the anchors")
+@StackTrace(false)
+public final class PropagationEvent extends jdk.jfr.Event {
+   /**
+    * The name of the event.
+    */
+   public static final String NAME = "org.javafx.anchor.Propagation";
+   @Label("Policy")
+   @Description("The propagation policy of the first updated anchor")
+   String policy;
+   @Label("Node Class")
+   @Description("The class of the first updated Node")
+   Class<?> nodeClass;
+   @Label("Node Anchor")
+   @Description("The anchor position on the first updated Node, for the IMMEDIATE anchors")
+   String nodeAnchor;
+   @Label("Reference Anchor")
+   @Description("The anchor position on the reference Node, for the IMMEDIATE anchors")
+   String referenceAnchor;
+   @Label("Depth")
+   @Description("The depth of the cascade of the anchors updates")
+   int depth;
+   @Label("Updates")
+   @Description("The number of resolved anchors, or of listener invocations for the IMMEDIATE anchors")
+   int updates;
+}
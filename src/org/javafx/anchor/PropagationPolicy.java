@@ -0,0 +1,66 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+/**
+ * The policies which can be used by a {@link NodeAnchor} to propagate the changes of the reference Nodes to
+ * the anchored Node.
+ *
+ * @since 0.2
+ */
+public enum PropagationPolicy {
+   /**
+    * The changes are propagated immediately by listeners on the properties of the Nodes. This is the default
+    * policy.
+    */
+   IMMEDIATE,
+   /**
+    * The changes are propagated immediately, but the anchored Nodes are resolved by the
+    * {@link AnchorLayoutScheduler} in the order of the anchors dependencies, so that each anchored Node is written
+    * at most once for each change of a reference Node.
+    */
+   ORDERED,
+   /**
+    * The anchored Nodes are only marked as dirty when a property changes, and all their constraints are resolved
+    * once per JavaFX pulse by the {@link AnchorLayoutScheduler}.
+    */
+   DEFERRED,
+   /**
+    * The anchored Nodes are only marked as dirty when a property changes, and their constraints are resolved by
+    * the {@link AnchorLayoutScheduler} at most once per throttle interval, with the last values of the reference
+    * Nodes. This policy is intended for interactive changes such as drags, where the intermediate values do not need
+    * to be propagated. The throttled anchors are also resolved by {@link AnchorLayoutScheduler#flush()}.
+    *
+    * @see AnchorLayoutScheduler#setThrottleInterval(long)
+    */
+   THROTTLED
+}
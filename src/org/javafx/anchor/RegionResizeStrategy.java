@@ -0,0 +1,61 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+/**
+ * The strategies which can be used by the {@link DefaultAnchorUtilities} to set the size of a
+ * {@link javafx.scene.layout.Region}. Each write of a size property of a Region requests a new layout of the
+ * Region and of its parents, so the strategies differ by the number of properties which are written for each
+ * resize.
+ *
+ * @since 0.2
+ */
+public enum RegionResizeStrategy {
+   /**
+    * The minimum, maximum and preferred sizes of the Region are set to the size. It was the only strategy before
+    * the version 0.2 and it is the default strategy. It requests three layouts for each resize.
+    */
+   PINNED_BOUNDS,
+   /**
+    * The minimum and maximum sizes of the Region are set once to {@link javafx.scene.layout.Region#USE_PREF_SIZE},
+    * and only the preferred size is set for each resize, so that each resize requests only one layout. The size of
+    * the Region is its preferred size. The minimum and maximum sizes which were set by the application are lost.
+    */
+   PREF_SIZE,
+   /**
+    * The Region is resized with {@link javafx.scene.layout.Region#resize(double, double)}, without changing its
+    * minimum, maximum and preferred sizes, so that the resize does not request any layout of the parents. The
+    * size of the Region is its current width or height. This strategy should only be used for Regions which are
+    * not resized by their parent, such as unmanaged Regions or the children of a {@link javafx.scene.Group}.
+    */
+   RESIZE
+}
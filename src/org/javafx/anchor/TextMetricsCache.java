@@ -0,0 +1,328 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javafx.beans.binding.DoubleBinding;
+import javafx.beans.binding.DoubleExpression;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+/**
+ * A cache of the metrics of texts. The height and the baseline offset of a text only depend on its font, its
+ * string, its wrapping width and its line spacing, so they are measured only once for each combination of these
+ * values, and the following queries do not compute the layout of the text again. The texts are measured with their
+ * logical bounds, with a helper {@link Text} which is shared by all the measures of the cache.
+ *
+ * <p>
+ * The cache keeps the metrics of the texts which have been used the most recently, up to its capacity. It is not
+ * thread-safe, and should only be used in the JavaFX Application Thread.</p>
+ *
+ * @since 0.2
+ */
+public class TextMetricsCache {
+   /**
+    * The default capacity of a cache.
+    */
+   public static final int DEFAULT_CAPACITY = 1024;
+   private static final int HEIGHT = 0;
+   private static final int BASELINE = 1;
+   private static final TextMetricsCache DEFAULT = new TextMetricsCache();
+   private final int capacity;
+   private final Map<Key, double[]> metrics;
+   private final Key probe = new Key();
+   private Text helper = null;
+   private long hits = 0;
+   private long misses = 0;
+
+   /**
+    * Create a cache with the default capacity.
+    */
+   public TextMetricsCache() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Create a cache.
+    *
+    * @param capacity the maximum number of texts for which the metrics are kept
+    */
+   public TextMetricsCache(int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("Invalid capacity: " + capacity);
+      }
+      this.capacity = capacity;
+      this.metrics = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+            return size() > TextMetricsCache.this.capacity;
+         }
+      };
+   }
+
+   /**
+    * Return the cache which is used by default by the {@link DefaultAnchorUtilities}.
+    *
+    * @return the default cache
+    */
+   public static TextMetricsCache getDefault() {
+      return DEFAULT;
+   }
+
+   /**
+    * Return the maximum number of texts for which the metrics are kept.
+    *
+    * @return the capacity
+    */
+   public int getCapacity() {
+      return capacity;
+   }
+
+   /**
+    * Return the number of texts for which the metrics are currently kept.
+    *
+    * @return the number of texts
+    */
+   public int size() {
+      return metrics.size();
+   }
+
+   /**
+    * Return the number of queries which have been answered without measuring the text.
+    *
+    * @return the number of hits
+    */
+   public long getHitCount() {
+      return hits;
+   }
+
+   /**
+    * Return the number of queries for which the text had to be measured.
+    *
+    * @return the number of misses
+    */
+   public long getMissCount() {
+      return misses;
+   }
+
+   /**
+    * Remove all the metrics of the cache, and reset its counters.
+    */
+   public void clear() {
+      metrics.clear();
+      hits = 0;
+      misses = 0;
+   }
+
+   /**
+    * Return the height of a Text.
+    *
+    * @param text the Text
+    * @return the height
+    */
+   public double getHeight(Text text) {
+      return getMetrics(text.getFont(), text.getText(), text.getWrappingWidth(), text.getLineSpacing())[HEIGHT];
+   }
+
+   /**
+    * Return the baseline offset of a Text, which is the distance between the top of the Text and the baseline of
+    * its first line.
+    *
+    * @param text the Text
+    * @return the baseline offset
+    */
+   public double getBaselineOffset(Text text) {
+      return getMetrics(text.getFont(), text.getText(), text.getWrappingWidth(), text.getLineSpacing())[BASELINE];
+   }
+
+   /**
+    * Return the height of a text.
+    *
+    * @param font the font
+    * @param string the string
+    * @param wrappingWidth the wrapping width, or 0 if the text is not wrapped
+    * @param lineSpacing the line spacing
+    * @return the height
+    */
+   public double getHeight(Font font, String string, double wrappingWidth, double lineSpacing) {
+      return getMetrics(font, string, wrappingWidth, lineSpacing)[HEIGHT];
+   }
+
+   /**
+    * Return the baseline offset of a text.
+    *
+    * @param font the font
+    * @param string the string
+    * @param wrappingWidth the wrapping width, or 0 if the text is not wrapped
+    * @param lineSpacing the line spacing
+    * @return the baseline offset
+    */
+   public double getBaselineOffset(Font font, String string, double wrappingWidth, double lineSpacing) {
+      return getMetrics(font, string, wrappingWidth, lineSpacing)[BASELINE];
+   }
+
+   /**
+    * Create an expression of the height of a Text, which is updated when its font, its string, its wrapping width
+    * or its line spacing changes.
+    *
+    * @param text the Text
+    * @return the expression
+    */
+   public DoubleExpression createHeightExpression(final Text text) {
+      return new DoubleBinding() {
+         {
+            bind(text.fontProperty(), text.textProperty(), text.wrappingWidthProperty(), text.lineSpacingProperty());
+         }
+
+         @Override
+         protected double computeValue() {
+            return getHeight(text);
+         }
+      };
+   }
+
+   /**
+    * Create an expression of the baseline offset of a Text, which is updated when its font, its string, its
+    * wrapping width or its line spacing changes.
+    *
+    * @param text the Text
+    * @return the expression
+    */
+   public DoubleExpression createBaselineOffsetExpression(final Text text) {
+      return new DoubleBinding() {
+         {
+            bind(text.fontProperty(), text.textProperty(), text.wrappingWidthProperty(), text.lineSpacingProperty());
+         }
+
+         @Override
+         protected double computeValue() {
+            return getBaselineOffset(text);
+         }
+      };
+   }
+
+   private double[] getMetrics(Font font, String string, double wrappingWidth, double lineSpacing) {
+      if (string == null) {
+         string = "";
+      }
+      probe.set(font, string, wrappingWidth, lineSpacing);
+      double[] values = metrics.get(probe);
+      // the probe is shared by all the lookups, it must not keep a reference to the last string and font
+      probe.clear();
+      if (values != null) {
+         hits++;
+         return values;
+      }
+      misses++;
+      values = new double[2];
+      measure(font, string, wrappingWidth, lineSpacing, values);
+      Key key = new Key();
+      key.set(font, string, wrappingWidth, lineSpacing);
+      metrics.put(key, values);
+      return values;
+   }
+
+   /**
+    * Measure a text. This method is only called if the metrics of the text are not in the cache.
+    *
+    * @param font the font
+    * @param string the string, never null
+    * @param wrappingWidth the wrapping width
+    * @param lineSpacing the line spacing
+    * @param values the array which receives the height at the index 0 and the baseline offset at the index 1
+    */
+   protected void measure(Font font, String string, double wrappingWidth, double lineSpacing, double[] values) {
+      if (helper == null) {
+         helper = new Text();
+         helper.setTextOrigin(VPos.BASELINE);
+      }
+      helper.setFont(font);
+      helper.setText(string);
+      helper.setWrappingWidth(wrappingWidth);
+      helper.setLineSpacing(lineSpacing);
+      Bounds bounds = helper.getLayoutBounds();
+      values[HEIGHT] = bounds.getHeight();
+      values[BASELINE] = -bounds.getMinY();
+      // do not keep a reference to the last string
+      helper.setText("");
+   }
+
+   /**
+    * The key of the metrics of a text.
+    */
+   private static final class Key {
+      private Font font;
+      private String string;
+      private double wrappingWidth;
+      private double lineSpacing;
+      private int hash;
+
+      private void set(Font font, String string, double wrappingWidth, double lineSpacing) {
+         this.font = font;
+         this.string = string;
+         this.wrappingWidth = wrappingWidth;
+         this.lineSpacing = lineSpacing;
+         int result = font == null ? 0 : font.hashCode();
+         result = 31 * result + string.hashCode();
+         result = 31 * result + Double.hashCode(wrappingWidth);
+         result = 31 * result + Double.hashCode(lineSpacing);
+         this.hash = result;
+      }
+
+      private void clear() {
+         font = null;
+         string = null;
+      }
+
+      @Override
+      public int hashCode() {
+         return hash;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj) {
+            return true;
+         }
+         if (!(obj instanceof Key)) {
+            return false;
+         }
+         Key other = (Key) obj;
+         return hash == other.hash && Double.compare(wrappingWidth, other.wrappingWidth) == 0
+            && Double.compare(lineSpacing, other.lineSpacing) == 0 && string.equals(other.string)
+            && (font == null ? other.font == null : font.equals(other.font));
+      }
+   }
+}
@@ -0,0 +1,264 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A memo of the solved geometries of a model for the sizes of its root which have been seen recently. It is useful
+ * when the root is resized back to the same few sizes again and again, for example when a window is maximized and
+ * restored, or moved between two screens: the geometry for a size which has already been solved is copied back to
+ * the model in one bulk copy.
+ *
+ * <p>
+ * The anchors of the model are compiled in a {@link CompiledAnchorLayout}, which is used to solve the sizes which
+ * are not in the memo. Each change of the anchors increments the version of the graph, and removes all the
+ * geometries of the memo. A geometry is only copied back if the values which are not computed by the solver, such
+ * as the preferred sizes of the Nodes, are exactly the same as when it was solved.</p>
+ *
+ * <p>
+ * The memo keeps the geometries of the sizes which have been used the most recently, up to its capacity. It is not
+ * thread-safe.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorGeometryMemo {
+   /**
+    * The default capacity of a memo.
+    */
+   public static final int DEFAULT_CAPACITY = 8;
+   private final int capacity;
+   private final Map<Key, double[]> geometries;
+   private final Key probe = new Key();
+   private CompiledAnchorLayout layout = null;
+   private boolean[] outputs = null;
+   private double[] buffer = null;
+   private long version = 0;
+   private long hits = 0;
+   private long misses = 0;
+   private long evictions = 0;
+
+   /**
+    * Create a memo with the default capacity.
+    */
+   public AnchorGeometryMemo() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Create a memo.
+    *
+    * @param capacity the maximum number of geometries which are kept
+    */
+   public AnchorGeometryMemo(int capacity) {
+      if (capacity <= 0) {
+         throw new IllegalArgumentException("Invalid capacity: " + capacity);
+      }
+      this.capacity = capacity;
+      this.geometries = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+            if (size() > AnchorGeometryMemo.this.capacity) {
+               evictions++;
+               return true;
+            }
+            return false;
+         }
+      };
+   }
+
+   /**
+    * Return the maximum number of geometries which are kept.
+    *
+    * @return the capacity
+    */
+   public int getCapacity() {
+      return capacity;
+   }
+
+   /**
+    * Return the number of geometries which are currently kept.
+    *
+    * @return the number of geometries
+    */
+   public int size() {
+      return geometries.size();
+   }
+
+   /**
+    * Return the version of the graph of anchors, which is incremented each time the anchors of the model change.
+    *
+    * @return the version of the graph, 0 if no model has been solved
+    */
+   public long getGraphVersion() {
+      return version;
+   }
+
+   /**
+    * Return the number of solves which have been answered by copying a geometry of the memo.
+    *
+    * @return the number of hits
+    */
+   public long getHitCount() {
+      return hits;
+   }
+
+   /**
+    * Return the number of solves for which the model had to be solved.
+    *
+    * @return the number of misses
+    */
+   public long getMissCount() {
+      return misses;
+   }
+
+   /**
+    * Return the number of geometries which have been removed because the memo was full.
+    *
+    * @return the number of evictions
+    */
+   public long getEvictionCount() {
+      return evictions;
+   }
+
+   /**
+    * Remove all the geometries of the memo, and reset its counters.
+    */
+   public void clear() {
+      geometries.clear();
+      hits = 0;
+      misses = 0;
+      evictions = 0;
+   }
+
+   /**
+    * Solve a model, or copy its geometry from the memo if it has already been solved for the same size of its root,
+    * the same anchors and the same inputs.
+    *
+    * @param model the model
+    * @param width the width of the root
+    * @param height the height of the root
+    * @return true if the geometry has been copied from the memo
+    */
+   public boolean solve(AnchorModel model, double width, double height) {
+      if (layout == null || !layout.matches(model)) {
+         layout = CompiledAnchorLayout.compile(model);
+         outputs = layout.getOutputs();
+         buffer = null;
+         version++;
+         geometries.clear();
+      }
+      double[] geometry = model.getGeometry();
+      int length = outputs.length;
+      probe.set(version, width, height, hashInputs(geometry));
+      double[] values = geometries.get(probe);
+      if (values != null && hasSameInputs(geometry, values)) {
+         hits++;
+         System.arraycopy(values, 0, geometry, 0, length);
+         return true;
+      }
+      misses++;
+      buffer = layout.apply(model, buffer);
+      Key key = new Key();
+      key.set(version, width, height, probe.inputHash);
+      geometries.put(key, Arrays.copyOf(geometry, length));
+      return false;
+   }
+
+   /**
+    * Return the hash of the values of a geometry which are not computed by the solver.
+    */
+   private long hashInputs(double[] geometry) {
+      long hash = 0;
+      for (int i = 0; i < outputs.length; i++) {
+         if (!outputs[i]) {
+            hash = AnchorLayoutCache.mix(hash, Double.doubleToLongBits(geometry[i]));
+         }
+      }
+      return hash;
+   }
+
+   /**
+    * Return true if the values of two geometries which are not computed by the solver are the same.
+    */
+   private boolean hasSameInputs(double[] geometry, double[] values) {
+      for (int i = 0; i < outputs.length; i++) {
+         if (!outputs[i] && Double.compare(geometry[i], values[i]) != 0) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * The key of a geometry.
+    */
+   private static final class Key {
+      private long version;
+      private double width;
+      private double height;
+      private long inputHash;
+      private int hash;
+
+      private void set(long version, double width, double height, long inputHash) {
+         this.version = version;
+         this.width = width;
+         this.height = height;
+         this.inputHash = inputHash;
+         int result = Long.hashCode(version);
+         result = 31 * result + Double.hashCode(width);
+         result = 31 * result + Double.hashCode(height);
+         result = 31 * result + Long.hashCode(inputHash);
+         this.hash = result;
+      }
+
+      @Override
+      public int hashCode() {
+         return hash;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj) {
+            return true;
+         }
+         if (!(obj instanceof Key)) {
+            return false;
+         }
+         Key other = (Key) obj;
+         return hash == other.hash && version == other.version && inputHash == other.inputHash
+            && Double.compare(width, other.width) == 0 && Double.compare(height, other.height) == 0;
+      }
+   }
+}
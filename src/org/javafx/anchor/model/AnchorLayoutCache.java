@@ -0,0 +1,385 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A persistent cache of solved geometries for the same anchors, stored in a binary file. It is useful for
+ * applications which restore the same workspace at the same sizes each time they start: the geometry of the first
+ * layout can be copied from the cache rather than solved again.
+ *
+ * <p>
+ * The cache is for one graph of anchors, identified by a hash of the anchors computed by {@link #hashGraph(AnchorModel)},
+ * possibly combined with other information such as the types of the Nodes. Each entry is identified by the size of
+ * the root of the layout and by a hash of the geometry of the model before it is solved, so that an entry is never
+ * applied if the initial sizes of the Nodes have changed. Putting an entry for another graph hash removes all the
+ * entries of the previous graph.</p>
+ *
+ * <p>
+ * The entries are read from the file by {@link #open(Path)}, which then closes it, and the geometry of an entry is
+ * copied to the model in one bulk copy. The file is not mapped, so that it can be replaced by {@link #save()} on
+ * all platforms, including the platforms where a mapped file can not be replaced until the mapping is garbage
+ * collected. The new entries are kept in memory until {@link #save()} is called. The cache is not thread safe.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorLayoutCache {
+   /**
+    * The default maximum number of entries.
+    */
+   public static final int DEFAULT_MAX_ENTRIES = 16;
+   private static final int MAGIC = 0x414E4348;
+   private static final int VERSION = 1;
+   private static final int HEADER_SIZE = 24;
+   private static final int ENTRY_HEADER_SIZE = 24;
+   private static final long SEED = 0xCBF29CE484222325L;
+   private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+   private final Path file;
+   private final int maxEntries;
+   private long graphHash = 0;
+   private int nodeCount = 0;
+   private final List<Entry> entries = new ArrayList<>();
+
+   private AnchorLayoutCache(Path file, int maxEntries) {
+      this.file = file;
+      this.maxEntries = maxEntries;
+   }
+
+   /**
+    * Open a cache with at most {@link #DEFAULT_MAX_ENTRIES} entries. The cache is empty if the file does not exist or
+    * is not a valid cache file.
+    *
+    * @param file the file
+    * @return the cache
+    * @throws IOException if the file exists but could not be read
+    */
+   public static AnchorLayoutCache open(Path file) throws IOException {
+      return open(file, DEFAULT_MAX_ENTRIES);
+   }
+
+   /**
+    * Open a cache. The cache is empty if the file does not exist or is not a valid cache file.
+    *
+    * @param file the file
+    * @param maxEntries the maximum number of entries, the least recently used entries are removed first
+    * @return the cache
+    * @throws IOException if the file exists but could not be read
+    */
+   public static AnchorLayoutCache open(Path file, int maxEntries) throws IOException {
+      if (maxEntries < 1) {
+         throw new IllegalArgumentException("The maximum number of entries must be at least 1");
+      }
+      AnchorLayoutCache cache = new AnchorLayoutCache(file, maxEntries);
+      if (Files.isRegularFile(file)) {
+         try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() >= HEADER_SIZE) {
+               cache.read(channel);
+            }
+         }
+      }
+      return cache;
+   }
+
+   /**
+    * Read the header and the entries of a file. The file is ignored if it is not valid.
+    */
+   private void read(FileChannel channel) throws IOException {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      read(channel, header, 0);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+         return;
+      }
+      long hash = header.getLong(8);
+      int count = header.getInt(16);
+      int entryCount = header.getInt(20);
+      long entrySize = ENTRY_HEADER_SIZE + (long) count * AnchorModel.STRIDE * 8;
+      if (count < 0 || entryCount < 0 || entrySize > Integer.MAX_VALUE
+         || HEADER_SIZE + entrySize * entryCount != channel.size()) {
+         return;
+      }
+      graphHash = hash;
+      nodeCount = count;
+      // the entries are saved from the least to the most recently used, only the most recent ones are read if the
+      // file has been written with more entries than the maximum of this cache
+      ByteBuffer buffer = ByteBuffer.allocate((int) entrySize);
+      for (int i = Math.max(0, entryCount - maxEntries); i < entryCount; i++) {
+         buffer.clear();
+         read(channel, buffer, HEADER_SIZE + entrySize * i);
+         double[] geometry = new double[count * AnchorModel.STRIDE];
+         buffer.position(ENTRY_HEADER_SIZE);
+         buffer.asDoubleBuffer().get(geometry);
+         entries.add(new Entry(buffer.getDouble(0), buffer.getDouble(8), buffer.getLong(16), geometry));
+      }
+   }
+
+   private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+         if (channel.read(buffer, position + buffer.position()) < 0) {
+            throw new EOFException();
+         }
+      }
+   }
+
+   /**
+    * Return a hash of the Nodes and anchors of a model. The geometry of the model is not used.
+    *
+    * @param model the model
+    * @return the hash
+    */
+   public static long hashGraph(AnchorModel model) {
+      int length = model.getNodeCount() * AnchorModel.STRIDE;
+      int[] refs = model.getReferences();
+      byte[] refAnchors = model.getReferenceAnchors();
+      boolean[] parents = model.getParentFlags();
+      long hash = mix(SEED, model.getNodeCount());
+      for (int i = 0; i < length; i++) {
+         hash = mix(hash, ((long) refs[i] << 16) | ((refAnchors[i] & 0xFF) << 1) | (parents[i] ? 1 : 0));
+      }
+      return finish(hash);
+   }
+
+   /**
+    * Return a hash of the geometry of a model.
+    *
+    * @param model the model
+    * @return the hash
+    */
+   public static long hashGeometry(AnchorModel model) {
+      int length = model.getNodeCount() * AnchorModel.STRIDE;
+      double[] geometry = model.getGeometry();
+      long hash = mix(SEED, model.getNodeCount());
+      for (int i = 0; i < length; i++) {
+         hash = mix(hash, Double.doubleToLongBits(geometry[i]));
+      }
+      return finish(hash);
+   }
+
+   /**
+    * Combine a hash with a value.
+    *
+    * @param hash the hash
+    * @param value the value
+    * @return the combined hash
+    */
+   public static long mix(long hash, long value) {
+      return (hash ^ value) * MULTIPLIER;
+   }
+
+   private static long finish(long hash) {
+      hash ^= hash >>> 32;
+      hash *= MULTIPLIER;
+      return hash ^ (hash >>> 29);
+   }
+
+   /**
+    * Return the file of the cache.
+    *
+    * @return the file
+    */
+   public Path getFile() {
+      return file;
+   }
+
+   /**
+    * Return the hash of the graph of the entries of the cache.
+    *
+    * @return the hash of the graph, 0 if the cache is empty
+    */
+   public long getGraphHash() {
+      return graphHash;
+   }
+
+   /**
+    * Return the number of entries.
+    *
+    * @return the number of entries
+    */
+   public int getEntryCount() {
+      return entries.size();
+   }
+
+   /**
+    * Return the maximum number of entries.
+    *
+    * @return the maximum number of entries
+    */
+   public int getMaxEntries() {
+      return maxEntries;
+   }
+
+   private Entry getEntry(AnchorModel model, long graphHash, long inputHash, double width, double height) {
+      if (graphHash != this.graphHash || model.getNodeCount() != nodeCount) {
+         return null;
+      }
+      int size = entries.size();
+      for (int i = size - 1; i >= 0; i--) {
+         Entry entry = entries.get(i);
+         if (entry.inputHash == inputHash && Double.compare(entry.width, width) == 0
+            && Double.compare(entry.height, height) == 0) {
+            return entry;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Copy the geometry of an entry to a model, if the cache has an entry for the graph, the initial geometry and the
+    * size of the root.
+    *
+    * @param model the model, with its geometry before it is solved
+    * @param graphHash the hash of the graph
+    * @param inputHash the hash of the geometry of the model before it is solved, computed by
+    * {@link #hashGeometry(AnchorModel)}
+    * @param width the width of the root
+    * @param height the height of the root
+    * @return true if the geometry of the model has been copied from the cache
+    */
+   public boolean restore(AnchorModel model, long graphHash, long inputHash, double width, double height) {
+      Entry entry = getEntry(model, graphHash, inputHash, width, height);
+      if (entry == null) {
+         return false;
+      }
+      System.arraycopy(entry.geometry, 0, model.getGeometry(), 0, entry.geometry.length);
+      // the entry becomes the most recently used
+      entries.remove(entry);
+      entries.add(entry);
+      return true;
+   }
+
+   /**
+    * Put the solved geometry of a model in the cache. The entries of another graph are removed, and the least
+    * recently used entry is removed if the cache is full.
+    *
+    * @param model the model, with its solved geometry
+    * @param graphHash the hash of the graph
+    * @param inputHash the hash of the geometry of the model before it was solved, computed by
+    * {@link #hashGeometry(AnchorModel)}
+    * @param width the width of the root
+    * @param height the height of the root
+    */
+   public void put(AnchorModel model, long graphHash, long inputHash, double width, double height) {
+      if (graphHash != this.graphHash || model.getNodeCount() != nodeCount) {
+         clear();
+         this.graphHash = graphHash;
+         nodeCount = model.getNodeCount();
+      }
+      Entry entry = getEntry(model, graphHash, inputHash, width, height);
+      if (entry != null) {
+         entries.remove(entry);
+      }
+      while (entries.size() >= maxEntries) {
+         entries.remove(0);
+      }
+      double[] geometry = new double[nodeCount * AnchorModel.STRIDE];
+      System.arraycopy(model.getGeometry(), 0, geometry, 0, geometry.length);
+      entries.add(new Entry(width, height, inputHash, geometry));
+   }
+
+   /**
+    * Remove all the entries.
+    */
+   public void clear() {
+      entries.clear();
+      graphHash = 0;
+      nodeCount = 0;
+   }
+
+   /**
+    * Write the entries of the cache to its file. The entries are written to a temporary file in the same directory,
+    * which then replaces the file, so that the file is never left partially written.
+    *
+    * @throws IOException if the file could not be written
+    */
+   public void save() throws IOException {
+      int length = nodeCount * AnchorModel.STRIDE;
+      Path dir = file.toAbsolutePath().getParent();
+      Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+      try {
+         try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(graphHash).putInt(nodeCount).putInt(entries.size());
+            write(channel, header);
+            ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER_SIZE + length * 8);
+            for (Entry entry : entries) {
+               buffer.clear();
+               buffer.putDouble(entry.width).putDouble(entry.height).putLong(entry.inputHash);
+               buffer.asDoubleBuffer().put(entry.geometry);
+               buffer.position(buffer.limit());
+               write(channel, buffer);
+            }
+            channel.force(true);
+         }
+         try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+         } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+         }
+      } finally {
+         Files.deleteIfExists(tmp);
+      }
+   }
+
+   private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+   }
+
+   /**
+    * An entry of the cache.
+    */
+   private static final class Entry {
+      private final double width;
+      private final double height;
+      private final long inputHash;
+      private final double[] geometry;
+
+      private Entry(double width, double height, long inputHash, double[] geometry) {
+         this.width = width;
+         this.height = height;
+         this.inputHash = inputHash;
+         this.geometry = geometry;
+      }
+   }
+}
@@ -0,0 +1,428 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import java.util.Arrays;
+import org.javafx.anchor.AnchorPosition;
+
+/**
+ * A constraint model which does not depend on JavaFX. Nodes are identified by an index, and their geometry is
+ * stored in a primitive array with four values for each Node: x, y, width and height. Each Node can have at most
+ * one anchor for each of its {@link AnchorPosition}s. The model can be solved by an {@link AnchorSolver}.
+ *
+ * <p>
+ * The anchors use the same semantics as the {@link org.javafx.anchor.NodeAnchor} deferred constraints:</p>
+ * <ul>
+ * <li>If a Node has a left and a right anchor, its width is the distance between the two edges</li>
+ * <li>If a Node has only a left or a right anchor, its width is kept</li>
+ * <li>If a Node has no horizontal anchor but has a vertical anchor, it has the same x position and width as the
+ * reference Node of its vertical anchor</li>
+ * </ul>
+ * The vertical anchors use the same rules. If an anchor refers to the parent of the Node, the position of the
+ * parent is not taken into account because the Node position is expressed in the parent coordinates.
+ *
+ * <p>
+ * This class is not thread-safe.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorModel {
+   /**
+    * The offset of the x position of a Node in the geometry array.
+    */
+   public static final int X = 0;
+   /**
+    * The offset of the y position of a Node in the geometry array.
+    */
+   public static final int Y = 1;
+   /**
+    * The offset of the width of a Node in the geometry array.
+    */
+   public static final int WIDTH = 2;
+   /**
+    * The offset of the height of a Node in the geometry array.
+    */
+   public static final int HEIGHT = 3;
+   /**
+    * The number of values for each Node in the geometry array.
+    */
+   public static final int STRIDE = 4;
+   /**
+    * The value used for anchors which are not set.
+    */
+   static final int NONE = -1;
+   private static final int INITIAL_CAPACITY = 16;
+   private static final AnchorPosition[] POSITIONS = AnchorPosition.values();
+   private double[] geometry;
+   /**
+    * The reference Node of each anchor, indexed by node * STRIDE + nodeAnchor.ordinal().
+    */
+   private int[] refs;
+   /**
+    * The anchor of the reference Node of each anchor, or NONE if the anchor is not set.
+    */
+   private byte[] refAnchors;
+   /**
+    * True if the reference Node of the anchor is the parent of the Node.
+    */
+   private boolean[] parents;
+   private int nodeCount = 0;
+   private int constraintCount = 0;
+
+   /**
+    * Create an empty model.
+    */
+   public AnchorModel() {
+      this(INITIAL_CAPACITY);
+   }
+
+   /**
+    * Create an empty model.
+    *
+    * @param capacity the initial number of Nodes which can be added without growing the model
+    */
+   public AnchorModel(int capacity) {
+      int size = Math.max(capacity, 1) * STRIDE;
+      geometry = new double[size];
+      refs = new int[size];
+      refAnchors = new byte[size];
+      parents = new boolean[size];
+   }
+
+   /**
+    * Add a Node with an empty geometry.
+    *
+    * @return the index of the Node
+    */
+   public int addNode() {
+      return addNode(0, 0, 0, 0);
+   }
+
+   /**
+    * Add a Node.
+    *
+    * @param x the x position
+    * @param y the y position
+    * @param width the width
+    * @param height the height
+    * @return the index of the Node
+    */
+   public int addNode(double x, double y, double width, double height) {
+      if ((nodeCount + 1) * STRIDE > geometry.length) {
+         int size = geometry.length * 2;
+         geometry = Arrays.copyOf(geometry, size);
+         refs = Arrays.copyOf(refs, size);
+         refAnchors = Arrays.copyOf(refAnchors, size);
+         parents = Arrays.copyOf(parents, size);
+      }
+      int node = nodeCount++;
+      int offset = node * STRIDE;
+      Arrays.fill(refs, offset, offset + STRIDE, NONE);
+      Arrays.fill(refAnchors, offset, offset + STRIDE, (byte) NONE);
+      Arrays.fill(parents, offset, offset + STRIDE, false);
+      setGeometry(node, x, y, width, height);
+      return node;
+   }
+
+   /**
+    * Return the number of Nodes.
+    *
+    * @return the number of Nodes
+    */
+   public int getNodeCount() {
+      return nodeCount;
+   }
+
+   /**
+    * Return the number of anchors.
+    *
+    * @return the number of anchors
+    */
+   public int getConstraintCount() {
+      return constraintCount;
+   }
+
+   /**
+    * Remove all the Nodes and anchors.
+    */
+   public void clear() {
+      nodeCount = 0;
+      constraintCount = 0;
+   }
+
+   /**
+    * Set an anchor. If the Node already had an anchor for the same position, it is replaced.
+    *
+    * @param node the index of the anchored Node
+    * @param nodeAnchor the anchor of the Node
+    * @param ref the index of the reference Node
+    * @param refAnchor the anchor of the reference Node
+    */
+   public void anchor(int node, AnchorPosition nodeAnchor, int ref, AnchorPosition refAnchor) {
+      setAnchor(node, nodeAnchor, ref, refAnchor, false);
+   }
+
+   /**
+    * Set an anchor relative to the parent of the Node. If the Node already had an anchor for the same position, it
+    * is replaced.
+    *
+    * @param node the index of the anchored Node
+    * @param nodeAnchor the anchor of the Node
+    * @param parent the index of the parent Node
+    * @param refAnchor the anchor of the parent Node
+    */
+   public void anchorInParent(int node, AnchorPosition nodeAnchor, int parent, AnchorPosition refAnchor) {
+      setAnchor(node, nodeAnchor, parent, refAnchor, true);
+   }
+
+   private void setAnchor(int node, AnchorPosition nodeAnchor, int ref, AnchorPosition refAnchor, boolean isParent) {
+      checkNode(node);
+      checkNode(ref);
+      if (node == ref) {
+         throw new IllegalArgumentException("A Node can not be anchored to itself");
+      }
+      if (isHorizontal(nodeAnchor) != isHorizontal(refAnchor)) {
+         throw new IllegalArgumentException("Incompatible anchors " + nodeAnchor + " and " + refAnchor);
+      }
+      int index = node * STRIDE + nodeAnchor.ordinal();
+      if (refs[index] == NONE) {
+         constraintCount++;
+      }
+      refs[index] = ref;
+      refAnchors[index] = (byte) refAnchor.ordinal();
+      parents[index] = isParent;
+   }
+
+   /**
+    * Remove an anchor.
+    *
+    * @param node the index of the anchored Node
+    * @param nodeAnchor the anchor of the Node
+    */
+   public void removeAnchor(int node, AnchorPosition nodeAnchor) {
+      checkNode(node);
+      int index = node * STRIDE + nodeAnchor.ordinal();
+      if (refs[index] != NONE) {
+         refs[index] = NONE;
+         refAnchors[index] = (byte) NONE;
+         parents[index] = false;
+         constraintCount--;
+      }
+   }
+
+   /**
+    * Return true if an anchor position is horizontal.
+    *
+    * @param position the anchor position
+    * @return true if the anchor position is horizontal
+    */
+   static boolean isHorizontal(AnchorPosition position) {
+      return position == AnchorPosition.LEFT || position == AnchorPosition.RIGHT;
+   }
+
+   private void checkNode(int node) {
+      if (node < 0 || node >= nodeCount) {
+         throw new IndexOutOfBoundsException("Node: " + node + ", Nodes count: " + nodeCount);
+      }
+   }
+
+   /**
+    * Return the reference Node of an anchor.
+    *
+    * @param node the index of the anchored Node
+    * @param nodeAnchor the anchor of the Node
+    * @return the index of the reference Node, or -1 if the anchor is not set
+    */
+   public int getReference(int node, AnchorPosition nodeAnchor) {
+      checkNode(node);
+      return refs[node * STRIDE + nodeAnchor.ordinal()];
+   }
+
+   /**
+    * Return the anchor of the reference Node of an anchor.
+    *
+    * @param node the index of the anchored Node
+    * @param nodeAnchor the anchor of the Node
+    * @return the anchor of the reference Node, or null if the anchor is not set
+    */
+   public AnchorPosition getReferenceAnchor(int node, AnchorPosition nodeAnchor) {
+      checkNode(node);
+      byte refAnchor = refAnchors[node * STRIDE + nodeAnchor.ordinal()];
+      return refAnchor == NONE ? null : POSITIONS[refAnchor];
+   }
+
+   /**
+    * Return true if the reference Node of an anchor is the parent of the Node.
+    *
+    * @param node the index of the anchored Node
+    * @param nodeAnchor the anchor of the Node
+    * @return true if the reference Node of the anchor is the parent of the Node
+    */
+   public boolean isParentAnchor(int node, AnchorPosition nodeAnchor) {
+      checkNode(node);
+      return parents[node * STRIDE + nodeAnchor.ordinal()];
+   }
+
+   /**
+    * Set the geometry of a Node.
+    *
+    * @param node the index of the Node
+    * @param x the x position
+    * @param y the y position
+    * @param width the width
+    * @param height the height
+    */
+   public void setGeometry(int node, double x, double y, double width, double height) {
+      int offset = node * STRIDE;
+      geometry[offset + X] = x;
+      geometry[offset + Y] = y;
+      geometry[offset + WIDTH] = width;
+      geometry[offset + HEIGHT] = height;
+   }
+
+   /**
+    * Return the geometry of all the Nodes. The array is not a copy, it contains {@link #STRIDE} values for each
+    * Node, and can be larger than the number of Nodes. It is only valid until the next Node is added.
+    *
+    * @return the geometry of all the Nodes
+    */
+   public double[] getGeometry() {
+      return geometry;
+   }
+
+   /**
+    * Return the x position of a Node.
+    *
+    * @param node the index of the Node
+    * @return the x position
+    */
+   public double getX(int node) {
+      return geometry[node * STRIDE + X];
+   }
+
+   /**
+    * Return the y position of a Node.
+    *
+    * @param node the index of the Node
+    * @return the y position
+    */
+   public double getY(int node) {
+      return geometry[node * STRIDE + Y];
+   }
+
+   /**
+    * Return the width of a Node.
+    *
+    * @param node the index of the Node
+    * @return the width
+    */
+   public double getWidth(int node) {
+      return geometry[node * STRIDE + WIDTH];
+   }
+
+   /**
+    * Return the height of a Node.
+    *
+    * @param node the index of the Node
+    * @return the height
+    */
+   public double getHeight(int node) {
+      return geometry[node * STRIDE + HEIGHT];
+   }
+
+   /**
+    * Set the x position of a Node.
+    *
+    * @param node the index of the Node
+    * @param x the x position
+    */
+   public void setX(int node, double x) {
+      geometry[node * STRIDE + X] = x;
+   }
+
+   /**
+    * Set the y position of a Node.
+    *
+    * @param node the index of the Node
+    * @param y the y position
+    */
+   public void setY(int node, double y) {
+      geometry[node * STRIDE + Y] = y;
+   }
+
+   /**
+    * Set the width of a Node.
+    *
+    * @param node the index of the Node
+    * @param width the width
+    */
+   public void setWidth(int node, double width) {
+      geometry[node * STRIDE + WIDTH] = width;
+   }
+
+   /**
+    * Set the height of a Node.
+    *
+    * @param node the index of the Node
+    * @param height the height
+    */
+   public void setHeight(int node, double height) {
+      geometry[node * STRIDE + HEIGHT] = height;
+   }
+
+   /**
+    * Return the internal array of the reference Nodes.
+    *
+    * @return the reference Nodes
+    */
+   int[] getReferences() {
+      return refs;
+   }
+
+   /**
+    * Return the internal array of the reference anchors.
+    *
+    * @return the reference anchors
+    */
+   byte[] getReferenceAnchors() {
+      return refAnchors;
+   }
+
+   /**
+    * Return the internal array of the parent flags.
+    *
+    * @return the parent flags
+    */
+   boolean[] getParentFlags() {
+      return parents;
+   }
+}
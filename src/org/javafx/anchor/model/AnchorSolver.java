@@ -0,0 +1,275 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import org.javafx.anchor.AnchorPosition;
+
+/**
+ * Computes the geometry of the Nodes of an {@link AnchorModel}. The Nodes are solved in one pass, in the
+ * topological order of their anchors, so that each Node is solved after all its reference Nodes.
+ *
+ * <p>
+ * The solver keeps internal buffers between two calls to {@link #solve(AnchorModel)}. It is not thread-safe, but
+ * several solvers can be used concurrently on different models.</p>
+ *
+ * @since 0.2
+ */
+public final class AnchorSolver {
+   /**
+    * The flag set by {@link #solveNode(AnchorModel, int)} if the x position of the Node has been computed.
+    */
+   public static final int X_MASK = 1 << AnchorModel.X;
+   /**
+    * The flag set by {@link #solveNode(AnchorModel, int)} if the y position of the Node has been computed.
+    */
+   public static final int Y_MASK = 1 << AnchorModel.Y;
+   /**
+    * The flag set by {@link #solveNode(AnchorModel, int)} if the width of the Node has been computed.
+    */
+   public static final int WIDTH_MASK = 1 << AnchorModel.WIDTH;
+   /**
+    * The flag set by {@link #solveNode(AnchorModel, int)} if the height of the Node has been computed.
+    */
+   public static final int HEIGHT_MASK = 1 << AnchorModel.HEIGHT;
+   private static final int STRIDE = AnchorModel.STRIDE;
+   private static final int NONE = AnchorModel.NONE;
+   private static final int LEFT = AnchorPosition.LEFT.ordinal();
+   private static final int RIGHT = AnchorPosition.RIGHT.ordinal();
+   private static final int TOP = AnchorPosition.TOP.ordinal();
+   private static final int BOTTOM = AnchorPosition.BOTTOM.ordinal();
+   private int[] order = new int[0];
+   private int[] degrees = new int[0];
+   private int[] offsets = new int[0];
+   private int[] dependents = new int[0];
+
+   /**
+    * Constructor.
+    */
+   public AnchorSolver() {
+   }
+
+   /**
+    * Solve all the Nodes of a model. The Nodes which are part of a cycle of anchors, or which depend on such a
+    * cycle, can not be ordered. They are solved after the other Nodes, by increasing index.
+    *
+    * @param model the model
+    * @return the number of Nodes which could not be ordered, 0 if the anchors have no cycle
+    */
+   public int solve(AnchorModel model) {
+      int count = model.getNodeCount();
+      int sorted = sort(model);
+      for (int i = 0; i < count; i++) {
+         solveNode(model, order[i]);
+      }
+      return count - sorted;
+   }
+
+   /**
+    * Compute the order in which the Nodes are solved, with Kahn's algorithm. The order is then returned by
+    * {@link #getOrder()}.
+    *
+    * @return the number of Nodes which could be ordered
+    */
+   int sort(AnchorModel model) {
+      int count = model.getNodeCount();
+      int[] refs = model.getReferences();
+      if (order.length < count) {
+         order = new int[count];
+         degrees = new int[count];
+         offsets = new int[count + 1];
+      }
+      if (dependents.length < model.getConstraintCount()) {
+         dependents = new int[model.getConstraintCount()];
+      }
+      // degrees is first used for the number of dependents of each Node, then for the number of unsolved references
+      for (int i = 0; i < count; i++) {
+         degrees[i] = 0;
+      }
+      for (int i = 0; i < count * STRIDE; i++) {
+         if (refs[i] != NONE) {
+            degrees[refs[i]]++;
+         }
+      }
+      offsets[0] = 0;
+      for (int i = 0; i < count; i++) {
+         offsets[i + 1] = offsets[i] + degrees[i];
+         degrees[i] = 0;
+      }
+      for (int i = 0; i < count * STRIDE; i++) {
+         int ref = refs[i];
+         if (ref != NONE) {
+            dependents[offsets[ref] + degrees[ref]] = i / STRIDE;
+            degrees[ref]++;
+         }
+      }
+      for (int i = 0; i < count; i++) {
+         degrees[i] = 0;
+         for (int slot = i * STRIDE; slot < (i + 1) * STRIDE; slot++) {
+            if (refs[slot] != NONE) {
+               degrees[i]++;
+            }
+         }
+      }
+      int tail = 0;
+      for (int i = 0; i < count; i++) {
+         if (degrees[i] == 0) {
+            order[tail++] = i;
+         }
+      }
+      int head = 0;
+      while (head < tail) {
+         int node = order[head++];
+         for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+            int dependent = dependents[i];
+            if (--degrees[dependent] == 0) {
+               order[tail++] = dependent;
+            }
+         }
+      }
+      int sorted = tail;
+      if (sorted < count) {
+         for (int i = 0; i < count; i++) {
+            if (degrees[i] > 0) {
+               order[tail++] = i;
+            }
+         }
+      }
+      return sorted;
+   }
+
+   /**
+    * Return the order computed by the last call to {@link #sort(AnchorModel)}. The array is not a copy, and can be
+    * larger than the number of Nodes.
+    *
+    * @return the indexes of the Nodes, in the order in which they are solved
+    */
+   int[] getOrder() {
+      return order;
+   }
+
+   /**
+    * Solve one Node of a model, using the current geometry of its reference Nodes. It is equivalent to call
+    * {@link #solveHorizontal(AnchorModel, int)} and then {@link #solveVertical(AnchorModel, int)}. This method does
+    * not use the internal buffers of the solver, so that it can be called concurrently for Nodes which are not the
+    * references of each other.
+    *
+    * @param model the model
+    * @param node the index of the Node
+    * @return the flags of the values which have been computed for the Node
+    */
+   public int solveNode(AnchorModel model, int node) {
+      return solveHorizontal(model, node) | solveVertical(model, node);
+   }
+
+   /**
+    * Compute the x position and width of one Node of a model, using the current geometry of its reference Nodes.
+    *
+    * @param model the model
+    * @param node the index of the Node
+    * @return the flags of the values which have been computed for the Node
+    */
+   public int solveHorizontal(AnchorModel model, int node) {
+      int offset = node * STRIDE;
+      int[] refs = model.getReferences();
+      int cross = refs[offset + TOP] != NONE ? offset + TOP : offset + BOTTOM;
+      return solveAxis(model, offset, offset + LEFT, offset + RIGHT, cross, AnchorModel.X, AnchorModel.WIDTH);
+   }
+
+   /**
+    * Compute the y position and height of one Node of a model, using the current geometry of its reference Nodes.
+    *
+    * @param model the model
+    * @param node the index of the Node
+    * @return the flags of the values which have been computed for the Node
+    */
+   public int solveVertical(AnchorModel model, int node) {
+      int offset = node * STRIDE;
+      int[] refs = model.getReferences();
+      int cross = refs[offset + LEFT] != NONE ? offset + LEFT : offset + RIGHT;
+      return solveAxis(model, offset, offset + TOP, offset + BOTTOM, cross, AnchorModel.Y, AnchorModel.HEIGHT);
+   }
+
+   /**
+    * Solve one axis of a Node. The size is computed before the position, because the position of a Node anchored
+    * by its right or bottom edge depends on its size.
+    *
+    * @param offset the offset of the Node
+    * @param start the index of the left or top anchor
+    * @param end the index of the right or bottom anchor
+    * @param cross the index of the anchor on the other axis which is used if the Node has no anchor on this axis
+    * @param position the offset of the position on this axis
+    * @param size the offset of the size on this axis
+    * @return the flags of the values which have been computed
+    */
+   private int solveAxis(AnchorModel model, int offset, int start, int end, int cross, int position, int size) {
+      double[] geometry = model.getGeometry();
+      int[] refs = model.getReferences();
+      byte[] refAnchors = model.getReferenceAnchors();
+      boolean[] parents = model.getParentFlags();
+      boolean hasStart = refs[start] != NONE;
+      boolean hasEnd = refs[end] != NONE;
+      if (hasStart && hasEnd) {
+         double value = getEdge(geometry, refs, refAnchors, parents, start);
+         geometry[offset + size] = getEdge(geometry, refs, refAnchors, parents, end) - value;
+         geometry[offset + position] = value;
+         return (1 << position) | (1 << size);
+      } else if (hasStart) {
+         geometry[offset + position] = getEdge(geometry, refs, refAnchors, parents, start);
+         return 1 << position;
+      } else if (hasEnd) {
+         geometry[offset + position] = getEdge(geometry, refs, refAnchors, parents, end) - geometry[offset + size];
+         return 1 << position;
+      } else if (refs[cross] != NONE) {
+         int ref = refs[cross] * STRIDE;
+         geometry[offset + size] = geometry[ref + size];
+         geometry[offset + position] = parents[cross] ? 0 : geometry[ref + position];
+         return (1 << position) | (1 << size);
+      } else {
+         return 0;
+      }
+   }
+
+   /**
+    * Return the position of the reference edge of an anchor.
+    */
+   private static double getEdge(double[] geometry, int[] refs, byte[] refAnchors, boolean[] parents, int index) {
+      int ref = refs[index] * STRIDE;
+      int refAnchor = refAnchors[index];
+      if (refAnchor == LEFT || refAnchor == RIGHT) {
+         double x = parents[index] ? 0 : geometry[ref + AnchorModel.X];
+         return refAnchor == LEFT ? x : x + geometry[ref + AnchorModel.WIDTH];
+      } else {
+         double y = parents[index] ? 0 : geometry[ref + AnchorModel.Y];
+         return refAnchor == TOP ? y : y + geometry[ref + AnchorModel.HEIGHT];
+      }
+   }
+}
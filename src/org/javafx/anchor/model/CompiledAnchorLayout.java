@@ -0,0 +1,441 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.javafx.anchor.AnchorPosition;
+
+/**
+ * The anchors of an {@link AnchorModel} compiled in a straight-line program. The order of the Nodes and the rule
+ * used for each axis of each Node are computed once by {@link #compile(AnchorModel)}, so that the program only
+ * reads and writes the geometry values, without looking up the anchors of the Nodes. It is useful for layouts whose
+ * anchors do not change at runtime, such as static dashboards, which are solved again each time the size of their
+ * root changes.
+ *
+ * <p>
+ * The program can be run on a model with {@link #apply(AnchorModel)}, or directly on a geometry array with
+ * {@link #run(double[])}. It can also be written as Java source code with
+ * {@link #writeSource(Appendable, String, String)}, for example at build time, so that each value is computed by a
+ * plain assignment which the JIT compiler can inline fully.</p>
+ *
+ * <p>
+ * The compiled layout does not depend on the geometry of the model, but only on its anchors. The result of the
+ * program is the same as the result of the {@link AnchorSolver} on a model with the same anchors. Once compiled,
+ * the layout is immutable and can be run concurrently on different geometry arrays.</p>
+ *
+ * @since 0.2
+ */
+public final class CompiledAnchorLayout {
+   /**
+    * The size of the instructions in the code array: the operation, the index of the position and of the size of
+    * the Node, and four operands.
+    */
+   private static final int INSTRUCTION_SIZE = 7;
+   /**
+    * The Node has a start and an end anchor: position = g[a] + g[b], size = g[c] + g[d] - position.
+    */
+   private static final int BOTH = 0;
+   /**
+    * The Node has only a start anchor: position = g[a] + g[b].
+    */
+   private static final int START = 1;
+   /**
+    * The Node has only an end anchor: position = g[c] + g[d] - size.
+    */
+   private static final int END = 2;
+   /**
+    * The Node has only an anchor on the other axis: size = g[a], position = g[b].
+    */
+   private static final int CROSS = 3;
+   private static final int STRIDE = AnchorModel.STRIDE;
+   private static final int NONE = AnchorModel.NONE;
+   private static final int LEFT = AnchorPosition.LEFT.ordinal();
+   private static final int RIGHT = AnchorPosition.RIGHT.ordinal();
+   private static final int TOP = AnchorPosition.TOP.ordinal();
+   private static final int BOTTOM = AnchorPosition.BOTTOM.ordinal();
+   /**
+    * The maximum number of statements of one method of the generated source code.
+    */
+   private static final int MAX_STATEMENTS = 1000;
+   private final int nodeCount;
+   private final int unorderedCount;
+   /**
+    * The index of the value which is always 0 in the geometry array, after the geometry of the last Node.
+    */
+   private final int zero;
+   private final int[] code;
+   private final int instructionCount;
+   // the anchors of the compiled model, used to check if a model still has the same anchors
+   private final int[] refs;
+   private final byte[] refAnchors;
+   private final boolean[] parents;
+
+   private CompiledAnchorLayout(AnchorModel model, int[] order, int sorted) {
+      nodeCount = model.getNodeCount();
+      unorderedCount = nodeCount - sorted;
+      zero = nodeCount * STRIDE;
+      refs = Arrays.copyOf(model.getReferences(), zero);
+      refAnchors = Arrays.copyOf(model.getReferenceAnchors(), zero);
+      parents = Arrays.copyOf(model.getParentFlags(), zero);
+      int[] instructions = new int[nodeCount * 2 * INSTRUCTION_SIZE];
+      int count = 0;
+      for (int i = 0; i < nodeCount; i++) {
+         int offset = order[i] * STRIDE;
+         int cross = refs[offset + TOP] != NONE ? offset + TOP : offset + BOTTOM;
+         if (compileAxis(instructions, count, offset, offset + LEFT, offset + RIGHT, cross, AnchorModel.X,
+            AnchorModel.WIDTH)) {
+            count++;
+         }
+         cross = refs[offset + LEFT] != NONE ? offset + LEFT : offset + RIGHT;
+         if (compileAxis(instructions, count, offset, offset + TOP, offset + BOTTOM, cross, AnchorModel.Y,
+            AnchorModel.HEIGHT)) {
+            count++;
+         }
+      }
+      instructionCount = count;
+      code = Arrays.copyOf(instructions, count * INSTRUCTION_SIZE);
+   }
+
+   /**
+    * Compile the anchors of a model. The geometry of the model is not used.
+    *
+    * @param model the model
+    * @return the compiled layout
+    */
+   public static CompiledAnchorLayout compile(AnchorModel model) {
+      AnchorSolver solver = new AnchorSolver();
+      int sorted = solver.sort(model);
+      return new CompiledAnchorLayout(model, solver.getOrder(), sorted);
+   }
+
+   /**
+    * Compile one axis of a Node, with the same rules as the {@link AnchorSolver}.
+    *
+    * @return true if an instruction has been added
+    */
+   private boolean compileAxis(int[] instructions, int index, int offset, int start, int end, int cross,
+      int position, int size) {
+      int op;
+      int a = zero;
+      int b = zero;
+      int c = zero;
+      int d = zero;
+      boolean hasStart = refs[start] != NONE;
+      boolean hasEnd = refs[end] != NONE;
+      if (hasStart && hasEnd) {
+         op = BOTH;
+         a = getEdgePosition(start);
+         b = getEdgeSize(start);
+         c = getEdgePosition(end);
+         d = getEdgeSize(end);
+      } else if (hasStart) {
+         op = START;
+         a = getEdgePosition(start);
+         b = getEdgeSize(start);
+      } else if (hasEnd) {
+         op = END;
+         c = getEdgePosition(end);
+         d = getEdgeSize(end);
+      } else if (refs[cross] != NONE) {
+         op = CROSS;
+         int ref = refs[cross] * STRIDE;
+         a = ref + size;
+         b = parents[cross] ? zero : ref + position;
+      } else {
+         return false;
+      }
+      int i = index * INSTRUCTION_SIZE;
+      instructions[i] = op;
+      instructions[i + 1] = offset + position;
+      instructions[i + 2] = offset + size;
+      instructions[i + 3] = a;
+      instructions[i + 4] = b;
+      instructions[i + 5] = c;
+      instructions[i + 6] = d;
+      return true;
+   }
+
+   /**
+    * Return the index of the position of the reference Node which is used by the edge of an anchor, or the index of
+    * the zero value if the reference is the parent of the Node.
+    */
+   private int getEdgePosition(int index) {
+      if (parents[index]) {
+         return zero;
+      }
+      int refAnchor = refAnchors[index];
+      int position = refAnchor == LEFT || refAnchor == RIGHT ? AnchorModel.X : AnchorModel.Y;
+      return refs[index] * STRIDE + position;
+   }
+
+   /**
+    * Return the index of the size of the reference Node which is used by the edge of an anchor, or the index of the
+    * zero value if the edge is the left or top edge of the reference Node.
+    */
+   private int getEdgeSize(int index) {
+      int refAnchor = refAnchors[index];
+      if (refAnchor == RIGHT) {
+         return refs[index] * STRIDE + AnchorModel.WIDTH;
+      } else if (refAnchor == BOTTOM) {
+         return refs[index] * STRIDE + AnchorModel.HEIGHT;
+      } else {
+         return zero;
+      }
+   }
+
+   /**
+    * Return the number of Nodes of the compiled model.
+    *
+    * @return the number of Nodes
+    */
+   public int getNodeCount() {
+      return nodeCount;
+   }
+
+   /**
+    * Return the number of Nodes which could not be ordered because they are part of a cycle of anchors, or depend on
+    * such a cycle.
+    *
+    * @return the number of Nodes which could not be ordered, 0 if the anchors have no cycle
+    */
+   public int getUnorderedCount() {
+      return unorderedCount;
+   }
+
+   /**
+    * Return the number of instructions of the program. There is at most one instruction for each axis of each Node.
+    *
+    * @return the number of instructions
+    */
+   public int getInstructionCount() {
+      return instructionCount;
+   }
+
+   /**
+    * Return the size of the geometry arrays used by {@link #run(double[])}, which is the size of the geometry of the
+    * Nodes plus one value which must be 0.
+    *
+    * @return the size of the geometry arrays
+    */
+   public int getBufferSize() {
+      return zero + 1;
+   }
+
+   /**
+    * Return the geometry values which are computed by the program. The other values are the inputs of the program,
+    * which are not modified by it.
+    *
+    * @return the flags of the computed values, indexed like the geometry of the model
+    */
+   boolean[] getOutputs() {
+      boolean[] outputs = new boolean[zero];
+      int length = instructionCount * INSTRUCTION_SIZE;
+      for (int i = 0; i < length; i += INSTRUCTION_SIZE) {
+         outputs[code[i + 1]] = true;
+         if (code[i] == BOTH || code[i] == CROSS) {
+            outputs[code[i + 2]] = true;
+         }
+      }
+      return outputs;
+   }
+
+   /**
+    * Return true if a model has the same Nodes and anchors as the compiled model.
+    *
+    * @param model the model
+    * @return true if the model has the same Nodes and anchors
+    */
+   public boolean matches(AnchorModel model) {
+      if (model.getNodeCount() != nodeCount) {
+         return false;
+      }
+      int[] modelRefs = model.getReferences();
+      byte[] modelRefAnchors = model.getReferenceAnchors();
+      boolean[] modelParents = model.getParentFlags();
+      for (int i = 0; i < zero; i++) {
+         if (modelRefs[i] != refs[i] || modelRefAnchors[i] != refAnchors[i] || modelParents[i] != parents[i]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Run the program on the geometry of a model. The model must have the same number of Nodes as the compiled model,
+    * and should have the same anchors.
+    *
+    * @param model the model
+    * @param buffer a geometry array of at least {@link #getBufferSize()} values, or null to allocate one
+    * @return the geometry array which has been used, which can be given again for the next call
+    * @throws IllegalArgumentException if the model does not have the same number of Nodes
+    */
+   public double[] apply(AnchorModel model, double[] buffer) {
+      if (model.getNodeCount() != nodeCount) {
+         throw new IllegalArgumentException("The model has " + model.getNodeCount() + " Nodes instead of "
+            + nodeCount);
+      }
+      if (buffer == null || buffer.length < zero + 1) {
+         buffer = new double[zero + 1];
+      }
+      double[] geometry = model.getGeometry();
+      System.arraycopy(geometry, 0, buffer, 0, zero);
+      buffer[zero] = 0;
+      run(buffer);
+      System.arraycopy(buffer, 0, geometry, 0, zero);
+      return buffer;
+   }
+
+   /**
+    * Run the program on the geometry of a model. The model must have the same number of Nodes as the compiled model,
+    * and should have the same anchors.
+    *
+    * @param model the model
+    * @throws IllegalArgumentException if the model does not have the same number of Nodes
+    */
+   public void apply(AnchorModel model) {
+      apply(model, null);
+   }
+
+   /**
+    * Run the program on a geometry array, which uses the same layout as the geometry of an {@link AnchorModel}.
+    *
+    * @param geometry the geometry, with at least {@link #getBufferSize()} values, and 0 as the last value
+    */
+   public void run(double[] geometry) {
+      int[] instructions = code;
+      int length = instructionCount * INSTRUCTION_SIZE;
+      for (int i = 0; i < length; i += INSTRUCTION_SIZE) {
+         int position = instructions[i + 1];
+         int size = instructions[i + 2];
+         switch (instructions[i]) {
+            case BOTH: {
+               double value = geometry[instructions[i + 3]] + geometry[instructions[i + 4]];
+               geometry[size] = geometry[instructions[i + 5]] + geometry[instructions[i + 6]] - value;
+               geometry[position] = value;
+               break;
+            }
+            case START:
+               geometry[position] = geometry[instructions[i + 3]] + geometry[instructions[i + 4]];
+               break;
+            case END:
+               geometry[position] = geometry[instructions[i + 5]] + geometry[instructions[i + 6]] - geometry[size];
+               break;
+            default:
+               geometry[size] = geometry[instructions[i + 3]];
+               geometry[position] = geometry[instructions[i + 4]];
+               break;
+         }
+      }
+   }
+
+   /**
+    * Write the program as the source code of a Java class. The class has a
+    * <code>public static void layout(double[] g)</code> method, which computes the geometry of the Nodes in an array
+    * which uses the same layout as the geometry of an {@link AnchorModel}, without the last 0 value of
+    * {@link #run(double[])}. The program is split in several methods if it is too large for one method.
+    *
+    * @param out the output
+    * @param packageName the package of the class, or null for the default package
+    * @param className the simple name of the class
+    * @throws IOException if the source code could not be written
+    */
+   public void writeSource(Appendable out, String packageName, String className) throws IOException {
+      if (packageName != null && !packageName.isEmpty()) {
+         out.append("package ").append(packageName).append(";\n\n");
+      }
+      out.append("/**\n * Generated by CompiledAnchorLayout for ").append(Integer.toString(nodeCount))
+         .append(" Nodes.\n */\n");
+      out.append("public final class ").append(className).append(" {\n");
+      out.append("   private ").append(className).append("() {\n   }\n\n");
+      int methods = Math.max(1, (instructionCount + MAX_STATEMENTS - 1) / MAX_STATEMENTS);
+      out.append("   public static void layout(double[] g) {\n");
+      if (methods > 1) {
+         for (int m = 0; m < methods; m++) {
+            out.append("      layout").append(Integer.toString(m)).append("(g);\n");
+         }
+         out.append("   }\n");
+      }
+      for (int m = 0; m < methods; m++) {
+         if (methods > 1) {
+            out.append("\n   private static void layout").append(Integer.toString(m)).append("(double[] g) {\n");
+         }
+         int last = Math.min(instructionCount, (m + 1) * MAX_STATEMENTS);
+         for (int n = m * MAX_STATEMENTS; n < last; n++) {
+            writeInstruction(out, n * INSTRUCTION_SIZE);
+         }
+         out.append("   }\n");
+      }
+      out.append("}\n");
+   }
+
+   private void writeInstruction(Appendable out, int i) throws IOException {
+      String position = value(code[i + 1]);
+      String size = value(code[i + 2]);
+      switch (code[i]) {
+         case BOTH:
+            out.append("      ").append(position).append(" = ").append(sum(code[i + 3], code[i + 4])).append(";\n");
+            out.append("      ").append(size).append(" = ").append(sum(code[i + 5], code[i + 6])).append(" - ")
+               .append(position).append(";\n");
+            break;
+         case START:
+            out.append("      ").append(position).append(" = ").append(sum(code[i + 3], code[i + 4])).append(";\n");
+            break;
+         case END:
+            out.append("      ").append(position).append(" = ").append(sum(code[i + 5], code[i + 6])).append(" - ")
+               .append(size).append(";\n");
+            break;
+         default:
+            out.append("      ").append(size).append(" = ").append(value(code[i + 3])).append(";\n");
+            out.append("      ").append(position).append(" = ").append(code[i + 4] == zero ? "0" : value(code[i + 4]))
+               .append(";\n");
+            break;
+      }
+   }
+
+   private static String value(int index) {
+      return "g[" + index + "]";
+   }
+
+   /**
+    * Return the expression of the sum of two values, without the zero value.
+    */
+   private String sum(int index1, int index2) {
+      if (index1 == zero) {
+         return index2 == zero ? "0" : value(index2);
+      } else if (index2 == zero) {
+         return value(index1);
+      } else {
+         return value(index1) + " + " + value(index2);
+      }
+   }
+}
@@ -0,0 +1,383 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the geometry of the Nodes of an {@link AnchorModel} on a {@link ForkJoinPool}. The anchored Nodes are
+ * split in connected components, which are ordered and solved in parallel.
+ *
+ * <p>
+ * Two anchored Nodes are in the same component if one is the reference of the other. The Nodes which have no anchor
+ * are never written by the solver, so that they can be the reference of several components: for example, each
+ * docked panel which anchors its widgets to its own root is a separate component, even if the roots of the panels
+ * are anchored to the same Node. Each component writes only the geometry of its own Nodes in the model, so that the
+ * components do not need any synchronization.</p>
+ *
+ * <p>
+ * The result is the same as the result of the {@link AnchorSolver}. The models which have less Nodes than the
+ * {@link #getThreshold() threshold} are solved by an {@link AnchorSolver} on the calling thread, because the cost of
+ * splitting the model would be higher than the gain.</p>
+ *
+ * <p>
+ * The solver keeps internal buffers between two calls to {@link #solve(AnchorModel)}. It is not thread-safe, but
+ * several solvers can be used concurrently on different models.</p>
+ *
+ * @since 0.2
+ */
+public final class ParallelAnchorSolver {
+   /**
+    * The default minimum number of Nodes of a model which is solved in parallel.
+    */
+   public static final int DEFAULT_THRESHOLD = 8192;
+   /**
+    * The minimum number of Nodes solved by one task, unless the task contains only one component.
+    */
+   private static final int GRAIN = 1024;
+   private static final int STRIDE = AnchorModel.STRIDE;
+   private static final int NONE = AnchorModel.NONE;
+   private final ForkJoinPool pool;
+   private final AnchorSolver solver = new AnchorSolver();
+   private int threshold = DEFAULT_THRESHOLD;
+   private int componentCount = 0;
+   private AnchorModel model = null;
+   /**
+    * The component of each Node, or NONE if the Node has no anchor. Before the components are numbered, the parent
+    * of each Node in the union-find forest.
+    */
+   private int[] components = new int[0];
+   /**
+    * The anchored Nodes, grouped by component, and by increasing index in each component.
+    */
+   private int[] nodes = new int[0];
+   /**
+    * The position of each anchored Node in the nodes array.
+    */
+   private int[] locals = new int[0];
+   /**
+    * The position of the first Node of each component in the nodes array.
+    */
+   private int[] starts = new int[0];
+   /**
+    * The number of Nodes of each component which could not be ordered.
+    */
+   private int[] unordered = new int[0];
+   // the buffers of the topological sort, indexed by the position of the Nodes in the nodes array
+   private int[] degrees = new int[0];
+   private int[] offsets = new int[0];
+   private int[] order = new int[0];
+   private int[] dependents = new int[0];
+
+   /**
+    * Create a solver which uses the common pool.
+    */
+   public ParallelAnchorSolver() {
+      this(ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Create a solver.
+    *
+    * @param pool the pool which solves the components
+    */
+   public ParallelAnchorSolver(ForkJoinPool pool) {
+      this.pool = pool;
+   }
+
+   /**
+    * Set the minimum number of Nodes of a model which is solved in parallel. The default is
+    * {@link #DEFAULT_THRESHOLD}.
+    *
+    * @param threshold the minimum number of Nodes
+    */
+   public void setThreshold(int threshold) {
+      this.threshold = threshold;
+   }
+
+   /**
+    * Return the minimum number of Nodes of a model which is solved in parallel.
+    *
+    * @return the minimum number of Nodes
+    */
+   public int getThreshold() {
+      return threshold;
+   }
+
+   /**
+    * Return the number of connected components of the last model which has been solved in parallel.
+    *
+    * @return the number of components
+    */
+   public int getComponentCount() {
+      return componentCount;
+   }
+
+   /**
+    * Solve all the Nodes of a model. The Nodes which are part of a cycle of anchors, or which depend on such a
+    * cycle, can not be ordered. They are solved after the other Nodes of their component, by increasing index.
+    *
+    * @param model the model
+    * @return the number of Nodes which could not be ordered, 0 if the anchors have no cycle
+    */
+   public int solve(AnchorModel model) {
+      int count = model.getNodeCount();
+      if (count < threshold || pool.getParallelism() <= 1) {
+         return solver.solve(model);
+      }
+      split(model);
+      this.model = model;
+      try {
+         pool.invoke(new SolveTask(0, componentCount));
+      } finally {
+         this.model = null;
+      }
+      int total = 0;
+      for (int i = 0; i < componentCount; i++) {
+         total += unordered[i];
+      }
+      return total;
+   }
+
+   /**
+    * Split the anchored Nodes of a model in connected components, with a union-find forest.
+    */
+   private void split(AnchorModel model) {
+      int count = model.getNodeCount();
+      int[] refs = model.getReferences();
+      if (components.length < count) {
+         components = new int[count];
+         nodes = new int[count];
+         locals = new int[count];
+         degrees = new int[count];
+         offsets = new int[count];
+         order = new int[count];
+         dependents = new int[count * STRIDE];
+      }
+      for (int i = 0; i < count; i++) {
+         components[i] = NONE;
+         for (int slot = i * STRIDE; slot < (i + 1) * STRIDE; slot++) {
+            if (refs[slot] != NONE) {
+               components[i] = i;
+               break;
+            }
+         }
+      }
+      for (int i = 0; i < count; i++) {
+         if (components[i] != NONE) {
+            for (int slot = i * STRIDE; slot < (i + 1) * STRIDE; slot++) {
+               int ref = refs[slot];
+               if (ref != NONE && components[ref] != NONE) {
+                  union(i, ref);
+               }
+            }
+         }
+      }
+      // the roots are numbered first, so that the other Nodes can then take the number of their root
+      componentCount = 0;
+      for (int i = 0; i < count; i++) {
+         if (components[i] != NONE && find(i) == i) {
+            locals[i] = componentCount++;
+         }
+      }
+      if (starts.length < componentCount + 1) {
+         starts = new int[componentCount + 1];
+         unordered = new int[componentCount];
+      }
+      for (int i = 0; i <= componentCount; i++) {
+         starts[i] = 0;
+      }
+      // the numbers are stored in the order buffer first, because the forest is needed until all the roots are found
+      for (int i = 0; i < count; i++) {
+         if (components[i] != NONE) {
+            int component = locals[find(i)];
+            order[i] = component;
+            starts[component + 1]++;
+         }
+      }
+      for (int i = 0; i < count; i++) {
+         if (components[i] != NONE) {
+            components[i] = order[i];
+         }
+      }
+      for (int i = 0; i < componentCount; i++) {
+         starts[i + 1] += starts[i];
+      }
+      // starts is used as the insertion cursor of each component, and then shifted back
+      for (int i = 0; i < count; i++) {
+         int component = components[i];
+         if (component != NONE) {
+            int position = starts[component]++;
+            nodes[position] = i;
+            locals[i] = position;
+         }
+      }
+      for (int i = componentCount; i > 0; i--) {
+         starts[i] = starts[i - 1];
+      }
+      starts[0] = 0;
+   }
+
+   /**
+    * Return the root of a Node in the union-find forest, with path halving.
+    */
+   private int find(int node) {
+      int[] parents = components;
+      while (parents[node] != node) {
+         parents[node] = parents[parents[node]];
+         node = parents[node];
+      }
+      return node;
+   }
+
+   private void union(int node1, int node2) {
+      int root1 = find(node1);
+      int root2 = find(node2);
+      if (root1 < root2) {
+         components[root2] = root1;
+      } else if (root2 < root1) {
+         components[root1] = root2;
+      }
+   }
+
+   /**
+    * Order and solve one component, with Kahn's algorithm. The buffers are indexed by the position of the Nodes in
+    * the nodes array, so that each component only uses its own part of the buffers.
+    */
+   private void solveComponent(AnchorModel model, int component) {
+      int[] refs = model.getReferences();
+      int start = starts[component];
+      int end = starts[component + 1];
+      for (int k = start; k < end; k++) {
+         degrees[k] = 0;
+         offsets[k] = 0;
+      }
+      for (int k = start; k < end; k++) {
+         int node = nodes[k];
+         for (int slot = node * STRIDE; slot < (node + 1) * STRIDE; slot++) {
+            int ref = refs[slot];
+            if (ref != NONE && components[ref] != NONE) {
+               degrees[k]++;
+               offsets[locals[ref]]++;
+            }
+         }
+      }
+      // offsets is first the end of the dependents of each Node, and is decremented to their start while filling
+      int position = start * STRIDE;
+      for (int k = start; k < end; k++) {
+         position += offsets[k];
+         offsets[k] = position;
+      }
+      int total = position;
+      for (int k = start; k < end; k++) {
+         int node = nodes[k];
+         for (int slot = node * STRIDE; slot < (node + 1) * STRIDE; slot++) {
+            int ref = refs[slot];
+            if (ref != NONE && components[ref] != NONE) {
+               dependents[--offsets[locals[ref]]] = k;
+            }
+         }
+      }
+      int tail = start;
+      for (int k = start; k < end; k++) {
+         if (degrees[k] == 0) {
+            order[tail++] = k;
+         }
+      }
+      int head = start;
+      while (head < tail) {
+         int k = order[head++];
+         int last = k + 1 < end ? offsets[k + 1] : total;
+         for (int i = offsets[k]; i < last; i++) {
+            int dependent = dependents[i];
+            if (--degrees[dependent] == 0) {
+               order[tail++] = dependent;
+            }
+         }
+      }
+      unordered[component] = end - tail;
+      for (int k = start; k < end; k++) {
+         if (degrees[k] > 0) {
+            order[tail++] = k;
+         }
+      }
+      for (int i = start; i < end; i++) {
+         solver.solveNode(model, nodes[order[i]]);
+      }
+   }
+
+   /**
+    * Solves a range of components, and splits it in two tasks if it has too many Nodes.
+    */
+   private final class SolveTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      private final int from;
+      private final int to;
+
+      private SolveTask(int from, int to) {
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      protected void compute() {
+         if (to - from > 1 && starts[to] - starts[from] > GRAIN) {
+            int middle = getMiddle();
+            invokeAll(new SolveTask(from, middle), new SolveTask(middle, to));
+         } else {
+            for (int component = from; component < to; component++) {
+               solveComponent(model, component);
+            }
+         }
+      }
+
+      /**
+       * Return the first component of the second half of the range, so that both halves have about the same number
+       * of Nodes.
+       */
+      private int getMiddle() {
+         int half = (starts[from] + starts[to]) / 2;
+         int low = from + 1;
+         int high = to - 1;
+         while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < half) {
+               low = middle + 1;
+            } else {
+               high = middle;
+            }
+         }
+         return low;
+      }
+   }
+}
@@ -0,0 +1,211 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.shape.Rectangle;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the Java Flight Recorder events of the anchors.
+ *
+ * @since 0.2
+ */
+public class AnchorEventsTest {
+   private Recording recording = null;
+   private Path file = null;
+
+   public AnchorEventsTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() throws Exception {
+      file = Files.createTempFile("anchors", ".jfr");
+      recording = new Recording();
+      recording.enable(AnchorInstalledEvent.NAME);
+      recording.enable(PropagationEvent.NAME);
+      recording.enable(CycleDetectedEvent.NAME);
+   }
+
+   @After
+   public void tearDown() throws Exception {
+      AnchorLayoutScheduler.getInstance().flush();
+      recording.close();
+      Files.deleteIfExists(file);
+   }
+
+   private List<RecordedEvent> stop(String name) throws Exception {
+      recording.stop();
+      recording.dump(file);
+      List<RecordedEvent> events = new ArrayList<>();
+      for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+         if (event.getEventType().getName().equals(name)) {
+            events.add(event);
+         }
+      }
+      return events;
+   }
+
+   /**
+    * Test the events of the installed anchors.
+    */
+   @Test
+   public void testInstalled() throws Exception {
+      System.out.println("AnchorEventsTest : testInstalled");
+      recording.start();
+      Rectangle root = new Rectangle(0, 0, 100, 100);
+      Rectangle rec = new Rectangle(0, 0, 10, 10);
+      NodeAnchor anchor = new NodeAnchor(rec);
+      anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+      anchor.anchor(root, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      List<RecordedEvent> events = stop(AnchorInstalledEvent.NAME);
+      assertEquals("Events", 1, events.size());
+      RecordedEvent event = events.get(0);
+      assertEquals("Node class", Rectangle.class.getName(), event.getClass("nodeClass").getName());
+      assertEquals("Reference class", Rectangle.class.getName(), event.getClass("referenceClass").getName());
+      assertEquals("Node anchor", "LEFT", event.getString("nodeAnchor"));
+      assertEquals("Reference anchor", "RIGHT", event.getString("referenceAnchor"));
+      assertEquals("Policy", "ORDERED", event.getString("policy"));
+      assertFalse("Parent", event.getBoolean("parent"));
+   }
+
+   /**
+    * Test the events of the propagations of ordered anchors.
+    */
+   @Test
+   public void testOrderedPropagation() throws Exception {
+      System.out.println("AnchorEventsTest : testOrderedPropagation");
+      Rectangle root = new Rectangle(0, 0, 10, 10);
+      Rectangle previous = root;
+      for (int i = 0; i < 3; i++) {
+         Rectangle rec = new Rectangle(0, 0, 10, 10);
+         NodeAnchor anchor = new NodeAnchor(rec);
+         anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         anchor.anchor(previous, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+         previous = rec;
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+      recording.start();
+      root.setX(100);
+      assertEquals("Last x", 130, previous.getX(), 0.2d);
+      List<RecordedEvent> events = stop(PropagationEvent.NAME);
+      assertEquals("Events", 1, events.size());
+      RecordedEvent event = events.get(0);
+      assertEquals("Policy", "ORDERED", event.getString("policy"));
+      assertEquals("Node class", Rectangle.class.getName(), event.getClass("nodeClass").getName());
+      assertNull("Node anchor", event.getString("nodeAnchor"));
+      assertEquals("Depth", 3, event.getInt("depth"));
+      assertEquals("Updates", 3, event.getInt("updates"));
+   }
+
+   /**
+    * Test the events of the propagations of immediate anchors.
+    */
+   @Test
+   public void testImmediatePropagation() throws Exception {
+      System.out.println("AnchorEventsTest : testImmediatePropagation");
+      Rectangle root = new Rectangle(0, 0, 10, 10);
+      Rectangle first = new Rectangle(0, 0, 10, 10);
+      Rectangle second = new Rectangle(0, 0, 10, 10);
+      NodeAnchor firstAnchor = new NodeAnchor(first);
+      firstAnchor.setPropagationPolicy(PropagationPolicy.IMMEDIATE);
+      firstAnchor.anchor(root, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+      NodeAnchor secondAnchor = new NodeAnchor(second);
+      secondAnchor.setPropagationPolicy(PropagationPolicy.IMMEDIATE);
+      secondAnchor.anchor(first, AnchorPosition.TOP, AnchorPosition.TOP);
+      recording.start();
+      root.setY(50);
+      assertEquals("Second y", 60, second.getY(), 0.2d);
+      List<RecordedEvent> events = stop(PropagationEvent.NAME);
+      assertEquals("Events", 1, events.size());
+      RecordedEvent event = events.get(0);
+      assertEquals("Policy", "IMMEDIATE", event.getString("policy"));
+      assertEquals("Node anchor", "TOP", event.getString("nodeAnchor"));
+      assertEquals("Reference anchor", "BOTTOM", event.getString("referenceAnchor"));
+      assertTrue("Depth", event.getInt("depth") >= 2);
+   }
+
+   /**
+    * Test the events of the rejected cycles.
+    */
+   @Test
+   public void testCycle() throws Exception {
+      System.out.println("AnchorEventsTest : testCycle");
+      Rectangle rec1 = new Rectangle();
+      Rectangle rec2 = new Rectangle();
+      new NodeAnchor(rec2).anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      recording.start();
+      try {
+         new NodeAnchor(rec1).anchor(rec2, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+         fail("The cycle should have been rejected");
+      } catch (IllegalArgumentException e) {
+      }
+      List<RecordedEvent> events = stop(CycleDetectedEvent.NAME);
+      assertEquals("Events", 1, events.size());
+      assertEquals("Node class", Rectangle.class.getName(), events.get(0).getClass("nodeClass").getName());
+   }
+
+   /**
+    * Test that no event is emitted if the events are not enabled.
+    */
+   @Test
+   public void testDisabled() throws Exception {
+      System.out.println("AnchorEventsTest : testDisabled");
+      recording.disable(AnchorInstalledEvent.NAME);
+      recording.start();
+      Rectangle root = new Rectangle();
+      Rectangle rec = new Rectangle();
+      new NodeAnchor(rec).anchor(root, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      assertTrue("Events", stop(AnchorInstalledEvent.NAME).isEmpty());
+   }
+}
@@ -0,0 +1,404 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import javafx.geometry.Insets;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import org.javafx.anchor.model.AnchorGeometryMemo;
+import org.javafx.anchor.model.AnchorLayoutCache;
+import org.javafx.anchor.model.ParallelAnchorSolver;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorLayoutPane class.
+ *
+ * @since 0.2
+ */
+public class AnchorLayoutPaneTest {
+   private static final double DELTA = 0.2d;
+
+   public AnchorLayoutPaneTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   private static Region createRegion(double width, double height) {
+      Region region = new Region();
+      region.setPrefSize(width, height);
+      return region;
+   }
+
+   /**
+    * Test of a fill anchor relative to the Pane, with insets.
+    */
+   @Test
+   public void testFillInParent() {
+      System.out.println("AnchorLayoutPaneTest : testFillInParent");
+      Region child = createRegion(10, 10);
+      AnchorLayoutPane pane = new AnchorLayoutPane(child);
+      pane.setPadding(new Insets(10));
+      AnchorLayoutPane.fillInParent(child);
+      pane.resize(200, 100);
+      pane.layout();
+
+      assertEquals("X", 10, child.getLayoutX(), DELTA);
+      assertEquals("Y", 10, child.getLayoutY(), DELTA);
+      assertEquals("Width", 180, child.getWidth(), DELTA);
+      assertEquals("Height", 80, child.getHeight(), DELTA);
+      assertEquals("Pref width", 10, child.getPrefWidth(), DELTA);
+
+      pane.resize(300, 150);
+      pane.layout();
+      assertEquals("Width", 280, child.getWidth(), DELTA);
+      assertEquals("Height", 130, child.getHeight(), DELTA);
+   }
+
+   /**
+    * Test of children anchored to other children.
+    */
+   @Test
+   public void testSiblings() {
+      System.out.println("AnchorLayoutPaneTest : testSiblings");
+      Region label = createRegion(50, 20);
+      Region field = createRegion(30, 20);
+      Region status = createRegion(40, 15);
+      AnchorLayoutPane pane = new AnchorLayoutPane(status, field, label);
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.TOP, AnchorPosition.TOP);
+      AnchorLayoutPane.setAnchor(field, AnchorPosition.LEFT, label, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchorInParent(field, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchor(field, AnchorPosition.TOP, label, AnchorPosition.TOP);
+      AnchorLayoutPane.setAnchor(status, AnchorPosition.TOP, field, AnchorPosition.BOTTOM);
+      pane.resize(200, 100);
+      pane.layout();
+
+      assertEquals("Label X", 0, label.getLayoutX(), DELTA);
+      assertEquals("Label width", 50, label.getWidth(), DELTA);
+      assertEquals("Field X", 50, field.getLayoutX(), DELTA);
+      assertEquals("Field width", 150, field.getWidth(), DELTA);
+      assertEquals("Status X", 50, status.getLayoutX(), DELTA);
+      assertEquals("Status Y", 20, status.getLayoutY(), DELTA);
+      assertEquals("Status width", 150, status.getWidth(), DELTA);
+      assertEquals("Status height", 15, status.getHeight(), DELTA);
+
+      label.setPrefWidth(80);
+      assertTrue("Needs layout", pane.isNeedsLayout());
+      pane.layout();
+      assertEquals("Field X", 80, field.getLayoutX(), DELTA);
+      assertEquals("Field width", 120, field.getWidth(), DELTA);
+      assertEquals("Status width", 120, status.getWidth(), DELTA);
+   }
+
+   /**
+    * Test that the children are laid out in the same way with a parallel solver.
+    */
+   @Test
+   public void testParallelSolver() {
+      System.out.println("AnchorLayoutPaneTest : testParallelSolver");
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         int groups = 20;
+         Region[] labels = new Region[groups];
+         Region[] fields = new Region[groups];
+         AnchorLayoutPane pane = new AnchorLayoutPane();
+         for (int i = 0; i < groups; i++) {
+            labels[i] = createRegion(50, 20);
+            fields[i] = createRegion(30, 20);
+            pane.getChildren().addAll(fields[i], labels[i]);
+            AnchorLayoutPane.setAnchorInParent(labels[i], AnchorPosition.LEFT, AnchorPosition.LEFT);
+            AnchorLayoutPane.setAnchor(fields[i], AnchorPosition.LEFT, labels[i], AnchorPosition.RIGHT);
+            AnchorLayoutPane.setAnchorInParent(fields[i], AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+            AnchorLayoutPane.setAnchor(fields[i], AnchorPosition.TOP, labels[i], AnchorPosition.TOP);
+         }
+         ParallelAnchorSolver solver = new ParallelAnchorSolver(pool);
+         solver.setThreshold(0);
+         pane.setParallelSolver(solver);
+         assertSame("Solver", solver, pane.getParallelSolver());
+         pane.resize(200, 100);
+         pane.layout();
+
+         assertEquals("Components", groups, solver.getComponentCount());
+         for (int i = 0; i < groups; i++) {
+            assertEquals("Field X", 50, fields[i].getLayoutX(), DELTA);
+            assertEquals("Field width", 150, fields[i].getWidth(), DELTA);
+         }
+         labels[3].setPrefWidth(80);
+         pane.layout();
+         assertEquals("Field X", 80, fields[3].getLayoutX(), DELTA);
+         assertEquals("Field width", 120, fields[3].getWidth(), DELTA);
+         assertEquals("Other field X", 50, fields[4].getLayoutX(), DELTA);
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   /**
+    * Test that the children are laid out by a compiled layout, which is compiled again when the anchors change.
+    */
+   @Test
+   public void testCompiledLayout() {
+      System.out.println("AnchorLayoutPaneTest : testCompiledLayout");
+      Region label = createRegion(50, 20);
+      Region field = createRegion(30, 20);
+      AnchorLayoutPane pane = new AnchorLayoutPane(label, field);
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.TOP, AnchorPosition.TOP);
+      AnchorLayoutPane.setAnchor(field, AnchorPosition.LEFT, label, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchorInParent(field, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      pane.setCompiledLayout(true);
+      assertTrue("Compiled", pane.isCompiledLayout());
+      pane.resize(200, 100);
+      pane.layout();
+      assertEquals("Field X", 50, field.getLayoutX(), DELTA);
+      assertEquals("Field width", 150, field.getWidth(), DELTA);
+
+      pane.resize(300, 100);
+      pane.layout();
+      assertEquals("Field width", 250, field.getWidth(), DELTA);
+
+      AnchorLayoutPane.setAnchor(field, AnchorPosition.TOP, label, AnchorPosition.BOTTOM);
+      pane.layout();
+      assertEquals("Field Y", 20, field.getLayoutY(), DELTA);
+      assertEquals("Field width", 250, field.getWidth(), DELTA);
+   }
+
+   /**
+    * Test that the first layout of a Pane is put in the layout cache, and restored by another Pane with the same
+    * children.
+    */
+   @Test
+   public void testLayoutCache() throws IOException {
+      System.out.println("AnchorLayoutPaneTest : testLayoutCache");
+      Path file = Files.createTempFile("pane", ".cache");
+      try {
+         AnchorLayoutCache cache = AnchorLayoutCache.open(file);
+         for (int i = 0; i < 2; i++) {
+            Region label = createRegion(50, 20);
+            Region field = createRegion(30, 20);
+            AnchorLayoutPane pane = new AnchorLayoutPane(label, field);
+            AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.LEFT, AnchorPosition.LEFT);
+            AnchorLayoutPane.setAnchor(field, AnchorPosition.LEFT, label, AnchorPosition.RIGHT);
+            AnchorLayoutPane.setAnchorInParent(field, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+            pane.setLayoutCache(cache);
+            assertSame("Cache", cache, pane.getLayoutCache());
+            pane.resize(200, 100);
+            pane.layout();
+            assertEquals("Field X", 50, field.getLayoutX(), DELTA);
+            assertEquals("Field width", 150, field.getWidth(), DELTA);
+            assertEquals("Entries", 1, cache.getEntryCount());
+
+            // the next layouts are solved normally
+            pane.resize(300, 100);
+            pane.layout();
+            assertEquals("Field width", 250, field.getWidth(), DELTA);
+            assertEquals("Entries", 1, cache.getEntryCount());
+            cache.save();
+            cache = AnchorLayoutCache.open(file);
+         }
+      } finally {
+         Files.deleteIfExists(file);
+      }
+   }
+
+   /**
+    * Test that the geometry of the children is copied from the memo when the Pane is resized back to a previous size.
+    */
+   @Test
+   public void testGeometryMemo() {
+      System.out.println("AnchorLayoutPaneTest : testGeometryMemo");
+      Region label = createRegion(50, 20);
+      Region field = createRegion(30, 20);
+      AnchorLayoutPane pane = new AnchorLayoutPane(label, field);
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.TOP, AnchorPosition.TOP);
+      AnchorLayoutPane.setAnchor(field, AnchorPosition.LEFT, label, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchorInParent(field, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchor(field, AnchorPosition.TOP, label, AnchorPosition.TOP);
+      AnchorGeometryMemo memo = new AnchorGeometryMemo();
+      pane.setGeometryMemo(memo);
+      assertSame("Memo", memo, pane.getGeometryMemo());
+      pane.resize(200, 100);
+      pane.layout();
+      pane.resize(400, 100);
+      pane.layout();
+      assertEquals("Field width", 350, field.getWidth(), DELTA);
+      pane.resize(200, 100);
+      pane.layout();
+      assertEquals("Field width", 150, field.getWidth(), DELTA);
+      assertEquals("Hits", 1, memo.getHitCount());
+      assertEquals("Misses", 2, memo.getMissCount());
+
+      label.setPrefWidth(80);
+      pane.layout();
+      assertEquals("Field X", 80, field.getLayoutX(), DELTA);
+      assertEquals("Field width", 120, field.getWidth(), DELTA);
+      assertEquals("Misses", 3, memo.getMissCount());
+   }
+
+   /**
+    * Test of a child anchored to the right and bottom edges of the Pane.
+    */
+   @Test
+   public void testRightBottom() {
+      System.out.println("AnchorLayoutPaneTest : testRightBottom");
+      Region child = createRegion(40, 30);
+      AnchorLayoutPane pane = new AnchorLayoutPane(child);
+      AnchorLayoutPane.setAnchorInParent(child, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchorInParent(child, AnchorPosition.BOTTOM, AnchorPosition.BOTTOM);
+      pane.resize(200, 100);
+      pane.layout();
+
+      assertEquals("X", 160, child.getLayoutX(), DELTA);
+      assertEquals("Y", 70, child.getLayoutY(), DELTA);
+      assertEquals("Width", 40, child.getWidth(), DELTA);
+      assertEquals("Height", 30, child.getHeight(), DELTA);
+   }
+
+   /**
+    * Test of a Shape child.
+    */
+   @Test
+   public void testShape() {
+      System.out.println("AnchorLayoutPaneTest : testShape");
+      Region header = createRegion(100, 20);
+      Rectangle rectangle = new Rectangle(0, 0, 10, 10);
+      AnchorLayoutPane pane = new AnchorLayoutPane(header, rectangle);
+      AnchorLayoutPane.setAnchorInParent(header, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      AnchorLayoutPane.setAnchorInParent(header, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchorInParent(header, AnchorPosition.TOP, AnchorPosition.TOP);
+      AnchorLayoutPane.setAnchor(rectangle, AnchorPosition.TOP, header, AnchorPosition.BOTTOM);
+      AnchorLayoutPane.setAnchorInParent(rectangle, AnchorPosition.BOTTOM, AnchorPosition.BOTTOM);
+      pane.resize(200, 100);
+      pane.layout();
+
+      assertEquals("X", 0, rectangle.getX(), DELTA);
+      assertEquals("Y", 20, rectangle.getY(), DELTA);
+      assertEquals("Width", 200, rectangle.getWidth(), DELTA);
+      assertEquals("Height", 80, rectangle.getHeight(), DELTA);
+   }
+
+   /**
+    * Test of the preferred size of the Pane.
+    */
+   @Test
+   public void testPrefSize() {
+      System.out.println("AnchorLayoutPaneTest : testPrefSize");
+      Region label = createRegion(50, 20);
+      Region field = createRegion(30, 25);
+      Region footer = createRegion(60, 10);
+      AnchorLayoutPane pane = new AnchorLayoutPane(label, field, footer);
+      pane.setPadding(new Insets(5));
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      AnchorLayoutPane.setAnchorInParent(label, AnchorPosition.TOP, AnchorPosition.TOP);
+      AnchorLayoutPane.setAnchor(field, AnchorPosition.LEFT, label, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchorInParent(field, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchorInParent(field, AnchorPosition.TOP, AnchorPosition.TOP);
+      AnchorLayoutPane.setAnchorInParent(footer, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      AnchorLayoutPane.setAnchor(footer, AnchorPosition.TOP, field, AnchorPosition.BOTTOM);
+
+      assertEquals("Pref width", 5 + 80 + 5, pane.prefWidth(-1), DELTA);
+      assertEquals("Pref height", 5 + 35 + 5, pane.prefHeight(-1), DELTA);
+
+      pane.resize(pane.prefWidth(-1), pane.prefHeight(-1));
+      pane.layout();
+      assertEquals("Field X", 55, field.getLayoutX(), DELTA);
+      assertEquals("Field width", 30, field.getWidth(), DELTA);
+      assertEquals("Footer X", 25, footer.getLayoutX(), DELTA);
+      assertEquals("Footer Y", 30, footer.getLayoutY(), DELTA);
+   }
+
+   /**
+    * Test of the anchors to Nodes which are not children of the Pane, and of the removal of anchors.
+    */
+   @Test
+   public void testRemoveAnchor() {
+      System.out.println("AnchorLayoutPaneTest : testRemoveAnchor");
+      Region child = createRegion(40, 30);
+      Region other = createRegion(40, 30);
+      new Pane(other);
+      other.setLayoutX(100);
+      AnchorLayoutPane pane = new AnchorLayoutPane(child);
+      child.setLayoutX(10);
+      AnchorLayoutPane.setAnchor(child, AnchorPosition.LEFT, other, AnchorPosition.RIGHT);
+      pane.resize(200, 100);
+      pane.layout();
+      assertEquals("X", 10, child.getLayoutX(), DELTA);
+
+      AnchorLayoutPane.setAnchorInParent(child, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      assertTrue("Has anchor", AnchorLayoutPane.hasAnchor(child, AnchorPosition.RIGHT));
+      assertNull("Reference", AnchorLayoutPane.getAnchorReference(child, AnchorPosition.RIGHT));
+      assertEquals("Reference anchor", AnchorPosition.RIGHT,
+         AnchorLayoutPane.getReferenceAnchor(child, AnchorPosition.RIGHT));
+      pane.layout();
+      assertEquals("X", 160, child.getLayoutX(), DELTA);
+
+      AnchorLayoutPane.removeAnchor(child, AnchorPosition.RIGHT);
+      assertFalse("Has anchor", AnchorLayoutPane.hasAnchor(child, AnchorPosition.RIGHT));
+      AnchorLayoutPane.clearConstraints(child);
+      assertFalse("Has anchor", AnchorLayoutPane.hasAnchor(child, AnchorPosition.LEFT));
+   }
+
+   /**
+    * Test of incompatible anchors.
+    */
+   @Test(expected = IllegalArgumentException.class)
+   public void testIncompatibleAnchors() {
+      System.out.println("AnchorLayoutPaneTest : testIncompatibleAnchors");
+      Region child = createRegion(40, 30);
+      AnchorLayoutPane.setAnchorInParent(child, AnchorPosition.LEFT, AnchorPosition.TOP);
+   }
+}
@@ -0,0 +1,243 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.lang.management.ManagementFactory;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorMetrics.
+ *
+ * @since 0.2
+ */
+public class AnchorMetricsTest {
+   private static final double DELTA = 0.2d;
+
+   public AnchorMetricsTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+      AnchorMetrics.getInstance().reset();
+      AnchorMetrics.getInstance().setEnabled(true);
+   }
+
+   @After
+   public void tearDown() throws Exception {
+      AnchorLayoutScheduler.getInstance().flush();
+      AnchorMetrics.getInstance().setEnabled(false);
+      AnchorMetrics.getInstance().reset();
+      AnchorMetrics.unregisterMBean();
+   }
+
+   /**
+    * Test the metrics of a chain of ordered anchors.
+    */
+   @Test
+   public void testOrderedChain() {
+      System.out.println("AnchorMetricsTest : testOrderedChain");
+      AnchorMetrics metrics = AnchorMetrics.getInstance();
+      Rectangle root = new Rectangle(0, 0, 10, 10);
+      Rectangle previous = root;
+      Rectangle[] chain = new Rectangle[3];
+      for (int i = 0; i < chain.length; i++) {
+         chain[i] = new Rectangle(0, 0, 10, 10);
+         NodeAnchor anchor = new NodeAnchor(chain[i]);
+         anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         anchor.anchor(previous, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+         previous = chain[i];
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+      metrics.reset();
+
+      root.setX(100);
+      assertEquals("Last x", 130, chain[2].getX(), DELTA);
+      AnchorMetrics.Snapshot snapshot = metrics.snapshot();
+      assertEquals("X writes", 3, snapshot.getWrites(AnchorMetrics.X));
+      assertEquals("Width writes", 0, snapshot.getWrites(AnchorMetrics.WIDTH));
+      assertEquals("Redundant x writes", 0, snapshot.getRedundantWrites(AnchorMetrics.X));
+      assertEquals("Propagations", 1, snapshot.getPropagations());
+      assertEquals("Resolved anchors", 3, snapshot.getResolvedAnchors());
+      assertEquals("Depth", 3, snapshot.getMaxPropagationDepth());
+      assertTrue("Listener invocations", snapshot.getListenerInvocations() > 0);
+      assertEquals("Average time", snapshot.getTotalPropagationTime(), snapshot.getAveragePropagationTime());
+
+      metrics.reset();
+      assertEquals("Reset", 0, metrics.getXWrites());
+      assertEquals("Snapshot after reset", 3, snapshot.getWrites(AnchorMetrics.X));
+   }
+
+   /**
+    * Test the metrics of a chain of immediate anchors.
+    */
+   @Test
+   public void testImmediateChain() {
+      System.out.println("AnchorMetricsTest : testImmediateChain");
+      AnchorMetrics metrics = AnchorMetrics.getInstance();
+      Rectangle root = new Rectangle(0, 0, 10, 10);
+      Rectangle first = new Rectangle(0, 0, 10, 10);
+      Rectangle second = new Rectangle(0, 0, 10, 10);
+      NodeAnchor firstAnchor = new NodeAnchor(first);
+      firstAnchor.setPropagationPolicy(PropagationPolicy.IMMEDIATE);
+      firstAnchor.anchor(root, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      NodeAnchor secondAnchor = new NodeAnchor(second);
+      secondAnchor.setPropagationPolicy(PropagationPolicy.IMMEDIATE);
+      secondAnchor.anchor(first, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      metrics.reset();
+
+      root.setX(50);
+      assertEquals("Second x", 50, second.getX(), DELTA);
+      assertEquals("X writes", 2, metrics.getXWrites());
+      // each immediate anchor also listens to its own Node, and echoes the write of its position
+      assertEquals("Redundant writes", 2, metrics.getRedundantWrites());
+      assertEquals("Listener invocations", 4, metrics.getListenerInvocations());
+      assertEquals("Propagations", 1, metrics.getPropagations());
+      assertEquals("Depth", 3, metrics.getMaxPropagationDepth());
+      assertEquals("Resolved anchors", 0, metrics.getResolvedAnchors());
+   }
+
+   /**
+    * Test that the metrics count the writes of an AnchorLayoutPane.
+    */
+   @Test
+   public void testLayoutPaneWrites() {
+      System.out.println("AnchorMetricsTest : testLayoutPaneWrites");
+      AnchorMetrics metrics = AnchorMetrics.getInstance();
+      Rectangle rec = new Rectangle(0, 0, 10, 10);
+      AnchorLayoutPane pane = new AnchorLayoutPane(rec);
+      AnchorLayoutPane.fillInParent(rec);
+      pane.resize(200, 100);
+      pane.layout();
+
+      assertEquals("Width", 200, rec.getWidth(), DELTA);
+      AnchorMetrics.Snapshot snapshot = metrics.snapshot();
+      assertEquals("Width writes", 1, snapshot.getWrites(AnchorMetrics.WIDTH));
+      assertEquals("Height writes", 1, snapshot.getWrites(AnchorMetrics.HEIGHT));
+      assertEquals("X writes", 0, snapshot.getWrites(AnchorMetrics.X));
+      assertEquals("Redundant x writes", 1, snapshot.getRedundantWrites(AnchorMetrics.X));
+      assertEquals("Redundant y writes", 1, snapshot.getRedundantWrites(AnchorMetrics.Y));
+   }
+
+   /**
+    * Test that the writes of a resizable child of an AnchorLayoutPane are compared with the geometry of the child.
+    */
+   @Test
+   public void testLayoutPaneResizableWrites() {
+      System.out.println("AnchorMetricsTest : testLayoutPaneResizableWrites");
+      AnchorMetrics metrics = AnchorMetrics.getInstance();
+      Region region = new Region();
+      AnchorLayoutPane pane = new AnchorLayoutPane(region);
+      AnchorLayoutPane.fillInParent(region);
+      pane.resize(200, 100);
+      pane.layout();
+
+      assertEquals("Width", 200, region.getWidth(), DELTA);
+      AnchorMetrics.Snapshot snapshot = metrics.snapshot();
+      assertEquals("Width writes", 1, snapshot.getWrites(AnchorMetrics.WIDTH));
+      assertEquals("Height writes", 1, snapshot.getWrites(AnchorMetrics.HEIGHT));
+      assertEquals("Redundant x writes", 1, snapshot.getRedundantWrites(AnchorMetrics.X));
+
+      pane.requestLayout();
+      pane.layout();
+      snapshot = metrics.snapshot();
+      assertEquals("Width writes", 1, snapshot.getWrites(AnchorMetrics.WIDTH));
+      assertEquals("Redundant width writes", 1, snapshot.getRedundantWrites(AnchorMetrics.WIDTH));
+      assertEquals("Redundant height writes", 1, snapshot.getRedundantWrites(AnchorMetrics.HEIGHT));
+   }
+
+   /**
+    * Test that nothing is recorded while the metrics are disabled.
+    */
+   @Test
+   public void testDisabled() {
+      System.out.println("AnchorMetricsTest : testDisabled");
+      AnchorMetrics metrics = AnchorMetrics.getInstance();
+      metrics.setEnabled(false);
+      Rectangle root = new Rectangle(0, 0, 10, 10);
+      Rectangle rec = new Rectangle(0, 0, 10, 10);
+      new NodeAnchor(rec).anchor(root, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      root.setX(20);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("X", 30, rec.getX(), DELTA);
+      AnchorMetrics.Snapshot snapshot = metrics.snapshot();
+      assertEquals("Writes", 0, snapshot.getWrites());
+      assertEquals("Listener invocations", 0, snapshot.getListenerInvocations());
+      assertEquals("Propagations", 0, snapshot.getPropagations());
+   }
+
+   /**
+    * Test the metrics MBean.
+    */
+   @Test
+   public void testMBean() throws Exception {
+      System.out.println("AnchorMetricsTest : testMBean");
+      ObjectName name = AnchorMetrics.registerMBean();
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      assertTrue("Registered", server.isRegistered(name));
+      assertEquals("Enabled", Boolean.TRUE, server.getAttribute(name, "Enabled"));
+
+      Rectangle root = new Rectangle(0, 0, 10, 10);
+      Rectangle rec = new Rectangle(0, 0, 10, 10);
+      NodeAnchor anchor = new NodeAnchor(rec);
+      anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+      anchor.anchor(root, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+      AnchorLayoutScheduler.getInstance().flush();
+      AnchorMetrics.getInstance().reset();
+      root.setY(5);
+      assertEquals("Y writes", 1L, server.getAttribute(name, "YWrites"));
+      assertEquals("Propagations", 1L, server.getAttribute(name, "Propagations"));
+
+      server.invoke(name, "reset", null, null);
+      assertEquals("Y writes after reset", 0L, server.getAttribute(name, "YWrites"));
+      AnchorMetrics.unregisterMBean();
+      assertFalse("Unregistered", server.isRegistered(name));
+   }
+}
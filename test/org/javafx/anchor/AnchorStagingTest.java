@@ -0,0 +1,285 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorStaging class.
+ *
+ * @since 0.2
+ */
+public class AnchorStagingTest {
+   private static final double DELTA = 0.2d;
+
+   public AnchorStagingTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorStaging.drain();
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   /**
+    * Test that the anchors staged by several threads are installed when the scheduler is flushed.
+    */
+   @Test
+   public void testStageFromThreads() throws Exception {
+      System.out.println("AnchorStagingTest : testStageFromThreads");
+      final int threads = 4;
+      final int panelSize = 50;
+      final Rectangle root = new Rectangle(0, 0, 100, 20);
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      List<Future<Rectangle[]>> panels = new ArrayList<>();
+      final List<CompletableFuture<AnchorBinding>> bindings = new ArrayList<>();
+      try {
+         for (int t = 0; t < threads; t++) {
+            panels.add(executor.submit(new Callable<Rectangle[]>() {
+               @Override
+               public Rectangle[] call() {
+                  // each thread builds a chain of Rectangles below the root
+                  Rectangle[] panel = new Rectangle[panelSize];
+                  Rectangle previous = root;
+                  for (int i = 0; i < panelSize; i++) {
+                     panel[i] = new Rectangle(0, 0, 10, 10);
+                     NodeAnchor anchor = new NodeAnchor(panel[i]);
+                     CompletableFuture<AnchorBinding> binding = anchor.batch()
+                        .top(previous, AnchorPosition.BOTTOM).left(previous, AnchorPosition.LEFT).commit();
+                     synchronized (bindings) {
+                        bindings.add(binding);
+                     }
+                     previous = panel[i];
+                  }
+                  return panel;
+               }
+            }));
+         }
+         List<Rectangle[]> results = new ArrayList<>();
+         for (Future<Rectangle[]> panel : panels) {
+            results.add(panel.get());
+         }
+         assertTrue("Pending", AnchorStaging.isPending());
+         assertEquals("Not installed", 0, results.get(0)[panelSize - 1].getY(), DELTA);
+         for (CompletableFuture<AnchorBinding> binding : bindings) {
+            assertFalse("Future done before the drain", binding.isDone());
+         }
+
+         AnchorLayoutScheduler.getInstance().flush();
+         assertFalse("Pending", AnchorStaging.isPending());
+         for (CompletableFuture<AnchorBinding> binding : bindings) {
+            assertTrue("Future done", binding.isDone());
+            assertEquals("Constraints", 2, binding.get().getConstraintCount());
+         }
+         for (Rectangle[] panel : results) {
+            assertEquals("Last Y", 10 + panelSize * 10, panel[panelSize - 1].getY(), DELTA);
+         }
+
+         root.setY(100);
+         for (Rectangle[] panel : results) {
+            assertEquals("Last Y after move", 110 + panelSize * 10, panel[panelSize - 1].getY(), DELTA);
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Test that the batches are installed in the order of their commit, and that a batch which would create a cycle
+    * completes its future exceptionally without preventing the other batches from being installed.
+    */
+   @Test
+   public void testOrderAndCycle() throws Exception {
+      System.out.println("AnchorStagingTest : testOrderAndCycle");
+      Rectangle rec1 = new Rectangle(0, 0, 10, 10);
+      Rectangle rec2 = new Rectangle(0, 0, 10, 10);
+      Rectangle rec3 = new Rectangle(0, 0, 10, 10);
+      CompletableFuture<AnchorBinding> first = new NodeAnchor(rec2).batch()
+         .left(rec1, AnchorPosition.RIGHT).commit();
+      CompletableFuture<AnchorBinding> cycle = new NodeAnchor(rec1).batch()
+         .left(rec2, AnchorPosition.RIGHT).commit();
+      CompletableFuture<AnchorBinding> last = new NodeAnchor(rec3).batch()
+         .left(rec2, AnchorPosition.RIGHT).commit();
+      assertEquals("Drained", 3, AnchorStaging.drain());
+      assertEquals("Drained again", 0, AnchorStaging.drain());
+
+      assertNotNull("First binding", first.get());
+      assertTrue("Cycle", cycle.isCompletedExceptionally());
+      try {
+         cycle.get();
+         fail("The cycle should have been rejected");
+      } catch (ExecutionException e) {
+         assertTrue("Cause", e.getCause() instanceof IllegalArgumentException);
+      }
+      assertNotNull("Last binding", last.get());
+      assertEquals("Rec3 X", 20, rec3.getX(), DELTA);
+   }
+
+   /**
+    * Test that the continuations of the futures see the geometry of the resolved anchors.
+    */
+   @Test
+   public void testFutureAfterResolution() throws Exception {
+      System.out.println("AnchorStagingTest : testFutureAfterResolution");
+      Rectangle rec1 = new Rectangle(0, 0, 100, 10);
+      final Rectangle rec2 = new Rectangle(0, 0, 10, 10);
+      final double[] seen = new double[] { -1 };
+      new NodeAnchor(rec2).batch().left(rec1, AnchorPosition.RIGHT).commit().thenAccept(new Consumer<AnchorBinding>() {
+         @Override
+         public void accept(AnchorBinding binding) {
+            seen[0] = rec2.getX();
+         }
+      });
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("X seen by the continuation", 100, seen[0], DELTA);
+
+      final Rectangle rec3 = new Rectangle(0, 0, 10, 10);
+      new NodeAnchor(rec3).batch().left(rec2, AnchorPosition.RIGHT).commit().thenAccept(new Consumer<AnchorBinding>() {
+         @Override
+         public void accept(AnchorBinding binding) {
+            seen[0] = rec3.getX();
+         }
+      });
+      AnchorStaging.drain();
+      assertEquals("X seen by the continuation", 110, seen[0], DELTA);
+   }
+
+   /**
+    * Test that installing a staged batch on a tick does not resolve the throttled anchors before their interval.
+    */
+   @Test
+   public void testTickKeepsThrottle() {
+      System.out.println("AnchorStagingTest : testTickKeepsThrottle");
+      AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle throttled = new Rectangle(0, 0, 50, 50);
+      NodeAnchor throttledAnchor = new NodeAnchor(throttled);
+      throttledAnchor.setPropagationPolicy(PropagationPolicy.THROTTLED);
+      throttledAnchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      scheduler.flush();
+      assertEquals("Throttled X", 100, throttled.getX(), DELTA);
+
+      // this tick may resolve the throttled anchor, depending on the ticks of the previous tests, but the next one
+      // is always before the end of the throttle interval
+      long time = Long.MIN_VALUE / 2;
+      rec1.setX(5);
+      scheduler.tick(time);
+      double x = throttled.getX();
+      rec1.setX(6);
+      Rectangle staged = new Rectangle(0, 0, 10, 10);
+      new NodeAnchor(staged).batch().left(rec1, AnchorPosition.LEFT).commit();
+      scheduler.tick(time + 1);
+      assertFalse("Pending", AnchorStaging.isPending());
+      assertEquals("Staged X", 6, staged.getX(), DELTA);
+      assertEquals("Throttled X", x, throttled.getX(), DELTA);
+      scheduler.flush();
+      assertEquals("Throttled X", 106, throttled.getX(), DELTA);
+   }
+
+   /**
+    * Test that staging a batch while the scheduler is automatic fails without the JavaFX toolkit, and that the failed
+    * batch does not stay in the queue.
+    */
+   @Test
+   public void testStageWithoutToolkit() {
+      System.out.println("AnchorStagingTest : testStageWithoutToolkit");
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 10, 10);
+      AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+      scheduler.setAutomatic(true);
+      try {
+         new NodeAnchor(rec2).batch().left(rec1, AnchorPosition.RIGHT).commit();
+         fail("The batch should have been rejected");
+      } catch (IllegalStateException e) {
+      } finally {
+         scheduler.setAutomatic(false);
+      }
+      assertFalse("Pending", AnchorStaging.isPending());
+
+      new NodeAnchor(rec2).batch().left(rec1, AnchorPosition.RIGHT).commit();
+      assertTrue("Pending", AnchorStaging.isPending());
+      scheduler.flush();
+      assertFalse("Pending", AnchorStaging.isPending());
+      assertEquals("Relative Rectangle position", 100, rec2.getX(), DELTA);
+   }
+
+   /**
+    * Test that a staged batch can not be applied again.
+    */
+   @Test
+   public void testCommitTwice() {
+      System.out.println("AnchorStagingTest : testCommitTwice");
+      Rectangle rec1 = new Rectangle();
+      Rectangle rec2 = new Rectangle();
+      AnchorSpec spec = new NodeAnchor(rec2).batch().fill(rec1);
+      spec.commit();
+      try {
+         spec.apply();
+         fail("The batch should have been rejected");
+      } catch (IllegalStateException e) {
+      }
+      try {
+         spec.commit();
+         fail("The batch should have been rejected");
+      } catch (IllegalStateException e) {
+      }
+   }
+}
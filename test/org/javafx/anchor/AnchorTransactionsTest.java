@@ -0,0 +1,201 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorTransactions class.
+ *
+ * @since 0.2
+ */
+public class AnchorTransactionsTest {
+   private static final double DELTA = 0.2d;
+
+   public AnchorTransactionsTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   private static int[] countChanges(Rectangle rec) {
+      final int[] changes = new int[1];
+      rec.xProperty().addListener(new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            changes[0]++;
+         }
+      });
+      return changes;
+   }
+
+   private static void move(final Rectangle rec, final int count) {
+      AnchorTransactions.run(new Runnable() {
+         @Override
+         public void run() {
+            for (int i = 1; i <= count; i++) {
+               rec.setX(i);
+            }
+         }
+      });
+   }
+
+   /**
+    * Test of a transaction with the {@link PropagationPolicy#IMMEDIATE} policy. The listeners of these anchors can
+    * write intermediate values for each change, so the number of writes is compared with the same changes without
+    * a transaction.
+    */
+   @Test
+   public void testImmediate() {
+      System.out.println("AnchorTransactionsTest : testImmediate");
+      Rectangle[] chain = createImmediateChain();
+      int[] changes = countChanges(chain[2]);
+      move(chain[0], 10);
+      assertFalse("Suspended", AnchorTransactions.isSuspended());
+      assertEquals("X", 110, chain[1].getX(), DELTA);
+      assertEquals("X", 160, chain[2].getX(), DELTA);
+
+      Rectangle[] reference = createImmediateChain();
+      int[] referenceChanges = countChanges(reference[2]);
+      for (int i = 1; i <= 10; i++) {
+         reference[0].setX(i);
+      }
+      assertEquals("X", 160, reference[2].getX(), DELTA);
+      assertTrue("Changes", changes[0] * 10 <= referenceChanges[0]);
+   }
+
+   private static Rectangle[] createImmediateChain() {
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 50, 50);
+      Rectangle rec3 = new Rectangle(0, 0, 50, 50);
+      new NodeAnchor(rec2).anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      new NodeAnchor(rec3).anchor(rec2, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      rec1.setX(1);
+      rec1.setX(0);
+      assertEquals("X", 150, rec3.getX(), DELTA);
+      return new Rectangle[] { rec1, rec2, rec3 };
+   }
+
+   /**
+    * Test of a transaction with the {@link PropagationPolicy#ORDERED} policy.
+    */
+   @Test
+   public void testOrdered() {
+      System.out.println("AnchorTransactionsTest : testOrdered");
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 50, 50);
+      Rectangle rec3 = new Rectangle(0, 0, 50, 50);
+      NodeAnchor anchor2 = new NodeAnchor(rec2);
+      anchor2.setPropagationPolicy(PropagationPolicy.ORDERED);
+      anchor2.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      NodeAnchor anchor3 = new NodeAnchor(rec3);
+      anchor3.setPropagationPolicy(PropagationPolicy.ORDERED);
+      anchor3.anchor(rec2, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      assertEquals("X", 150, rec3.getX(), DELTA);
+      int[] changes = countChanges(rec3);
+
+      AnchorTransactions.suspend();
+      try {
+         rec1.setX(5);
+         assertEquals("X", 100, rec2.getX(), DELTA);
+         move(rec1, 10);
+         // the inner transaction does not resolve the anchors
+         assertEquals("X", 100, rec2.getX(), DELTA);
+         assertTrue("Pending anchors", AnchorLayoutScheduler.getInstance().isPending());
+      } finally {
+         AnchorTransactions.resume();
+      }
+      assertEquals("X", 110, rec2.getX(), DELTA);
+      assertEquals("X", 160, rec3.getX(), DELTA);
+      assertEquals("Changes", 1, changes[0]);
+   }
+
+   /**
+    * Test that the transaction ends if the action throws an exception.
+    */
+   @Test
+   public void testException() {
+      System.out.println("AnchorTransactionsTest : testException");
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      final Rectangle rec2 = new Rectangle(0, 0, 50, 50);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      anchor.anchor(rec1, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      AnchorLayoutScheduler.getInstance().flush();
+      try {
+         AnchorTransactions.run(new Runnable() {
+            @Override
+            public void run() {
+               rec2.setWidth(20);
+               throw new IllegalStateException();
+            }
+         });
+         fail("The exception should be thrown");
+      } catch (IllegalStateException e) {
+         assertFalse("Suspended", AnchorTransactions.isSuspended());
+      }
+      assertEquals("X", 80, rec2.getX(), DELTA);
+   }
+
+   /**
+    * Test that ending a transaction which was not started is rejected.
+    */
+   @Test(expected = IllegalStateException.class)
+   public void testResumeWithoutSuspend() {
+      System.out.println("AnchorTransactionsTest : testResumeWithoutSuspend");
+      AnchorTransactions.resume();
+   }
+}
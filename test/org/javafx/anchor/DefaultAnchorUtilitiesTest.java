@@ -0,0 +1,269 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.beans.binding.DoubleExpression;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Arc;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the DefaultAnchorUtilities class.
+ *
+ * @since 0.2
+ */
+public class DefaultAnchorUtilitiesTest {
+   private static final double DELTA = 0.01d;
+
+   public DefaultAnchorUtilitiesTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   /**
+    * Test that the derived expressions of a Circle are created only once.
+    */
+   @Test
+   public void testCircleExpressions() {
+      System.out.println("DefaultAnchorUtilitiesTest : testCircleExpressions");
+      AnchorUtilities utils = new DefaultAnchorUtilities();
+      Circle circle = new Circle(100, 50, 20);
+      DoubleExpression x = utils.getXProperty(circle);
+      assertSame("X expression", x, utils.getXProperty(circle));
+      assertSame("Y expression", utils.getYProperty(circle), utils.getYProperty(circle));
+      assertSame("Width expression", utils.getWidthProperty(circle), utils.getWidthProperty(circle));
+      assertSame("Height expression", utils.getWidthProperty(circle), utils.getHeightProperty(circle));
+      // the expressions are shared between the AnchorUtilities
+      assertSame("X expression", x, new DefaultAnchorUtilities().getXProperty(circle));
+
+      assertEquals("X value", 80, x.get(), DELTA);
+      circle.setRadius(30);
+      assertEquals("X value", 70, x.get(), DELTA);
+      assertEquals("Width value", 60, utils.getWidthProperty(circle).get(), DELTA);
+   }
+
+   /**
+    * Test that the derived expressions of an Ellipse and an Arc are created only once.
+    */
+   @Test
+   public void testEllipseAndArcExpressions() {
+      System.out.println("DefaultAnchorUtilitiesTest : testEllipseAndArcExpressions");
+      AnchorUtilities utils = new DefaultAnchorUtilities();
+      Ellipse ellipse = new Ellipse(100, 50, 20, 10);
+      assertSame("X expression", utils.getXProperty(ellipse), utils.getXProperty(ellipse));
+      assertSame("Height expression", utils.getHeightProperty(ellipse), utils.getHeightProperty(ellipse));
+      assertNotSame("Width and height expressions", utils.getWidthProperty(ellipse), utils.getHeightProperty(ellipse));
+      assertEquals("Y value", 40, utils.getYProperty(ellipse).get(), DELTA);
+
+      Arc arc = new Arc(100, 50, 20, 10, 0, 90);
+      assertSame("Width expression", utils.getWidthProperty(arc), utils.getWidthProperty(arc));
+      assertEquals("Height value", 20, utils.getHeightProperty(arc).get(), DELTA);
+   }
+
+   /**
+    * Test of the Line adapter.
+    */
+   @Test
+   public void testLine() {
+      System.out.println("DefaultAnchorUtilitiesTest : testLine");
+      AnchorUtilities utils = new DefaultAnchorUtilities();
+      Line line = new Line(100, 50, 20, 80);
+      assertEquals("X value", 20, utils.getX(line), DELTA);
+      assertEquals("Width value", 80, utils.getWidth(line), DELTA);
+      utils.setX(line, 30);
+      assertEquals("Start X", 110, line.getStartX(), DELTA);
+      assertEquals("End X", 30, line.getEndX(), DELTA);
+      utils.setHeight(line, 60);
+      assertEquals("End Y", 110, line.getEndY(), DELTA);
+      assertEquals("Y expression", 50, utils.getYProperty(line).get(), DELTA);
+      assertEquals("Height expression", 60, utils.getHeightProperty(line).get(), DELTA);
+   }
+
+   /**
+    * Test of the Polygon adapter.
+    */
+   @Test
+   public void testPolygon() {
+      System.out.println("DefaultAnchorUtilitiesTest : testPolygon");
+      AnchorUtilities utils = new DefaultAnchorUtilities();
+      Polygon polygon = new Polygon(10, 10, 50, 10, 30, 40);
+      assertEquals("X value", 10, utils.getX(polygon), DELTA);
+      assertEquals("Width value", 40, utils.getWidth(polygon), DELTA);
+      utils.setX(polygon, 100);
+      assertEquals("X value", 100, utils.getX(polygon), DELTA);
+      assertEquals("X expression", 100, utils.getXProperty(polygon).get(), DELTA);
+      utils.setWidth(polygon, 80);
+      assertEquals("Width value", 80, utils.getWidth(polygon), DELTA);
+      assertEquals("Width expression", 80, utils.getWidthProperty(polygon).get(), DELTA);
+      assertEquals("X value", 100, utils.getX(polygon), DELTA);
+   }
+
+   /**
+    * Test of the Canvas adapter.
+    */
+   @Test
+   public void testCanvas() {
+      System.out.println("DefaultAnchorUtilitiesTest : testCanvas");
+      Rectangle rec = new Rectangle(200, 100, 100, 100);
+      Canvas canvas = new Canvas(50, 50);
+      NodeAnchor anchor = new NodeAnchor(canvas);
+      anchor.anchor(rec, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+      rec.setY(120);
+      rec.setWidth(90);
+      assertEquals("Canvas position", 220, canvas.getLayoutY(), DELTA);
+      assertEquals("Canvas size", 90, canvas.getWidth(), DELTA);
+   }
+
+   /**
+    * Test of the registration of a new adapter, which must also be used for the sub-classes.
+    */
+   @Test
+   public void testRegister() {
+      System.out.println("DefaultAnchorUtilitiesTest : testRegister");
+      GeometryAdapters adapters = new GeometryAdapters();
+      final DoubleExpression width = new SimpleDoubleProperty(42);
+      adapters.register(Rectangle.class, new DefaultGeometryAdapters.RectangleAdapter() {
+         @Override
+         public double getWidth(Rectangle rec) {
+            return 42;
+         }
+
+         @Override
+         public DoubleExpression getWidthProperty(Rectangle rec) {
+            return width;
+         }
+      });
+      AnchorUtilities utils = new DefaultAnchorUtilities(adapters);
+      Rectangle rec = new Rectangle(10, 10);
+      Node subRec = new Rectangle(10, 10) {
+      };
+      assertEquals("Registered adapter", 42, utils.getWidth(rec), DELTA);
+      assertEquals("Registered adapter", 42, utils.getWidth(subRec), DELTA);
+      assertSame("Registered adapter", width, utils.getWidthProperty(subRec));
+      // the default registry is not changed
+      assertEquals("Default adapter", 10, new DefaultAnchorUtilities().getWidth(rec), DELTA);
+   }
+
+   /**
+    * Test of the strategies used to set the size of a Region.
+    */
+   @Test
+   public void testRegionResizeStrategies() {
+      System.out.println("DefaultAnchorUtilitiesTest : testRegionResizeStrategies");
+      Region region = new Region();
+      AnchorUtilities utils = new DefaultAnchorUtilities(RegionResizeStrategy.PINNED_BOUNDS);
+      utils.setWidth(region, 50);
+      utils.setHeight(region, 20);
+      assertEquals("Min width", 50, region.getMinWidth(), DELTA);
+      assertEquals("Max width", 50, region.getMaxWidth(), DELTA);
+      assertEquals("Width", 50, utils.getWidth(region), DELTA);
+      assertEquals("Height", 20, utils.getHeight(region), DELTA);
+
+      region = new Region();
+      utils = new DefaultAnchorUtilities(RegionResizeStrategy.PREF_SIZE);
+      utils.setWidth(region, 50);
+      utils.setHeight(region, 20);
+      assertEquals("Min width", Region.USE_PREF_SIZE, region.getMinWidth(), DELTA);
+      assertEquals("Max height", Region.USE_PREF_SIZE, region.getMaxHeight(), DELTA);
+      assertEquals("Width", 50, utils.getWidth(region), DELTA);
+      assertEquals("Height", 20, utils.getHeight(region), DELTA);
+      Pane pane = new Pane(region);
+      pane.layout();
+      assertEquals("Region width", 50, region.getWidth(), DELTA);
+      assertEquals("Region height", 20, region.getHeight(), DELTA);
+
+      region = new Region();
+      utils = new DefaultAnchorUtilities(RegionResizeStrategy.RESIZE);
+      utils.setWidth(region, 50);
+      utils.setHeight(region, 20);
+      assertEquals("Pref width", Region.USE_COMPUTED_SIZE, region.getPrefWidth(), DELTA);
+      assertEquals("Width", 50, region.getWidth(), DELTA);
+      assertEquals("Height", 20, region.getHeight(), DELTA);
+      assertEquals("Width", 50, utils.getWidth(region), DELTA);
+   }
+
+   /**
+    * Test that the default utilities keep the minimum width set by the application on a Region which is anchored on
+    * its left edge, and pin its height rather than replacing its minimum height with USE_PREF_SIZE.
+    */
+   @Test
+   public void testDefaultKeepsMinWidth() {
+      System.out.println("DefaultAnchorUtilitiesTest : testDefaultKeepsMinWidth");
+      Rectangle ref = new Rectangle();
+      Region region = new Region();
+      region.setMinWidth(30);
+      region.setPrefWidth(60);
+      NodeAnchor anchor = new NodeAnchor(region, new DefaultAnchorUtilities());
+      anchor.anchor(ref, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      ref.setX(200);
+      ref.setY(100);
+      ref.setWidth(100);
+      ref.setHeight(80);
+
+      assertEquals("Region X", 300, region.getLayoutX(), DELTA);
+      assertEquals("Min width", 30, region.getMinWidth(), DELTA);
+      assertEquals("Pref width", 60, region.getPrefWidth(), DELTA);
+      assertEquals("Min height", 80, region.getMinHeight(), DELTA);
+      assertEquals("Max height", 80, region.getMaxHeight(), DELTA);
+      ref.setHeight(90);
+      assertEquals("Min width", 30, region.getMinWidth(), DELTA);
+      assertEquals("Min height", 90, region.getMinHeight(), DELTA);
+   }
+}
@@ -0,0 +1,141 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the propagation of the resolved constraints does not allocate memory once the anchors are installed.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorAllocationTest {
+   private static final int WARMUP = 20000;
+   private static final int ITERATIONS = 10000;
+   private static final int DEPTH = 10;
+
+   public NodeAnchorAllocationTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   private static com.sun.management.ThreadMXBean getThreadMXBean() {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+      com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+      Assume.assumeTrue(sunBean.isThreadAllocatedMemorySupported());
+      sunBean.setThreadAllocatedMemoryEnabled(true);
+      return sunBean;
+   }
+
+   private static Rectangle[] createChain(PropagationPolicy policy) {
+      Rectangle[] nodes = new Rectangle[DEPTH + 1];
+      nodes[0] = new Rectangle(0, 0, 10, 10);
+      for (int i = 1; i <= DEPTH; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(policy);
+         anchor.anchor(nodes[i - 1], AnchorPosition.LEFT, AnchorPosition.RIGHT);
+         anchor.anchor(nodes[i - 1], AnchorPosition.TOP, AnchorPosition.TOP);
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+      return nodes;
+   }
+
+   private static void propagate(Rectangle[] nodes, int count) {
+      AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+      for (int i = 0; i < count; i++) {
+         nodes[0].setX(i & 1);
+         nodes[0].setY(i & 1);
+         scheduler.flush();
+      }
+   }
+
+   private void checkAllocation(PropagationPolicy policy) {
+      com.sun.management.ThreadMXBean bean = getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+      Rectangle[] nodes = createChain(policy);
+      propagate(nodes, WARMUP);
+      assertEquals("Last Rectangle position", 1 + DEPTH * 10, nodes[DEPTH].getX(), 0.2d);
+
+      long before = bean.getThreadAllocatedBytes(threadId);
+      propagate(nodes, ITERATIONS);
+      long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+      assertEquals("Last Rectangle position", 1, nodes[DEPTH].getY(), 0.2d);
+      // allow a few bytes for the measurement itself
+      assertTrue("Bytes allocated for " + ITERATIONS + " propagations: " + allocated, allocated < ITERATIONS);
+   }
+
+   /**
+    * Test that the propagation through ordered anchors does not allocate memory.
+    */
+   @Test
+   public void testOrderedAllocation() {
+      System.out.println("NodeAnchorAllocationTest : testOrderedAllocation");
+      checkAllocation(PropagationPolicy.ORDERED);
+   }
+
+   /**
+    * Test that the propagation through deferred anchors does not allocate memory.
+    */
+   @Test
+   public void testDeferredAllocation() {
+      System.out.println("NodeAnchorAllocationTest : testDeferredAllocation");
+      checkAllocation(PropagationPolicy.DEFERRED);
+   }
+}
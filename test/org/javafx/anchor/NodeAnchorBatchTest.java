@@ -0,0 +1,247 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorSpec class.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorBatchTest {
+   private static final double DELTA = 0.2d;
+
+   public NodeAnchorBatchTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   /**
+    * Test of a batch with a left anchor, a top anchor and a fill height anchor.
+    */
+   @Test
+   public void testBatch() {
+      System.out.println("NodeAnchorBatchTest : testBatch");
+      Rectangle label = new Rectangle(10, 20, 100, 30);
+      Rectangle panel = new Rectangle(0, 0, 400, 300);
+      Rectangle field = new Rectangle(0, 0, 50, 10);
+      NodeAnchor anchor = new NodeAnchor(field);
+      AnchorBinding binding = anchor.batch().left(label, AnchorPosition.RIGHT).right(panel, AnchorPosition.RIGHT)
+         .fillHeight(label).apply();
+      assertEquals("Constraints", 4, binding.getConstraintCount());
+      assertEquals("Field position", 110, field.getX(), DELTA);
+      assertEquals("Field position", 20, field.getY(), DELTA);
+      assertEquals("Field width", 290, field.getWidth(), DELTA);
+      assertEquals("Field height", 30, field.getHeight(), DELTA);
+
+      // the anchors are propagated immediately
+      label.setY(40);
+      panel.setWidth(500);
+      assertEquals("Field position", 40, field.getY(), DELTA);
+      assertEquals("Field width", 390, field.getWidth(), DELTA);
+   }
+
+   /**
+    * Install anchors on a Rectangle, either in a batch or one by one, then move and resize the reference Rectangle,
+    * and return the geometry of the anchored Rectangle.
+    */
+   private static double[] anchor(boolean batch, PropagationPolicy policy, AnchorPosition[][] positions) {
+      Rectangle reference = new Rectangle(5, 5, 10, 10);
+      Rectangle rec = new Rectangle(5, 5, 10, 10);
+      NodeAnchor anchor = new NodeAnchor(rec);
+      anchor.setPropagationPolicy(policy);
+      if (batch) {
+         AnchorSpec spec = anchor.batch();
+         for (AnchorPosition[] position : positions) {
+            spec.anchor(reference, position[0], position[1]);
+         }
+         spec.apply();
+      } else {
+         for (AnchorPosition[] position : positions) {
+            anchor.anchor(reference, position[0], position[1]);
+         }
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+      reference.setX(40);
+      reference.setY(30);
+      reference.setWidth(100);
+      reference.setHeight(60);
+      AnchorLayoutScheduler.getInstance().flush();
+      return new double[] { rec.getX(), rec.getY(), rec.getWidth(), rec.getHeight() };
+   }
+
+   private static void assertSameGeometry(String message, double[] expected, double[] actual) {
+      assertEquals(message + " x", expected[0], actual[0], DELTA);
+      assertEquals(message + " y", expected[1], actual[1], DELTA);
+      assertEquals(message + " width", expected[2], actual[2], DELTA);
+      assertEquals(message + " height", expected[3], actual[3], DELTA);
+   }
+
+   /**
+    * Test that a batch gives the same geometry as the same anchors installed one by one with the ORDERED policy.
+    */
+   @Test
+   public void testBatchMatchesOrdered() {
+      System.out.println("NodeAnchorBatchTest : testBatchMatchesOrdered");
+      AnchorPosition[] values = AnchorPosition.values();
+      for (AnchorPosition nodeAnchor : values) {
+         for (AnchorPosition refAnchor : values) {
+            AnchorPosition[][] positions = { { nodeAnchor, refAnchor } };
+            assertSameGeometry(nodeAnchor + " to " + refAnchor, anchor(false, PropagationPolicy.ORDERED, positions),
+               anchor(true, PropagationPolicy.ORDERED, positions));
+         }
+      }
+      AnchorPosition[][] fillWidth = { { AnchorPosition.LEFT, AnchorPosition.LEFT },
+         { AnchorPosition.RIGHT, AnchorPosition.RIGHT } };
+      assertSameGeometry("Fill width", anchor(false, PropagationPolicy.ORDERED, fillWidth),
+         anchor(true, PropagationPolicy.ORDERED, fillWidth));
+      AnchorPosition[][] corner = { { AnchorPosition.LEFT, AnchorPosition.RIGHT },
+         { AnchorPosition.TOP, AnchorPosition.BOTTOM } };
+      assertSameGeometry("Corner", anchor(false, PropagationPolicy.ORDERED, corner),
+         anchor(true, PropagationPolicy.ORDERED, corner));
+   }
+
+   /**
+    * Test that a batch of a NodeAnchor which uses the IMMEDIATE policy gives the same geometry as the same anchors
+    * installed one by one, when each axis has only one anchor or is filled.
+    */
+   @Test
+   public void testBatchMatchesImmediate() {
+      System.out.println("NodeAnchorBatchTest : testBatchMatchesImmediate");
+      AnchorPosition[][] fill = { { AnchorPosition.LEFT, AnchorPosition.LEFT },
+         { AnchorPosition.RIGHT, AnchorPosition.RIGHT }, { AnchorPosition.TOP, AnchorPosition.TOP },
+         { AnchorPosition.BOTTOM, AnchorPosition.BOTTOM } };
+      double[] geometry = anchor(true, PropagationPolicy.IMMEDIATE, fill);
+      assertSameGeometry("Fill", anchor(false, PropagationPolicy.IMMEDIATE, fill), geometry);
+      assertSameGeometry("Fill", new double[] { 40, 30, 100, 60 }, geometry);
+      AnchorPosition[][] next = { { AnchorPosition.LEFT, AnchorPosition.RIGHT } };
+      assertSameGeometry("Next", anchor(false, PropagationPolicy.IMMEDIATE, next),
+         anchor(true, PropagationPolicy.IMMEDIATE, next));
+      AnchorPosition[][] below = { { AnchorPosition.TOP, AnchorPosition.BOTTOM } };
+      assertSameGeometry("Below", anchor(false, PropagationPolicy.IMMEDIATE, below),
+         anchor(true, PropagationPolicy.IMMEDIATE, below));
+   }
+
+   /**
+    * Test that the position of the anchored Node is written only once when the batch is applied.
+    */
+   @Test
+   public void testSingleWrite() {
+      System.out.println("NodeAnchorBatchTest : testSingleWrite");
+      Rectangle rec1 = new Rectangle(20, 10, 300, 200);
+      Rectangle rec2 = new Rectangle();
+      final int[] count = new int[1];
+      rec2.xProperty().addListener(new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            count[0]++;
+         }
+      });
+      new NodeAnchor(rec2).batch().fill(rec1).apply();
+      assertEquals("Writes", 1, count[0]);
+      assertEquals("Relative Rectangle position", 20, rec2.getX(), DELTA);
+      assertEquals("Relative Rectangle size", 300, rec2.getWidth(), DELTA);
+   }
+
+   /**
+    * Test of a deferred batch relative to the parent.
+    */
+   @Test
+   public void testFillInParentDeferred() {
+      System.out.println("NodeAnchorBatchTest : testFillInParentDeferred");
+      Pane root = new Pane();
+      root.setPrefSize(400, 300);
+      Rectangle rec = new Rectangle();
+      root.getChildren().add(rec);
+      NodeAnchor anchor = new NodeAnchor(rec);
+      anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      AnchorBinding binding = anchor.batch().fillInParent().apply();
+      assertEquals("Relative Rectangle size", 0, rec.getWidth(), DELTA);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Relative Rectangle position", 0, rec.getX(), DELTA);
+      assertEquals("Relative Rectangle size", 400, rec.getWidth(), DELTA);
+      assertEquals("Relative Rectangle size", 300, rec.getHeight(), DELTA);
+
+      binding.dispose();
+      root.setPrefSize(500, 300);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Relative Rectangle size", 400, rec.getWidth(), DELTA);
+   }
+
+   /**
+    * Test that no anchor of a batch is installed if one of them would create a cycle.
+    */
+   @Test
+   public void testCycle() {
+      System.out.println("NodeAnchorBatchTest : testCycle");
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec3 = new Rectangle(0, 0, 100, 100);
+      new NodeAnchor(rec2).anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      NodeAnchor anchor = new NodeAnchor(rec1);
+      AnchorSpec spec = anchor.batch().top(rec3, AnchorPosition.BOTTOM).left(rec2, AnchorPosition.RIGHT);
+      try {
+         spec.apply();
+         fail("The cycle should have been rejected");
+      } catch (IllegalArgumentException e) {
+      }
+      rec3.setY(50);
+      assertEquals("Rectangle position", 0, rec1.getY(), DELTA);
+   }
+}
@@ -0,0 +1,217 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the NodeAnchor class, when using the {@link PropagationPolicy#DEFERRED} policy.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorDeferredTest {
+   private static final double DELTA = 0.2d;
+
+   public NodeAnchorDeferredTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   /**
+    * Test of anchor method with RIGHT / RIGHT parameters.
+    */
+   @Test
+   public void testAnchorRightRight() {
+      System.out.println("NodeAnchorDeferredTest : testAnchorRightRight");
+      Rectangle rec1 = new Rectangle();
+      rec1.setFill(Color.YELLOW);
+
+      Rectangle rec2 = new Rectangle();
+      rec2.setFill(Color.RED);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      anchor.anchor(rec1, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+
+      Pane root = new Pane();
+      rec1.setX(200);
+      rec1.setY(100);
+      rec1.setWidth(100);
+      rec1.setHeight(100);
+      rec2.setWidth(70);
+      rec2.setHeight(70);
+      root.getChildren().add(rec1);
+      root.getChildren().add(rec2);
+
+      // nothing is propagated before the flush
+      assertTrue("Pending anchors", AnchorLayoutScheduler.getInstance().isPending());
+      assertEquals("Relative Rectangle position", 0, rec2.getX(), DELTA);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertFalse("Pending anchors", AnchorLayoutScheduler.getInstance().isPending());
+
+      assertEquals("Relative Rectangle position", 230, rec2.getX(), DELTA);
+      assertEquals("Relative Rectangle position", 100, rec2.getY(), DELTA);
+      assertEquals("Relative Rectangle size", 70, rec2.getWidth(), DELTA);
+      assertEquals("Relative Rectangle size", 100, rec2.getHeight(), DELTA);
+   }
+
+   /**
+    * Test of anchor method with BOTTOM / TOP parameters, with a Circle as the anchored Node.
+    */
+   @Test
+   public void testAnchorCircleBottomTop() {
+      System.out.println("NodeAnchorDeferredTest : testAnchorCircleBottomTop");
+      Rectangle rec1 = new Rectangle();
+      rec1.setFill(Color.YELLOW);
+
+      Circle rec2 = new Circle();
+      rec2.setFill(Color.RED);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      anchor.anchor(rec1, AnchorPosition.BOTTOM, AnchorPosition.TOP);
+
+      rec1.setX(200);
+      rec1.setY(100);
+      rec1.setWidth(100);
+      rec1.setHeight(100);
+      rec2.setRadius(70);
+      AnchorLayoutScheduler.getInstance().flush();
+
+      assertEquals("Relative Circle position", 250, rec2.getCenterX(), DELTA);
+      assertEquals("Relative Circle position", 50, rec2.getCenterY(), DELTA);
+      assertEquals("Relative Circle size", 50, rec2.getRadius(), DELTA);
+   }
+
+   /**
+    * Test of the fill method.
+    */
+   @Test
+   public void testFill() {
+      System.out.println("NodeAnchorDeferredTest : testFill");
+      Rectangle rec1 = new Rectangle();
+      Rectangle rec2 = new Rectangle();
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      anchor.fill(rec1);
+
+      rec1.setX(20);
+      rec1.setY(10);
+      rec1.setWidth(300);
+      rec1.setHeight(200);
+      AnchorLayoutScheduler.getInstance().flush();
+
+      assertEquals("Relative Rectangle position", 20, rec2.getX(), DELTA);
+      assertEquals("Relative Rectangle position", 10, rec2.getY(), DELTA);
+      assertEquals("Relative Rectangle size", 300, rec2.getWidth(), DELTA);
+      assertEquals("Relative Rectangle size", 200, rec2.getHeight(), DELTA);
+   }
+
+   /**
+    * Test that several changes of the reference Node result in only one write of the anchored Node.
+    */
+   @Test
+   public void testCoalescing() {
+      System.out.println("NodeAnchorDeferredTest : testCoalescing");
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec2 = new Rectangle();
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      anchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Relative Rectangle position", 100, rec2.getX(), DELTA);
+
+      final int[] count = new int[1];
+      rec2.xProperty().addListener(new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            count[0]++;
+         }
+      });
+      for (int i = 1; i <= 10; i++) {
+         rec1.setX(i * 10);
+         rec1.setWidth(100 + i);
+      }
+      assertEquals("Writes before flush", 0, count[0]);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Writes after flush", 1, count[0]);
+      assertEquals("Relative Rectangle position", 210, rec2.getX(), DELTA);
+   }
+
+   /**
+    * Test that a chain of deferred anchors is resolved in one flush.
+    */
+   @Test
+   public void testChain() {
+      System.out.println("NodeAnchorDeferredTest : testChain");
+      Rectangle rec1 = new Rectangle(0, 0, 100, 50);
+      Rectangle rec2 = new Rectangle(0, 0, 100, 50);
+      Rectangle rec3 = new Rectangle(0, 0, 100, 50);
+      NodeAnchor anchor3 = new NodeAnchor(rec3);
+      anchor3.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      anchor3.anchor(rec2, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+      NodeAnchor anchor2 = new NodeAnchor(rec2);
+      anchor2.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      anchor2.anchor(rec1, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+
+      rec1.setY(20);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Second Rectangle position", 70, rec2.getY(), DELTA);
+      assertEquals("Third Rectangle position", 120, rec3.getY(), DELTA);
+   }
+}
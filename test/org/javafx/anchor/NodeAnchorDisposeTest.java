@@ -0,0 +1,176 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the disposal of the anchors of the NodeAnchor class.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorDisposeTest {
+   private static final double DELTA = 0.2d;
+
+   public NodeAnchorDisposeTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   /**
+    * Test of the dispose method of an AnchorBinding.
+    */
+   @Test
+   public void testDisposeBinding() {
+      System.out.println("NodeAnchorDisposeTest : testDisposeBinding");
+      Rectangle rec1 = new Rectangle(200, 100, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 70, 70);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      AnchorBinding binding = anchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      rec1.setX(210);
+      rec1.setHeight(90);
+      assertEquals("Relative Rectangle position", 310, rec2.getX(), DELTA);
+      assertEquals("Relative Rectangle size", 90, rec2.getHeight(), DELTA);
+
+      binding.dispose();
+      assertTrue("Binding disposed", binding.isDisposed());
+      rec1.setX(400);
+      rec1.setHeight(30);
+      assertEquals("Relative Rectangle position", 310, rec2.getX(), DELTA);
+      assertEquals("Relative Rectangle size", 90, rec2.getHeight(), DELTA);
+   }
+
+   /**
+    * Test of the dispose method of the NodeAnchor, with one binding still active on another NodeAnchor.
+    */
+   @Test
+   public void testDisposeNodeAnchor() {
+      System.out.println("NodeAnchorDisposeTest : testDisposeNodeAnchor");
+      Rectangle rec1 = new Rectangle(200, 100, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 70, 70);
+      Rectangle rec3 = new Rectangle(0, 0, 70, 70);
+      NodeAnchor anchor2 = new NodeAnchor(rec2);
+      anchor2.fill(rec1);
+      anchor2.anchor(rec1, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+      NodeAnchor anchor3 = new NodeAnchor(rec3);
+      anchor3.anchor(rec1, AnchorPosition.TOP, AnchorPosition.TOP);
+
+      anchor2.dispose();
+      rec1.setY(150);
+      assertEquals("Disposed Rectangle position", 0, rec2.getY(), DELTA);
+      assertEquals("Anchored Rectangle position", 150, rec3.getY(), DELTA);
+   }
+
+   /**
+    * Test of the dispose method of an AnchorBinding between two Regions.
+    */
+   @Test
+   public void testDisposeRegion() {
+      System.out.println("NodeAnchorDisposeTest : testDisposeRegion");
+      Pane pane1 = new Pane();
+      Pane pane2 = new Pane();
+      NodeAnchor anchor = new NodeAnchor(pane2);
+      AnchorBinding binding = anchor.anchor(pane1, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      pane1.setLayoutX(50);
+      assertEquals("Relative Region position", 50, pane2.getLayoutX(), DELTA);
+
+      binding.dispose();
+      pane1.setLayoutX(80);
+      assertEquals("Relative Region position", 50, pane2.getLayoutX(), DELTA);
+   }
+
+   /**
+    * Test of the dispose method of a deferred AnchorBinding.
+    */
+   @Test
+   public void testDisposeDeferred() {
+      System.out.println("NodeAnchorDisposeTest : testDisposeDeferred");
+      Rectangle rec1 = new Rectangle(200, 100, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 70, 70);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      AnchorBinding binding = anchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Relative Rectangle position", 300, rec2.getX(), DELTA);
+
+      binding.dispose();
+      rec1.setX(400);
+      assertFalse("Pending anchors", AnchorLayoutScheduler.getInstance().isPending());
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Relative Rectangle position", 300, rec2.getX(), DELTA);
+   }
+
+   /**
+    * Test that disposing the anchors releases the dependents index of the reference Node.
+    */
+   @Test
+   public void testDisposeDependents() {
+      System.out.println("NodeAnchorDisposeTest : testDisposeDependents");
+      Rectangle reference = new Rectangle(0, 0, 100, 100);
+      NodeAnchor[] anchors = new NodeAnchor[10];
+      for (int i = 0; i < anchors.length; i++) {
+         anchors[i] = new NodeAnchor(new Rectangle(0, 0, 10, 10));
+         anchors[i].setPropagationPolicy(PropagationPolicy.ORDERED);
+         anchors[i].fill(reference);
+      }
+      assertEquals("Dependents", 10, AnchorGraph.getDependentCount(reference));
+      for (NodeAnchor anchor : anchors) {
+         anchor.dispose();
+      }
+      assertEquals("Dependents", 0, AnchorGraph.getDependentCount(reference));
+      assertNull("Links", AnchorGraph.getLinks(reference));
+   }
+}
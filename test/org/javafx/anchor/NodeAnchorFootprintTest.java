@@ -0,0 +1,131 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the footprint of the anchors from the number of entries of their constraints tables and of their listeners,
+ * which does not depend on the garbage collector. The actual memory retained by the anchors is measured by the
+ * <code>AnchorFootprintBenchmark</code>.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorFootprintTest {
+   /**
+    * The size of an entry of the constraints table: the reference Node, the constraint code and the binding.
+    */
+   private static final int ENTRY_SIZE = 12;
+   /**
+    * The size of a listener: the GuardedListener, its registration in the binding and its slot in the listeners of
+    * the property.
+    */
+   private static final int LISTENER_SIZE = 48;
+   /**
+    * The maximum retained size of a fill anchor with the ordered policy.
+    */
+   private static final int ORDERED_FILL_SIZE = 4 * ENTRY_SIZE;
+
+   public NodeAnchorFootprintTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   /**
+    * Test the footprint of ordered anchors: each constraint takes one entry of the constraints table of its
+    * NodeAnchor, no listener is installed per anchor, and each NodeAnchor takes one dependent slot on its reference
+    * Node whatever its number of constraints on the Node.
+    */
+   @Test
+   public void testOrderedFootprint() {
+      System.out.println("NodeAnchorFootprintTest : testOrderedFootprint");
+      Rectangle reference = new Rectangle(0, 0, 100, 100);
+      int count = 100;
+      for (int i = 0; i < count; i++) {
+         NodeAnchor anchor = new NodeAnchor(new Rectangle(0, 0, 10, 10));
+         anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         AnchorBinding binding = anchor.fill(reference);
+         assertEquals("Constraints", 4, anchor.getConstraintCount());
+         assertEquals("Table capacity", 4, anchor.getConstraintCapacity());
+         assertEquals("Listeners", 0, binding.getListenerCount());
+         assertTrue("Retained size", getRetainedSize(anchor, binding) <= ORDERED_FILL_SIZE);
+      }
+      assertEquals("Dependents", count, AnchorGraph.getDependentCount(reference));
+   }
+
+   /**
+    * Test that the footprint of immediate anchors, which install one listener per anchor and per property, is
+    * greater than the footprint of ordered anchors.
+    */
+   @Test
+   public void testImmediateFootprint() {
+      System.out.println("NodeAnchorFootprintTest : testImmediateFootprint");
+      Rectangle reference = new Rectangle(0, 0, 100, 100);
+      NodeAnchor anchor = new NodeAnchor(new Rectangle(0, 0, 10, 10));
+      AnchorBinding binding = anchor.fill(reference);
+      assertEquals("Constraints", 4, anchor.getConstraintCount());
+      assertTrue("Listeners", binding.getListenerCount() >= 4);
+      assertTrue("Retained size", getRetainedSize(anchor, binding) > ORDERED_FILL_SIZE);
+      assertEquals("Dependents", 0, AnchorGraph.getDependentCount(reference));
+   }
+
+   /**
+    * Return an estimate of the memory retained by the constraints of a NodeAnchor, computed from the capacity of its
+    * constraints table and from the number of listeners installed by a binding.
+    */
+   private static int getRetainedSize(NodeAnchor anchor, AnchorBinding binding) {
+      return anchor.getConstraintCapacity() * ENTRY_SIZE + binding.getListenerCount() * LISTENER_SIZE;
+   }
+}
@@ -0,0 +1,378 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the dependency graph of the NodeAnchors.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorGraphTest {
+   private static final double DELTA = 0.2d;
+
+   public NodeAnchorGraphTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   /**
+    * Test that a direct cycle is rejected.
+    */
+   @Test
+   public void testDirectCycle() {
+      System.out.println("NodeAnchorGraphTest : testDirectCycle");
+      Rectangle rec1 = new Rectangle();
+      Rectangle rec2 = new Rectangle();
+      new NodeAnchor(rec2).anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      try {
+         new NodeAnchor(rec1).anchor(rec2, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+         fail("The cycle should have been rejected");
+      } catch (IllegalArgumentException e) {
+      }
+      try {
+         new NodeAnchor(rec1).fill(rec1);
+         fail("The cycle should have been rejected");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   /**
+    * Test that a cycle through several Nodes is rejected, and that it is accepted after the anchors which would
+    * close the cycle are disposed.
+    */
+   @Test
+   public void testIndirectCycle() {
+      System.out.println("NodeAnchorGraphTest : testIndirectCycle");
+      Rectangle rec1 = new Rectangle();
+      Rectangle rec2 = new Rectangle();
+      Rectangle rec3 = new Rectangle();
+      new NodeAnchor(rec2).anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      AnchorBinding binding = new NodeAnchor(rec3).anchor(rec2, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      NodeAnchor anchor1 = new NodeAnchor(rec1);
+      try {
+         anchor1.anchor(rec3, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+         fail("The cycle should have been rejected");
+      } catch (IllegalArgumentException e) {
+      }
+      binding.dispose();
+      anchor1.anchor(rec3, AnchorPosition.TOP, AnchorPosition.BOTTOM);
+   }
+
+   /**
+    * Test that each Node of a chain of ordered anchors is written only once when the reference of the chain moves,
+    * even if the anchors were created from the end of the chain.
+    */
+   @Test
+   public void testOrderedChain() {
+      System.out.println("NodeAnchorGraphTest : testOrderedChain");
+      int depth = 10;
+      Rectangle[] nodes = new Rectangle[depth + 1];
+      for (int i = 0; i <= depth; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+      }
+      for (int i = depth; i > 0; i--) {
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         anchor.anchor(nodes[i - 1], AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      }
+      assertFalse("Pending anchors", AnchorLayoutScheduler.getInstance().isPending());
+      assertEquals("Last Rectangle position", 100, nodes[depth].getX(), DELTA);
+
+      final int[] count = new int[1];
+      ChangeListener<Number> listener = new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            count[0]++;
+         }
+      };
+      for (int i = 1; i <= depth; i++) {
+         nodes[i].xProperty().addListener(listener);
+      }
+      nodes[0].setX(50);
+      assertEquals("Writes", depth, count[0]);
+      assertEquals("Last Rectangle position", 150, nodes[depth].getX(), DELTA);
+   }
+
+   /**
+    * Test that the levels of a very long chain of ordered anchors are computed without overflowing the stack.
+    */
+   @Test
+   public void testDeepOrderedChain() {
+      System.out.println("NodeAnchorGraphTest : testDeepOrderedChain");
+      int depth = 20000;
+      Rectangle[] nodes = new Rectangle[depth + 1];
+      for (int i = 0; i <= depth; i++) {
+         // the Nodes are already at their anchored positions, so that installing an anchor does not move the chain
+         nodes[i] = new Rectangle(10 * i, 0, 10, 10);
+      }
+      NodeAnchor last = null;
+      for (int i = depth; i > 0; i--) {
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         anchor.anchor(nodes[i - 1], AnchorPosition.LEFT, AnchorPosition.RIGHT);
+         if (last == null) {
+            last = anchor;
+         }
+      }
+      assertEquals("Level", depth - 1, AnchorGraph.getLevel(last));
+      nodes[0].setX(50);
+      assertEquals("Last Rectangle position", 50 + 10 * depth, nodes[depth].getX(), DELTA);
+   }
+
+   /**
+    * Test that a very long chain of anchors can be created from its reference, that a cycle on the chain is still
+    * rejected, and that an anchor which does not close a cycle is accepted.
+    */
+   @Test
+   public void testLongChainCycle() {
+      System.out.println("NodeAnchorGraphTest : testLongChainCycle");
+      int depth = 20000;
+      Rectangle[] nodes = new Rectangle[depth + 1];
+      nodes[0] = new Rectangle(0, 0, 10, 10);
+      for (int i = 1; i <= depth; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         anchor.anchor(nodes[i - 1], AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      }
+      assertEquals("Last Rectangle position", 10 * depth, nodes[depth].getX(), DELTA);
+      try {
+         new NodeAnchor(nodes[0]).anchor(nodes[depth], AnchorPosition.TOP, AnchorPosition.BOTTOM);
+         fail("The cycle should have been rejected");
+      } catch (IllegalArgumentException e) {
+      }
+      try {
+         new NodeAnchor(nodes[depth / 2]).anchor(nodes[depth], AnchorPosition.TOP, AnchorPosition.BOTTOM);
+         fail("The cycle should have been rejected");
+      } catch (IllegalArgumentException e) {
+      }
+      new NodeAnchor(nodes[depth]).anchor(nodes[depth / 2], AnchorPosition.TOP, AnchorPosition.BOTTOM);
+   }
+
+   /**
+    * Test that each Node of a chain of deferred anchors is written only once in a flush, even if the anchors were
+    * created from the end of the chain.
+    */
+   @Test
+   public void testDeferredChain() {
+      System.out.println("NodeAnchorGraphTest : testDeferredChain");
+      int depth = 100;
+      Rectangle[] nodes = new Rectangle[depth + 1];
+      for (int i = 0; i <= depth; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+      }
+      for (int i = depth; i > 0; i--) {
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+         anchor.anchor(nodes[i - 1], AnchorPosition.TOP, AnchorPosition.BOTTOM);
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Last Rectangle position", 1000, nodes[depth].getY(), DELTA);
+
+      final int[] count = new int[1];
+      ChangeListener<Number> listener = new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            count[0]++;
+         }
+      };
+      for (int i = 1; i <= depth; i++) {
+         nodes[i].yProperty().addListener(listener);
+      }
+      nodes[0].setY(20);
+      nodes[0].setHeight(20);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Writes", depth, count[0]);
+      assertEquals("Last Rectangle position", 1030, nodes[depth].getY(), DELTA);
+   }
+
+   /**
+    * Test that a Node which depends on a reference Node both directly and through another anchored Node is written
+    * only once when the reference Node moves, even if its listeners are notified before the listeners of the other
+    * anchored Node.
+    */
+   @Test
+   public void testOrderedDiamond() {
+      System.out.println("NodeAnchorGraphTest : testOrderedDiamond");
+      Rectangle root = new Rectangle(0, 0, 200, 100);
+      Rectangle middle = new Rectangle(0, 0, 10, 10);
+      Rectangle last = new Rectangle(0, 0, 10, 10);
+      NodeAnchor lastAnchor = new NodeAnchor(last);
+      lastAnchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+      lastAnchor.batch().left(middle, AnchorPosition.RIGHT).right(root, AnchorPosition.RIGHT).apply();
+      NodeAnchor middleAnchor = new NodeAnchor(middle);
+      middleAnchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+      middleAnchor.anchor(root, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      assertEquals("Last Rectangle position", 10, last.getX(), DELTA);
+      assertEquals("Last Rectangle width", 190, last.getWidth(), DELTA);
+
+      final int[] count = new int[1];
+      ChangeListener<Number> listener = new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            count[0]++;
+         }
+      };
+      last.xProperty().addListener(listener);
+      last.widthProperty().addListener(listener);
+      root.setX(50);
+      assertEquals("Writes", 1, count[0]);
+      assertEquals("Last Rectangle position", 60, last.getX(), DELTA);
+      assertEquals("Last Rectangle width", 190, last.getWidth(), DELTA);
+   }
+
+   /**
+    * Test that only the dependents of a reference Node are resolved when it changes.
+    */
+   @Test
+   public void testDependents() {
+      System.out.println("NodeAnchorGraphTest : testDependents");
+      Rectangle hot = new Rectangle(0, 0, 100, 100);
+      Rectangle cold = new Rectangle(0, 0, 100, 100);
+      Rectangle[] hotLeaves = new Rectangle[5];
+      Rectangle[] coldLeaves = new Rectangle[5];
+      final int[] count = new int[1];
+      ChangeListener<Number> listener = new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            count[0]++;
+         }
+      };
+      for (int i = 0; i < hotLeaves.length; i++) {
+         hotLeaves[i] = new Rectangle(0, 0, 10, 10);
+         coldLeaves[i] = new Rectangle(0, 0, 10, 10);
+         NodeAnchor hotAnchor = new NodeAnchor(hotLeaves[i]);
+         hotAnchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         hotAnchor.anchor(i == 0 ? hot : hotLeaves[i - 1], AnchorPosition.LEFT, AnchorPosition.RIGHT);
+         NodeAnchor coldAnchor = new NodeAnchor(coldLeaves[i]);
+         coldAnchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+         coldAnchor.anchor(cold, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+         hotLeaves[i].xProperty().addListener(listener);
+         coldLeaves[i].xProperty().addListener(listener);
+      }
+      assertEquals("Dependents", 1, AnchorGraph.getDependentCount(hot));
+      assertEquals("Dependents", 5, AnchorGraph.getDependentCount(cold));
+      hot.setX(10);
+      assertEquals("Writes", 5, count[0]);
+      assertEquals("Last Rectangle position", 150, hotLeaves[4].getX(), DELTA);
+      assertEquals("Cold Rectangle position", 100, coldLeaves[4].getX(), DELTA);
+   }
+
+   /**
+    * Test that ordered anchors which are still dirty after the maximum number of passes stay scheduled, are reported,
+    * and are resolved by the next resolution.
+    */
+   @Test
+   public void testMaxPasses() {
+      System.out.println("NodeAnchorGraphTest : testMaxPasses");
+      final Rectangle ref = new Rectangle(0, 0, 100, 100);
+      Rectangle rec = new Rectangle(0, 0, 10, 10);
+      NodeAnchor anchor = new NodeAnchor(rec);
+      anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+      anchor.anchor(ref, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      final int[] count = new int[1];
+      // each write of the anchored Rectangle moves its reference again, so each pass makes the anchor dirty again
+      rec.xProperty().addListener(new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            if (count[0] < AnchorLayoutScheduler.MAX_PASSES + 10) {
+               count[0]++;
+               ref.setX(ref.getX() + 1);
+            }
+         }
+      });
+      final List<LogRecord> records = new ArrayList<>();
+      Handler handler = new Handler() {
+         @Override
+         public void publish(LogRecord record) {
+            records.add(record);
+         }
+
+         @Override
+         public void flush() {
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+      Logger logger = Logger.getLogger(AnchorLayoutScheduler.class.getName());
+      logger.addHandler(handler);
+      logger.setUseParentHandlers(false);
+      try {
+         ref.setX(10);
+      } finally {
+         logger.removeHandler(handler);
+         logger.setUseParentHandlers(true);
+      }
+      assertEquals("Overflow warnings", 1, records.size());
+      assertTrue("Pending anchors", AnchorLayoutScheduler.getInstance().isPending());
+      assertTrue("Writes", count[0] < AnchorLayoutScheduler.MAX_PASSES + 10);
+
+      AnchorLayoutScheduler.getInstance().tick(System.nanoTime());
+      assertFalse("Pending anchors", AnchorLayoutScheduler.getInstance().isPending());
+      assertEquals("Writes", AnchorLayoutScheduler.MAX_PASSES + 10, count[0]);
+      assertEquals("Rectangle position", ref.getX() + 100, rec.getX(), DELTA);
+   }
+}
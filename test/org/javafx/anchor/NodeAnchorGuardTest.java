@@ -0,0 +1,224 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the re-entrancy guard and the write suppression of the NodeAnchor listeners.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorGuardTest {
+   private static final double DELTA = 0.2d;
+
+   public NodeAnchorGuardTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   /**
+    * Test that the guard does not change the result of the propagation through a chain of immediate anchors.
+    */
+   @Test
+   public void testChain() {
+      System.out.println("NodeAnchorGuardTest : testChain");
+      int depth = 8;
+      Rectangle[] nodes = new Rectangle[depth + 1];
+      nodes[0] = new Rectangle(0, 0, 10, 10);
+      for (int i = 1; i <= depth; i++) {
+         nodes[i] = new Rectangle(0, 0, 10, 10);
+         NodeAnchor anchor = new NodeAnchor(nodes[i]);
+         anchor.anchor(nodes[i - 1], AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      }
+      nodes[0].setX(1);
+      for (int i = 1; i <= depth; i++) {
+         assertEquals("Rectangle position", 1 + i * 10, nodes[i].getX(), DELTA);
+      }
+      nodes[0].setX(50);
+      for (int i = 1; i <= depth; i++) {
+         assertEquals("Rectangle position", 50 + i * 10, nodes[i].getX(), DELTA);
+      }
+   }
+
+   /**
+    * Test that the writes of unchanged values are skipped and counted.
+    */
+   @Test
+   public void testSuppressedWrites() {
+      System.out.println("NodeAnchorGuardTest : testSuppressedWrites");
+      Rectangle rec1 = new Rectangle(200, 100, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 70, 70);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      rec1.setX(210);
+      assertEquals("Relative Rectangle position", 210, rec2.getX(), DELTA);
+
+      anchor.resetCounters();
+      assertEquals("Suppressed writes", 0, anchor.getSuppressedWriteCount());
+      // the Y listener of the anchored Node writes the Y of the reference, which is the current value
+      rec1.setY(120);
+      assertEquals("Relative Rectangle position", 120, rec2.getY(), DELTA);
+      assertTrue("Suppressed writes", anchor.getSuppressedWriteCount() > 0);
+   }
+
+   /**
+    * Test that the width of a Region whose preferred width is already the anchored width is still written if its
+    * minimum and maximum widths are pinned to another width.
+    */
+   @Test
+   public void testPinnedRegionWrite() {
+      System.out.println("NodeAnchorGuardTest : testPinnedRegionWrite");
+      Region reference = new Region();
+      reference.setPrefSize(100, 40);
+      Region region = new Region();
+      region.setMinWidth(50);
+      region.setPrefWidth(100);
+      region.setMaxWidth(50);
+      NodeAnchor anchor = new NodeAnchor(region);
+      anchor.setPropagationPolicy(PropagationPolicy.ORDERED);
+      anchor.batch().fillWidth(reference).apply();
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("Min width", 100, region.getMinWidth(), DELTA);
+      assertEquals("Pref width", 100, region.getPrefWidth(), DELTA);
+      assertEquals("Max width", 100, region.getMaxWidth(), DELTA);
+
+      anchor.resetCounters();
+      reference.setLayoutX(10);
+      AnchorLayoutScheduler.getInstance().flush();
+      assertEquals("X", 10, region.getLayoutX(), DELTA);
+      assertTrue("Suppressed writes", anchor.getSuppressedWriteCount() > 0);
+   }
+
+   /**
+    * Test that the notifications triggered by the writes of a listener itself are not run re-entrantly.
+    */
+   @Test
+   public void testReentrantUpdates() {
+      System.out.println("NodeAnchorGuardTest : testReentrantUpdates");
+      Rectangle rec1 = new Rectangle(200, 100, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 70, 70);
+      Pane root = new Pane();
+      root.getChildren().add(rec1);
+      root.getChildren().add(rec2);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.anchor(rec1, AnchorPosition.RIGHT, AnchorPosition.RIGHT);
+      anchor.anchor(rec1, AnchorPosition.TOP, AnchorPosition.TOP);
+      anchor.resetCounters();
+
+      rec1.setY(150);
+      rec1.setY(160);
+      assertEquals("Relative Rectangle position", 160, rec2.getY(), DELTA);
+      assertTrue("Re-entrant updates", anchor.getReentrantUpdateCount() > 0);
+   }
+
+   /**
+    * Test that a listener which is notified again by each of its own runs stops after the maximum number of nested
+    * updates, and that the dropped notification is counted and reported.
+    */
+   @Test
+   public void testMaxNestedUpdates() {
+      System.out.println("NodeAnchorGuardTest : testMaxNestedUpdates");
+      final Rectangle rec1 = new Rectangle(200, 100, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 70, 70);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.LEFT);
+      final int[] count = new int[1];
+      // each write of the anchored Rectangle moves its reference again
+      rec2.xProperty().addListener(new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            if (count[0] < NodeAnchor.MAX_NESTED_UPDATES + 10) {
+               count[0]++;
+               rec1.setX(rec1.getX() + 1);
+            }
+         }
+      });
+      anchor.resetCounters();
+      final List<LogRecord> records = new ArrayList<>();
+      Handler handler = new Handler() {
+         @Override
+         public void publish(LogRecord record) {
+            records.add(record);
+         }
+
+         @Override
+         public void flush() {
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+      Logger logger = Logger.getLogger(NodeAnchor.class.getName());
+      logger.addHandler(handler);
+      logger.setUseParentHandlers(false);
+      try {
+         rec1.setX(300);
+      } finally {
+         logger.removeHandler(handler);
+         logger.setUseParentHandlers(true);
+      }
+      assertTrue("Dropped updates", anchor.getDroppedUpdateCount() > 0);
+      assertEquals("Overflow warnings", anchor.getDroppedUpdateCount(), records.size());
+      assertTrue("Writes", count[0] > NodeAnchor.MAX_NESTED_UPDATES);
+   }
+}
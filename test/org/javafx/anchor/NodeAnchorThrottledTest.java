@@ -0,0 +1,182 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.event.Event;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the NodeAnchor class, when using the {@link PropagationPolicy#THROTTLED} policy. The timer ticks
+ * are simulated.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorThrottledTest {
+   private static final double DELTA = 0.2d;
+   private static final long INTERVAL = AnchorLayoutScheduler.DEFAULT_THROTTLE_INTERVAL;
+   private static long time = 0;
+
+   public NodeAnchorThrottledTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+      // the time of the ticks is after the last throttled resolution of the previous tests
+      time = time + 100 * INTERVAL;
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+      AnchorLayoutScheduler.getInstance().setThrottleInterval(INTERVAL);
+      NodeAnchor.setDefaultPropagationPolicy(PropagationPolicy.IMMEDIATE);
+   }
+
+   /**
+    * Test that the throttled anchors are resolved at most once per throttle interval, with the last values.
+    */
+   @Test
+   public void testThrottle() {
+      System.out.println("NodeAnchorThrottledTest : testThrottle");
+      AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 50, 50);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.THROTTLED);
+      anchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      scheduler.tick(time);
+      assertEquals("X", 100, rec2.getX(), DELTA);
+
+      for (int i = 1; i <= 10; i++) {
+         rec1.setX(i);
+      }
+      assertEquals("X", 100, rec2.getX(), DELTA);
+      scheduler.tick(time + INTERVAL / 2);
+      assertEquals("X", 100, rec2.getX(), DELTA);
+      assertTrue("Pending anchors", scheduler.isPending());
+      scheduler.tick(time + INTERVAL);
+      assertEquals("X", 110, rec2.getX(), DELTA);
+      assertFalse("Pending anchors", scheduler.isPending());
+
+      rec1.setX(20);
+      scheduler.tick(time + INTERVAL + 1);
+      assertEquals("X", 110, rec2.getX(), DELTA);
+      scheduler.flush();
+      assertEquals("X", 120, rec2.getX(), DELTA);
+   }
+
+   /**
+    * Test that the deferred anchors are resolved on each tick, and the throttled anchors only when the throttle
+    * interval has elapsed.
+    */
+   @Test
+   public void testDeferredAndThrottled() {
+      System.out.println("NodeAnchorThrottledTest : testDeferredAndThrottled");
+      AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+      scheduler.setThrottleInterval(4 * INTERVAL);
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle deferred = new Rectangle(0, 0, 50, 50);
+      Rectangle throttled = new Rectangle(0, 0, 50, 50);
+      NodeAnchor deferredAnchor = new NodeAnchor(deferred);
+      deferredAnchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+      deferredAnchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      NodeAnchor.setDefaultPropagationPolicy(PropagationPolicy.THROTTLED);
+      NodeAnchor throttledAnchor = new NodeAnchor(throttled);
+      assertEquals("Policy", PropagationPolicy.THROTTLED, throttledAnchor.getPropagationPolicy());
+      throttledAnchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      scheduler.tick(time);
+
+      for (int i = 1; i < 4; i++) {
+         rec1.setX(i);
+         scheduler.tick(time + i * INTERVAL);
+         assertEquals("Deferred X", 100 + i, deferred.getX(), DELTA);
+         assertEquals("Throttled X", 100, throttled.getX(), DELTA);
+      }
+      rec1.setX(4);
+      scheduler.tick(time + 4 * INTERVAL);
+      assertEquals("Deferred X", 104, deferred.getX(), DELTA);
+      assertEquals("Throttled X", 104, throttled.getX(), DELTA);
+   }
+
+   /**
+    * Test that the scheduler is flushed when the mouse is released at the end of a drag.
+    */
+   @Test
+   public void testFlushOnMouseReleased() {
+      System.out.println("NodeAnchorThrottledTest : testFlushOnMouseReleased");
+      AnchorLayoutScheduler scheduler = AnchorLayoutScheduler.getInstance();
+      Rectangle rec1 = new Rectangle(0, 0, 100, 100);
+      Rectangle rec2 = new Rectangle(0, 0, 50, 50);
+      Pane root = new Pane(rec1, rec2);
+      NodeAnchor anchor = new NodeAnchor(rec2);
+      anchor.setPropagationPolicy(PropagationPolicy.THROTTLED);
+      anchor.anchor(rec1, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      scheduler.flush();
+      scheduler.flushOnMouseReleased(root);
+
+      rec1.setX(30);
+      assertEquals("X", 100, rec2.getX(), DELTA);
+      Event.fireEvent(rec1, createEvent(MouseEvent.MOUSE_DRAGGED));
+      assertEquals("X", 100, rec2.getX(), DELTA);
+      Event.fireEvent(rec1, createEvent(MouseEvent.MOUSE_RELEASED));
+      assertEquals("X", 130, rec2.getX(), DELTA);
+
+      scheduler.removeFlushOnMouseReleased(root);
+      rec1.setX(40);
+      Event.fireEvent(rec1, createEvent(MouseEvent.MOUSE_RELEASED));
+      assertEquals("X", 130, rec2.getX(), DELTA);
+   }
+
+   private static MouseEvent createEvent(javafx.event.EventType<MouseEvent> type) {
+      return new MouseEvent(type, 0, 0, 0, 0, MouseButton.PRIMARY, 1, false, false, false, false, true, false, false,
+         false, false, false, null);
+   }
+}
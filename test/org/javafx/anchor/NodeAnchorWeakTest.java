@@ -0,0 +1,168 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the NodeAnchor class, when using weak listeners.
+ *
+ * @since 0.2
+ */
+public class NodeAnchorWeakTest {
+   private static final double DELTA = 0.2d;
+   private static final int CYCLES = 100000;
+   private static final int SAMPLING = 1000;
+
+   public NodeAnchorWeakTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(false);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      AnchorLayoutScheduler.getInstance().setAutomatic(true);
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+      AnchorLayoutScheduler.getInstance().flush();
+   }
+
+   /**
+    * Test that the anchors still work after a garbage collection if the anchored Node is reachable.
+    */
+   @Test
+   public void testAnchorSurvivesGC() {
+      System.out.println("NodeAnchorWeakTest : testAnchorSurvivesGC");
+      Circle circle = new Circle(50, 50, 50);
+      Rectangle rec = new Rectangle(0, 0, 70, 70);
+      NodeAnchor anchor = new NodeAnchor(rec);
+      anchor.setUseWeakListeners(true);
+      anchor.anchor(circle, AnchorPosition.LEFT, AnchorPosition.RIGHT);
+      anchor = null;
+
+      for (int i = 0; i < 5; i++) {
+         System.gc();
+      }
+      circle.setCenterX(100);
+      assertEquals("Relative Rectangle position", 150, rec.getX(), DELTA);
+      circle.setRadius(20);
+      assertEquals("Relative Rectangle position", 120, rec.getX(), DELTA);
+   }
+
+   /**
+    * Test that children anchored in their parent with weak listeners are not retained by the parent.
+    */
+   @Test
+   public void testFillInParentRetention() {
+      System.out.println("NodeAnchorWeakTest : testFillInParentRetention");
+      Pane parent = new Pane();
+      List<WeakReference<Rectangle>> references = new ArrayList<>();
+      for (int i = 0; i < CYCLES; i++) {
+         Rectangle child = new Rectangle();
+         parent.getChildren().add(child);
+         NodeAnchor anchor = new NodeAnchor(child);
+         anchor.setUseWeakListeners(true);
+         anchor.fillInParent();
+         parent.getChildren().remove(child);
+         if (i % SAMPLING == 0) {
+            references.add(new WeakReference<>(child));
+         }
+      }
+      assertTrue("Anchored Nodes collected", isCollected(references));
+      parent.setPrefWidth(200);
+   }
+
+   /**
+    * Test that Nodes anchored with weak listeners and the deferred policy are not retained by the reference Node.
+    */
+   @Test
+   public void testDeferredRetention() {
+      System.out.println("NodeAnchorWeakTest : testDeferredRetention");
+      Rectangle reference = new Rectangle(0, 0, 100, 100);
+      List<WeakReference<Rectangle>> references = new ArrayList<>();
+      for (int i = 0; i < CYCLES; i++) {
+         Rectangle child = new Rectangle();
+         NodeAnchor anchor = new NodeAnchor(child);
+         anchor.setUseWeakListeners(true);
+         anchor.setPropagationPolicy(PropagationPolicy.DEFERRED);
+         anchor.fill(reference);
+         if (i % SAMPLING == 0) {
+            AnchorLayoutScheduler.getInstance().flush();
+            references.add(new WeakReference<>(child));
+         }
+      }
+      AnchorLayoutScheduler.getInstance().flush();
+      assertTrue("Anchored Nodes collected", isCollected(references));
+   }
+
+   private boolean isCollected(List<WeakReference<Rectangle>> references) {
+      for (int i = 0; i < 50; i++) {
+         System.gc();
+         boolean collected = true;
+         for (WeakReference<Rectangle> reference : references) {
+            if (reference.get() != null) {
+               collected = false;
+               break;
+            }
+         }
+         if (collected) {
+            return true;
+         }
+         try {
+            Thread.sleep(20);
+         } catch (InterruptedException ex) {
+            return false;
+         }
+      }
+      return false;
+   }
+}
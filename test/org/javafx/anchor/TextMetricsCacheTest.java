@@ -0,0 +1,186 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor;
+
+import static org.junit.Assert.*;
+import javafx.beans.binding.DoubleExpression;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the TextMetricsCache class. The texts are measured by a fake measure, so that the tests do not
+ * depend on the fonts which are available.
+ *
+ * @since 0.2
+ */
+public class TextMetricsCacheTest {
+   private static final double DELTA = 0.01d;
+
+   public TextMetricsCacheTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   /**
+    * A cache which counts the measures. Each character is 10 pixels wide, and each line is as high as the font
+    * size plus the line spacing.
+    */
+   private static class CountingCache extends TextMetricsCache {
+      private int measures = 0;
+
+      private CountingCache(int capacity) {
+         super(capacity);
+      }
+
+      @Override
+      protected void measure(Font font, String string, double wrappingWidth, double lineSpacing, double[] values) {
+         measures++;
+         int perLine = wrappingWidth > 0 ? Math.max(1, (int) (wrappingWidth / 10)) : Integer.MAX_VALUE;
+         int lines = Math.max(1, (string.length() + perLine - 1) / perLine);
+         values[0] = lines * (font.getSize() + lineSpacing);
+         values[1] = font.getSize() * 0.8;
+      }
+   }
+
+   /**
+    * Test that the same text is measured only once.
+    */
+   @Test
+   public void testCache() {
+      System.out.println("TextMetricsCacheTest : testCache");
+      CountingCache cache = new CountingCache(16);
+      Font font = new Font(10);
+      assertEquals("Height", 10, cache.getHeight(font, "TOTO", 0, 0), DELTA);
+      assertEquals("Height", 10, cache.getHeight(font, "TOTO", 0, 0), DELTA);
+      assertEquals("Baseline", 8, cache.getBaselineOffset(font, "TOTO", 0, 0), DELTA);
+      assertEquals("Measures", 1, cache.measures);
+      assertEquals("Hits", 2, cache.getHitCount());
+      assertEquals("Misses", 1, cache.getMissCount());
+
+      assertEquals("Height", 20, cache.getHeight(font, "TOTO", 20, 0), DELTA);
+      assertEquals("Height", 24, cache.getHeight(font, "TOTO", 20, 2), DELTA);
+      assertEquals("Height", 20, cache.getHeight(new Font(20), "TOTO", 0, 0), DELTA);
+      assertEquals("Height", 10, cache.getHeight(font, "TITI", 0, 0), DELTA);
+      assertEquals("Measures", 5, cache.measures);
+      assertEquals("Size", 5, cache.size());
+
+      cache.clear();
+      assertEquals("Size", 0, cache.size());
+      assertEquals("Hits", 0, cache.getHitCount());
+   }
+
+   /**
+    * Test that the texts which have been used the least recently are removed when the cache is full.
+    */
+   @Test
+   public void testCapacity() {
+      System.out.println("TextMetricsCacheTest : testCapacity");
+      CountingCache cache = new CountingCache(2);
+      Font font = new Font(10);
+      cache.getHeight(font, "A", 0, 0);
+      cache.getHeight(font, "B", 0, 0);
+      cache.getHeight(font, "A", 0, 0);
+      cache.getHeight(font, "C", 0, 0);
+      assertEquals("Size", 2, cache.size());
+      assertEquals("Measures", 3, cache.measures);
+      cache.getHeight(font, "A", 0, 0);
+      assertEquals("Measures", 3, cache.measures);
+      cache.getHeight(font, "B", 0, 0);
+      assertEquals("Measures", 4, cache.measures);
+   }
+
+   /**
+    * Test of the height expression of a Text, through the Text adapter.
+    */
+   @Test
+   public void testHeightExpression() {
+      System.out.println("TextMetricsCacheTest : testHeightExpression");
+      CountingCache cache = new CountingCache(16);
+      GeometryAdapters adapters = new GeometryAdapters();
+      adapters.register(Text.class, new DefaultGeometryAdapters.TextAdapter(cache));
+      AnchorUtilities utils = new DefaultAnchorUtilities(adapters);
+      Text text = new Text("TOTO TOTO");
+      text.setFont(new Font(10));
+
+      DoubleExpression height = utils.getHeightProperty(text);
+      assertSame("Expression", height, utils.getHeightProperty(text));
+      assertEquals("Height", 10, height.get(), DELTA);
+      assertEquals("Height", 10, utils.getHeight(text), DELTA);
+
+      final int[] changes = new int[1];
+      height.addListener(new ChangeListener<Number>() {
+         @Override
+         public void changed(ObservableValue<? extends Number> observable, Number oldValue, Number newValue) {
+            changes[0]++;
+         }
+      });
+      text.setWrappingWidth(40);
+      assertEquals("Changes", 1, changes[0]);
+      assertEquals("Height", 30, height.get(), DELTA);
+      text.setLineSpacing(2);
+      assertEquals("Height", 36, height.get(), DELTA);
+      text.setText("TOTO");
+      assertEquals("Height", 12, height.get(), DELTA);
+
+      int measures = cache.measures;
+      for (int i = 0; i < 100; i++) {
+         utils.getHeight(text);
+      }
+      assertEquals("Measures", measures, cache.measures);
+
+      DoubleExpression baseline = cache.createBaselineOffsetExpression(text);
+      assertEquals("Baseline", 8, baseline.get(), DELTA);
+      text.setFont(new Font(20));
+      assertEquals("Baseline", 16, baseline.get(), DELTA);
+   }
+}
@@ -0,0 +1,172 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import static org.junit.Assert.*;
+import org.javafx.anchor.AnchorPosition;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorGeometryMemo class.
+ *
+ * @since 0.2
+ */
+public class AnchorGeometryMemoTest {
+   private static final double DELTA = 0.0001d;
+
+   public AnchorGeometryMemoTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   /**
+    * Create a model with a label anchored to the left of the root, and a field which fills the rest of the width.
+    */
+   private static AnchorModel createModel() {
+      AnchorModel model = new AnchorModel();
+      int root = model.addNode(0, 0, 800, 600);
+      int label = model.addNode(0, 0, 50, 20);
+      int field = model.addNode(0, 0, 30, 20);
+      model.anchorInParent(label, AnchorPosition.LEFT, root, AnchorPosition.LEFT);
+      model.anchorInParent(label, AnchorPosition.TOP, root, AnchorPosition.TOP);
+      model.anchor(field, AnchorPosition.LEFT, label, AnchorPosition.RIGHT);
+      model.anchorInParent(field, AnchorPosition.RIGHT, root, AnchorPosition.RIGHT);
+      model.anchor(field, AnchorPosition.TOP, label, AnchorPosition.TOP);
+      return model;
+   }
+
+   private static void resize(AnchorModel model, double width, double height) {
+      model.setWidth(0, width);
+      model.setHeight(0, height);
+   }
+
+   /**
+    * Test that the geometry of a size which has already been solved is copied from the memo.
+    */
+   @Test
+   public void testHitMiss() {
+      System.out.println("AnchorGeometryMemoTest : testHitMiss");
+      AnchorGeometryMemo memo = new AnchorGeometryMemo();
+      AnchorModel model = createModel();
+      assertFalse("Hit", memo.solve(model, 800, 600));
+      assertEquals("Field width", 750, model.getWidth(2), DELTA);
+      assertEquals("Graph version", 1, memo.getGraphVersion());
+
+      resize(model, 1920, 1080);
+      assertFalse("Hit", memo.solve(model, 1920, 1080));
+      assertEquals("Field width", 1870, model.getWidth(2), DELTA);
+
+      // back to the sizes which have already been solved
+      resize(model, 800, 600);
+      assertTrue("Hit", memo.solve(model, 800, 600));
+      assertEquals("Field width", 750, model.getWidth(2), DELTA);
+      resize(model, 1920, 1080);
+      assertTrue("Hit", memo.solve(model, 1920, 1080));
+      assertEquals("Field width", 1870, model.getWidth(2), DELTA);
+
+      assertEquals("Hits", 2, memo.getHitCount());
+      assertEquals("Misses", 2, memo.getMissCount());
+      assertEquals("Size", 2, memo.size());
+      memo.clear();
+      assertEquals("Hits", 0, memo.getHitCount());
+      assertEquals("Size", 0, memo.size());
+   }
+
+   /**
+    * Test that the memo is not used after a change of the anchors or of the inputs of the solver.
+    */
+   @Test
+   public void testInvalidation() {
+      System.out.println("AnchorGeometryMemoTest : testInvalidation");
+      AnchorGeometryMemo memo = new AnchorGeometryMemo();
+      AnchorModel model = createModel();
+      memo.solve(model, 800, 600);
+
+      // the preferred width of the label is an input of the solver
+      model.setWidth(1, 80);
+      assertFalse("Hit", memo.solve(model, 800, 600));
+      assertEquals("Field width", 720, model.getWidth(2), DELTA);
+
+      // the x position of the field is computed by the solver
+      model.setX(2, 5);
+      assertTrue("Hit", memo.solve(model, 800, 600));
+      assertEquals("Field X", 80, model.getX(2), DELTA);
+
+      model.anchorInParent(2, AnchorPosition.BOTTOM, 0, AnchorPosition.BOTTOM);
+      assertFalse("Hit", memo.solve(model, 800, 600));
+      assertEquals("Graph version", 2, memo.getGraphVersion());
+      assertEquals("Size", 1, memo.size());
+      assertEquals("Field height", 600, model.getHeight(2), DELTA);
+   }
+
+   /**
+    * Test that the least recently used geometry is removed when the memo is full.
+    */
+   @Test
+   public void testEviction() {
+      System.out.println("AnchorGeometryMemoTest : testEviction");
+      AnchorGeometryMemo memo = new AnchorGeometryMemo(2);
+      assertEquals("Capacity", 2, memo.getCapacity());
+      AnchorModel model = createModel();
+      memo.solve(model, 800, 600);
+      resize(model, 1024, 768);
+      memo.solve(model, 1024, 768);
+      resize(model, 800, 600);
+      assertTrue("Hit", memo.solve(model, 800, 600));
+      resize(model, 1280, 1024);
+      memo.solve(model, 1280, 1024);
+      assertEquals("Size", 2, memo.size());
+      assertEquals("Evictions", 1, memo.getEvictionCount());
+      resize(model, 800, 600);
+      assertTrue("Hit", memo.solve(model, 800, 600));
+      resize(model, 1024, 768);
+      assertFalse("Evicted", memo.solve(model, 1024, 768));
+   }
+}
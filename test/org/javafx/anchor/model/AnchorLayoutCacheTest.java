@@ -0,0 +1,227 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.javafx.anchor.AnchorPosition;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorLayoutCache class.
+ *
+ * @since 0.2
+ */
+public class AnchorLayoutCacheTest {
+   private static final double DELTA = 0.0001d;
+   private Path file = null;
+
+   public AnchorLayoutCacheTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() throws IOException {
+      file = File.createTempFile("anchors", ".cache").toPath();
+      Files.delete(file);
+   }
+
+   @After
+   public void tearDown() throws IOException {
+      Files.deleteIfExists(file);
+   }
+
+   /**
+    * Create a model with rows of Nodes anchored to a root.
+    */
+   private static AnchorModel createModel(int count, double width) {
+      AnchorModel model = new AnchorModel();
+      int root = model.addNode(0, 0, width, 600);
+      int previous = root;
+      for (int i = 1; i < count; i++) {
+         int node = model.addNode(0, 0, 10 + i % 7, 20);
+         if (previous == root) {
+            model.anchorInParent(node, AnchorPosition.LEFT, root, AnchorPosition.LEFT);
+         } else {
+            model.anchor(node, AnchorPosition.LEFT, previous, AnchorPosition.RIGHT);
+         }
+         model.anchorInParent(node, AnchorPosition.BOTTOM, root, AnchorPosition.BOTTOM);
+         previous = node;
+      }
+      return model;
+   }
+
+   /**
+    * Test that a saved entry is restored from the file.
+    */
+   @Test
+   public void testSaveRestore() throws IOException {
+      System.out.println("AnchorLayoutCacheTest : testSaveRestore");
+      AnchorLayoutCache cache = AnchorLayoutCache.open(file);
+      assertEquals("Entries", 0, cache.getEntryCount());
+      AnchorModel model = createModel(100, 800);
+      long graphHash = AnchorLayoutCache.hashGraph(model);
+      long inputHash = AnchorLayoutCache.hashGeometry(model);
+      assertFalse("Restored", cache.restore(model, graphHash, inputHash, 800, 600));
+      new AnchorSolver().solve(model);
+      cache.put(model, graphHash, inputHash, 800, 600);
+      cache.save();
+
+      AnchorModel restored = createModel(100, 800);
+      assertEquals("Graph hash", graphHash, AnchorLayoutCache.hashGraph(restored));
+      assertEquals("Input hash", inputHash, AnchorLayoutCache.hashGeometry(restored));
+      cache = AnchorLayoutCache.open(file);
+      assertEquals("Entries", 1, cache.getEntryCount());
+      assertEquals("Graph hash", graphHash, cache.getGraphHash());
+      assertTrue("Restored", cache.restore(restored, graphHash, inputHash, 800, 600));
+      for (int i = 0; i < model.getNodeCount(); i++) {
+         assertEquals("X of " + i, model.getX(i), restored.getX(i), DELTA);
+         assertEquals("Y of " + i, model.getY(i), restored.getY(i), DELTA);
+         assertEquals("Width of " + i, model.getWidth(i), restored.getWidth(i), DELTA);
+      }
+      assertFalse("Other size", cache.restore(restored, graphHash, inputHash, 1024, 600));
+
+      // the entries read from the file are kept when the cache is saved again
+      AnchorModel other = createModel(100, 1024);
+      long otherHash = AnchorLayoutCache.hashGeometry(other);
+      new AnchorSolver().solve(other);
+      cache.put(other, graphHash, otherHash, 1024, 600);
+      cache.save();
+      cache = AnchorLayoutCache.open(file);
+      assertEquals("Entries", 2, cache.getEntryCount());
+      AnchorModel restored2 = createModel(100, 800);
+      assertTrue("Restored", cache.restore(restored2, graphHash, inputHash, 800, 600));
+      assertEquals("Last X", model.getX(99), restored2.getX(99), DELTA);
+   }
+
+   /**
+    * Test that the entries are invalidated by another graph or another initial geometry.
+    */
+   @Test
+   public void testInvalidation() throws IOException {
+      System.out.println("AnchorLayoutCacheTest : testInvalidation");
+      AnchorLayoutCache cache = AnchorLayoutCache.open(file);
+      AnchorModel model = createModel(10, 800);
+      long graphHash = AnchorLayoutCache.hashGraph(model);
+      long inputHash = AnchorLayoutCache.hashGeometry(model);
+      new AnchorSolver().solve(model);
+      cache.put(model, graphHash, inputHash, 800, 600);
+
+      AnchorModel changed = createModel(10, 800);
+      changed.setWidth(3, 50);
+      assertEquals("Graph hash", graphHash, AnchorLayoutCache.hashGraph(changed));
+      long changedHash = AnchorLayoutCache.hashGeometry(changed);
+      assertNotEquals("Input hash", inputHash, changedHash);
+      assertFalse("Restored", cache.restore(changed, graphHash, changedHash, 800, 600));
+
+      changed.anchor(5, AnchorPosition.TOP, 4, AnchorPosition.TOP);
+      long changedGraph = AnchorLayoutCache.hashGraph(changed);
+      assertNotEquals("Graph hash", graphHash, changedGraph);
+      assertFalse("Restored", cache.restore(changed, changedGraph, changedHash, 800, 600));
+      cache.put(changed, changedGraph, changedHash, 800, 600);
+      assertEquals("Entries", 1, cache.getEntryCount());
+      assertEquals("Graph hash", changedGraph, cache.getGraphHash());
+      assertFalse("Restored", cache.restore(model, graphHash, inputHash, 800, 600));
+   }
+
+   /**
+    * Test that the least recently used entry is removed when the cache is full.
+    */
+   @Test
+   public void testEviction() throws IOException {
+      System.out.println("AnchorLayoutCacheTest : testEviction");
+      AnchorLayoutCache cache = AnchorLayoutCache.open(file, 2);
+      AnchorModel model = createModel(10, 800);
+      long graphHash = AnchorLayoutCache.hashGraph(model);
+      cache.put(model, graphHash, 1, 800, 600);
+      cache.put(model, graphHash, 2, 1024, 600);
+      assertTrue("Restored", cache.restore(model, graphHash, 1, 800, 600));
+      cache.put(model, graphHash, 3, 1280, 600);
+      assertEquals("Entries", 2, cache.getEntryCount());
+      assertTrue("Restored", cache.restore(model, graphHash, 1, 800, 600));
+      assertFalse("Evicted", cache.restore(model, graphHash, 2, 1024, 600));
+   }
+
+   /**
+    * Test that a cache opened with fewer entries than its file keeps only the most recently used entries.
+    */
+   @Test
+   public void testOpenWithFewerEntries() throws IOException {
+      System.out.println("AnchorLayoutCacheTest : testOpenWithFewerEntries");
+      AnchorLayoutCache cache = AnchorLayoutCache.open(file, 4);
+      AnchorModel model = createModel(10, 800);
+      long graphHash = AnchorLayoutCache.hashGraph(model);
+      for (int i = 0; i < 4; i++) {
+         cache.put(model, graphHash, i, 800 + i, 600);
+      }
+      cache.save();
+
+      cache = AnchorLayoutCache.open(file, 2);
+      assertEquals("Entries", 2, cache.getEntryCount());
+      assertFalse("Oldest", cache.restore(model, graphHash, 1, 801, 600));
+      assertTrue("Most recent", cache.restore(model, graphHash, 3, 803, 600));
+      cache.put(model, graphHash, 4, 804, 600);
+      cache.put(model, graphHash, 5, 805, 600);
+      assertEquals("Entries", 2, cache.getEntryCount());
+      cache.save();
+      assertEquals("Entries", 2, AnchorLayoutCache.open(file, 4).getEntryCount());
+   }
+
+   /**
+    * Test that an invalid file is ignored.
+    */
+   @Test
+   public void testInvalidFile() throws IOException {
+      System.out.println("AnchorLayoutCacheTest : testInvalidFile");
+      Files.write(file, new byte[100]);
+      AnchorLayoutCache cache = AnchorLayoutCache.open(file);
+      assertEquals("Entries", 0, cache.getEntryCount());
+      AnchorModel model = createModel(10, 800);
+      cache.put(model, AnchorLayoutCache.hashGraph(model), 1, 800, 600);
+      cache.save();
+      assertEquals("Entries", 1, AnchorLayoutCache.open(file).getEntryCount());
+   }
+}
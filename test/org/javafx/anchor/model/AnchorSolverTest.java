@@ -0,0 +1,219 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import static org.junit.Assert.*;
+import org.javafx.anchor.AnchorPosition;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the AnchorModel and AnchorSolver classes.
+ *
+ * @since 0.2
+ */
+public class AnchorSolverTest {
+   private static final double DELTA = 0.0001d;
+
+   public AnchorSolverTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   /**
+    * Test of a Node anchored with LEFT / RIGHT and RIGHT / RIGHT anchors.
+    */
+   @Test
+   public void testLeftAndRight() {
+      System.out.println("AnchorSolverTest : testLeftAndRight");
+      AnchorModel model = new AnchorModel();
+      int ref = model.addNode(200, 100, 100, 50);
+      int other = model.addNode(400, 0, 50, 50);
+      int node = model.addNode(0, 0, 10, 10);
+      model.anchor(node, AnchorPosition.LEFT, ref, AnchorPosition.RIGHT);
+      model.anchor(node, AnchorPosition.RIGHT, other, AnchorPosition.RIGHT);
+      assertEquals("Constraints", 2, model.getConstraintCount());
+
+      AnchorSolver solver = new AnchorSolver();
+      assertEquals("Unordered Nodes", 0, solver.solve(model));
+      assertEquals("Node position", 300, model.getX(node), DELTA);
+      assertEquals("Node width", 150, model.getWidth(node), DELTA);
+      // no vertical anchor, the Node follows the reference of its left anchor
+      assertEquals("Node position", 100, model.getY(node), DELTA);
+      assertEquals("Node height", 50, model.getHeight(node), DELTA);
+   }
+
+   /**
+    * Test of a Node anchored with a BOTTOM / TOP anchor only.
+    */
+   @Test
+   public void testBottomTop() {
+      System.out.println("AnchorSolverTest : testBottomTop");
+      AnchorModel model = new AnchorModel();
+      int ref = model.addNode(200, 100, 100, 100);
+      int node = model.addNode(0, 0, 70, 70);
+      model.anchor(node, AnchorPosition.BOTTOM, ref, AnchorPosition.TOP);
+
+      int flags = new AnchorSolver().solveNode(model, node);
+      assertEquals("Computed values", AnchorSolver.X_MASK | AnchorSolver.WIDTH_MASK | AnchorSolver.Y_MASK, flags);
+      assertEquals("Node position", 200, model.getX(node), DELTA);
+      assertEquals("Node position", 30, model.getY(node), DELTA);
+      assertEquals("Node width", 100, model.getWidth(node), DELTA);
+      assertEquals("Node height", 70, model.getHeight(node), DELTA);
+   }
+
+   /**
+    * Test of a Node which fills its parent.
+    */
+   @Test
+   public void testFillInParent() {
+      System.out.println("AnchorSolverTest : testFillInParent");
+      AnchorModel model = new AnchorModel();
+      int parent = model.addNode(50, 50, 400, 300);
+      int node = model.addNode();
+      model.anchorInParent(node, AnchorPosition.LEFT, parent, AnchorPosition.LEFT);
+      model.anchorInParent(node, AnchorPosition.RIGHT, parent, AnchorPosition.RIGHT);
+      model.anchorInParent(node, AnchorPosition.TOP, parent, AnchorPosition.TOP);
+      model.anchorInParent(node, AnchorPosition.BOTTOM, parent, AnchorPosition.BOTTOM);
+
+      new AnchorSolver().solve(model);
+      assertEquals("Node position", 0, model.getX(node), DELTA);
+      assertEquals("Node position", 0, model.getY(node), DELTA);
+      assertEquals("Node width", 400, model.getWidth(node), DELTA);
+      assertEquals("Node height", 300, model.getHeight(node), DELTA);
+   }
+
+   /**
+    * Test that the Nodes are solved after their references, whatever the order of their indexes.
+    */
+   @Test
+   public void testOrder() {
+      System.out.println("AnchorSolverTest : testOrder");
+      AnchorModel model = new AnchorModel(1);
+      int third = model.addNode(0, 0, 100, 50);
+      int second = model.addNode(0, 0, 100, 50);
+      int first = model.addNode(0, 20, 100, 50);
+      model.anchor(third, AnchorPosition.TOP, second, AnchorPosition.BOTTOM);
+      model.anchor(second, AnchorPosition.TOP, first, AnchorPosition.BOTTOM);
+
+      assertEquals("Unordered Nodes", 0, new AnchorSolver().solve(model));
+      assertEquals("Second Node position", 70, model.getY(second), DELTA);
+      assertEquals("Third Node position", 120, model.getY(third), DELTA);
+   }
+
+   /**
+    * Test that the Nodes which are part of a cycle are reported.
+    */
+   @Test
+   public void testCycle() {
+      System.out.println("AnchorSolverTest : testCycle");
+      AnchorModel model = new AnchorModel();
+      int first = model.addNode(0, 0, 100, 50);
+      int second = model.addNode(0, 0, 100, 50);
+      int third = model.addNode(0, 0, 100, 50);
+      model.anchor(first, AnchorPosition.TOP, second, AnchorPosition.BOTTOM);
+      model.anchor(second, AnchorPosition.TOP, first, AnchorPosition.BOTTOM);
+      model.anchor(third, AnchorPosition.TOP, second, AnchorPosition.BOTTOM);
+
+      assertEquals("Unordered Nodes", 3, new AnchorSolver().solve(model));
+   }
+
+   /**
+    * Test of the replacement and removal of anchors.
+    */
+   @Test
+   public void testReplaceAndRemove() {
+      System.out.println("AnchorSolverTest : testReplaceAndRemove");
+      AnchorModel model = new AnchorModel();
+      int ref = model.addNode(200, 100, 100, 100);
+      int node = model.addNode(0, 0, 70, 70);
+      model.anchor(node, AnchorPosition.LEFT, ref, AnchorPosition.LEFT);
+      model.anchor(node, AnchorPosition.LEFT, ref, AnchorPosition.RIGHT);
+      assertEquals("Constraints", 1, model.getConstraintCount());
+      assertEquals("Reference anchor", AnchorPosition.RIGHT, model.getReferenceAnchor(node, AnchorPosition.LEFT));
+
+      model.removeAnchor(node, AnchorPosition.LEFT);
+      assertEquals("Constraints", 0, model.getConstraintCount());
+      assertEquals("Reference", -1, model.getReference(node, AnchorPosition.LEFT));
+      assertEquals("Computed values", 0, new AnchorSolver().solveNode(model, node));
+   }
+
+   /**
+    * Test that incompatible anchors are rejected.
+    */
+   @Test(expected = IllegalArgumentException.class)
+   public void testIncompatibleAnchors() {
+      System.out.println("AnchorSolverTest : testIncompatibleAnchors");
+      AnchorModel model = new AnchorModel();
+      int ref = model.addNode();
+      int node = model.addNode();
+      model.anchor(node, AnchorPosition.LEFT, ref, AnchorPosition.TOP);
+   }
+
+   /**
+    * Test of a chain of 100000 constraints.
+    */
+   @Test
+   public void testLargeChain() {
+      System.out.println("AnchorSolverTest : testLargeChain");
+      int count = 100000;
+      AnchorModel model = new AnchorModel();
+      // the Nodes are added from the end of the chain
+      for (int i = 0; i <= count; i++) {
+         model.addNode(0, 0, 10, 5);
+      }
+      for (int i = 0; i < count; i++) {
+         model.anchor(i, AnchorPosition.LEFT, i + 1, AnchorPosition.RIGHT);
+      }
+      assertEquals("Constraints", count, model.getConstraintCount());
+
+      assertEquals("Unordered Nodes", 0, new AnchorSolver().solve(model));
+      assertEquals("Last Node position", count * 10, model.getX(0), DELTA);
+   }
+}
@@ -0,0 +1,272 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.javafx.anchor.AnchorPosition;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the CompiledAnchorLayout class.
+ *
+ * @since 0.2
+ */
+public class CompiledAnchorLayoutTest {
+   private static final double DELTA = 0.0001d;
+
+   public CompiledAnchorLayoutTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   /**
+    * Create a model with a root and Nodes anchored to the root and to each other with random anchors.
+    */
+   private static AnchorModel createModel(int count, long seed) {
+      Random random = new Random(seed);
+      AnchorPosition[] positions = AnchorPosition.values();
+      AnchorModel model = new AnchorModel();
+      model.addNode(0, 0, 1000, 800);
+      for (int i = 1; i < count; i++) {
+         model.addNode(random.nextInt(50), random.nextInt(50), 10 + random.nextInt(20), 5 + random.nextInt(10));
+      }
+      for (int node = 1; node < count; node++) {
+         for (AnchorPosition position : positions) {
+            if (random.nextInt(3) == 0) {
+               continue;
+            }
+            int ref = random.nextInt(node);
+            boolean horizontal = position == AnchorPosition.LEFT || position == AnchorPosition.RIGHT;
+            AnchorPosition refAnchor = horizontal ? positions[random.nextInt(2)] : positions[2 + random.nextInt(2)];
+            if (ref == 0) {
+               model.anchorInParent(node, position, ref, refAnchor);
+            } else {
+               model.anchor(node, position, ref, refAnchor);
+            }
+         }
+      }
+      return model;
+   }
+
+   private static AnchorModel copy(AnchorModel model) {
+      AnchorModel copy = new AnchorModel();
+      for (int i = 0; i < model.getNodeCount(); i++) {
+         copy.addNode(model.getX(i), model.getY(i), model.getWidth(i), model.getHeight(i));
+      }
+      for (int i = 0; i < model.getNodeCount(); i++) {
+         for (AnchorPosition position : AnchorPosition.values()) {
+            int ref = model.getReference(i, position);
+            if (ref == AnchorModel.NONE) {
+               continue;
+            }
+            AnchorPosition refAnchor = model.getReferenceAnchor(i, position);
+            if (model.isParentAnchor(i, position)) {
+               copy.anchorInParent(i, position, ref, refAnchor);
+            } else {
+               copy.anchor(i, position, ref, refAnchor);
+            }
+         }
+      }
+      return copy;
+   }
+
+   private static void assertSameGeometry(AnchorModel expected, AnchorModel actual) {
+      assertEquals("Nodes", expected.getNodeCount(), actual.getNodeCount());
+      for (int i = 0; i < expected.getNodeCount(); i++) {
+         assertEquals("X of " + i, expected.getX(i), actual.getX(i), DELTA);
+         assertEquals("Y of " + i, expected.getY(i), actual.getY(i), DELTA);
+         assertEquals("Width of " + i, expected.getWidth(i), actual.getWidth(i), DELTA);
+         assertEquals("Height of " + i, expected.getHeight(i), actual.getHeight(i), DELTA);
+      }
+   }
+
+   /**
+    * Test that the compiled layout has the same result as the AnchorSolver.
+    */
+   @Test
+   public void testSameAsSolver() {
+      System.out.println("CompiledAnchorLayoutTest : testSameAsSolver");
+      for (long seed = 0; seed < 20; seed++) {
+         AnchorModel expected = createModel(200, seed);
+         AnchorModel actual = copy(expected);
+         new AnchorSolver().solve(expected);
+         CompiledAnchorLayout layout = CompiledAnchorLayout.compile(actual);
+         assertEquals("Nodes", 200, layout.getNodeCount());
+         assertTrue("Matches", layout.matches(actual));
+         layout.apply(actual);
+         assertSameGeometry(expected, actual);
+
+         // apply again after a change of the root, with the same buffer
+         expected.setWidth(0, 1200);
+         actual.setWidth(0, 1200);
+         new AnchorSolver().solve(expected);
+         double[] buffer = layout.apply(actual, null);
+         assertSame("Buffer", buffer, layout.apply(actual, buffer));
+         assertSameGeometry(expected, actual);
+      }
+   }
+
+   /**
+    * Test that the Nodes of a cycle are solved like with the AnchorSolver.
+    */
+   @Test
+   public void testCycle() {
+      System.out.println("CompiledAnchorLayoutTest : testCycle");
+      AnchorModel expected = new AnchorModel();
+      int ref = expected.addNode(10, 10, 50, 50);
+      int node1 = expected.addNode(0, 0, 10, 10);
+      int node2 = expected.addNode(0, 0, 20, 20);
+      int node3 = expected.addNode(0, 0, 30, 30);
+      expected.anchor(node1, AnchorPosition.LEFT, node2, AnchorPosition.RIGHT);
+      expected.anchor(node2, AnchorPosition.LEFT, node1, AnchorPosition.RIGHT);
+      expected.anchor(node3, AnchorPosition.TOP, node1, AnchorPosition.BOTTOM);
+      expected.anchor(node2, AnchorPosition.TOP, ref, AnchorPosition.TOP);
+      AnchorModel actual = copy(expected);
+
+      int unordered = new AnchorSolver().solve(expected);
+      CompiledAnchorLayout layout = CompiledAnchorLayout.compile(actual);
+      assertEquals("Unordered Nodes", unordered, layout.getUnorderedCount());
+      assertEquals("Unordered Nodes", 3, layout.getUnorderedCount());
+      layout.apply(actual);
+      assertSameGeometry(expected, actual);
+   }
+
+   /**
+    * Test the instructions and the match of a model after a change of its anchors.
+    */
+   @Test
+   public void testMatches() {
+      System.out.println("CompiledAnchorLayoutTest : testMatches");
+      AnchorModel model = new AnchorModel();
+      int root = model.addNode(0, 0, 100, 100);
+      int node1 = model.addNode(0, 0, 10, 10);
+      int node2 = model.addNode(0, 0, 10, 10);
+      model.anchorInParent(node1, AnchorPosition.LEFT, root, AnchorPosition.LEFT);
+      model.anchorInParent(node1, AnchorPosition.RIGHT, root, AnchorPosition.RIGHT);
+      model.anchor(node2, AnchorPosition.TOP, node1, AnchorPosition.BOTTOM);
+
+      CompiledAnchorLayout layout = CompiledAnchorLayout.compile(model);
+      // node1 x and width, node1 y and height from the Pane, node2 y, node2 x and width from node1
+      assertEquals("Instructions", 4, layout.getInstructionCount());
+      assertEquals("Buffer size", 13, layout.getBufferSize());
+      assertTrue("Matches", layout.matches(model));
+      layout.apply(model);
+      assertEquals("Node1 width", 100, model.getWidth(node1), DELTA);
+      assertEquals("Node2 y", 100, model.getY(node2), DELTA);
+      assertEquals("Node1 height", 100, model.getHeight(node1), DELTA);
+      assertEquals("Node2 width", 100, model.getWidth(node2), DELTA);
+
+      model.anchor(node2, AnchorPosition.LEFT, node1, AnchorPosition.LEFT);
+      assertFalse("Matches", layout.matches(model));
+      model.addNode();
+      assertFalse("Matches", layout.matches(model));
+      try {
+         layout.apply(model);
+         fail("The model has more Nodes than the compiled model");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   /**
+    * Test that the generated source code computes the same geometry as the compiled layout.
+    */
+   @Test
+   public void testWriteSource() throws Exception {
+      System.out.println("CompiledAnchorLayoutTest : testWriteSource");
+      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      Assume.assumeNotNull(compiler);
+      AnchorModel model = createModel(1500, 7);
+      CompiledAnchorLayout layout = CompiledAnchorLayout.compile(model);
+      assertTrue("Several methods", layout.getInstructionCount() > 1000);
+
+      File dir = Files.createTempDirectory("compiledlayout").toFile();
+      File packageDir = new File(dir, "generated");
+      assertTrue(packageDir.mkdir());
+      File source = new File(packageDir, "TestLayout.java");
+      try (Writer writer = new FileWriter(source)) {
+         layout.writeSource(writer, "generated", "TestLayout");
+      }
+      assertEquals("Compilation", 0, compiler.run(null, null, null, source.getPath()));
+
+      double[] geometry = Arrays.copyOf(model.getGeometry(), model.getNodeCount() * AnchorModel.STRIDE);
+      double[] expected = layout.apply(model, null);
+      try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() })) {
+         Method method = loader.loadClass("generated.TestLayout").getMethod("layout", double[].class);
+         method.invoke(null, (Object) geometry);
+      }
+      for (int i = 0; i < geometry.length; i++) {
+         assertEquals("Value " + i, expected[i], geometry[i], DELTA);
+      }
+      delete(dir);
+   }
+
+   private static void delete(File file) throws IOException {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            delete(child);
+         }
+      }
+      Files.delete(file.toPath());
+   }
+}
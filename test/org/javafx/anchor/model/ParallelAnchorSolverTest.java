@@ -0,0 +1,205 @@
+/*
+Copyright (c) 2018, Herve Girod
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+The views and conclusions contained in the software and documentation are those
+of the authors and should not be interpreted as representing official policies,
+either expressed or implied, of the FreeBSD Project.
+
+Alternatively if you have any questions about this project, you can visit
+the project website at the project page on https://github.com/hervegirod/jfxdockingframework
+ */
+package org.javafx.anchor.model;
+
+import static org.junit.Assert.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.javafx.anchor.AnchorPosition;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ParallelAnchorSolver class.
+ *
+ * @since 0.2
+ */
+public class ParallelAnchorSolverTest {
+   private static final double DELTA = 0.0001d;
+   private static ForkJoinPool pool = null;
+
+   public ParallelAnchorSolverTest() {
+   }
+
+   @BeforeClass
+   public static void setUpClass() {
+      pool = new ForkJoinPool(4);
+   }
+
+   @AfterClass
+   public static void tearDownClass() {
+      pool.shutdown();
+   }
+
+   @Before
+   public void setUp() {
+   }
+
+   @After
+   public void tearDown() {
+   }
+
+   /**
+    * Create a model with a workspace root and several panels. Each panel has a root anchored to the workspace root,
+    * and widgets anchored to the root of the panel and to each other, in a random order.
+    */
+   private static AnchorModel createWorkspace(int panels, int widgets, long seed) {
+      Random random = new Random(seed);
+      AnchorModel model = new AnchorModel();
+      int workspace = model.addNode(0, 0, 1000, 800);
+      for (int panel = 0; panel < panels; panel++) {
+         int root = model.addNode(0, 0, 100, 100);
+         model.anchor(root, AnchorPosition.LEFT, workspace, AnchorPosition.LEFT);
+         model.anchor(root, AnchorPosition.TOP, workspace, AnchorPosition.TOP);
+         int first = model.getNodeCount();
+         for (int i = 0; i < widgets; i++) {
+            model.addNode(0, 0, 10 + random.nextInt(20), 5 + random.nextInt(10));
+         }
+         for (int i = 0; i < widgets; i++) {
+            int node = first + i;
+            // the references are chosen among the other widgets of the panel, which can have a higher index
+            int ref = i == 0 || random.nextInt(4) == 0 ? root : first + random.nextInt(widgets);
+            if (ref == node) {
+               ref = root;
+            }
+            model.anchor(node, AnchorPosition.LEFT, ref, AnchorPosition.RIGHT);
+            model.anchor(node, AnchorPosition.TOP, ref, AnchorPosition.BOTTOM);
+         }
+      }
+      return model;
+   }
+
+   private static void assertSameGeometry(AnchorModel expected, AnchorModel actual) {
+      assertEquals("Nodes", expected.getNodeCount(), actual.getNodeCount());
+      for (int i = 0; i < expected.getNodeCount(); i++) {
+         assertEquals("X of " + i, expected.getX(i), actual.getX(i), DELTA);
+         assertEquals("Y of " + i, expected.getY(i), actual.getY(i), DELTA);
+         assertEquals("Width of " + i, expected.getWidth(i), actual.getWidth(i), DELTA);
+         assertEquals("Height of " + i, expected.getHeight(i), actual.getHeight(i), DELTA);
+      }
+   }
+
+   /**
+    * Test that the components are solved in parallel with the same result as the AnchorSolver.
+    */
+   @Test
+   public void testSameAsSerial() {
+      System.out.println("ParallelAnchorSolverTest : testSameAsSerial");
+      AnchorModel expected = createWorkspace(50, 200, 1);
+      AnchorModel actual = createWorkspace(50, 200, 1);
+      int serialUnordered = new AnchorSolver().solve(expected);
+
+      ParallelAnchorSolver solver = new ParallelAnchorSolver(pool);
+      solver.setThreshold(0);
+      assertEquals("Unordered Nodes", serialUnordered, solver.solve(actual));
+      assertTrue("Components", solver.getComponentCount() >= 50);
+      assertSameGeometry(expected, actual);
+
+      // solve again after a change of the workspace root, with the same buffers
+      expected.setWidth(0, 1200);
+      actual.setWidth(0, 1200);
+      new AnchorSolver().solve(expected);
+      solver.solve(actual);
+      assertSameGeometry(expected, actual);
+   }
+
+   /**
+    * Test the components of Nodes anchored to the same Node which has no anchor.
+    */
+   @Test
+   public void testComponents() {
+      System.out.println("ParallelAnchorSolverTest : testComponents");
+      AnchorModel model = new AnchorModel();
+      int root = model.addNode(0, 0, 100, 100);
+      int node1 = model.addNode(0, 0, 10, 10);
+      int node2 = model.addNode(0, 0, 10, 10);
+      int node3 = model.addNode(0, 0, 10, 10);
+      model.anchor(node1, AnchorPosition.LEFT, root, AnchorPosition.RIGHT);
+      model.anchor(node2, AnchorPosition.TOP, root, AnchorPosition.BOTTOM);
+      model.anchor(node3, AnchorPosition.LEFT, node2, AnchorPosition.RIGHT);
+
+      ParallelAnchorSolver solver = new ParallelAnchorSolver(pool);
+      solver.setThreshold(0);
+      assertEquals("Unordered Nodes", 0, solver.solve(model));
+      assertEquals("Components", 2, solver.getComponentCount());
+      assertEquals("Node1 x", 100, model.getX(node1), DELTA);
+      assertEquals("Node2 y", 100, model.getY(node2), DELTA);
+      assertEquals("Node3 x", 100, model.getX(node3), DELTA);
+      assertEquals("Node3 y", 100, model.getY(node3), DELTA);
+   }
+
+   /**
+    * Test that the Nodes of a cycle are solved like with the AnchorSolver.
+    */
+   @Test
+   public void testCycle() {
+      System.out.println("ParallelAnchorSolverTest : testCycle");
+      AnchorModel[] models = new AnchorModel[2];
+      for (int i = 0; i < models.length; i++) {
+         AnchorModel model = new AnchorModel();
+         int ref = model.addNode(10, 10, 50, 50);
+         int node1 = model.addNode(0, 0, 10, 10);
+         int node2 = model.addNode(0, 0, 20, 20);
+         int node3 = model.addNode(0, 0, 30, 30);
+         model.anchor(node1, AnchorPosition.LEFT, node2, AnchorPosition.RIGHT);
+         model.anchor(node2, AnchorPosition.LEFT, node1, AnchorPosition.RIGHT);
+         model.anchor(node3, AnchorPosition.TOP, node1, AnchorPosition.BOTTOM);
+         model.anchor(node2, AnchorPosition.TOP, ref, AnchorPosition.TOP);
+         models[i] = model;
+      }
+      int expected = new AnchorSolver().solve(models[0]);
+      ParallelAnchorSolver solver = new ParallelAnchorSolver(pool);
+      solver.setThreshold(0);
+      assertEquals("Unordered Nodes", expected, solver.solve(models[1]));
+      assertEquals("Unordered Nodes", 3, expected);
+      assertSameGeometry(models[0], models[1]);
+   }
+
+   /**
+    * Test that a model smaller than the threshold is solved on the calling thread.
+    */
+   @Test
+   public void testThreshold() {
+      System.out.println("ParallelAnchorSolverTest : testThreshold");
+      AnchorModel expected = createWorkspace(2, 10, 2);
+      AnchorModel actual = createWorkspace(2, 10, 2);
+      new AnchorSolver().solve(expected);
+      ParallelAnchorSolver solver = new ParallelAnchorSolver(pool);
+      assertEquals("Threshold", ParallelAnchorSolver.DEFAULT_THRESHOLD, solver.getThreshold());
+      solver.solve(actual);
+      assertEquals("Components", 0, solver.getComponentCount());
+      assertSameGeometry(expected, actual);
+   }
+}